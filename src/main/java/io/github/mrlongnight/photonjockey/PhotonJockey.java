@@ -39,6 +39,7 @@ public class PhotonJockey {
         final var config = new PJConfig();
 
         final var audioReader = new PJAudioReader(config, taskOrchestrator);
+        audioReader.applyConfiguredProfile();
         final var hueManager = new PJHueManager(config, taskOrchestrator);
 
         // enter swing UI
@@ -0,0 +1,18 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+/**
+ * Floating point precision used for the sample and spectrum buffers of an analysis pipeline.
+ */
+public enum AnalysisPrecision {
+
+    /**
+     * 64-bit buffers, see {@link FFTProcessor}.
+     */
+    DOUBLE,
+
+    /**
+     * 32-bit buffers, see {@link FloatFFTProcessor}. Halves memory bandwidth and cache footprint,
+     * the precision is still well above what 16-bit PCM input provides.
+     */
+    FLOAT
+}
@@ -1,25 +1,89 @@
 package io.github.mrlongnight.photonjockey.audio;
 
+import java.util.Arrays;
+
 /**
- * Represents the result of analyzing an audio frame.
+ * Represents the result of analyzing an audio frame. Immutable, analyzers that extract the full set of
+ * {@link AudioFeatures} into a reused instance hand out a snapshot of it, see {@link #AnalysisResult(AudioFeatures)}.
  */
 public class AnalysisResult {
 
+    private static final double[] NO_BAND_ENERGIES = new double[BeatBand.SPLIT_BANDS.length];
+
     private final double frequency;
     private final double amplitude;
     private final double energy;
+    private final double spectralFlux;
+    private final boolean onset;
+
+    private final double zeroCrossingRate;
+    private final double crestFactor;
+    private final double spectralCentroid;
+    private final double[] bandEnergies;
+    private final double momentaryLoudness;
+    private final double shortTermLoudness;
 
     /**
-     * Creates a new AnalysisResult.
+     * Creates a new AnalysisResult without onset information.
      *
      * @param frequency the dominant frequency detected
      * @param amplitude the amplitude level
      * @param energy    the energy level
      */
     public AnalysisResult(double frequency, double amplitude, double energy) {
+        this(frequency, amplitude, energy, 0.0, false);
+    }
+
+    /**
+     * Creates a new AnalysisResult.
+     *
+     * @param frequency    the dominant frequency detected
+     * @param amplitude    the amplitude level
+     * @param energy       the energy level
+     * @param spectralFlux the spectral flux compared to the previous frame
+     * @param onset        whether an onset was detected in this frame
+     */
+    public AnalysisResult(double frequency, double amplitude, double energy, double spectralFlux, boolean onset) {
         this.frequency = frequency;
         this.amplitude = amplitude;
         this.energy = energy;
+        this.spectralFlux = spectralFlux;
+        this.onset = onset;
+        this.zeroCrossingRate = 0.0;
+        this.crestFactor = energy > 0.0 ? amplitude / energy : 0.0;
+        this.spectralCentroid = 0.0;
+        this.bandEnergies = NO_BAND_ENERGIES;
+        this.momentaryLoudness = LoudnessMeter.MIN_LOUDNESS;
+        this.shortTermLoudness = LoudnessMeter.MIN_LOUDNESS;
+    }
+
+    /**
+     * Creates a snapshot of the given features without onset information.
+     *
+     * @param features features of the frame, may be reused after this returns
+     */
+    public AnalysisResult(AudioFeatures features) {
+        this(features, false);
+    }
+
+    /**
+     * Creates a snapshot of the given features.
+     *
+     * @param features features of the frame, may be reused after this returns
+     * @param onset    whether an onset was detected in this frame
+     */
+    public AnalysisResult(AudioFeatures features, boolean onset) {
+        this.frequency = features.dominantFrequency;
+        this.amplitude = features.peak;
+        this.energy = features.rms;
+        this.spectralFlux = features.spectralFlux;
+        this.onset = onset;
+        this.zeroCrossingRate = features.zeroCrossingRate;
+        this.crestFactor = features.crestFactor;
+        this.spectralCentroid = features.spectralCentroid;
+        this.bandEnergies = Arrays.copyOf(features.bandEnergies, features.bandEnergies.length);
+        this.momentaryLoudness = features.momentaryLoudness;
+        this.shortTermLoudness = features.shortTermLoudness;
     }
 
     /**
@@ -48,4 +112,80 @@ public class AnalysisResult {
     public double getEnergy() {
         return energy;
     }
+
+    /**
+     * Gets the spectral flux, only set by analyzers that track onsets.
+     *
+     * @return the spectral flux, 0 if not computed
+     */
+    public double getSpectralFlux() {
+        return spectralFlux;
+    }
+
+    /**
+     * Checks whether an onset was detected, only set by analyzers that track onsets.
+     *
+     * @return true if this frame contains an onset
+     */
+    public boolean isOnset() {
+        return onset;
+    }
+
+    /**
+     * Gets the zero-crossing rate, see {@link AudioFeatures#getZeroCrossingRate()}.
+     *
+     * @return the zero-crossing rate, 0 if not computed
+     */
+    public double getZeroCrossingRate() {
+        return zeroCrossingRate;
+    }
+
+    /**
+     * Gets the crest factor, the amplitude divided by the energy.
+     *
+     * @return the crest factor, 0 for silence
+     */
+    public double getCrestFactor() {
+        return crestFactor;
+    }
+
+    /**
+     * Gets the spectral centroid, see {@link AudioFeatures#getSpectralCentroid()}.
+     *
+     * @return the spectral centroid in Hz, 0 if not computed
+     */
+    public double getSpectralCentroid() {
+        return spectralCentroid;
+    }
+
+    /**
+     * Gets the energy of a frequency band, see {@link AudioFeatures#getBandEnergy(BeatBand)}.
+     *
+     * @param band the band to get the energy of
+     * @return the band energy, 0 if not computed
+     */
+    public double getBandEnergy(BeatBand band) {
+        if (band == BeatBand.FULL) {
+            return energy;
+        }
+        return bandEnergies[AudioFeatures.bandIndex(band)];
+    }
+
+    /**
+     * Gets the momentary loudness, see {@link AudioFeatures#getMomentaryLoudness()}.
+     *
+     * @return the loudness of the last 400 ms in LUFS, {@link LoudnessMeter#MIN_LOUDNESS} if not computed
+     */
+    public double getMomentaryLoudness() {
+        return momentaryLoudness;
+    }
+
+    /**
+     * Gets the short-term loudness, see {@link AudioFeatures#getShortTermLoudness()}.
+     *
+     * @return the loudness of the last 3 s in LUFS, {@link LoudnessMeter#MIN_LOUDNESS} if not computed
+     */
+    public double getShortTermLoudness() {
+        return shortTermLoudness;
+    }
 }
@@ -0,0 +1,212 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+import io.github.mrlongnight.photonjockey.audio.device.PcmDecoder;
+import io.github.mrlongnight.photonjockey.audio.filter.AudioFilter;
+import io.github.mrlongnight.photonjockey.audio.filter.FilterBank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns raw PCM chunks of any format supported by {@link PcmDecoder} into the amplitude (RMS) values that are
+ * interpreted by {@link BeatInterpreter}.
+ * The energies of the {@link BeatBand#SPLIT_BANDS} are computed in the same pass over the samples.
+ * All buffers and filters are created once per format and chunk size, so processing a chunk
+ * does not allocate in steady state. Filters are streaming IIR filters that keep their state from one
+ * chunk to the next. Not thread safe, meant to be owned by the analysis thread.
+ * <p>
+ * Chunks are the hops of a sliding analysis window that spans a whole number of hops. Every sample is only
+ * filtered once, the sums of squares of the last hops are kept, so the RMS is taken over the whole window.
+ * This allows short hops for a low detection latency without the RMS of a few milliseconds becoming noisy.
+ * <p>
+ * The bass low-pass and the bands low enough for it run on a decimated copy of the signal, see
+ * {@link LowFrequencyBranch}, only the higher bands are filtered at the full sample rate.
+ */
+class AudioChunkProcessor {
+
+    private static final double BASS_CUTOFF_HZ = 200.0;
+
+    private final PcmDecoder decoder;
+    private final double[] samples;
+
+    private final LowFrequencyBranch lowFrequencyBranch;
+    private boolean bassFilterActive;
+
+    /**
+     * Indices into {@link BeatBand#SPLIT_BANDS} of the bands filtered at the full and at the decimated rate.
+     */
+    private final int[] fullRateBands;
+    private final int[] lowRateBands;
+    private final FilterBank fullRateFilters;
+    private final double[] fullRateEnergies;
+    private final double[] bandEnergies;
+
+    /**
+     * Sums of squares of the last hops, broadband in the last column, indexed by hop first.
+     */
+    private final double[][] hopSumsOfSquares;
+    private int hopIndex;
+    private int hopCount;
+
+
+    /**
+     * Creates a processor without overlap, every chunk is analyzed on its own.
+     *
+     * @param format          format of the chunks that will be processed
+     * @param samplesPerChunk amount of frames contained in a single chunk
+     */
+    AudioChunkProcessor(PJAudioFormat format, int samplesPerChunk) {
+        this(format, samplesPerChunk, 1);
+    }
+
+    /**
+     * @param format          format of the chunks that will be processed
+     * @param samplesPerChunk amount of frames contained in a single chunk (hop), channels are downmixed
+     * @param windowChunks    amount of chunks the analysis window spans
+     */
+    AudioChunkProcessor(PJAudioFormat format, int samplesPerChunk, int windowChunks) {
+        if (samplesPerChunk <= 0 || windowChunks <= 0) {
+            throw new IllegalArgumentException("Chunk size and window length must be positive");
+        }
+
+        this.decoder = PcmDecoder.forFormat(format);
+        this.samples = new double[samplesPerChunk];
+
+        List<BeatBand> lowBands = new ArrayList<>();
+        List<AudioFilter> fullRateFilters = new ArrayList<>();
+        int[] fullRateBands = new int[BeatBand.SPLIT_BANDS.length];
+        int[] lowRateBands = new int[BeatBand.SPLIT_BANDS.length];
+        for (int i = 0; i < BeatBand.SPLIT_BANDS.length; i++) {
+            BeatBand band = BeatBand.SPLIT_BANDS[i];
+            if (LowFrequencyBranch.covers(band, format.sampleRate())) {
+                lowRateBands[lowBands.size()] = i;
+                lowBands.add(band);
+            } else {
+                fullRateBands[fullRateFilters.size()] = i;
+                fullRateFilters.add(band.createFilter(format.sampleRate()));
+            }
+        }
+        this.lowFrequencyBranch = new LowFrequencyBranch(format.sampleRate(), samplesPerChunk, lowBands,
+                BASS_CUTOFF_HZ);
+        this.lowRateBands = Arrays.copyOf(lowRateBands, lowBands.size());
+        this.fullRateBands = Arrays.copyOf(fullRateBands, fullRateFilters.size());
+        this.fullRateFilters = fullRateFilters.isEmpty() ? null : new FilterBank(fullRateFilters);
+        this.fullRateEnergies = new double[fullRateFilters.size()];
+        this.bandEnergies = new double[BeatBand.SPLIT_BANDS.length];
+        this.hopSumsOfSquares = new double[windowChunks][bandEnergies.length + 1];
+    }
+
+    /**
+     * Decodes the chunk and computes the RMS amplitude and the band energies of the window ending with it,
+     * see {@link #getBandEnergies()}.
+     *
+     * @param chunk    raw PCM data, must contain at least one full chunk
+     * @param bassOnly whether frequencies above the bass cutoff should be removed before computing the RMS,
+     *                 done with a streaming low-pass over the decimated samples
+     * @return normalized RMS amplitude of the window
+     */
+    double process(byte[] chunk, boolean bassOnly) {
+        if (bassOnly != bassFilterActive) {
+            // filter state from before the mode was switched is stale
+            lowFrequencyBranch.resetBassFilter();
+            bassFilterActive = bassOnly;
+            // the sums of the window were taken from the other signal
+            clearWindow();
+        }
+
+        decode(chunk);
+
+        double sumOfSquares = 0d;
+        for (int i = 0; i < samples.length; i++) {
+            double sample = samples[i];
+            if (fullRateFilters != null) {
+                fullRateFilters.processSample(sample);
+            }
+            sumOfSquares += sample * sample;
+        }
+        if (fullRateFilters != null) {
+            fullRateFilters.collectEnergies(samples.length, fullRateEnergies);
+        }
+        lowFrequencyBranch.process(samples, samples.length, bassOnly);
+        collectBandEnergies();
+
+        if (bassOnly) {
+            // the branch's RMS is a mean over the decimated samples, scaled to this chunk's length
+            double bassRms = lowFrequencyBranch.getBassRms();
+            sumOfSquares = bassRms * bassRms * samples.length;
+        }
+
+        if (hopSumsOfSquares.length == 1) {
+            return Math.sqrt(sumOfSquares / samples.length);
+        }
+        return slideWindow(sumOfSquares);
+    }
+
+    private void collectBandEnergies() {
+        for (int i = 0; i < fullRateBands.length; i++) {
+            bandEnergies[fullRateBands[i]] = fullRateEnergies[i];
+        }
+        double[] lowRateEnergies = lowFrequencyBranch.getBandEnergies();
+        for (int i = 0; i < lowRateBands.length; i++) {
+            bandEnergies[lowRateBands[i]] = lowRateEnergies[i];
+        }
+    }
+
+    /**
+     * Replaces the oldest hop of the window with the current one and turns the hop energies into window energies.
+     */
+    private double slideWindow(double sumOfSquares) {
+        int bandCount = bandEnergies.length;
+        double[] hop = hopSumsOfSquares[hopIndex];
+        for (int band = 0; band < bandCount; band++) {
+            hop[band] = bandEnergies[band] * bandEnergies[band] * samples.length;
+        }
+        hop[bandCount] = sumOfSquares;
+        hopIndex = (hopIndex + 1) % hopSumsOfSquares.length;
+        hopCount = Math.min(hopCount + 1, hopSumsOfSquares.length);
+
+        // summed from scratch, the window only spans a handful of hops and this avoids drift
+        int windowSamples = hopCount * samples.length;
+        for (int band = 0; band < bandCount; band++) {
+            bandEnergies[band] = Math.sqrt(sumOfHops(band) / windowSamples);
+        }
+        return Math.sqrt(sumOfHops(bandCount) / windowSamples);
+    }
+
+    private void clearWindow() {
+        for (double[] hop : hopSumsOfSquares) {
+            Arrays.fill(hop, 0d);
+        }
+        hopIndex = 0;
+        hopCount = 0;
+    }
+
+    private double sumOfHops(int column) {
+        double sum = 0d;
+        for (int i = 0; i < hopCount; i++) {
+            sum += hopSumsOfSquares[i][column];
+        }
+        return sum;
+    }
+
+    private void decode(byte[] chunk) {
+        decoder.decode(chunk, 0, samples, 0, samples.length);
+    }
+
+    /**
+     * @return RMS energies of the last processed chunk per band, in the order of {@link BeatBand#SPLIT_BANDS},
+     * always computed from the unfiltered signal. The array is reused for the next chunk
+     */
+    double[] getBandEnergies() {
+        return bandEnergies;
+    }
+
+    /**
+     * @return the decoded samples of the last processed chunk, the array is reused for the next chunk
+     */
+    double[] getSamples() {
+        return samples;
+    }
+}
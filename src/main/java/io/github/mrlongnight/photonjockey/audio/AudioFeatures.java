@@ -0,0 +1,106 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+/**
+ * Mutable set of features of a single audio frame, filled by a {@link FeatureExtractor}.
+ * An instance is meant to be reused for every frame of a stream, so extracting features does not allocate.
+ * Consumers that need to keep the values past the next frame take an {@link AnalysisResult} snapshot via
+ * {@link AnalysisResult#AnalysisResult(AudioFeatures)}.
+ */
+public class AudioFeatures {
+
+    double rms;
+    double peak;
+    double zeroCrossingRate;
+    double crestFactor;
+
+    double dominantFrequency;
+    double spectralCentroid;
+    double spectralFlux;
+    final double[] bandEnergies = new double[BeatBand.SPLIT_BANDS.length];
+
+    double momentaryLoudness = LoudnessMeter.MIN_LOUDNESS;
+    double shortTermLoudness = LoudnessMeter.MIN_LOUDNESS;
+
+
+    /**
+     * @return RMS of the samples
+     */
+    public double getRms() {
+        return rms;
+    }
+
+    /**
+     * @return maximum absolute sample value
+     */
+    public double getPeak() {
+        return peak;
+    }
+
+    /**
+     * @return fraction of consecutive samples with a sign change, between 0 and 1
+     */
+    public double getZeroCrossingRate() {
+        return zeroCrossingRate;
+    }
+
+    /**
+     * @return peak divided by RMS, 0 for silence
+     */
+    public double getCrestFactor() {
+        return crestFactor;
+    }
+
+    /**
+     * @return frequency of the strongest spectrum bin in Hz
+     */
+    public double getDominantFrequency() {
+        return dominantFrequency;
+    }
+
+    /**
+     * @return magnitude weighted mean frequency of the spectrum in Hz, 0 for silence
+     */
+    public double getSpectralCentroid() {
+        return spectralCentroid;
+    }
+
+    /**
+     * @return mean magnitude increase per bin compared to the previous spectrum
+     */
+    public double getSpectralFlux() {
+        return spectralFlux;
+    }
+
+    /**
+     * @return loudness of the last 400 ms in LUFS, see {@link LoudnessMeter#getMomentaryLoudness()}
+     */
+    public double getMomentaryLoudness() {
+        return momentaryLoudness;
+    }
+
+    /**
+     * @return loudness of the last 3 s in LUFS, see {@link LoudnessMeter#getShortTermLoudness()}
+     */
+    public double getShortTermLoudness() {
+        return shortTermLoudness;
+    }
+
+    /**
+     * @param band band to get the energy of
+     * @return RMS of the normalized spectrum magnitudes within the band, the overall RMS for {@link BeatBand#FULL}
+     */
+    public double getBandEnergy(BeatBand band) {
+        if (band == BeatBand.FULL) {
+            return rms;
+        }
+        return bandEnergies[bandIndex(band)];
+    }
+
+    /**
+     * @return index of the band in {@link BeatBand#SPLIT_BANDS}
+     */
+    static int bandIndex(BeatBand band) {
+        // SPLIT_BANDS follows the declaration order, directly after FULL
+        return band.ordinal() - 1;
+    }
+}
@@ -1,17 +1,42 @@
 package io.github.mrlongnight.photonjockey.audio;
 
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+import io.github.mrlongnight.photonjockey.audio.device.PcmDecoder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a frame of audio data with associated metadata.
+ * <p>
+ * The data is held in a read-only {@link ByteBuffer} and is read through the typed sample accessors, which don't
+ * copy. Samples are interleaved by channel and 16-bit signed little-endian, unless the frame was created for a
+ * {@link PJAudioFormat}. Either way they are decoded by a {@link PcmDecoder}. Frames handed out by an
+ * {@link AudioFramePool} are reference counted: every consumer that keeps a frame past the call it received it in
+ * must {@link #retain()} it, and every owner must {@link #release()} it once done. When the last reference is
+ * released the frame returns to its pool and must no longer be read. Frames created via the constructor are not
+ * pooled, releasing them has no effect.
  */
 public class AudioFrame {
 
-    private final byte[] data;
-    private final int sampleRate;
-    private final int channels;
-    private final long timestamp;
+    private final ByteBuffer data;
+    private final byte[] array;
+    private final AudioFramePool pool;
+    private final PcmDecoder decoder;
+    /**
+     * Decoder of the 16-bit little-endian samples of frames created without a format, for their channel count.
+     */
+    private volatile PcmDecoder defaultDecoder;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private int sampleRate;
+    private int channels;
+    private long timestamp;
 
     /**
-     * Creates a new AudioFrame.
+     * Creates a new AudioFrame holding a copy of the given data.
      *
      * @param data       the audio data
      * @param sampleRate the sample rate in Hz
@@ -19,19 +44,178 @@ public class AudioFrame {
      * @param timestamp  the timestamp of this frame in milliseconds
      */
     public AudioFrame(byte[] data, int sampleRate, int channels, long timestamp) {
-        this.data = data.clone();
+        this.array = data.clone();
+        this.data = ByteBuffer.wrap(array).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        this.pool = null;
+        this.decoder = null;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Creates a new AudioFrame holding a copy of the given data in the given format.
+     *
+     * @param data      the audio data
+     * @param format    the format of the data
+     * @param timestamp the timestamp of this frame in milliseconds
+     * @throws IllegalArgumentException if the format is not supported by {@link PcmDecoder}
+     */
+    public AudioFrame(byte[] data, PJAudioFormat format, long timestamp) {
+        this.array = data.clone();
+        this.data = ByteBuffer.wrap(array).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        this.pool = null;
+        this.decoder = PcmDecoder.forFormat(format);
+        this.sampleRate = (int) format.sampleRate();
+        this.channels = format.channels();
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Creates an empty frame owned by the given pool, see {@link AudioFramePool#acquire()}.
+     *
+     * @param decoder decoder of the pool's format, null for 16-bit little-endian samples
+     */
+    AudioFrame(AudioFramePool pool, int capacity, PcmDecoder decoder) {
+        this.array = new byte[capacity];
+        this.data = ByteBuffer.wrap(array).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        this.pool = pool;
+        this.decoder = decoder;
+    }
+
+    /**
+     * @return the array backing a pooled frame, to be filled before the frame is handed out
+     */
+    byte[] getPooledArray() {
+        return pool != null ? array : null;
+    }
+
+    /**
+     * Sets the content of a pooled frame after its array was filled.
+     */
+    void fill(int length, int sampleRate, int channels, long timestamp) {
+        data.clear().limit(length);
         this.sampleRate = sampleRate;
         this.channels = channels;
         this.timestamp = timestamp;
     }
 
     /**
-     * Gets the audio data.
+     * Starts a new life cycle of a pooled frame, with the pool as the only owner.
+     */
+    void recycle() {
+        references.set(1);
+    }
+
+    /**
+     * Gets a copy of the audio data. Prefer {@link #getBuffer()} or the sample accessors, which don't copy.
      *
      * @return the audio data as a byte array
      */
     public byte[] getData() {
-        return data.clone();
+        byte[] copy = new byte[data.limit()];
+        data.get(0, copy);
+        return copy;
+    }
+
+    /**
+     * Gets a read-only view of the audio data, positioned at the start of the frame. The samples are stored as
+     * described by {@link #getFormat()}, the buffer is set to the byte order of that format.
+     *
+     * @return read-only buffer holding the audio data
+     */
+    public ByteBuffer getBuffer() {
+        boolean littleEndian = decoder == null || decoder.getFormat().littleEndian();
+        return data.duplicate().order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @return format of the audio data, 16-bit signed little-endian unless the frame was created for a format
+     */
+    public PJAudioFormat getFormat() {
+        if (decoder != null) {
+            return decoder.getFormat();
+        }
+        return new PJAudioFormat(sampleRate, true, channels, 2);
+    }
+
+    /**
+     * @return decoder of the frame's format, for frames without one of 16-bit little-endian samples
+     */
+    private PcmDecoder decoder() {
+        if (decoder != null) {
+            return decoder;
+        }
+        PcmDecoder pcm16Decoder = defaultDecoder;
+        if (pcm16Decoder == null || pcm16Decoder.getFormat().channels() != channels) {
+            // pooled frames keep their decoder until they are filled with a different channel count
+            pcm16Decoder = PcmDecoder.forFormat(new PJAudioFormat(sampleRate, true, channels, 2));
+            defaultDecoder = pcm16Decoder;
+        }
+        return pcm16Decoder;
+    }
+
+    /**
+     * @return the length of the audio data in bytes
+     */
+    public int getByteLength() {
+        return data.limit();
+    }
+
+    /**
+     * @return the amount of samples per channel
+     */
+    public int getSampleCount() {
+        return data.limit() / decoder().getBytesPerFrame();
+    }
+
+    /**
+     * @param index   index of the sample within its channel
+     * @param channel channel of the sample
+     * @return the normalized sample between -1 and 1
+     */
+    public double getSample(int index, int channel) {
+        Objects.checkIndex(index, getSampleCount());
+        return decoder().decodeSample(array, index, Objects.checkIndex(channel, channels));
+    }
+
+    /**
+     * @param index index of the sample
+     * @return the normalized sample averaged over all channels
+     */
+    public double getMonoSample(int index) {
+        return decoder().decodeMonoSample(array, Objects.checkIndex(index, getSampleCount()));
+    }
+
+    /**
+     * Decodes all samples averaged over the channels into the given array, which is reused if it has exactly
+     * {@link #getSampleCount()} elements.
+     *
+     * @param target array to reuse, may be null
+     * @return array holding the samples
+     */
+    public double[] getMonoSamples(double[] target) {
+        int sampleCount = getSampleCount();
+        if (target == null || target.length != sampleCount) {
+            target = new double[sampleCount];
+        }
+        decoder().decode(array, 0, target, 0, sampleCount);
+        return target;
+    }
+
+    /**
+     * Single precision variant of {@link #getMonoSamples(double[])}.
+     *
+     * @param target array to reuse, may be null
+     * @return array holding the samples
+     */
+    public float[] getMonoSamples(float[] target) {
+        int sampleCount = getSampleCount();
+        if (target == null || target.length != sampleCount) {
+            target = new float[sampleCount];
+        }
+        decoder().decode(array, 0, target, 0, sampleCount);
+        return target;
     }
 
     /**
@@ -60,4 +244,38 @@ public class AudioFrame {
     public long getTimestamp() {
         return timestamp;
     }
+
+    /**
+     * Adds a reference, to be called by consumers that keep the frame past the call they received it in.
+     *
+     * @return this frame
+     */
+    public AudioFrame retain() {
+        if (references.getAndIncrement() <= 0) {
+            references.decrementAndGet();
+            throw new IllegalStateException("Frame was already released");
+        }
+        return this;
+    }
+
+    /**
+     * Removes a reference, the frame returns to its pool once the last one is released.
+     */
+    public void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Frame was released more often than retained");
+        }
+        if (remaining == 0 && pool != null) {
+            pool.recycle(this);
+        }
+    }
+
+    /**
+     * @return amount of references currently held
+     */
+    public int getReferenceCount() {
+        return references.get();
+    }
 }
@@ -0,0 +1,109 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+import io.github.mrlongnight.photonjockey.audio.device.PcmDecoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Recycles {@link AudioFrame}s of a fixed capacity, so sources can hand out a frame per read without creating
+ * garbage. A frame returns to the pool once its last reference was released, see {@link AudioFrame#release()}.
+ * If consumers hold on to more frames than the pool keeps, new frames are created and the surplus is dropped
+ * when released, so acquiring never fails or blocks. Thread safe.
+ */
+public class AudioFramePool {
+
+    private final ArrayBlockingQueue<AudioFrame> freeFrames;
+    private final int frameCapacity;
+    private final PcmDecoder decoder;
+
+
+    /**
+     * Creates a pool of frames holding 16-bit little-endian samples.
+     *
+     * @param size          amount of frames kept for reuse
+     * @param frameCapacity amount of bytes every frame can hold
+     */
+    public AudioFramePool(int size, int frameCapacity) {
+        this(size, frameCapacity, null);
+    }
+
+    /**
+     * @param size          amount of frames kept for reuse
+     * @param frameCapacity amount of bytes every frame can hold
+     * @param format        format of the frames' data, null for 16-bit little-endian samples
+     * @throws IllegalArgumentException if the format is not supported by {@link PcmDecoder}
+     */
+    public AudioFramePool(int size, int frameCapacity, PJAudioFormat format) {
+        if (size <= 0 || frameCapacity <= 0) {
+            throw new IllegalArgumentException("Pool size and frame capacity must be positive");
+        }
+
+        this.frameCapacity = frameCapacity;
+        this.decoder = format != null ? PcmDecoder.forFormat(format) : null;
+        this.freeFrames = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            freeFrames.add(new AudioFrame(this, frameCapacity, decoder));
+        }
+    }
+
+    /**
+     * Takes a frame from the pool. Its data is filled via {@link #fill(AudioFrame, int, int, int, long)} after
+     * writing it into {@link #getWritableData(AudioFrame)}, the caller holds the only reference.
+     *
+     * @return free frame
+     */
+    AudioFrame acquire() {
+        AudioFrame frame = freeFrames.poll();
+        if (frame == null) {
+            return new AudioFrame(this, frameCapacity, decoder);
+        }
+        frame.recycle();
+        return frame;
+    }
+
+    /**
+     * @param frame frame acquired from this pool that was not handed out yet
+     * @return array backing the frame, {@link #getFrameCapacity()} bytes long
+     */
+    byte[] getWritableData(AudioFrame frame) {
+        return frame.getPooledArray();
+    }
+
+    /**
+     * Sets the metadata of an acquired frame once its data was written.
+     *
+     * @param frame      frame acquired from this pool that was not handed out yet
+     * @param length     amount of bytes written, at most {@link #getFrameCapacity()}
+     * @param sampleRate the sample rate in Hz
+     * @param channels   the number of audio channels
+     * @param timestamp  the timestamp of the frame in milliseconds
+     */
+    void fill(AudioFrame frame, int length, int sampleRate, int channels, long timestamp) {
+        if (length < 0 || length > frameCapacity) {
+            throw new IllegalArgumentException("Length exceeds the frame capacity");
+        }
+        frame.fill(length, sampleRate, channels, timestamp);
+    }
+
+    /**
+     * Called by a frame of this pool once its last reference was released.
+     */
+    void recycle(AudioFrame frame) {
+        freeFrames.offer(frame);
+    }
+
+    /**
+     * @return amount of bytes every frame can hold
+     */
+    public int getFrameCapacity() {
+        return frameCapacity;
+    }
+
+    /**
+     * @return amount of frames currently available for reuse
+     */
+    public int available() {
+        return freeFrames.size();
+    }
+}
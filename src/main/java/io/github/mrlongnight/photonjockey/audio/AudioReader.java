@@ -25,6 +25,13 @@ public interface AudioReader {
      */
     AudioDevice getDeviceByName(String name);
 
+    /**
+     * Enumerates the systems supported devices again, instead of returning known devices.
+     *
+     * @return list of supported audio devices
+     */
+    List<AudioDevice> rescanDevices();
+
     /**
      * Start reading and interpreting audio data on the selected audio device.
      *
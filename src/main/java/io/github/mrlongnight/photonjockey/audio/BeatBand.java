@@ -0,0 +1,84 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.filter.AudioFilter;
+import io.github.mrlongnight.photonjockey.audio.filter.LinkwitzRileyFilter;
+
+/**
+ * Frequency band a {@link BeatEvent} was detected in.
+ * {@link #FULL} is the broadband detection that drives the regular beat callbacks, the other bands
+ * roughly correspond to kick drum, snare and hi-hat and are detected independently of each other.
+ */
+public enum BeatBand {
+
+    FULL(0d, 0d),
+    SUB_BASS(0d, 150d),
+    LOW_MID(150d, 2500d),
+    HIGH(5000d, 0d);
+
+    /**
+     * Bands that are split from the signal, in the order their energies are computed.
+     */
+    static final BeatBand[] SPLIT_BANDS = {SUB_BASS, LOW_MID, HIGH};
+
+    /**
+     * Cutoffs are clamped to this fraction of the sample rate, so low sample rate devices still get all bands.
+     */
+    private static final double MAX_CUTOFF_RATIO = 0.45d;
+
+    private final double lowCutoff;
+    private final double highCutoff;
+
+
+    BeatBand(double lowCutoff, double highCutoff) {
+        this.lowCutoff = lowCutoff;
+        this.highCutoff = highCutoff;
+    }
+
+    /**
+     * @return lower edge of the band in Hz, 0 if open
+     */
+    public double getLowCutoff() {
+        return lowCutoff;
+    }
+
+    /**
+     * @return upper edge of the band in Hz, 0 if open
+     */
+    public double getHighCutoff() {
+        return highCutoff;
+    }
+
+    /**
+     * @param sampleRate sample rate in Hz of the signal to split
+     * @return new filter isolating this band
+     */
+    AudioFilter createFilter(double sampleRate) {
+        if (lowCutoff <= 0d && highCutoff <= 0d) {
+            throw new IllegalStateException("Band " + this + " covers the full spectrum and needs no filter");
+        }
+
+        double maxCutoff = sampleRate * MAX_CUTOFF_RATIO;
+        if (lowCutoff <= 0d) {
+            return LinkwitzRileyFilter.lowPass(sampleRate, Math.min(highCutoff, maxCutoff));
+        }
+        if (highCutoff <= 0d) {
+            return LinkwitzRileyFilter.highPass(sampleRate, Math.min(lowCutoff, maxCutoff));
+        }
+        return LinkwitzRileyFilter.bandPass(sampleRate, lowCutoff, Math.min(highCutoff, maxCutoff));
+    }
+
+    /**
+     * @param name band name as stored in the config, may be null
+     * @return matching band or {@link #FULL} if the name is unknown
+     */
+    public static BeatBand fromName(String name) {
+        if (name != null) {
+            for (BeatBand band : values()) {
+                if (band.name().equalsIgnoreCase(name)) {
+                    return band;
+                }
+            }
+        }
+        return FULL;
+    }
+}
@@ -6,29 +6,27 @@ import java.util.Queue;
 /**
  * Detects beats in audio by analyzing energy levels from AnalysisResult objects.
  * Uses a threshold-based approach with energy history to identify significant peaks.
- * Also tracks beat timestamps to estimate beats per minute (BPM).
+ * The rectified energy increase of every result is fed into a {@link TempoTracker} to estimate
+ * beats per minute (BPM), so the tempo does not depend on every single beat being detected.
  */
 public class BeatDetector {
 
     private static final int ENERGY_HISTORY_SIZE = 43;
     private static final double BEAT_THRESHOLD_MULTIPLIER = 1.3;
     private static final int MIN_BEAT_INTERVAL_MS = 200;
-    private static final int BPM_HISTORY_SIZE = 8;
     private static final long BPM_TIMEOUT_MS = 3000;
 
     private final Queue<Double> energyHistory;
-    private final Queue<Long> beatTimestamps;
+    private final TempoTracker tempoTracker;
     private long lastBeatTime;
-    private double currentBpm;
 
     /**
      * Creates a new BeatDetector with default configuration.
      */
     public BeatDetector() {
         this.energyHistory = new LinkedList<>();
-        this.beatTimestamps = new LinkedList<>();
+        this.tempoTracker = new TempoTracker();
         this.lastBeatTime = 0;
-        this.currentBpm = 0.0;
     }
 
     /**
@@ -47,15 +45,16 @@ public class BeatDetector {
         double energy = result.getEnergy();
         long currentTime = System.currentTimeMillis();
 
+        // Calculate average energy from history
+        double averageEnergy = calculateAverageEnergy();
+        tempoTracker.addOnsetStrength(currentTime, Math.max(0.0, energy - averageEnergy));
+
         // Ensure minimum time between beats
         if (currentTime - lastBeatTime < MIN_BEAT_INTERVAL_MS) {
             updateEnergyHistory(energy);
             return false;
         }
 
-        // Calculate average energy from history
-        double averageEnergy = calculateAverageEnergy();
-
         // Add current energy to history
         updateEnergyHistory(energy);
 
@@ -63,8 +62,6 @@ public class BeatDetector {
         double threshold = averageEnergy * BEAT_THRESHOLD_MULTIPLIER;
         if (energy > threshold && averageEnergy > 0.0) {
             lastBeatTime = currentTime;
-            updateBeatTimestamps(currentTime);
-            updateBpm();
             return true;
         }
 
@@ -73,21 +70,26 @@ public class BeatDetector {
 
     /**
      * Gets the current estimated beats per minute (BPM).
-     * Returns 0 if insufficient beats have been detected or if too much time
+     * Returns 0 if no periodicity was found yet or if too much time
      * has passed since the last beat.
      *
      * @return the estimated BPM, or 0 if unavailable
      */
     public double getBPM() {
-        long currentTime = System.currentTimeMillis();
+        return isTimedOut() ? 0.0 : tempoTracker.getBpm();
+    }
 
-        // Reset BPM if too much time has passed since last beat
-        if (currentTime - lastBeatTime > BPM_TIMEOUT_MS) {
-            currentBpm = 0.0;
-            beatTimestamps.clear();
-        }
+    /**
+     * Gets how confident the tempo estimate is, see {@link TempoTracker#getConfidence()}.
+     *
+     * @return confidence between 0 and 1, 0 if the BPM is unavailable
+     */
+    public double getBpmConfidence() {
+        return isTimedOut() ? 0.0 : tempoTracker.getConfidence();
+    }
 
-        return currentBpm;
+    private boolean isTimedOut() {
+        return System.currentTimeMillis() - lastBeatTime > BPM_TIMEOUT_MS;
     }
 
     /**
@@ -115,54 +117,12 @@ public class BeatDetector {
         return sum / energyHistory.size();
     }
 
-    /**
-     * Updates the beat timestamps queue with the new timestamp.
-     */
-    private void updateBeatTimestamps(long timestamp) {
-        beatTimestamps.offer(timestamp);
-        if (beatTimestamps.size() > BPM_HISTORY_SIZE) {
-            beatTimestamps.poll();
-        }
-    }
-
-    /**
-     * Updates the BPM estimate based on recent beat intervals.
-     */
-    private void updateBpm() {
-        if (beatTimestamps.size() < 2) {
-            currentBpm = 0.0;
-            return;
-        }
-
-        // Calculate average interval between beats
-        Long firstTimestamp = beatTimestamps.peek();
-        Long lastTimestamp = null;
-        for (Long ts : beatTimestamps) {
-            lastTimestamp = ts;
-        }
-
-        if (firstTimestamp == null || lastTimestamp == null
-                || firstTimestamp.equals(lastTimestamp)) {
-            return;
-        }
-
-        long totalInterval = lastTimestamp - firstTimestamp;
-        int intervalCount = beatTimestamps.size() - 1;
-        double averageInterval = (double) totalInterval / intervalCount;
-
-        // Convert to BPM (beats per minute)
-        if (averageInterval > 0) {
-            currentBpm = 60000.0 / averageInterval;
-        }
-    }
-
     /**
      * Resets the detector's internal state, clearing all history.
      */
     public void reset() {
         energyHistory.clear();
-        beatTimestamps.clear();
+        tempoTracker.reset();
         lastBeatTime = 0;
-        currentBpm = 0.0;
     }
 }
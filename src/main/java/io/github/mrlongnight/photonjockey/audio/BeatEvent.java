@@ -2,25 +2,82 @@ package io.github.mrlongnight.photonjockey.audio;
 
 /**
  * Event called by a {@link BeatEventManager} to be passed to all {@link BeatObserver}'s.
+ * The capture time is the one of the analyzed chunk, the onset offset locates the beat within the chunk.
+ * Events of a {@link BeatEventManager} that meters the loudness also carry the momentary loudness at the beat
+ * and the integrated loudness of the stream so far, both in LUFS.
  */
-public record BeatEvent(double triggeringAmplitude, double average) {
+public record BeatEvent(double triggeringAmplitude, double average, BeatBand band, long captureNanos,
+                        long onsetOffsetNanos, double loudness, double integratedLoudness) {
 
     /**
      * Construct a BeatEvent consisting of silence.
      * Calling {@link #isSilence()} or {@link #isNoBeat()} will always return true.
+     *
+     * @param captureNanos time the audio that completed the silence was captured at
+     * @return silence event
      */
-    BeatEvent() {
-        this(0d, 0d);
+    static BeatEvent silence(long captureNanos) {
+        return new BeatEvent(0d, 0d, BeatBand.FULL, captureNanos);
     }
 
     /**
      * Construct a BeatEvent when no beat was detected.
      * Calling {@link #isNoBeat()} will always return true.
      *
-     * @param average current amplitude average as normalized double value
+     * @param average      current amplitude average as normalized double value
+     * @param captureNanos time the audio that completed the timeout was captured at
+     * @return no-beat event
+     */
+    static BeatEvent noBeat(double average, long captureNanos) {
+        return new BeatEvent(0d, average, BeatBand.FULL, captureNanos);
+    }
+
+    /**
+     * Construct a BeatEvent when a broadband beat was detected, captured right now.
+     *
+     * @param triggeringAmplitude beat amplitude as normalized double value
+     * @param average             amplitude average when the beat was detected as normalized double value
+     */
+    public BeatEvent(double triggeringAmplitude, double average) {
+        this(triggeringAmplitude, average, BeatBand.FULL);
+    }
+
+    /**
+     * Construct a BeatEvent when a beat was detected, captured right now.
+     *
+     * @param triggeringAmplitude beat amplitude as normalized double value
+     * @param average             amplitude average when the beat was detected as normalized double value
+     * @param band                frequency band the beat was detected in
      */
-    BeatEvent(double average) {
-        this(0d, average);
+    public BeatEvent(double triggeringAmplitude, double average, BeatBand band) {
+        this(triggeringAmplitude, average, band, System.nanoTime());
+    }
+
+    /**
+     * Construct a BeatEvent when a beat was detected, without a known position within the chunk.
+     *
+     * @param triggeringAmplitude beat amplitude as normalized double value
+     * @param average             amplitude average when the beat was detected as normalized double value
+     * @param band                frequency band the beat was detected in
+     * @param captureNanos        {@link System#nanoTime()} the audio containing the beat was captured at
+     */
+    public BeatEvent(double triggeringAmplitude, double average, BeatBand band, long captureNanos) {
+        this(triggeringAmplitude, average, band, captureNanos, 0L);
+    }
+
+    /**
+     * Construct a BeatEvent when a beat was detected, without a loudness measurement.
+     *
+     * @param triggeringAmplitude beat amplitude as normalized double value
+     * @param average             amplitude average when the beat was detected as normalized double value
+     * @param band                frequency band the beat was detected in
+     * @param captureNanos        {@link System#nanoTime()} the audio containing the beat was captured at
+     * @param onsetOffsetNanos    time from the start of the captured chunk to the onset of the beat
+     */
+    public BeatEvent(double triggeringAmplitude, double average, BeatBand band, long captureNanos,
+                     long onsetOffsetNanos) {
+        this(triggeringAmplitude, average, band, captureNanos, onsetOffsetNanos, LoudnessMeter.MIN_LOUDNESS,
+                LoudnessMeter.MIN_LOUDNESS);
     }
 
     /**
@@ -28,8 +85,38 @@ public record BeatEvent(double triggeringAmplitude, double average) {
      *
      * @param triggeringAmplitude beat amplitude as normalized double value
      * @param average             amplitude average when the beat was detected as normalized double value
+     * @param band                frequency band the beat was detected in
+     * @param captureNanos        {@link System#nanoTime()} the audio containing the beat was captured at
+     * @param onsetOffsetNanos    time from the start of the captured chunk to the onset of the beat
+     * @param loudness            momentary loudness in LUFS, {@link LoudnessMeter#MIN_LOUDNESS} if not metered
+     * @param integratedLoudness  integrated loudness in LUFS, {@link LoudnessMeter#MIN_LOUDNESS} if not metered
      */
     public BeatEvent {
+        if (band == null) {
+            throw new IllegalArgumentException("Band must not be null");
+        }
+        if (onsetOffsetNanos < 0L) {
+            throw new IllegalArgumentException("Onset offset must not be negative");
+        }
+    }
+
+    /**
+     * @param onsetOffsetNanos time from the start of the captured chunk to the onset of the beat
+     * @return copy of this event with the given onset offset
+     */
+    BeatEvent withOnsetOffset(long onsetOffsetNanos) {
+        return new BeatEvent(triggeringAmplitude, average, band, captureNanos, onsetOffsetNanos, loudness,
+                integratedLoudness);
+    }
+
+    /**
+     * @param loudness           momentary loudness in LUFS
+     * @param integratedLoudness integrated loudness in LUFS
+     * @return copy of this event with the given loudness
+     */
+    BeatEvent withLoudness(double loudness, double integratedLoudness) {
+        return new BeatEvent(triggeringAmplitude, average, band, captureNanos, onsetOffsetNanos, loudness,
+                integratedLoudness);
     }
 
     /**
@@ -48,6 +135,64 @@ public record BeatEvent(double triggeringAmplitude, double average) {
         return average;
     }
 
+    /**
+     * @return frequency band the event was detected in, {@link BeatBand#FULL} for the regular broadband events
+     */
+    @Override
+    public BeatBand band() {
+        return band;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} the audio chunk the event was detected in was captured at, the difference
+     * to the current time is the latency between capture and handling of the event
+     */
+    @Override
+    public long captureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * @return time from the start of the captured chunk to the onset of the beat, 0 if it was not located
+     */
+    @Override
+    public long onsetOffsetNanos() {
+        return onsetOffsetNanos;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} the onset of the beat was captured at, more precise than
+     * {@link #captureNanos()} if the onset was located within the chunk
+     */
+    public long onsetNanos() {
+        return captureNanos + onsetOffsetNanos;
+    }
+
+    /**
+     * @return momentary loudness of the last 400 ms at the beat in LUFS, {@link LoudnessMeter#MIN_LOUDNESS} if
+     * it was not metered or silent
+     */
+    @Override
+    public double loudness() {
+        return loudness;
+    }
+
+    /**
+     * @return integrated loudness of the stream up to the beat in LUFS, {@link LoudnessMeter#MIN_LOUDNESS} if
+     * it was not metered yet
+     */
+    @Override
+    public double integratedLoudness() {
+        return integratedLoudness;
+    }
+
+    /**
+     * @return whether the event carries a loudness measurement
+     */
+    public boolean hasLoudness() {
+        return integratedLoudness > LoudnessMeter.MIN_LOUDNESS;
+    }
+
     boolean isSilence() {
         return triggeringAmplitude == 0d && average == 0d;
     }
@@ -12,4 +12,11 @@ public interface BeatEventManager {
      * @param beatObserver to register
      */
     void registerBeatObserver(BeatObserver beatObserver);
+
+    /**
+     * Returns the tracker predicting upcoming beats, so observers can schedule changes to land on the beat.
+     *
+     * @return beat phase tracker of the current audio input
+     */
+    BeatPhaseTracker getBeatPhaseTracker();
 }
@@ -7,16 +7,24 @@ import io.github.mrlongnight.photonjockey.config.ConfigNode;
 import io.github.mrlongnight.photonjockey.util.DoubleAverageBuffer;
 import io.github.mrlongnight.photonjockey.util.TimeThreshold;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Interprets a stream of audio amplitudes (RMS) to detect beat events.
  * Uses a hybrid dual-threshold model to improve detection consistency.
  * A beat must be both relatively louder than the average and a significant fraction
  * of the last major peak's amplitude.
+ * <p>
+ * Besides the broadband amplitude, band energies (see {@link BeatBand}) can be interpreted. Every band keeps
+ * its own adaptive threshold state, so a loud kick drum doesn't mask the hi-hats and vice versa.
  */
 class BeatInterpreter {
 
     private static final Logger logger = LoggerFactory.getLogger(BeatInterpreter.class);
 
+    /**
+     * Time span of the running average every amplitude is compared against.
+     */
     private static final long AVERAGE_WINDOW_MS = 3000L;
     private static final long NO_BEAT_RECEIVED_MILLIS = 2000L;
     private static final long SILENCE_MILLIS = 1000L;
@@ -28,53 +36,82 @@ class BeatInterpreter {
     private static final double PEAK_DECAY_MULTIPLIER = 1.2d;
 
     private final Config config;
+    /**
+     * Time after a beat in which the analysis window still contains the hop that triggered it.
+     */
+    private final long refractoryMillis;
 
-    private final DoubleAverageBuffer amplitudeHistory;
+    private final AdaptiveThreshold broadbandThreshold;
+    private final AdaptiveThreshold[] bandThresholds;
     private boolean isSilent = true;
 
     private final TimeThreshold noBeatThreshold = new TimeThreshold();
     private final TimeThreshold silenceThreshold = new TimeThreshold();
 
-    private double peakGateThreshold = 0d;
-    private long lastUpdateTime = 0L;
 
 
+    /**
+     * Creates an interpreter for amplitudes of non overlapping windows.
+     *
+     * @param config           config to read the sensitivity from
+     * @param updatesPerSecond amount of amplitudes interpreted per second
+     */
     BeatInterpreter(Config config, int updatesPerSecond) {
+        this(config, updatesPerSecond, 1000L / updatesPerSecond);
+    }
+
+    /**
+     * @param config           config to read the sensitivity from
+     * @param updatesPerSecond amount of amplitudes interpreted per second
+     * @param windowMillis     length of the analysis window every amplitude is computed over, beats within one
+     *                         window after a beat are attributed to the same onset
+     */
+    BeatInterpreter(Config config, int updatesPerSecond, long windowMillis) {
+        if (updatesPerSecond <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Update rate and window length must be positive");
+        }
         this.config = config;
-        this.amplitudeHistory = new DoubleAverageBuffer((int) (AVERAGE_WINDOW_MS / 1000 * updatesPerSecond), false);
+        this.refractoryMillis = Math.max(0L, windowMillis - 1000L / updatesPerSecond);
+
+        int historySize = (int) Math.max(1L, AVERAGE_WINDOW_MS * updatesPerSecond / 1000L);
+        this.broadbandThreshold = new AdaptiveThreshold(historySize);
+        this.bandThresholds = new AdaptiveThreshold[BeatBand.values().length];
+        for (BeatBand band : BeatBand.SPLIT_BANDS) {
+            bandThresholds[band.ordinal()] = new AdaptiveThreshold(historySize);
+        }
     }
 
     /**
-     * Processes a new amplitude value and returns a BeatEvent if a beat, silence,
-     * or no-beat timeout is detected.
+     * Processes a new amplitude value captured right now, see {@link #interpretValue(double, long)}.
      *
      * @param amplitude The new RMS amplitude value.
      * @return A BeatEvent if detected, otherwise null.
      */
     BeatEvent interpretValue(double amplitude) {
-        long currentTime = System.currentTimeMillis();
-        long timeDelta = (lastUpdateTime == 0) ? 0 : currentTime - lastUpdateTime;
-        lastUpdateTime = currentTime;
-
-        if (timeDelta > 0) {
-            peakGateThreshold = Math.max(0, peakGateThreshold - (PEAK_DECAY_RATE_PER_MS * timeDelta));
-        }
-
-        amplitudeHistory.add(amplitude);
-        double average = amplitudeHistory.getCurrentAverage();
+        return interpretValue(amplitude, System.nanoTime());
+    }
 
-        double normalizedSensitivity = (config.getInt(ConfigNode.BEAT_SENSITIVITY) - 1) / 9d;
-        double beatMultiplier = MAX_MULTIPLIER - (normalizedSensitivity * (MAX_MULTIPLIER - MIN_MULTIPLIER));
-        double dynamicThreshold = average * beatMultiplier;
+    /**
+     * Processes a new amplitude value and returns a BeatEvent if a beat, silence,
+     * or no-beat timeout is detected.
+     *
+     * @param amplitude    The new RMS amplitude value.
+     * @param captureNanos The {@link System#nanoTime()} the amplitude's audio was captured at.
+     * @return A BeatEvent if detected, otherwise null.
+     */
+    BeatEvent interpretValue(double amplitude, long captureNanos) {
+        long captureMillis = TimeUnit.NANOSECONDS.toMillis(captureNanos);
+        boolean isBeat = broadbandThreshold.update(amplitude, captureMillis, getBeatMultiplier(), refractoryMillis);
+        double average = broadbandThreshold.average;
+        double dynamicThreshold = broadbandThreshold.dynamicThreshold;
 
-        if (amplitude > dynamicThreshold && amplitude > peakGateThreshold) {
+        if (isBeat) {
             noBeatThreshold.setCurrentThreshold(NO_BEAT_RECEIVED_MILLIS);
             disableSilenceThreshold();
 
-            peakGateThreshold = amplitude * PEAK_DECAY_MULTIPLIER;
             logger.info("Beat detected at {} (avg {}, dynThresh: {}, peakThresh: {})",
-                    fD(amplitude), fD(average), fD(dynamicThreshold), fD(peakGateThreshold));
-            return new BeatEvent(amplitude, average);
+                    fD(amplitude), fD(average), fD(dynamicThreshold), fD(broadbandThreshold.peakGateThreshold));
+            return new BeatEvent(amplitude, average, BeatBand.FULL, captureNanos);
         }
 
         if (amplitude > 0d) {
@@ -82,7 +119,7 @@ class BeatInterpreter {
             if (noBeatThreshold.isMet()) {
                 noBeatThreshold.disable();
                 logger.info("No beat detected (dynThresh: {})", fD(dynamicThreshold));
-                return new BeatEvent(average);
+                return BeatEvent.noBeat(average, captureNanos);
             }
         } else if (silenceThreshold.isEnabled()) {
             if (silenceThreshold.isMet()) {
@@ -90,7 +127,7 @@ class BeatInterpreter {
                 noBeatThreshold.disable();
                 isSilent = true;
                 logger.info("Silence detected");
-                return new BeatEvent(); // Silence event
+                return BeatEvent.silence(captureNanos);
             }
         } else if (!isSilent) {
             silenceThreshold.setCurrentThreshold(SILENCE_MILLIS);
@@ -99,6 +136,45 @@ class BeatInterpreter {
         return null;
     }
 
+    /**
+     * Processes the energy of a single band captured right now, see {@link #interpretBand(BeatBand, double, long)}.
+     *
+     * @param band   band the energy was measured in, must not be {@link BeatBand#FULL}
+     * @param energy RMS energy of the band
+     * @return A BeatEvent for the given band if a beat was detected in it, otherwise null.
+     */
+    BeatEvent interpretBand(BeatBand band, double energy) {
+        return interpretBand(band, energy, System.nanoTime());
+    }
+
+    /**
+     * Processes the energy of a single band. Bands don't report silence or no-beat events,
+     * those are derived from the broadband amplitude via {@link #interpretValue(double, long)}.
+     *
+     * @param band         band the energy was measured in, must not be {@link BeatBand#FULL}
+     * @param energy       RMS energy of the band
+     * @param captureNanos The {@link System#nanoTime()} the energy's audio was captured at.
+     * @return A BeatEvent for the given band if a beat was detected in it, otherwise null.
+     */
+    BeatEvent interpretBand(BeatBand band, double energy, long captureNanos) {
+        AdaptiveThreshold threshold = bandThresholds[band.ordinal()];
+        if (threshold == null) {
+            throw new IllegalArgumentException("Band " + band + " is not a split band");
+        }
+
+        long captureMillis = TimeUnit.NANOSECONDS.toMillis(captureNanos);
+        if (threshold.update(energy, captureMillis, getBeatMultiplier(), refractoryMillis)) {
+            logger.debug("{} beat detected at {} (avg {})", band, fD(energy), fD(threshold.average));
+            return new BeatEvent(energy, threshold.average, band, captureNanos);
+        }
+        return null;
+    }
+
+    private double getBeatMultiplier() {
+        double normalizedSensitivity = (config.getInt(ConfigNode.BEAT_SENSITIVITY) - 1) / 9d;
+        return MAX_MULTIPLIER - (normalizedSensitivity * (MAX_MULTIPLIER - MIN_MULTIPLIER));
+    }
+
     private void disableSilenceThreshold() {
         silenceThreshold.disable();
         isSilent = false;
@@ -107,4 +183,54 @@ class BeatInterpreter {
     private static String fD(double value) {
         return String.format("%.4f", value);
     }
+
+    /**
+     * Threshold state of a single amplitude stream, combining the relative threshold against the
+     * running average with the decaying peak gate.
+     */
+    private static class AdaptiveThreshold {
+
+        private final DoubleAverageBuffer amplitudeHistory;
+
+        private double peakGateThreshold = 0d;
+        private long lastUpdateTime = 0L;
+        private long lastBeatTime = Long.MIN_VALUE;
+
+        private double average;
+        private double dynamicThreshold;
+
+
+        private AdaptiveThreshold(int historySize) {
+            this.amplitudeHistory = new DoubleAverageBuffer(historySize, false);
+        }
+
+        /**
+         * @param refractoryMillis time after a beat in which exceeding amplitudes only raise the peak gate, as
+         *                         the overlapping windows still contain the onset that triggered the beat
+         * @return true if the amplitude exceeds both the dynamic threshold and the peak gate
+         */
+        private boolean update(double amplitude, long currentTime, double beatMultiplier, long refractoryMillis) {
+            long timeDelta = (lastUpdateTime == 0) ? 0 : currentTime - lastUpdateTime;
+            lastUpdateTime = currentTime;
+
+            if (timeDelta > 0) {
+                peakGateThreshold = Math.max(0, peakGateThreshold - (PEAK_DECAY_RATE_PER_MS * timeDelta));
+            }
+
+            amplitudeHistory.add(amplitude);
+            average = amplitudeHistory.getCurrentAverage();
+            dynamicThreshold = average * beatMultiplier;
+
+            if (amplitude > dynamicThreshold && amplitude > peakGateThreshold) {
+                peakGateThreshold = amplitude * PEAK_DECAY_MULTIPLIER;
+                if (refractoryMillis > 0 && lastBeatTime != Long.MIN_VALUE
+                        && currentTime - lastBeatTime <= refractoryMillis) {
+                    return false;
+                }
+                lastBeatTime = currentTime;
+                return true;
+            }
+            return false;
+        }
+    }
 }
@@ -14,6 +14,16 @@ public interface BeatObserver {
      */
     void beatReceived(BeatEvent event);
 
+    /**
+     * Called when a beat was received in a single frequency band, independent of {@link #beatReceived(BeatEvent)}.
+     * Does nothing by default, implementing classes only need to override this if they are interested in
+     * kick, snare or hi-hat like events.
+     *
+     * @param event containing data about the beat, {@link BeatEvent#band()} is never {@link BeatBand#FULL}
+     */
+    default void bandBeatReceived(BeatEvent event) {
+    }
+
     /**
      * Called when no beat was received for a certain amount of times.
      */
@@ -0,0 +1,213 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase-locked loop predicting when the next beat will happen, so light changes can be scheduled to land on
+ * the beat instead of trailing the detection, dispatch and transmission delay.
+ * <p>
+ * The loop keeps a beat period and the time of a reference beat. Every detected onset is compared against the
+ * closest predicted beat: onsets within the capture window pull the phase and, more weakly, the period towards
+ * them, onsets outside of it are treated as off-beat and only lower the confidence. The period is initialized
+ * from the interval between two onsets, which is repeated whenever the lock is lost. A tempo estimate given via
+ * {@link #setTempo(double, double)} that deviates too much from the current period replaces it, so the loop
+ * re-locks within a few bars after a tempo change. The phase is then taken from the next onset.
+ * <p>
+ * All times are {@link System#nanoTime()} based. Updates are expected from the analysis thread, predictions
+ * may be queried from any thread.
+ */
+public class BeatPhaseTracker {
+
+    /**
+     * Returned by {@link #nextPredictedBeatNanos()} as long as no period is known.
+     */
+    public static final long NO_PREDICTION = Long.MIN_VALUE;
+
+    private static final double MIN_BPM = 60d;
+    private static final double MAX_BPM = 200d;
+
+    /**
+     * Onsets deviating at most this fraction of the period from a predicted beat are considered on beat.
+     */
+    private static final double CAPTURE_WINDOW = 0.2d;
+
+    private static final double PHASE_GAIN = 0.5d;
+    private static final double PERIOD_GAIN = 0.1d;
+
+    /**
+     * Tempo estimates with at least this confidence replace the period if they deviate more than
+     * {@link #TEMPO_CHANGE_RATIO} from it.
+     */
+    private static final double MIN_TEMPO_CONFIDENCE = 0.3d;
+    private static final double TEMPO_CHANGE_RATIO = 0.05d;
+
+    private static final double CONFIDENCE_GAIN = 0.25d;
+
+    /**
+     * Amount of predicted beats without a matching onset after which the prediction is no longer trusted.
+     */
+    private static final int LOST_AFTER_BEATS = 8;
+
+    private long periodNanos;
+    private long referenceBeatNanos;
+    private long lastOnsetNanos;
+    private boolean hasOnset;
+    private boolean phaseUncertain;
+    private double confidence;
+
+
+    /**
+     * Adds a detected onset or beat.
+     *
+     * @param timeNanos time the onset happened at
+     */
+    public synchronized void onBeat(long timeNanos) {
+        if (!hasOnset) {
+            hasOnset = true;
+            lastOnsetNanos = timeNanos;
+            referenceBeatNanos = timeNanos;
+            return;
+        }
+
+        long interval = timeNanos - lastOnsetNanos;
+        if (periodNanos == 0) {
+            relock(timeNanos, interval);
+            return;
+        }
+
+        long beats = Math.round((double) (timeNanos - referenceBeatNanos) / periodNanos);
+        long predicted = referenceBeatNanos + beats * periodNanos;
+        long error = timeNanos - predicted;
+        long beatsSinceOnset = Math.round((double) (timeNanos - lastOnsetNanos) / periodNanos);
+        lastOnsetNanos = timeNanos;
+
+        // predicted beats that passed without an onset count as misses
+        for (long i = 1; i < Math.min(beatsSinceOnset, LOST_AFTER_BEATS); i++) {
+            confidence *= 1d - CONFIDENCE_GAIN;
+        }
+
+        if (phaseUncertain) {
+            // the period was just replaced, the phase of the old period says nothing about the new one
+            phaseUncertain = false;
+            referenceBeatNanos = timeNanos;
+            return;
+        }
+
+        double relativeError = (double) error / periodNanos;
+        if (Math.abs(relativeError) > CAPTURE_WINDOW) {
+            confidence *= 1d - CONFIDENCE_GAIN;
+            if (confidence < MIN_TEMPO_CONFIDENCE) {
+                relock(timeNanos, interval);
+            }
+            return;
+        }
+
+        referenceBeatNanos = predicted + Math.round(PHASE_GAIN * error);
+        if (beats > 0) {
+            periodNanos += Math.round(PERIOD_GAIN * error / beats);
+            periodNanos = Math.max(toPeriodNanos(MAX_BPM), Math.min(toPeriodNanos(MIN_BPM), periodNanos));
+        }
+        double accuracy = 1d - Math.abs(relativeError) / CAPTURE_WINDOW;
+        confidence += CONFIDENCE_GAIN * (accuracy - confidence);
+    }
+
+    /**
+     * Restarts the loop from the given onset, taking the interval to the previous onset as period if plausible.
+     */
+    private void relock(long timeNanos, long interval) {
+        if (interval >= toPeriodNanos(MAX_BPM) && interval <= toPeriodNanos(MIN_BPM)) {
+            periodNanos = interval;
+        }
+        referenceBeatNanos = timeNanos;
+        lastOnsetNanos = timeNanos;
+    }
+
+    /**
+     * Hands a tempo estimate to the loop, see {@link TempoTracker}.
+     *
+     * @param bpm             estimated tempo, ignored if not positive
+     * @param tempoConfidence confidence of the estimate between 0 and 1
+     */
+    public synchronized void setTempo(double bpm, double tempoConfidence) {
+        if (bpm <= 0d || tempoConfidence < MIN_TEMPO_CONFIDENCE) {
+            return;
+        }
+
+        long estimatedPeriod = toPeriodNanos(Math.max(MIN_BPM, Math.min(MAX_BPM, bpm)));
+        if (periodNanos == 0 || Math.abs(estimatedPeriod - periodNanos) > periodNanos * TEMPO_CHANGE_RATIO) {
+            periodNanos = estimatedPeriod;
+            if (hasOnset) {
+                referenceBeatNanos = lastOnsetNanos;
+                phaseUncertain = true;
+            }
+        }
+    }
+
+    /**
+     * Predicts the next beat after now.
+     *
+     * @return predicted {@link System#nanoTime()} of the next beat, {@link #NO_PREDICTION} if the tempo is unknown
+     */
+    public long nextPredictedBeatNanos() {
+        return nextPredictedBeatNanos(System.nanoTime());
+    }
+
+    /**
+     * Predicts the next beat after the given time.
+     *
+     * @param nowNanos time to predict the next beat after
+     * @return predicted time of the next beat, {@link #NO_PREDICTION} if the tempo is unknown
+     */
+    public synchronized long nextPredictedBeatNanos(long nowNanos) {
+        if (periodNanos == 0) {
+            return NO_PREDICTION;
+        }
+        long beats = Math.floorDiv(nowNanos - referenceBeatNanos, periodNanos) + 1;
+        return referenceBeatNanos + beats * periodNanos;
+    }
+
+    /**
+     * Gets how well the recent onsets matched the predictions.
+     *
+     * @return confidence between 0 and 1, 0 if no onset matched for {@value #LOST_AFTER_BEATS} beats
+     */
+    public double getConfidence() {
+        return getConfidence(System.nanoTime());
+    }
+
+    /**
+     * Gets how well the recent onsets matched the predictions, as of the given time.
+     *
+     * @param nowNanos current time
+     * @return confidence between 0 and 1, 0 if no onset matched for {@value #LOST_AFTER_BEATS} beats
+     */
+    public synchronized double getConfidence(long nowNanos) {
+        if (periodNanos == 0 || nowNanos - lastOnsetNanos > LOST_AFTER_BEATS * periodNanos) {
+            return 0d;
+        }
+        return confidence;
+    }
+
+    /**
+     * @return current beat period in nanoseconds, 0 if unknown
+     */
+    public synchronized long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Resets the loop, forgetting period, phase and confidence.
+     */
+    public synchronized void reset() {
+        periodNanos = 0;
+        referenceBeatNanos = 0;
+        lastOnsetNanos = 0;
+        hasOnset = false;
+        phaseUncertain = false;
+        confidence = 0d;
+    }
+
+    private static long toPeriodNanos(double bpm) {
+        return Math.round(TimeUnit.MINUTES.toNanos(1) / bpm);
+    }
+}
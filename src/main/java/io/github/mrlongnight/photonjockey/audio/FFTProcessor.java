@@ -1,5 +1,6 @@
 package io.github.mrlongnight.photonjockey.audio;
 
+import io.github.mrlongnight.photonjockey.audio.simd.AudioKernels;
 import org.jtransforms.fft.DoubleFFT_1D;
 
 import java.util.Arrays;
@@ -7,14 +8,28 @@ import java.util.Arrays;
 /**
  * Processes audio samples using Fast Fourier Transform (FFT) to compute frequency spectrum.
  * Supports window functions and temporal smoothing for more stable frequency analysis.
+ * <p>
+ * Besides analysing blocks of samples via {@link #computeSpectrum(double[])}, the processor supports a streaming
+ * short-time Fourier transform: samples are pushed via
+ * {@link #pushSamples(double[], int, int, double[], SpectrumListener)} into an internal circular buffer and a
+ * spectrum of the last {@code fftSize} samples is emitted every {@code hopSize} samples. Overlapping windows give
+ * a fine time resolution without shrinking the frequency resolution. All working buffers are allocated once,
+ * only {@link #computeSpectrum(double[])} allocates its returned array. Not thread safe.
  */
 public class FFTProcessor {
 
     private final int fftSize;
+    private final int hopSize;
     private final WindowFunction windowFunction;
     private final double smoothing;
     private final DoubleFFT_1D fft;
-    private double[] previousSpectrum;
+
+    private final double[] buffer;
+    private final double[] previousSpectrum;
+    private boolean hasPreviousSpectrum;
+
+    private final double[] history;
+    private final StreamingWindow streamingWindow;
 
     /**
      * Creates a new FFTProcessor.
@@ -25,21 +40,34 @@ public class FFTProcessor {
      *                       and values closer to 1 provide more smoothing across time
      */
     public FFTProcessor(int fftSize, WindowFunction windowFunction, double smoothing) {
-        if (fftSize <= 0) {
-            throw new IllegalArgumentException("FFT size must be positive");
-        }
-        if (smoothing < 0.0 || smoothing > 1.0) {
-            throw new IllegalArgumentException("Smoothing must be between 0 and 1");
-        }
-        if (windowFunction == null) {
-            throw new IllegalArgumentException("Window function cannot be null");
-        }
+        this(fftSize, windowFunction, smoothing, fftSize);
+    }
+
+    /**
+     * Creates a new FFTProcessor for streaming use with overlapping windows.
+     *
+     * @param fftSize        the size of the FFT (should be a power of 2 for optimal performance)
+     * @param windowFunction the window function to apply before FFT
+     * @param smoothing      smoothing factor between 0 and 1, where 0 means no smoothing
+     *                       and values closer to 1 provide more smoothing across time
+     * @param hopSize        amount of pushed samples between two spectra, between 1 and fftSize
+     */
+    public FFTProcessor(int fftSize, WindowFunction windowFunction, double smoothing, int hopSize) {
+        StreamingWindow.checkParameters(fftSize, windowFunction, smoothing, hopSize);
 
         this.fftSize = fftSize;
+        this.hopSize = hopSize;
         this.windowFunction = windowFunction;
         this.smoothing = smoothing;
         this.fft = new DoubleFFT_1D(fftSize);
-        this.previousSpectrum = null;
+
+        // computes the shared coefficient table up front instead of on the first frame
+        windowFunction.coefficients(fftSize);
+
+        this.buffer = new double[fftSize];
+        this.previousSpectrum = new double[getBinCount()];
+        this.history = new double[fftSize];
+        this.streamingWindow = new StreamingWindow(fftSize, hopSize);
     }
 
     /**
@@ -54,43 +82,89 @@ public class FFTProcessor {
         if (samples == null) {
             throw new IllegalArgumentException("Samples cannot be null");
         }
+        return computeSpectrum(samples, new double[getBinCount()]);
+    }
+
+    /**
+     * Computes the magnitude spectrum from the given audio samples into a caller-provided array.
+     * Behaves like {@link #computeSpectrum(double[])}, but does not allocate.
+     *
+     * @param samples  the input audio samples (will not be modified), zero-padded or truncated to the FFT size
+     * @param spectrum array receiving the magnitudes, must be at least {@link #getBinCount()} long
+     * @return the given spectrum array
+     */
+    public double[] computeSpectrum(double[] samples, double[] spectrum) {
+        if (samples == null) {
+            throw new IllegalArgumentException("Samples cannot be null");
+        }
+        checkSpectrumLength(spectrum);
 
-        // Prepare the buffer for FFT
-        double[] buffer = prepareBuffer(samples);
+        // Copy windowed samples, zero-pad if necessary
+        int copyLength = Math.min(samples.length, fftSize);
+        windowFunction.applyTo(samples, 0, buffer, 0, copyLength, fftSize);
+        for (int i = copyLength; i < fftSize; i++) {
+            buffer[i] = 0.0;
+        }
+
+        transformBuffer(spectrum);
+        return spectrum;
+    }
+
+    /**
+     * Pushes samples into the streaming buffer. Every time {@code hopSize} samples were pushed, the spectrum of
+     * the last {@code fftSize} samples is written into {@code spectrum} and the listener is called, possibly
+     * several times per call. Until {@code fftSize} samples were pushed, the missing samples count as silence.
+     *
+     * @param samples  the input audio samples (will not be modified)
+     * @param offset   index of the first sample to push
+     * @param length   amount of samples to push
+     * @param spectrum array receiving the magnitudes, must be at least {@link #getBinCount()} long
+     * @param listener called synchronously whenever a new spectrum was written
+     */
+    public void pushSamples(double[] samples, int offset, int length, double[] spectrum, SpectrumListener listener) {
+        if (samples == null) {
+            throw new IllegalArgumentException("Samples cannot be null");
+        }
+        checkSpectrumLength(spectrum);
 
-        // Apply window function
-        windowFunction.apply(buffer);
+        int end = offset + length;
+        while (offset < end) {
+            offset += streamingWindow.write(samples, offset, end - offset, history);
+            if (streamingWindow.completeHop()) {
+                streamingWindow.unroll(history, windowFunction, buffer);
+                transformBuffer(spectrum);
+                listener.spectrumReady(spectrum, streamingWindow.getSamplePosition());
+            }
+        }
+    }
 
+    /**
+     * Transforms the already windowed buffer, then computes the (smoothed) magnitudes into the spectrum.
+     */
+    private void transformBuffer(double[] spectrum) {
         // Perform FFT
         fft.realForward(buffer);
 
         // Compute magnitudes
-        double[] spectrum = computeMagnitudes(buffer);
+        computeMagnitudes(buffer, spectrum);
 
+        int numBins = previousSpectrum.length;
         // Apply smoothing if configured
-        if (smoothing > 0.0 && previousSpectrum != null) {
-            for (int i = 0; i < spectrum.length; i++) {
+        if (smoothing > 0.0 && hasPreviousSpectrum) {
+            for (int i = 0; i < numBins; i++) {
                 spectrum[i] = smoothing * previousSpectrum[i] + (1.0 - smoothing) * spectrum[i];
             }
         }
 
         // Store for next smoothing iteration
-        previousSpectrum = Arrays.copyOf(spectrum, spectrum.length);
-
-        return spectrum;
+        System.arraycopy(spectrum, 0, previousSpectrum, 0, numBins);
+        hasPreviousSpectrum = true;
     }
 
-    /**
-     * Prepares the buffer for FFT by copying and zero-padding samples if necessary.
-     */
-    private double[] prepareBuffer(double[] samples) {
-        double[] buffer = new double[fftSize];
-
-        // Copy samples, zero-pad if necessary
-        int copyLength = Math.min(samples.length, fftSize);
-        System.arraycopy(samples, 0, buffer, 0, copyLength);
-
-        return buffer;
+    private void checkSpectrumLength(double[] spectrum) {
+        if (spectrum == null || spectrum.length < getBinCount()) {
+            throw new IllegalArgumentException("Spectrum array must hold at least " + getBinCount() + " bins");
+        }
     }
 
     /**
@@ -98,10 +172,9 @@ public class FFTProcessor {
      * The FFT output is in the format [r0, r1, i1, r2, i2, ..., rn/2]
      * where r is real and i is imaginary component.
      */
-    private double[] computeMagnitudes(double[] fftOutput) {
+    private void computeMagnitudes(double[] fftOutput, double[] magnitudes) {
         // For real FFT, we get N/2 + 1 frequency bins
         int numBins = fftSize / 2 + 1;
-        double[] magnitudes = new double[numBins];
 
         // DC component (bin 0)
         magnitudes[0] = Math.abs(fftOutput[0]);
@@ -112,13 +185,25 @@ public class FFTProcessor {
         }
 
         // Other frequency bins: magnitude = sqrt(real^2 + imag^2)
-        for (int i = 1; i < numBins - 1; i++) {
-            double real = fftOutput[2 * i];
-            double imag = fftOutput[2 * i + 1];
-            magnitudes[i] = Math.sqrt(real * real + imag * imag);
-        }
+        AudioKernels.magnitudes(fftOutput, 1, magnitudes, numBins - 2);
+    }
+
+    /**
+     * Gets the amount of frequency bins of a spectrum.
+     *
+     * @return fftSize / 2 + 1
+     */
+    public int getBinCount() {
+        return fftSize / 2 + 1;
+    }
 
-        return magnitudes;
+    /**
+     * Gets the hop size used for streaming.
+     *
+     * @return amount of pushed samples between two spectra
+     */
+    public int getHopSize() {
+        return hopSize;
     }
 
     /**
@@ -149,9 +234,27 @@ public class FFTProcessor {
     }
 
     /**
-     * Resets the internal state, clearing any smoothing history.
+     * Resets the internal state, clearing any smoothing history and the streaming buffer.
      */
     public void reset() {
-        previousSpectrum = null;
+        hasPreviousSpectrum = false;
+        Arrays.fill(history, 0.0);
+        streamingWindow.reset();
+    }
+
+    /**
+     * Receives the spectra of the streaming mode, see {@link #pushSamples(double[], int, int, double[], SpectrumListener)}.
+     */
+    @FunctionalInterface
+    public interface SpectrumListener {
+
+        /**
+         * Called whenever a new spectrum was computed. The array is overwritten by the next spectrum.
+         *
+         * @param spectrum       magnitude spectrum of the last fftSize samples
+         * @param samplePosition total amount of samples pushed when the spectrum was computed, which is the
+         *                       position of the end of the analysed window
+         */
+        void spectrumReady(double[] spectrum, long samplePosition);
     }
 }
@@ -0,0 +1,211 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.simd.AudioKernels;
+
+/**
+ * Computes the {@link AudioFeatures} of a frame: RMS, peak, zero-crossing rate and crest factor from the samples,
+ * and in a single fused pass over the magnitude spectrum the band energies, spectral centroid, spectral flux and
+ * dominant frequency. Double precision samples are passed through the fused, vectorized
+ * {@link AudioKernels#sampleStatistics(double[], int, int, double[])} kernel.
+ * <p>
+ * The bin to band mapping and the previous spectrum are kept between frames, so neither pass allocates.
+ * Not thread safe, meant to be owned by a single analyzer.
+ */
+public class FeatureExtractor {
+
+    private static final int NO_BAND = -1;
+
+    private final double binFrequency;
+    private final double magnitudeNormalization;
+    private final int[] bandOfBin;
+    private final double[] previousMagnitudes;
+    private final double[] bandPowers = new double[BeatBand.SPLIT_BANDS.length];
+    private final double[] sampleStatistics = new double[AudioKernels.STATISTICS_LENGTH];
+    private boolean hasPreviousSpectrum;
+
+
+    /**
+     * @param sampleRate sample rate of the audio in Hz
+     * @param fftSize    size of the FFT the spectra are computed with, the spectra hold fftSize / 2 + 1 bins
+     */
+    public FeatureExtractor(int sampleRate, int fftSize) {
+        if (sampleRate <= 0 || fftSize < 2) {
+            throw new IllegalArgumentException("Sample rate must be positive and FFT size at least 2");
+        }
+
+        int binCount = fftSize / 2 + 1;
+        this.binFrequency = (double) sampleRate / fftSize;
+        this.magnitudeNormalization = 2.0 / fftSize;
+        this.bandOfBin = new int[binCount];
+        this.previousMagnitudes = new double[binCount];
+
+        for (int bin = 0; bin < binCount; bin++) {
+            double frequency = bin * binFrequency;
+            bandOfBin[bin] = NO_BAND;
+            for (int band = 0; band < BeatBand.SPLIT_BANDS.length; band++) {
+                BeatBand beatBand = BeatBand.SPLIT_BANDS[band];
+                boolean aboveLow = frequency >= beatBand.getLowCutoff();
+                boolean belowHigh = beatBand.getHighCutoff() <= 0d || frequency < beatBand.getHighCutoff();
+                if (aboveLow && belowHigh) {
+                    bandOfBin[bin] = band;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes RMS, peak, zero-crossing rate and crest factor in a single pass, vectorized where available.
+     *
+     * @param samples  normalized samples
+     * @param offset   index of the first sample
+     * @param length   amount of samples
+     * @param features receives the sample features
+     */
+    public void extractSampleFeatures(double[] samples, int offset, int length, AudioFeatures features) {
+        if (length <= 0) {
+            setSampleFeatures(0d, 0d, 0, 0, features);
+            return;
+        }
+
+        AudioKernels.sampleStatistics(samples, offset, length, sampleStatistics);
+        setSampleFeatures(sampleStatistics[AudioKernels.SUM_OF_SQUARES], sampleStatistics[AudioKernels.MAX_ABS],
+                (int) sampleStatistics[AudioKernels.SIGN_CHANGES], length, features);
+    }
+
+    /**
+     * Single precision variant of {@link #extractSampleFeatures(double[], int, int, AudioFeatures)}, sums are
+     * still accumulated in double precision.
+     */
+    public void extractSampleFeatures(float[] samples, int offset, int length, AudioFeatures features) {
+        if (length <= 0) {
+            setSampleFeatures(0d, 0d, 0, 0, features);
+            return;
+        }
+
+        double sumOfSquares = 0d;
+        float peak = 0f;
+        int crossings = 0;
+        boolean previousNegative = samples[offset] < 0f;
+        for (int i = offset; i < offset + length; i++) {
+            float sample = samples[i];
+            sumOfSquares += sample * sample;
+            float abs = Math.abs(sample);
+            if (abs > peak) {
+                peak = abs;
+            }
+            boolean negative = sample < 0f;
+            if (negative != previousNegative) {
+                crossings++;
+            }
+            previousNegative = negative;
+        }
+        setSampleFeatures(sumOfSquares, peak, crossings, length, features);
+    }
+
+    private static void setSampleFeatures(double sumOfSquares, double peak, int crossings, int length,
+                                          AudioFeatures features) {
+        double rms = length > 0 ? Math.sqrt(sumOfSquares / length) : 0d;
+        features.rms = rms;
+        features.peak = peak;
+        features.zeroCrossingRate = length > 1 ? crossings / (double) (length - 1) : 0d;
+        features.crestFactor = rms > 0d ? peak / rms : 0d;
+    }
+
+    /**
+     * Computes band energies, spectral centroid, spectral flux and the dominant frequency in a single pass,
+     * and keeps the spectrum for the flux of the next frame.
+     *
+     * @param spectrum magnitude spectrum with fftSize / 2 + 1 bins
+     * @param features receives the spectral features
+     */
+    public void extractSpectralFeatures(double[] spectrum, AudioFeatures features) {
+        clearBandPowers();
+        double weightedSum = 0d;
+        double magnitudeSum = 0d;
+        double flux = 0d;
+        double maxMagnitude = -1d;
+        int maxBin = 0;
+
+        for (int bin = 0; bin < previousMagnitudes.length; bin++) {
+            double magnitude = spectrum[bin] * magnitudeNormalization;
+            int band = bandOfBin[bin];
+            if (band != NO_BAND) {
+                bandPowers[band] += magnitude * magnitude;
+            }
+            weightedSum += bin * magnitude;
+            magnitudeSum += magnitude;
+            double increase = magnitude - previousMagnitudes[bin];
+            if (increase > 0d) {
+                flux += increase;
+            }
+            previousMagnitudes[bin] = magnitude;
+            if (magnitude > maxMagnitude) {
+                maxMagnitude = magnitude;
+                maxBin = bin;
+            }
+        }
+        setSpectralFeatures(weightedSum, magnitudeSum, flux, maxBin, features);
+    }
+
+    /**
+     * Single precision variant of {@link #extractSpectralFeatures(double[], AudioFeatures)}.
+     */
+    public void extractSpectralFeatures(float[] spectrum, AudioFeatures features) {
+        clearBandPowers();
+        double weightedSum = 0d;
+        double magnitudeSum = 0d;
+        double flux = 0d;
+        double maxMagnitude = -1d;
+        int maxBin = 0;
+
+        for (int bin = 0; bin < previousMagnitudes.length; bin++) {
+            double magnitude = spectrum[bin] * magnitudeNormalization;
+            int band = bandOfBin[bin];
+            if (band != NO_BAND) {
+                bandPowers[band] += magnitude * magnitude;
+            }
+            weightedSum += bin * magnitude;
+            magnitudeSum += magnitude;
+            double increase = magnitude - previousMagnitudes[bin];
+            if (increase > 0d) {
+                flux += increase;
+            }
+            previousMagnitudes[bin] = magnitude;
+            if (magnitude > maxMagnitude) {
+                maxMagnitude = magnitude;
+                maxBin = bin;
+            }
+        }
+        setSpectralFeatures(weightedSum, magnitudeSum, flux, maxBin, features);
+    }
+
+    private void clearBandPowers() {
+        for (int band = 0; band < bandPowers.length; band++) {
+            bandPowers[band] = 0d;
+        }
+    }
+
+    private void setSpectralFeatures(double weightedSum, double magnitudeSum, double flux, int maxBin,
+                                     AudioFeatures features) {
+        for (int band = 0; band < bandPowers.length; band++) {
+            features.bandEnergies[band] = Math.sqrt(bandPowers[band]);
+        }
+        features.spectralCentroid = magnitudeSum > 0d ? binFrequency * weightedSum / magnitudeSum : 0d;
+        features.dominantFrequency = maxBin * binFrequency;
+
+        // the first spectrum has nothing to be compared against
+        features.spectralFlux = hasPreviousSpectrum ? flux / previousMagnitudes.length : 0d;
+        hasPreviousSpectrum = true;
+    }
+
+    /**
+     * Forgets the previous spectrum.
+     */
+    public void reset() {
+        hasPreviousSpectrum = false;
+        for (int bin = 0; bin < previousMagnitudes.length; bin++) {
+            previousMagnitudes[bin] = 0d;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.mrlongnight.photonjockey.audio;
 
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
@@ -9,17 +11,19 @@ import java.io.IOException;
 
 /**
  * Implementation of an audio source that reads from a WAV file.
- * Reads audio data in frames and provides them for analysis.
+ * Reads audio data in frames and provides them for analysis. Frames are read directly into pooled
+ * {@link AudioFrame}s, which return to the pool once released by the consumers.
  */
 public class FileAudioSource implements IAudioSource {
 
     private static final int FRAME_SIZE = 1024; // Number of samples per frame
+    private static final int FRAME_POOL_SIZE = 8;
 
     private final String filePath;
     private boolean running;
     private AudioInputStream audioInputStream;
     private AudioFormat audioFormat;
-    private byte[] buffer;
+    private AudioFramePool framePool;
     private long frameCount;
 
     /**
@@ -43,42 +47,24 @@ public class FileAudioSource implements IAudioSource {
             return null;
         }
 
+        AudioFrame frame = framePool.acquire();
         try {
-            int bytesPerSample = audioFormat.getSampleSizeInBits() / 8;
-            int channels = audioFormat.getChannels();
-            int bytesToRead = FRAME_SIZE * bytesPerSample * channels;
-
-            if (buffer == null || buffer.length != bytesToRead) {
-                buffer = new byte[bytesToRead];
-            }
-
-            int bytesRead = audioInputStream.read(buffer);
+            byte[] frameData = framePool.getWritableData(frame);
+            int bytesRead = audioInputStream.read(frameData, 0, frameData.length);
 
             if (bytesRead == -1) {
                 // End of file reached
+                frame.release();
                 return null;
             }
 
-            // Create frame with actual bytes read
-            byte[] frameData;
-            if (bytesRead < bytesToRead) {
-                frameData = new byte[bytesRead];
-                System.arraycopy(buffer, 0, frameData, 0, bytesRead);
-            } else {
-                frameData = buffer.clone();
-            }
-
-            AudioFrame frame = new AudioFrame(
-                    frameData,
-                    (int) audioFormat.getSampleRate(),
-                    channels,
-                    System.currentTimeMillis()
-            );
-
+            framePool.fill(frame, bytesRead, (int) audioFormat.getSampleRate(), audioFormat.getChannels(),
+                    System.currentTimeMillis());
             frameCount++;
             return frame;
 
         } catch (IOException e) {
+            frame.release();
             throw new AudioException("Error reading audio file: " + e.getMessage(), e);
         }
     }
@@ -97,9 +83,12 @@ public class FileAudioSource implements IAudioSource {
         try {
             audioInputStream = AudioSystem.getAudioInputStream(audioFile);
             audioFormat = audioInputStream.getFormat();
+            int bytesPerSample = audioFormat.getSampleSizeInBits() / 8;
+            framePool = new AudioFramePool(FRAME_POOL_SIZE, FRAME_SIZE * bytesPerSample * audioFormat.getChannels(),
+                    new PJAudioFormat(audioFormat));
             running = true;
             frameCount = 0;
-        } catch (UnsupportedAudioFileException e) {
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
             throw new AudioException("Unsupported audio file format: " + e.getMessage(), e);
         } catch (IOException e) {
             throw new AudioException("Error opening audio file: " + e.getMessage(), e);
@@ -0,0 +1,204 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.simd.AudioKernels;
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.Arrays;
+
+/**
+ * Single precision variant of {@link FFTProcessor}, using {@link FloatFFT_1D}, float window tables and float
+ * spectra. Halves the memory footprint of all buffers in the hot loop, which is plenty accurate for 16-bit PCM
+ * input. Supports the same block and streaming modes as {@link FFTProcessor}, the streaming bookkeeping is shared
+ * via {@link StreamingWindow} and windowing and magnitudes use the single precision {@link AudioKernels}.
+ * Not thread safe.
+ */
+public class FloatFFTProcessor {
+
+    private final int fftSize;
+    private final int hopSize;
+    private final WindowFunction windowFunction;
+    private final float smoothing;
+    private final FloatFFT_1D fft;
+
+    private final float[] buffer;
+    private final float[] previousSpectrum;
+    private boolean hasPreviousSpectrum;
+
+    private final float[] history;
+    private final StreamingWindow streamingWindow;
+
+    /**
+     * Creates a new FloatFFTProcessor.
+     *
+     * @param fftSize        the size of the FFT (should be a power of 2 for optimal performance)
+     * @param windowFunction the window function to apply before FFT
+     * @param smoothing      smoothing factor between 0 and 1, where 0 means no smoothing
+     *                       and values closer to 1 provide more smoothing across time
+     */
+    public FloatFFTProcessor(int fftSize, WindowFunction windowFunction, double smoothing) {
+        this(fftSize, windowFunction, smoothing, fftSize);
+    }
+
+    /**
+     * Creates a new FloatFFTProcessor for streaming use with overlapping windows.
+     *
+     * @param fftSize        the size of the FFT (should be a power of 2 for optimal performance)
+     * @param windowFunction the window function to apply before FFT
+     * @param smoothing      smoothing factor between 0 and 1, where 0 means no smoothing
+     *                       and values closer to 1 provide more smoothing across time
+     * @param hopSize        amount of pushed samples between two spectra, between 1 and fftSize
+     */
+    public FloatFFTProcessor(int fftSize, WindowFunction windowFunction, double smoothing, int hopSize) {
+        StreamingWindow.checkParameters(fftSize, windowFunction, smoothing, hopSize);
+
+        this.fftSize = fftSize;
+        this.hopSize = hopSize;
+        this.windowFunction = windowFunction;
+        this.smoothing = (float) smoothing;
+        this.fft = new FloatFFT_1D(fftSize);
+
+        windowFunction.floatCoefficients(fftSize);
+
+        this.buffer = new float[fftSize];
+        this.previousSpectrum = new float[getBinCount()];
+        this.history = new float[fftSize];
+        this.streamingWindow = new StreamingWindow(fftSize, hopSize);
+    }
+
+    /**
+     * Computes the magnitude spectrum from the given audio samples into a caller-provided array.
+     *
+     * @param samples  the input audio samples (will not be modified), zero-padded or truncated to the FFT size
+     * @param spectrum array receiving the magnitudes, must be at least {@link #getBinCount()} long
+     * @return the given spectrum array
+     */
+    public float[] computeSpectrum(float[] samples, float[] spectrum) {
+        if (samples == null) {
+            throw new IllegalArgumentException("Samples cannot be null");
+        }
+        checkSpectrumLength(spectrum);
+
+        int copyLength = Math.min(samples.length, fftSize);
+        windowFunction.applyTo(samples, 0, buffer, 0, copyLength, fftSize);
+        for (int i = copyLength; i < fftSize; i++) {
+            buffer[i] = 0f;
+        }
+
+        transformBuffer(spectrum);
+        return spectrum;
+    }
+
+    /**
+     * Pushes samples into the streaming buffer, see
+     * {@link FFTProcessor#pushSamples(double[], int, int, double[], FFTProcessor.SpectrumListener)}.
+     *
+     * @param samples  the input audio samples (will not be modified)
+     * @param offset   index of the first sample to push
+     * @param length   amount of samples to push
+     * @param spectrum array receiving the magnitudes, must be at least {@link #getBinCount()} long
+     * @param listener called synchronously whenever a new spectrum was written
+     */
+    public void pushSamples(float[] samples, int offset, int length, float[] spectrum, SpectrumListener listener) {
+        if (samples == null) {
+            throw new IllegalArgumentException("Samples cannot be null");
+        }
+        checkSpectrumLength(spectrum);
+
+        int end = offset + length;
+        while (offset < end) {
+            offset += streamingWindow.write(samples, offset, end - offset, history);
+            if (streamingWindow.completeHop()) {
+                streamingWindow.unroll(history, windowFunction, buffer);
+                transformBuffer(spectrum);
+                listener.spectrumReady(spectrum, streamingWindow.getSamplePosition());
+            }
+        }
+    }
+
+    private void transformBuffer(float[] spectrum) {
+        fft.realForward(buffer);
+
+        // packed like the double precision output, see FFTProcessor
+        int numBins = previousSpectrum.length;
+        spectrum[0] = Math.abs(buffer[0]);
+        if (fftSize % 2 == 0) {
+            spectrum[numBins - 1] = Math.abs(buffer[1]);
+        }
+        AudioKernels.magnitudes(buffer, 1, spectrum, numBins - 2);
+
+        if (smoothing > 0f && hasPreviousSpectrum) {
+            for (int i = 0; i < numBins; i++) {
+                spectrum[i] = smoothing * previousSpectrum[i] + (1f - smoothing) * spectrum[i];
+            }
+        }
+
+        System.arraycopy(spectrum, 0, previousSpectrum, 0, numBins);
+        hasPreviousSpectrum = true;
+    }
+
+    private void checkSpectrumLength(float[] spectrum) {
+        if (spectrum == null || spectrum.length < getBinCount()) {
+            throw new IllegalArgumentException("Spectrum array must hold at least " + getBinCount() + " bins");
+        }
+    }
+
+    /**
+     * Gets the amount of frequency bins of a spectrum.
+     *
+     * @return fftSize / 2 + 1
+     */
+    public int getBinCount() {
+        return fftSize / 2 + 1;
+    }
+
+    /**
+     * Gets the FFT size.
+     *
+     * @return the FFT size
+     */
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    /**
+     * Gets the hop size used for streaming.
+     *
+     * @return amount of pushed samples between two spectra
+     */
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    /**
+     * Gets the window function.
+     *
+     * @return the window function
+     */
+    public WindowFunction getWindowFunction() {
+        return windowFunction;
+    }
+
+    /**
+     * Resets the internal state, clearing any smoothing history and the streaming buffer.
+     */
+    public void reset() {
+        hasPreviousSpectrum = false;
+        Arrays.fill(history, 0f);
+        streamingWindow.reset();
+    }
+
+    /**
+     * Receives the spectra of the streaming mode.
+     */
+    @FunctionalInterface
+    public interface SpectrumListener {
+
+        /**
+         * Called whenever a new spectrum was computed. The array is overwritten by the next spectrum.
+         *
+         * @param spectrum       magnitude spectrum of the last fftSize samples
+         * @param samplePosition total amount of samples pushed when the spectrum was computed
+         */
+        void spectrumReady(float[] spectrum, long samplePosition);
+    }
+}
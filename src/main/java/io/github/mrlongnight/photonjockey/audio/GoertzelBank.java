@@ -0,0 +1,313 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the energy at a handful of frequencies, one DFT bin per frequency. The energies are taken over the last
+ * {@link #getBlockLength()} samples and refreshed every {@link #getHopLength()} samples, counted across calls,
+ * so blocks overlap like the analysis window when the hop is shorter than the block.
+ * <p>
+ * The bins are sliding DFTs updated per sample: the incoming sample is multiplied by a rotating phasor and added,
+ * the product kept for the sample leaving the block is subtracted. This yields the magnitude a Goertzel resonator
+ * would report over the block, at a cost per sample and frequency that depends neither on the hop nor on the
+ * block length. Subtracting the kept products instead of rotating the sum keeps the rounding errors of the sums
+ * from growing with the rotation, and the sums are recomputed from the kept products once per lap of the block,
+ * so the errors of the additions don't pile up either.
+ * <p>
+ * Energies are RMS values: a sine at one of the frequencies reports its RMS, so they are comparable to the band
+ * energies of the filters. The frequency resolution is about the sample rate divided by the block length.
+ * Not thread safe, meant to be owned by the analysis thread.
+ * <p>
+ * {@link PJAudioReader} uses a bank created by {@link #forBands(AudioProfile, double, int, int)} instead of the
+ * band filters if the profile selects it, see {@link #PARAM_SOURCE}. The bank then refreshes once per hop over
+ * the analysis window, so the band energies are never older than the chunk they are interpreted with.
+ */
+public class GoertzelBank {
+
+    /**
+     * Profile parameter selecting the band energy source, {@value #SOURCE_GOERTZEL} selects this bank.
+     */
+    public static final String PARAM_SOURCE = "bandEnergySource";
+    public static final String SOURCE_GOERTZEL = "goertzel";
+    /**
+     * Profile parameter with the block length in milliseconds, rounded to whole hops. Without it the block is
+     * the analysis window.
+     */
+    public static final String PARAM_BLOCK_MILLIS = "goertzelBlockMillis";
+    /**
+     * Profile parameters with the frequencies in Hz tracked for {@link BeatBand#SUB_BASS},
+     * {@link BeatBand#LOW_MID} and {@link BeatBand#HIGH}.
+     */
+    public static final String PARAM_SUB_BASS_HZ = "goertzelSubBassHz";
+    public static final String PARAM_LOW_MID_HZ = "goertzelLowMidHz";
+    public static final String PARAM_HIGH_HZ = "goertzelHighHz";
+
+    static final double DEFAULT_SUB_BASS_HZ = 55d;
+    static final double DEFAULT_LOW_MID_HZ = 200d;
+    static final double DEFAULT_HIGH_HZ = 8000d;
+
+    private final double[] frequencies;
+    private final double[] energies;
+    private final int blockLength;
+    private final int hopLength;
+    private final double normalization;
+
+    /**
+     * Rotation per sample and current value of the phasor of every bin, as cosine and sine.
+     */
+    private final double[] stepCos;
+    private final double[] stepSin;
+    private final double[] phasorCos;
+    private final double[] phasorSin;
+    /**
+     * Running sums over the block per bin.
+     */
+    private final double[] sumRe;
+    private final double[] sumIm;
+    /**
+     * Products of the samples of the block with their phasor, per bin, oldest at the write index once the block
+     * was filled.
+     */
+    private final double[][] productsRe;
+    private final double[][] productsIm;
+    private int writeIndex;
+    private int position;
+    /**
+     * Amount of samples slid since the sums were last recomputed.
+     */
+    private int lapPosition;
+
+
+    /**
+     * Creates a bank refreshing its energies once per block.
+     *
+     * @param sampleRate  sample rate in Hz
+     * @param blockLength amount of samples the energies are taken over
+     * @param frequencies frequencies to track in Hz, below the Nyquist frequency
+     */
+    public GoertzelBank(double sampleRate, int blockLength, double... frequencies) {
+        this(sampleRate, blockLength, blockLength, frequencies);
+    }
+
+    /**
+     * @param sampleRate  sample rate in Hz
+     * @param blockLength amount of samples the energies are taken over
+     * @param hopLength   amount of samples between two refreshes of the energies, at most the block length
+     * @param frequencies frequencies to track in Hz, below the Nyquist frequency
+     */
+    public GoertzelBank(double sampleRate, int blockLength, int hopLength, double... frequencies) {
+        if (sampleRate <= 0d || blockLength <= 0 || frequencies.length == 0) {
+            throw new IllegalArgumentException("Sample rate and block length must be positive, with at least one frequency");
+        }
+        if (hopLength <= 0 || hopLength > blockLength) {
+            throw new IllegalArgumentException("Hop length must be positive and not exceed the block length");
+        }
+
+        int bins = frequencies.length;
+        this.frequencies = frequencies.clone();
+        this.stepCos = new double[bins];
+        this.stepSin = new double[bins];
+        for (int i = 0; i < bins; i++) {
+            if (frequencies[i] <= 0d || frequencies[i] >= sampleRate / 2d) {
+                throw new IllegalArgumentException("Frequency " + frequencies[i] + " Hz is out of range");
+            }
+            double omega = 2d * Math.PI * frequencies[i] / sampleRate;
+            stepCos[i] = Math.cos(omega);
+            stepSin[i] = -Math.sin(omega);
+        }
+        this.phasorCos = new double[bins];
+        this.phasorSin = new double[bins];
+        Arrays.fill(phasorCos, 1d);
+        this.sumRe = new double[bins];
+        this.sumIm = new double[bins];
+        this.productsRe = new double[bins][blockLength];
+        this.productsIm = new double[bins][blockLength];
+        this.energies = new double[bins];
+        this.blockLength = blockLength;
+        this.hopLength = hopLength;
+        // a sine of amplitude A yields a magnitude of A * N / 2, its RMS is A / sqrt(2)
+        this.normalization = Math.sqrt(2d) / blockLength;
+    }
+
+    /**
+     * Creates a bank with one frequency per {@link BeatBand#SPLIT_BANDS} entry, in that order, configured by the
+     * profile parameters. Missing parameters fall back to a 55 Hz kick fundamental, a 200 Hz snare body and
+     * 8 kHz hi-hats, taken over the analysis window. The energies are refreshed once per hop.
+     *
+     * @param profile      profile holding the parameters
+     * @param sampleRate   sample rate in Hz
+     * @param hopLength    amount of samples between two analysis passes
+     * @param windowLength amount of samples of the analysis window, a whole number of hops
+     * @return new bank
+     */
+    public static GoertzelBank forBands(AudioProfile profile, double sampleRate, int hopLength, int windowLength) {
+        if (hopLength <= 0 || windowLength < hopLength) {
+            throw new IllegalArgumentException("Hop must be positive and the window at least one hop long");
+        }
+        int blockLength = windowLength;
+        if (profile.getParameter(PARAM_BLOCK_MILLIS) != null) {
+            int blockMillis = profile.getIntParameter(PARAM_BLOCK_MILLIS, 0);
+            if (blockMillis <= 0) {
+                throw new IllegalArgumentException("Block length must be positive");
+            }
+            int hops = Math.max(1, (int) Math.round(sampleRate * blockMillis / 1000d / hopLength));
+            blockLength = hops * hopLength;
+        }
+        return new GoertzelBank(sampleRate, blockLength, hopLength,
+                profile.getDoubleParameter(PARAM_SUB_BASS_HZ, DEFAULT_SUB_BASS_HZ),
+                profile.getDoubleParameter(PARAM_LOW_MID_HZ, DEFAULT_LOW_MID_HZ),
+                profile.getDoubleParameter(PARAM_HIGH_HZ, DEFAULT_HIGH_HZ));
+    }
+
+    /**
+     * @param profile profile to check, may be null
+     * @return whether the profile selects this bank as band energy source
+     */
+    public static boolean isSelectedBy(AudioProfile profile) {
+        return profile != null && SOURCE_GOERTZEL.equals(profile.getParameter(PARAM_SOURCE));
+    }
+
+    /**
+     * Slides the block over the samples, refreshing the energies whenever a hop was completed.
+     *
+     * @param samples normalized samples
+     * @param offset  index of the first sample
+     * @param length  amount of samples
+     */
+    public void process(double[] samples, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            int segmentEnd = Math.min(end, offset + hopLength - position);
+            for (int bin = 0; bin < frequencies.length; bin++) {
+                slide(bin, samples, offset, segmentEnd);
+            }
+            writeIndex = (writeIndex + segmentEnd - offset) % blockLength;
+            lapPosition += segmentEnd - offset;
+            if (lapPosition >= blockLength) {
+                // the running sums drift by rounding errors, recompute them once per lap of the block
+                recomputeSums();
+            }
+
+            position += segmentEnd - offset;
+            offset = segmentEnd;
+            if (position == hopLength) {
+                refresh();
+            }
+        }
+    }
+
+    /**
+     * Runs one bin over the samples, each bin keeping its state in registers for the segment.
+     */
+    private void slide(int bin, double[] samples, int from, int to) {
+        double[] re = productsRe[bin];
+        double[] im = productsIm[bin];
+        double cos = phasorCos[bin];
+        double sin = phasorSin[bin];
+        double stepC = stepCos[bin];
+        double stepS = stepSin[bin];
+        double sumR = sumRe[bin];
+        double sumI = sumIm[bin];
+        int index = writeIndex;
+        for (int i = from; i < to; i++) {
+            double sample = samples[i];
+            double productRe = sample * cos;
+            double productIm = sample * sin;
+            sumR += productRe - re[index];
+            sumI += productIm - im[index];
+            re[index] = productRe;
+            im[index] = productIm;
+            index = index + 1 == blockLength ? 0 : index + 1;
+
+            double rotatedCos = cos * stepC - sin * stepS;
+            sin = cos * stepS + sin * stepC;
+            cos = rotatedCos;
+        }
+        phasorCos[bin] = cos;
+        phasorSin[bin] = sin;
+        sumRe[bin] = sumR;
+        sumIm[bin] = sumI;
+    }
+
+    private void recomputeSums() {
+        for (int bin = 0; bin < frequencies.length; bin++) {
+            double sumR = 0d;
+            double sumI = 0d;
+            for (int i = 0; i < blockLength; i++) {
+                sumR += productsRe[bin][i];
+                sumI += productsIm[bin][i];
+            }
+            sumRe[bin] = sumR;
+            sumIm[bin] = sumI;
+        }
+        lapPosition = 0;
+    }
+
+    private void refresh() {
+        for (int bin = 0; bin < frequencies.length; bin++) {
+            double magnitude = Math.sqrt(sumRe[bin] * sumRe[bin] + sumIm[bin] * sumIm[bin]);
+            energies[bin] = magnitude * normalization;
+
+            // keeps the rounding errors of the rotation from changing the length of the phasor
+            double length = Math.sqrt(phasorCos[bin] * phasorCos[bin] + phasorSin[bin] * phasorSin[bin]);
+            phasorCos[bin] /= length;
+            phasorSin[bin] /= length;
+        }
+        position = 0;
+    }
+
+    /**
+     * @return RMS per frequency of the block ending with the last completed hop, in the order of the frequencies.
+     * The array is reused for the next block
+     */
+    public double[] getEnergies() {
+        return energies;
+    }
+
+    /**
+     * @param index index of the frequency
+     * @return tracked frequency in Hz
+     */
+    public double getFrequency(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * @return amount of tracked frequencies
+     */
+    public int getFrequencyCount() {
+        return frequencies.length;
+    }
+
+    /**
+     * @return amount of samples the energies are taken over
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    /**
+     * @return amount of samples between two refreshes of the energies
+     */
+    public int getHopLength() {
+        return hopLength;
+    }
+
+    /**
+     * Clears the kept samples and the energies, as if no sample was processed yet.
+     */
+    public void reset() {
+        for (int bin = 0; bin < frequencies.length; bin++) {
+            Arrays.fill(productsRe[bin], 0d);
+            Arrays.fill(productsIm[bin], 0d);
+        }
+        Arrays.fill(phasorCos, 1d);
+        Arrays.fill(phasorSin, 0d);
+        Arrays.fill(sumRe, 0d);
+        Arrays.fill(sumIm, 0d);
+        Arrays.fill(energies, 0d);
+        writeIndex = 0;
+        position = 0;
+        lapPosition = 0;
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.util.SlidingMedian;
+
+import java.util.Arrays;
+
+/**
+ * Streaming harmonic/percussive separation of magnitude spectra by median filtering. Sustained tones are
+ * smooth along time, so the median of a bin over the last frames estimates the harmonic part. Drum hits are
+ * smooth along frequency, so the median across neighbouring bins of the current frame estimates the percussive
+ * part. Both estimates are turned into a soft mask that keeps the percussive share of every bin.
+ * <p>
+ * The time median only looks back, so the separation adds no latency: an onset is percussive in the frame it
+ * appears in, while a pad or bass line holding for longer than half the time window is harmonic. The medians
+ * are {@link SlidingMedian}s, updating one costs O(log n) and nothing is allocated after construction.
+ * Not thread safe, meant to be owned by the analysis thread.
+ */
+public class HarmonicPercussiveSeparator {
+
+    /**
+     * Keeps the mask defined for silent bins.
+     */
+    private static final double POWER_FLOOR = 1e-20d;
+
+    private final SlidingMedian[] timeMedians;
+    private final SlidingMedian frequencyMedian;
+    private final int frequencyRadius;
+    private final double[] percussiveSpectrum;
+
+
+    /**
+     * @param binCount        amount of bins of the spectra
+     * @param timeWindow      amount of frames the harmonic median is taken over, including the current one
+     * @param frequencyWindow amount of bins the percussive median is taken over, odd so it is centered
+     */
+    public HarmonicPercussiveSeparator(int binCount, int timeWindow, int frequencyWindow) {
+        if (binCount <= 0 || timeWindow <= 0) {
+            throw new IllegalArgumentException("Bin count and time window must be positive");
+        }
+        if (frequencyWindow <= 0 || frequencyWindow % 2 == 0) {
+            throw new IllegalArgumentException("Frequency window must be positive and odd");
+        }
+
+        this.timeMedians = new SlidingMedian[binCount];
+        for (int bin = 0; bin < binCount; bin++) {
+            timeMedians[bin] = new SlidingMedian(timeWindow);
+        }
+        this.frequencyMedian = new SlidingMedian(frequencyWindow);
+        this.frequencyRadius = frequencyWindow / 2;
+        this.percussiveSpectrum = new double[binCount];
+    }
+
+    /**
+     * Separates the next frame of the stream.
+     *
+     * @param spectrum magnitude spectrum of the frame, at least as many bins as the separator was created for
+     * @return power of the percussive part, the sum of its squared magnitudes
+     */
+    public double process(double[] spectrum) {
+        int binCount = percussiveSpectrum.length;
+        if (spectrum.length < binCount) {
+            throw new IllegalArgumentException("Spectrum must hold at least " + binCount + " bins");
+        }
+
+        // the window around a bin is clipped at the edges of the spectrum
+        frequencyMedian.clear();
+        for (int bin = 0; bin < Math.min(frequencyRadius, binCount); bin++) {
+            frequencyMedian.add(spectrum[bin]);
+        }
+
+        double percussivePower = 0d;
+        for (int bin = 0; bin < binCount; bin++) {
+            int entering = bin + frequencyRadius;
+            if (entering < binCount) {
+                // evicts the bin leaving the window once it is full
+                frequencyMedian.add(spectrum[entering]);
+            } else if (bin > frequencyRadius) {
+                frequencyMedian.removeOldest();
+            }
+
+            double magnitude = spectrum[bin];
+            double harmonic = timeMedians[bin].add(magnitude);
+            double percussive = frequencyMedian.median();
+
+            double harmonicPower = harmonic * harmonic;
+            double percussiveEstimate = percussive * percussive;
+            double mask = percussiveEstimate / (percussiveEstimate + harmonicPower + POWER_FLOOR);
+            double separated = magnitude * mask;
+            percussiveSpectrum[bin] = separated;
+            percussivePower += separated * separated;
+        }
+        return percussivePower;
+    }
+
+    /**
+     * @return percussive magnitudes of the last frame, the array is reused for the next frame
+     */
+    public double[] getPercussiveSpectrum() {
+        return percussiveSpectrum;
+    }
+
+    /**
+     * @return amount of bins of the spectra
+     */
+    public int getBinCount() {
+        return percussiveSpectrum.length;
+    }
+
+    /**
+     * Forgets all previous frames.
+     */
+    public void reset() {
+        for (SlidingMedian timeMedian : timeMedians) {
+            timeMedian.clear();
+        }
+        frequencyMedian.clear();
+        Arrays.fill(percussiveSpectrum, 0d);
+    }
+}
@@ -6,7 +6,8 @@ package io.github.mrlongnight.photonjockey.audio;
 public interface IAudioSource {
 
     /**
-     * Polls for the next available audio frame.
+     * Polls for the next available audio frame. The caller owns the frame and must {@link AudioFrame#release()}
+     * it once done, so pooled frames can be reused.
      *
      * @return the next audio frame, or null if no frame is available
      * @throws AudioException if an error occurs while polling for audio data
@@ -0,0 +1,245 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import java.util.Arrays;
+
+/**
+ * Projects linear FFT magnitude spectra onto bands spaced evenly in log frequency, the way pitch is perceived.
+ * Every band is a triangle in log frequency reaching from the center of the band below to the center of the
+ * band above, so neighbouring bands overlap by half and together weigh every frequency between the lowest and
+ * the highest center once. A few dozen bands resolve the bass as finely as the FFT allows without spending
+ * most of the values on the highs, where the linear bins are densest.
+ * <p>
+ * The spectrum is treated as a power density interpolated linearly between the bins, which the triangles are
+ * integrated over. Bands narrower than a bin therefore receive their share of the bins around them instead of
+ * being empty, and the band powers sum up to the power of the bins they cover. A band only reaches a few
+ * neighbouring bins, so its kernel is stored as the weights of one contiguous bin range and projecting a
+ * spectrum costs about two multiplications per bin.
+ * <p>
+ * Kernels are immutable and cached, {@link #of(int, double, int, double, double)} returns the same instance
+ * for the same parameters.
+ */
+public final class LogBandProjection {
+
+    public static final double DEFAULT_MIN_FREQUENCY = 40d;
+    public static final double DEFAULT_MAX_FREQUENCY = 16000d;
+    /**
+     * Highest default band center relative to the sample rate, keeps the top band below the Nyquist frequency.
+     */
+    private static final double MAX_FREQUENCY_RATIO = 0.45d;
+    private static final int MIN_INTEGRATION_STEPS = 32;
+    private static final int INTEGRATION_STEPS_PER_BIN = 16;
+    private static final double MIN_WEIGHT = 1e-9d;
+
+    /**
+     * Projections created so far. Copy-on-write, so lookups neither lock nor allocate.
+     */
+    private static volatile LogBandProjection[] cache = new LogBandProjection[0];
+
+    private final int fftSize;
+    private final double sampleRate;
+    private final double minFrequency;
+    private final double maxFrequency;
+    private final double[] centerFrequencies;
+    private final int[] firstBins;
+    /**
+     * Start of the weights of every band, followed by the end of the last band.
+     */
+    private final int[] weightOffsets;
+    private final double[] weights;
+
+
+    private LogBandProjection(int fftSize, double sampleRate, int bandCount, double minFrequency,
+                              double maxFrequency) {
+        this.fftSize = fftSize;
+        this.sampleRate = sampleRate;
+        this.minFrequency = minFrequency;
+        this.maxFrequency = maxFrequency;
+
+        double logRatio = Math.log(maxFrequency / minFrequency) / (bandCount - 1);
+        this.centerFrequencies = new double[bandCount];
+        for (int band = 0; band < bandCount; band++) {
+            centerFrequencies[band] = minFrequency * Math.exp(band * logRatio);
+        }
+
+        double binWidth = sampleRate / fftSize;
+        int binCount = fftSize / 2 + 1;
+        this.firstBins = new int[bandCount];
+        this.weightOffsets = new int[bandCount + 1];
+        double[][] bandWeights = new double[bandCount][];
+        for (int band = 0; band < bandCount; band++) {
+            double center = centerFrequencies[band];
+            double lower = center * Math.exp(-logRatio);
+            double upper = center * Math.exp(logRatio);
+
+            // a bin contributes to all frequencies within one bin width of it
+            int firstBin = Math.max(0, (int) Math.floor(lower / binWidth));
+            int lastBin = Math.min(binCount - 1, (int) Math.ceil(upper / binWidth));
+            double[] rangeWeights = new double[lastBin - firstBin + 1];
+
+            int steps = Math.max(MIN_INTEGRATION_STEPS,
+                    (int) Math.ceil((upper - lower) / binWidth * INTEGRATION_STEPS_PER_BIN));
+            double step = (upper - lower) / steps;
+            for (int i = 0; i < steps; i++) {
+                double frequency = lower + (i + 0.5d) * step;
+                double triangle = 1d - Math.abs(Math.log(frequency / center)) / logRatio;
+                double position = frequency / binWidth;
+                int below = (int) position;
+                double fraction = position - below;
+                // dividing by the bin width makes a bin's weights sum to one across all bands covering it
+                double share = triangle * step / binWidth;
+                if (below >= firstBin && below <= lastBin) {
+                    rangeWeights[below - firstBin] += share * (1d - fraction);
+                }
+                if (below + 1 >= firstBin && below + 1 <= lastBin) {
+                    rangeWeights[below + 1 - firstBin] += share * fraction;
+                }
+            }
+
+            // drop the bins the integration only grazed
+            int from = 0;
+            int to = rangeWeights.length;
+            while (from < to - 1 && rangeWeights[from] < MIN_WEIGHT) {
+                from++;
+            }
+            while (to > from + 1 && rangeWeights[to - 1] < MIN_WEIGHT) {
+                to--;
+            }
+            firstBins[band] = firstBin + from;
+            bandWeights[band] = Arrays.copyOfRange(rangeWeights, from, to);
+            weightOffsets[band + 1] = weightOffsets[band] + bandWeights[band].length;
+        }
+
+        this.weights = new double[weightOffsets[bandCount]];
+        for (int band = 0; band < bandCount; band++) {
+            System.arraycopy(bandWeights[band], 0, weights, weightOffsets[band], bandWeights[band].length);
+        }
+    }
+
+    /**
+     * Gets the projection onto bands from {@value #DEFAULT_MIN_FREQUENCY} Hz up to
+     * {@value #DEFAULT_MAX_FREQUENCY} Hz, or 45 % of the sample rate if that is lower.
+     *
+     * @param fftSize    size of the FFT the spectra are computed with
+     * @param sampleRate sample rate in Hz
+     * @param bandCount  amount of bands, at least two
+     * @return cached projection
+     */
+    public static LogBandProjection of(int fftSize, double sampleRate, int bandCount) {
+        return of(fftSize, sampleRate, bandCount, DEFAULT_MIN_FREQUENCY,
+                Math.min(DEFAULT_MAX_FREQUENCY, sampleRate * MAX_FREQUENCY_RATIO));
+    }
+
+    /**
+     * Gets the projection for the parameters, computing its kernel on first use.
+     *
+     * @param fftSize      size of the FFT the spectra are computed with
+     * @param sampleRate   sample rate in Hz
+     * @param bandCount    amount of bands, at least two
+     * @param minFrequency center of the lowest band in Hz
+     * @param maxFrequency center of the highest band in Hz, below the Nyquist frequency
+     * @return cached projection
+     */
+    public static LogBandProjection of(int fftSize, double sampleRate, int bandCount, double minFrequency,
+                                       double maxFrequency) {
+        if (fftSize < 2 || sampleRate <= 0d || bandCount < 2) {
+            throw new IllegalArgumentException("FFT size and band count must be at least two, sample rate positive");
+        }
+        if (minFrequency <= 0d || maxFrequency <= minFrequency || maxFrequency >= sampleRate / 2d) {
+            throw new IllegalArgumentException("Frequencies must be ascending and below the Nyquist frequency");
+        }
+
+        LogBandProjection cached = find(cache, fftSize, sampleRate, bandCount, minFrequency, maxFrequency);
+        if (cached != null) {
+            return cached;
+        }
+
+        synchronized (LogBandProjection.class) {
+            LogBandProjection[] projections = cache;
+            cached = find(projections, fftSize, sampleRate, bandCount, minFrequency, maxFrequency);
+            if (cached != null) {
+                return cached;
+            }
+
+            LogBandProjection projection = new LogBandProjection(fftSize, sampleRate, bandCount, minFrequency,
+                    maxFrequency);
+            LogBandProjection[] newProjections = new LogBandProjection[projections.length + 1];
+            System.arraycopy(projections, 0, newProjections, 0, projections.length);
+            newProjections[projections.length] = projection;
+            cache = newProjections;
+            return projection;
+        }
+    }
+
+    private static LogBandProjection find(LogBandProjection[] projections, int fftSize, double sampleRate,
+                                          int bandCount, double minFrequency, double maxFrequency) {
+        for (LogBandProjection projection : projections) {
+            if (projection.fftSize == fftSize && projection.sampleRate == sampleRate
+                    && projection.centerFrequencies.length == bandCount
+                    && projection.minFrequency == minFrequency && projection.maxFrequency == maxFrequency) {
+                return projection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Projects a magnitude spectrum onto the bands.
+     *
+     * @param spectrum magnitude spectrum of {@code fftSize / 2 + 1} bins
+     * @param bands    array receiving the magnitude of every band, the square root of its power, must be at
+     *                 least {@link #getBandCount()} long
+     * @return the given bands array
+     */
+    public double[] project(double[] spectrum, double[] bands) {
+        if (spectrum.length < fftSize / 2 + 1 || bands.length < centerFrequencies.length) {
+            throw new IllegalArgumentException("Spectrum or band array too short");
+        }
+
+        for (int band = 0; band < centerFrequencies.length; band++) {
+            int bin = firstBins[band];
+            double power = 0d;
+            for (int i = weightOffsets[band]; i < weightOffsets[band + 1]; i++, bin++) {
+                double magnitude = spectrum[bin];
+                power += weights[i] * magnitude * magnitude;
+            }
+            bands[band] = Math.sqrt(power);
+        }
+        return bands;
+    }
+
+    /**
+     * @return amount of bands
+     */
+    public int getBandCount() {
+        return centerFrequencies.length;
+    }
+
+    /**
+     * @param band index of the band
+     * @return center frequency of the band in Hz
+     */
+    public double getCenterFrequency(int band) {
+        return centerFrequencies[band];
+    }
+
+    /**
+     * @return amount of non-zero weights of the kernel, the multiplications per projected spectrum
+     */
+    public int getKernelSize() {
+        return weights.length;
+    }
+
+    /**
+     * @return size of the FFT the spectra are computed with
+     */
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    /**
+     * @return sample rate in Hz
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
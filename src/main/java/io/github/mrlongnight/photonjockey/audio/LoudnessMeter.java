@@ -0,0 +1,239 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.filter.Biquad;
+
+import java.util.Arrays;
+
+/**
+ * Streaming loudness meter following EBU R128 / ITU-R BS.1770. Samples are K-weighted by two biquads and their
+ * mean square is collected in blocks of 100 ms. A ring of the last 30 blocks yields the momentary loudness over
+ * 400 ms and the short-term loudness over 3 s, both kept as running sums. Every 400 ms window also enters a
+ * histogram of 0.1 LU bins for the gated integrated loudness, which is computed from the histogram on request.
+ * Completing a block costs the same regardless of how long the meter ran, per sample only the biquads run.
+ * <p>
+ * Loudness is given in LUFS, full scale sine waves at 1 kHz measure -3 LUFS. The meter measures the samples
+ * it is given like a single channel, so the mono downmix of a stereo signal reads up to 3 LU lower than the
+ * stereo signal would. Values are clamped to {@link #MIN_LOUDNESS}, which also stands for silence and for no
+ * measurement yet. Not thread safe, meant to be owned by the analysis thread.
+ */
+public class LoudnessMeter {
+
+    /**
+     * Lowest loudness reported, the absolute gate of the integrated loudness.
+     */
+    public static final double MIN_LOUDNESS = -70d;
+
+    static final int BLOCK_MILLIS = 100;
+    static final int MOMENTARY_BLOCKS = 4;
+    static final int SHORT_TERM_BLOCKS = 30;
+    /**
+     * Windows quieter than the ungated integrated loudness by more than this don't count.
+     */
+    private static final double RELATIVE_GATE = -10d;
+    private static final double LOUDNESS_OFFSET = -0.691d;
+    private static final double MAX_LOUDNESS = 10d;
+    private static final double HISTOGRAM_RESOLUTION = 0.1d;
+    private static final double MIN_MEAN_SQUARE = meanSquare(MIN_LOUDNESS);
+
+    private final Biquad shelf;
+    private final Biquad highPass;
+    private final int blockLength;
+    private double blockSum;
+    private int blockPosition;
+
+    private final double[] blockMeanSquares = new double[SHORT_TERM_BLOCKS];
+    private int blockIndex;
+    private int blockCount;
+    private double momentarySum;
+    private double shortTermSum;
+
+    /**
+     * Count and summed mean square of the gated windows per loudness bin.
+     */
+    private final long[] histogramCounts;
+    private final double[] histogramSums;
+
+
+    /**
+     * @param sampleRate sample rate in Hz
+     */
+    public LoudnessMeter(double sampleRate) {
+        this.shelf = Biquad.kWeightingShelf(sampleRate);
+        this.highPass = Biquad.kWeightingHighPass(sampleRate);
+        this.blockLength = Math.max(1, (int) Math.round(sampleRate * BLOCK_MILLIS / 1000d));
+
+        int bins = (int) Math.ceil((MAX_LOUDNESS - MIN_LOUDNESS) / HISTOGRAM_RESOLUTION);
+        this.histogramCounts = new long[bins];
+        this.histogramSums = new double[bins];
+    }
+
+    /**
+     * Feeds samples to the meter, completing a block whenever 100 ms were collected.
+     *
+     * @param samples normalized samples
+     * @param offset  index of the first sample
+     * @param length  amount of samples
+     */
+    public void process(double[] samples, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            int segmentEnd = Math.min(end, offset + blockLength - blockPosition);
+            double sum = 0d;
+            for (int i = offset; i < segmentEnd; i++) {
+                double weighted = highPass.process(shelf.process(samples[i]));
+                sum += weighted * weighted;
+            }
+            addToBlock(sum, segmentEnd - offset);
+            offset = segmentEnd;
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #process(double[], int, int)}, the filters still run in double precision.
+     *
+     * @param samples normalized samples
+     * @param offset  index of the first sample
+     * @param length  amount of samples
+     */
+    public void process(float[] samples, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            int segmentEnd = Math.min(end, offset + blockLength - blockPosition);
+            double sum = 0d;
+            for (int i = offset; i < segmentEnd; i++) {
+                double weighted = highPass.process(shelf.process(samples[i]));
+                sum += weighted * weighted;
+            }
+            addToBlock(sum, segmentEnd - offset);
+            offset = segmentEnd;
+        }
+    }
+
+    private void addToBlock(double sum, int length) {
+        blockSum += sum;
+        blockPosition += length;
+        if (blockPosition == blockLength) {
+            completeBlock(blockSum / blockLength);
+            blockSum = 0d;
+            blockPosition = 0;
+        }
+    }
+
+    private void completeBlock(double meanSquare) {
+        int momentaryExpired = (blockIndex + SHORT_TERM_BLOCKS - MOMENTARY_BLOCKS) % SHORT_TERM_BLOCKS;
+        momentarySum += meanSquare - (blockCount >= MOMENTARY_BLOCKS ? blockMeanSquares[momentaryExpired] : 0d);
+        shortTermSum += meanSquare - blockMeanSquares[blockIndex];
+        blockMeanSquares[blockIndex] = meanSquare;
+        blockIndex = (blockIndex + 1) % SHORT_TERM_BLOCKS;
+        blockCount = Math.min(blockCount + 1, SHORT_TERM_BLOCKS);
+
+        if (blockIndex == 0) {
+            // the running sums drift by rounding errors, recompute them once per lap of the ring
+            recomputeSums();
+        }
+
+        if (blockCount >= MOMENTARY_BLOCKS) {
+            addToHistogram(momentarySum / MOMENTARY_BLOCKS);
+        }
+    }
+
+    private void recomputeSums() {
+        momentarySum = 0d;
+        shortTermSum = 0d;
+        for (int i = 0; i < SHORT_TERM_BLOCKS; i++) {
+            shortTermSum += blockMeanSquares[i];
+        }
+        for (int i = 1; i <= Math.min(MOMENTARY_BLOCKS, blockCount); i++) {
+            momentarySum += blockMeanSquares[(blockIndex + SHORT_TERM_BLOCKS - i) % SHORT_TERM_BLOCKS];
+        }
+    }
+
+    private void addToHistogram(double meanSquare) {
+        if (meanSquare < MIN_MEAN_SQUARE) {
+            return;
+        }
+        int bin = Math.min(histogramCounts.length - 1,
+                (int) ((loudness(meanSquare) - MIN_LOUDNESS) / HISTOGRAM_RESOLUTION));
+        histogramCounts[bin]++;
+        histogramSums[bin] += meanSquare;
+    }
+
+    /**
+     * @return loudness of the last 400 ms in LUFS, blocks not measured yet count as silence
+     */
+    public double getMomentaryLoudness() {
+        return loudness(momentarySum / MOMENTARY_BLOCKS);
+    }
+
+    /**
+     * @return loudness of the last 3 s in LUFS, blocks not measured yet count as silence
+     */
+    public double getShortTermLoudness() {
+        return loudness(shortTermSum / SHORT_TERM_BLOCKS);
+    }
+
+    /**
+     * Computes the gated loudness of everything measured since the last reset. Of the 400 ms windows, which
+     * overlap by 75 %, the ones below {@link #MIN_LOUDNESS} and then the ones more than 10 LU below the average
+     * of the rest are left out. Takes a pass over the histogram, the relative gate is resolved to 0.1 LU.
+     *
+     * @return integrated loudness in LUFS
+     */
+    public double getIntegratedLoudness() {
+        long count = 0L;
+        double sum = 0d;
+        for (int bin = 0; bin < histogramCounts.length; bin++) {
+            count += histogramCounts[bin];
+            sum += histogramSums[bin];
+        }
+        if (count == 0L) {
+            return MIN_LOUDNESS;
+        }
+
+        double relativeGate = loudness(sum / count) + RELATIVE_GATE;
+        int firstBin = Math.max(0, (int) Math.round((relativeGate - MIN_LOUDNESS) / HISTOGRAM_RESOLUTION));
+        count = 0L;
+        sum = 0d;
+        for (int bin = firstBin; bin < histogramCounts.length; bin++) {
+            count += histogramCounts[bin];
+            sum += histogramSums[bin];
+        }
+        return count == 0L ? MIN_LOUDNESS : loudness(sum / count);
+    }
+
+    /**
+     * Forgets the integrated loudness, for example when the track changed. Momentary and short-term loudness
+     * are kept.
+     */
+    public void resetIntegrated() {
+        Arrays.fill(histogramCounts, 0L);
+        Arrays.fill(histogramSums, 0d);
+    }
+
+    /**
+     * Clears all state, as if no sample was processed yet.
+     */
+    public void reset() {
+        shelf.reset();
+        highPass.reset();
+        blockSum = 0d;
+        blockPosition = 0;
+        Arrays.fill(blockMeanSquares, 0d);
+        blockIndex = 0;
+        blockCount = 0;
+        momentarySum = 0d;
+        shortTermSum = 0d;
+        resetIntegrated();
+    }
+
+    private static double loudness(double meanSquare) {
+        if (meanSquare <= MIN_MEAN_SQUARE) {
+            return MIN_LOUDNESS;
+        }
+        return LOUDNESS_OFFSET + 10d * Math.log10(meanSquare);
+    }
+
+    private static double meanSquare(double loudness) {
+        return Math.pow(10d, (loudness - LOUDNESS_OFFSET) / 10d);
+    }
+}
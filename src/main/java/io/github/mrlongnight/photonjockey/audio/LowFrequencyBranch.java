@@ -0,0 +1,161 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.filter.AudioFilter;
+import io.github.mrlongnight.photonjockey.audio.filter.FilterBank;
+import io.github.mrlongnight.photonjockey.audio.filter.LinkwitzRileyFilter;
+import io.github.mrlongnight.photonjockey.audio.filter.PolyphaseDecimator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analysis branch of {@link AudioChunkProcessor} for the bass: the broadband samples are decimated by a
+ * {@link PolyphaseDecimator} and the bass low-pass and the low bands are run at the reduced rate. Kick drums
+ * only have content below a few hundred Hz, so running their filters at 44.1 or 48 kHz is wasted work.
+ * <p>
+ * Energies are RMS values of the decimated signal, which are comparable to the ones of the full rate signal
+ * as the decimator has unity gain in the pass band. Not thread safe.
+ */
+class LowFrequencyBranch {
+
+    /**
+     * Lowest sample rate the signal is decimated to, leaving room for the anti-aliasing filter above 250 Hz.
+     */
+    static final double MIN_SAMPLE_RATE = 2000d;
+    static final int MAX_FACTOR = 16;
+    private static final int TAPS_PER_PHASE = 12;
+    private static final double MAX_CUTOFF_RATIO = 0.45d;
+
+    private final PolyphaseDecimator decimator;
+    private final double sampleRate;
+    private final double[] decimated;
+    private int decimatedLength;
+
+    private final LinkwitzRileyFilter bassFilter;
+    private double bassRms;
+
+    private final FilterBank bandFilters;
+    private final double[] bandEnergies;
+
+
+    /**
+     * @param inputSampleRate sample rate of the broadband samples in Hz
+     * @param maxChunkLength  maximum amount of samples fed at once
+     * @param bands           bands to compute at the reduced rate, see {@link #covers(BeatBand, double)}
+     * @param bassCutoff      cutoff of the bass low-pass in Hz
+     */
+    LowFrequencyBranch(double inputSampleRate, int maxChunkLength, List<BeatBand> bands, double bassCutoff) {
+        int factor = chooseFactor(inputSampleRate);
+        this.decimator = new PolyphaseDecimator(factor, TAPS_PER_PHASE);
+        this.sampleRate = inputSampleRate / factor;
+        // a chunk can complete one more output sample than its length suggests, depending on the phase
+        this.decimated = new double[maxChunkLength / factor + 1];
+        this.bassFilter = LinkwitzRileyFilter.lowPass(sampleRate, bassCutoff);
+
+        List<AudioFilter> filters = new ArrayList<>();
+        for (BeatBand band : bands) {
+            if (!covers(band, inputSampleRate)) {
+                throw new IllegalArgumentException("Band " + band + " is too high for the decimated rate");
+            }
+            filters.add(band.createFilter(sampleRate));
+        }
+        this.bandFilters = filters.isEmpty() ? null : new FilterBank(filters);
+        this.bandEnergies = new double[filters.size()];
+    }
+
+    /**
+     * @param inputSampleRate sample rate in Hz
+     * @return the largest power of two up to {@link #MAX_FACTOR} that keeps the rate above
+     * {@link #MIN_SAMPLE_RATE}, 1 if the rate already is that low
+     */
+    static int chooseFactor(double inputSampleRate) {
+        int factor = 1;
+        while (factor < MAX_FACTOR && inputSampleRate / (factor * 2) >= MIN_SAMPLE_RATE) {
+            factor *= 2;
+        }
+        return factor;
+    }
+
+    /**
+     * @param band            band to check
+     * @param inputSampleRate sample rate of the broadband samples in Hz
+     * @return whether the band is closed at the top and fits below the decimated Nyquist frequency
+     */
+    static boolean covers(BeatBand band, double inputSampleRate) {
+        double decimatedRate = inputSampleRate / chooseFactor(inputSampleRate);
+        return band.getHighCutoff() > 0d && band.getHighCutoff() <= decimatedRate * MAX_CUTOFF_RATIO;
+    }
+
+    /**
+     * Decimates the samples and updates the band energies, and the bass RMS if requested. If the samples
+     * did not complete a decimated sample, the energies of the previous call are kept.
+     *
+     * @param samples  broadband samples
+     * @param length   amount of samples
+     * @param bassOnly whether the bass RMS should be computed
+     */
+    void process(double[] samples, int length, boolean bassOnly) {
+        decimatedLength = decimator.process(samples, 0, length, decimated, 0);
+        if (decimatedLength == 0) {
+            return;
+        }
+
+        double sumOfSquares = 0d;
+        for (int i = 0; i < decimatedLength; i++) {
+            double sample = decimated[i];
+            if (bandFilters != null) {
+                bandFilters.processSample(sample);
+            }
+            if (bassOnly) {
+                double bass = bassFilter.process(sample);
+                sumOfSquares += bass * bass;
+            }
+        }
+        if (bandFilters != null) {
+            bandFilters.collectEnergies(decimatedLength, bandEnergies);
+        }
+        if (bassOnly) {
+            bassRms = Math.sqrt(sumOfSquares / decimatedLength);
+        }
+    }
+
+    /**
+     * @return RMS of the low-passed signal of the last call that computed it
+     */
+    double getBassRms() {
+        return bassRms;
+    }
+
+    /**
+     * @return RMS per band in the order they were passed, the array is reused for the next call
+     */
+    double[] getBandEnergies() {
+        return bandEnergies;
+    }
+
+    /**
+     * @return the decimated samples of the last call, valid up to {@link #getDecimatedLength()}
+     */
+    double[] getDecimated() {
+        return decimated;
+    }
+
+    int getDecimatedLength() {
+        return decimatedLength;
+    }
+
+    /**
+     * @return sample rate of the decimated signal in Hz
+     */
+    double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Clears the state of the bass low-pass, for when bass mode was switched.
+     */
+    void resetBassFilter() {
+        bassFilter.reset();
+        bassRms = 0d;
+    }
+}
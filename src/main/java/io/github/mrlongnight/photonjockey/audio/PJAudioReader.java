@@ -1,91 +1,154 @@
 package io.github.mrlongnight.photonjockey.audio;
 
-import org.jtransforms.fft.DoubleFFT_1D;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.github.mrlongnight.photonjockey.AppTaskOrchestrator;
 import io.github.mrlongnight.photonjockey.audio.device.*;
 import io.github.mrlongnight.photonjockey.audio.device.provider.DeviceProvider;
+import io.github.mrlongnight.photonjockey.audio.device.provider.DeviceRegistry;
 import io.github.mrlongnight.photonjockey.audio.device.provider.JavaAudioDeviceProvider;
 import io.github.mrlongnight.photonjockey.audio.device.provider.PortAudioDeviceProvider;
 import io.github.mrlongnight.photonjockey.audio.device.provider.WASAPIDeviceProvider;
 import io.github.mrlongnight.photonjockey.config.Config;
 import io.github.mrlongnight.photonjockey.config.ConfigNode;
+import io.github.mrlongnight.photonjockey.util.ByteRingBuffer;
 import io.github.mrlongnight.photonjockey.util.PlatformDetector;
 import io.github.mrlongnight.photonjockey.util.TimeThreshold;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 /**
  * Default {@link AudioReader} implementation that also serves as an {@link BeatEventManager}.
- * This implementation uses a listener-based approach to process audio data as it becomes available.
- * It can filter frequencies for bass detection and notifies registered {@link BeatObserver}s when a beat is detected.
+ * This implementation uses a listener-based approach to receive audio data as it becomes available. Captured
+ * data is handed over to a dedicated analysis thread through a lock-free ring buffer, so a slow analysis pass
+ * never blocks the capture thread of the device.
+ * It can filter frequencies for bass detection and notifies registered {@link BeatObserver}s when a beat is detected,
+ * either in the whole signal or in one of the {@link BeatBand}s.
+ * <p>
+ * The analysis rate ({@link ConfigNode#AUDIO_ANALYSIS_RATE}) sets the hop between two analysis passes. Every pass
+ * covers an analysis window of {@value #ANALYSIS_WINDOW_MILLIS} ms ending with the newest hop, so raising the rate
+ * lowers the detection latency without shortening the window the amplitude is measured over.
+ * <p>
+ * Band energies come from the band filters of the chunk processor, or from a {@link GoertzelBank} tracking
+ * a few frequencies if the {@link AudioProfile} set via {@link #setAudioProfile(AudioProfile)} selects it.
+ * <p>
+ * In percussive mode ({@link ConfigNode#BEAT_PERCUSSIVE_MODE}) beats are detected on the percussive part of the
+ * signal only, split off the streamed spectra by a {@link HarmonicPercussiveSeparator}, so sustained pads and
+ * bass lines don't mask the drums.
+ * <p>
+ * A {@link LoudnessMeter} meters every chunk, beats carry the momentary and integrated loudness. A silence
+ * usually separates two tracks, so it restarts the integrated loudness.
  */
 public class PJAudioReader implements BeatEventManager, AudioReader {
 
-    private static final int AMPLITUDES_PER_SECOND = 50;
-    private static final double BASS_CUTOFF_HZ = 200.0;
+    private static final int MIN_ANALYSIS_RATE = 50;
+    private static final int MAX_ANALYSIS_RATE = 400;
+    private static final int ANALYSIS_WINDOW_MILLIS = 20;
     private static final double MINIMUM_AMPLITUDE = 0.005d;
     private static final boolean DUMP_ALL_DEVICES = false;
+    private static final long DEVICE_PROBE_TIMEOUT_MS = 3000L;
+    /**
+     * Wavelet levels of the onset localization, the coarsest covers roughly 1.4-2.8 kHz at 44.1 kHz.
+     */
+    private static final int TRANSIENT_LEVELS = 4;
+
+    /**
+     * Amount of audio the ring buffer between capture and analysis can hold before the oldest data is dropped.
+     */
+    private static final int RING_BUFFER_MILLIS = 500;
+    private static final long ANALYSIS_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long ANALYSIS_JOIN_TIMEOUT_MS = 500L;
 
     private static final Logger logger = LoggerFactory.getLogger(PJAudioReader.class);
 
     private final Config config;
     private final AppTaskOrchestrator taskOrchestrator;
 
-    private final List<DeviceProvider> deviceProviders;
+    private final DeviceRegistry deviceRegistry;
 
     private final List<BeatObserver> beatEventObservers = new ArrayList<>();
+    private final BeatPhaseTracker beatPhaseTracker = new BeatPhaseTracker();
 
     private AudioDevice audioDevice;
     private BeatInterpreter beatInterpreter;
+    private TempoTracker tempoTracker;
+    /**
+     * Amplitude of the previous chunk, the tempo is tracked on the increase over it.
+     */
+    private double previousAmplitude;
     private TimeThreshold nextBeatThreshold;
+    /**
+     * Minimum interval between two beats of the same band, only accessed by the analysis thread.
+     */
+    private final EnumMap<BeatBand, TimeThreshold> nextBandBeatThresholds = new EnumMap<>(BeatBand.class);
     private ScheduledFuture<?> healthCheckFuture;
 
-    private ByteBuffer remainderBuffer;
-    private PJAudioFormat audioFormat;
+    private final Object producerLock = new Object();
+    private volatile ByteRingBuffer ringBuffer;
+
+    /**
+     * Capture time of the (virtual) first byte of the ring buffer stream, so the capture time of any stream
+     * position follows from the byte rate. Updated by every capture callback, which keeps it in line with the
+     * device clock.
+     */
+    private volatile long streamOriginNanos;
+    private double nanosPerByte;
+    private volatile Thread analysisThread;
+    private volatile boolean analysisRunning;
+    private volatile PJAudioFormat audioFormat;
+    private AudioChunkProcessor chunkProcessor;
+    private TransientDetector transientDetector;
+    private LoudnessMeter loudnessMeter;
+    private double nanosPerSample;
+
+    private PercussiveSeparation percussiveSeparation;
+    private boolean percussiveMode;
     private int bytesPerChunk;
+
     private int samplesPerChunk;
+    private int windowChunks;
+    private volatile SampleListener sampleListener;
+    private volatile AudioProfile audioProfile;
+    /**
+     * Alternative band energy source, replaced as a whole when the profile changes, null to use the band filters.
+     */
+    private volatile GoertzelBank goertzelBank;
 
 
     public PJAudioReader(Config config, AppTaskOrchestrator taskOrchestrator) {
         this.config = config;
         this.taskOrchestrator = taskOrchestrator;
 
-        this.deviceProviders = new ArrayList<>();
+        List<DeviceProvider> deviceProviders = new ArrayList<>();
         if (PlatformDetector.isWindows()) {
             deviceProviders.add(new WASAPIDeviceProvider(taskOrchestrator));
         }
         // fallbacks, first port audio (also libjitsi wrapped), then java audio
         deviceProviders.add(new PortAudioDeviceProvider(taskOrchestrator));
-        deviceProviders.add(new JavaAudioDeviceProvider(taskOrchestrator));
+        deviceProviders.add(new JavaAudioDeviceProvider(taskOrchestrator, config));
+        this.deviceRegistry = new DeviceRegistry(deviceProviders, taskOrchestrator, DEVICE_PROBE_TIMEOUT_MS,
+                DUMP_ALL_DEVICES);
     }
 
     @Override
     public List<AudioDevice> getSupportedDevices() {
-        List<AudioDevice> devices = new ArrayList<>();
-        for (DeviceProvider deviceProvider : deviceProviders) {
-            devices.addAll(deviceProvider.getAudioDevices());
-            if (!devices.isEmpty() && !DUMP_ALL_DEVICES) {
-                break;
-            }
-        }
-        return devices;
+        return deviceRegistry.getDevices();
     }
 
     @Override
     public AudioDevice getDeviceByName(String name) {
-        return getSupportedDevices().stream()
-                .filter(device -> device.getName().equals(name))
-                .findFirst()
-                .orElse(null);
+        return deviceRegistry.getDevice(name);
+    }
+
+    @Override
+    public List<AudioDevice> rescanDevices() {
+        return deviceRegistry.rescan();
     }
 
     @Override
@@ -93,9 +156,12 @@ public class PJAudioReader implements BeatEventManager, AudioReader {
         if (isOpen()) {
             stop();
         }
+        stopAnalysisThread();
 
+        int analysisRate = getAnalysisRate();
         this.audioDevice = audioDevice;
         this.audioDevice.setAudioListener(this::onDataAvailable);
+        this.audioDevice.setChunkMillis(Math.max(1, 1000 / analysisRate));
 
         boolean started = audioDevice.start();
         if (!started) {
@@ -105,18 +171,49 @@ public class PJAudioReader implements BeatEventManager, AudioReader {
             return false;
         }
 
-        this.beatInterpreter = new BeatInterpreter(config, AMPLITUDES_PER_SECOND);
-        this.nextBeatThreshold = new TimeThreshold(TimeUnit.SECONDS.toMillis(1));
-        this.audioFormat = audioDevice.getAudioFormat();
-
-        int bytesPerSecond = (int) (audioFormat.sampleRate() * audioFormat.getBytesPerFrame());
-        this.bytesPerChunk = bytesPerSecond / AMPLITUDES_PER_SECOND;
-        this.samplesPerChunk = bytesPerChunk / audioFormat.getBytesPerFrame();
+        PJAudioFormat format = audioDevice.getAudioFormat();
+        int bytesPerFrame = format.getBytesPerFrame();
+        int bytesPerSecond = (int) (format.sampleRate() * bytesPerFrame);
+        int samplesPerChunk = samplesPerChunk(format, analysisRate);
+        int windowChunks = windowChunks(analysisRate);
+        try {
+            this.chunkProcessor = new AudioChunkProcessor(format, samplesPerChunk, windowChunks);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Audio device {} delivers an unsupported format {}", audioDevice.getName(), format);
+            audioDevice.stop();
+            this.audioDevice.setAudioListener(null);
+            this.audioDevice = null;
+            return false;
+        }
 
-        // Initialize a buffer to hold unprocessed data between listener calls.
-        // Its size is exactly one chunk, as it will only hold trailing data smaller than a chunk.
-        this.remainderBuffer = ByteBuffer.allocate(bytesPerChunk);
-        this.remainderBuffer.order(audioFormat.littleEndian() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        this.tempoTracker = new TempoTracker();
+        this.previousAmplitude = 0d;
+        this.beatPhaseTracker.reset();
+        this.nextBeatThreshold = new TimeThreshold(TimeUnit.SECONDS.toMillis(1));
+        for (BeatBand band : BeatBand.SPLIT_BANDS) {
+            nextBandBeatThresholds.put(band, new TimeThreshold(0L));
+        }
+        this.samplesPerChunk = samplesPerChunk;
+        this.windowChunks = windowChunks;
+        this.audioFormat = format;
+        this.goertzelBank = createGoertzelBank(audioProfile, format);
+        this.transientDetector = new TransientDetector(samplesPerChunk, TRANSIENT_LEVELS);
+        this.loudnessMeter = new LoudnessMeter(format.sampleRate());
+        this.nanosPerSample = TimeUnit.SECONDS.toNanos(1) / format.sampleRate();
+        this.percussiveSeparation = createPercussiveSeparation(format, analysisRate);
+        this.percussiveMode = false;
+        this.bytesPerChunk = samplesPerChunk * bytesPerFrame;
+        this.nanosPerByte = TimeUnit.SECONDS.toNanos(1) / (double) bytesPerSecond;
+        this.beatInterpreter = new BeatInterpreter(config, analysisRate, windowChunks * 1000L / analysisRate);
+
+        // The analysis thread is created before the ring buffer is published to the capture callback,
+        // so a wake-up can never target a missing thread.
+        this.analysisRunning = true;
+        this.analysisThread = new Thread(this::runAnalysis, "PJAudioReader-Analysis");
+        this.analysisThread.setDaemon(true);
+        this.analysisThread.setPriority(Thread.MAX_PRIORITY);
+        this.ringBuffer = new ByteRingBuffer(bytesPerSecond * RING_BUFFER_MILLIS / 1000, bytesPerFrame);
+        this.analysisThread.start();
 
         // Start a health check to ensure the device remains open.
         healthCheckFuture = taskOrchestrator.schedulePeriodicTask(() -> {
@@ -127,70 +224,218 @@ public class PJAudioReader implements BeatEventManager, AudioReader {
             stop();
         }, 1, 1, TimeUnit.SECONDS);
 
-        logger.info("Now listening to audio input from device {} ({})", audioDevice.getName(), audioFormat);
+        logger.info("Now listening to audio input from device {} ({}, analysis at {} Hz over {} chunks)",
+                audioDevice.getName(), audioFormat, analysisRate, windowChunks);
         return true;
     }
 
-    private synchronized void onDataAvailable(byte[] data, int length) {
-        if (!isOpen()) {
+    /**
+     * @return amount of samples per channel of every analysed chunk
+     */
+    static int samplesPerChunk(PJAudioFormat format, int analysisRate) {
+        int bytesPerFrame = format.getBytesPerFrame();
+        int bytesPerSecond = (int) (format.sampleRate() * bytesPerFrame);
+        return bytesPerSecond / analysisRate / bytesPerFrame;
+    }
+
+    /**
+     * @return amount of chunks the analysis window spans
+     */
+    static int windowChunks(int analysisRate) {
+        return Math.max(1, Math.round(ANALYSIS_WINDOW_MILLIS * analysisRate / 1000f));
+    }
+
+    /**
+     * @return separation of the percussive mode, streaming one spectrum per chunk
+     */
+    static PercussiveSeparation createPercussiveSeparation(PJAudioFormat format, int analysisRate) {
+        return new PercussiveSeparation(format.sampleRate(), samplesPerChunk(format, analysisRate),
+                windowChunks(analysisRate), analysisRate);
+    }
+
+    private int getAnalysisRate() {
+        int rate = config.getInt(ConfigNode.AUDIO_ANALYSIS_RATE);
+        if (rate < MIN_ANALYSIS_RATE || rate > MAX_ANALYSIS_RATE) {
+            logger.warn("Analysis rate of {} Hz is out of range, using {} to {} Hz", rate, MIN_ANALYSIS_RATE,
+                    MAX_ANALYSIS_RATE);
+            rate = Math.max(MIN_ANALYSIS_RATE, Math.min(MAX_ANALYSIS_RATE, rate));
+        }
+        return rate;
+    }
+
+    /**
+     * Called on the device's capture thread. Only copies the data into the ring buffer and wakes up the
+     * analysis thread, so capture never waits on FFT or beat processing.
+     * Some devices deliver from more than one thread, the ring buffer however only supports a single producer,
+     * therefore the copy itself is serialized. It never contends with the analysis thread.
+     */
+    private void onDataAvailable(byte[] data, int length, long captureNanos) {
+        ByteRingBuffer buffer = this.ringBuffer;
+        if (buffer == null) {
             return;
         }
 
-        // Create a read-only buffer for the new data to process it without copying everything.
-        ByteBuffer newData = ByteBuffer.wrap(data, 0, length).order(remainderBuffer.order());
+        synchronized (producerLock) {
+            streamOriginNanos = captureNanos - Math.round(buffer.getWritePosition() * nanosPerByte);
+            buffer.write(data, 0, length);
+        }
+        LockSupport.unpark(analysisThread);
+    }
 
-        byte[] chunkData = new byte[bytesPerChunk];
-        BeatEvent beatEvent = null;
+    /**
+     * Main loop of the dedicated analysis thread, consumes the ring buffer chunk by chunk.
+     */
+    private void runAnalysis() {
+        final ByteRingBuffer buffer = this.ringBuffer;
+        final byte[] chunkData = new byte[bytesPerChunk];
+        long lastOverrunCount = 0;
+
+        while (analysisRunning) {
+            if (!buffer.read(chunkData, 0, bytesPerChunk)) {
+                LockSupport.parkNanos(ANALYSIS_IDLE_PARK_NANOS);
+                continue;
+            }
 
-        // Process chunks as long as we have enough combined data (remainder and new data).
-        while (remainderBuffer.position() + newData.remaining() >= bytesPerChunk) {
-            int bytesFromRemainder = remainderBuffer.position();
-            int bytesFromNewData = bytesPerChunk - bytesFromRemainder;
+            if (buffer.getOverrunCount() != lastOverrunCount) {
+                lastOverrunCount = buffer.getOverrunCount();
+                logger.debug("Audio analysis fell behind, {} bytes dropped in total", buffer.getDroppedBytes());
+            }
 
-            // Read the old remainder first.
-            if (bytesFromRemainder > 0) {
-                remainderBuffer.flip();
-                remainderBuffer.get(chunkData, 0, bytesFromRemainder);
-                remainderBuffer.clear();
+            // stamped with the start of the newest chunk, the only part of the window an onset can be new in
+            long chunkPosition = buffer.getReadPosition() - bytesPerChunk;
+            long captureNanos = streamOriginNanos + Math.round(chunkPosition * nanosPerByte);
+            try {
+                processChunk(chunkData, captureNanos);
+            } catch (Exception e) {
+                logger.error("Exception during audio analysis", e);
             }
+        }
+    }
 
-            newData.get(chunkData, bytesFromRemainder, bytesFromNewData);
+    private void processChunk(byte[] chunkData, long captureNanos) {
+        double rms = chunkProcessor.process(chunkData, config.getBoolean(ConfigNode.BEAT_BASS_ONLY_MODE));
+        double[] samples = chunkProcessor.getSamples();
+        SampleListener listener = sampleListener;
+        if (listener != null) {
+            listener.samplesReady(samples, audioFormat.sampleRate());
+        }
+        loudnessMeter.process(samples, 0, samples.length);
+        boolean percussive = config.getBoolean(ConfigNode.BEAT_PERCUSSIVE_MODE);
+        if (percussive && !percussiveMode) {
+            // don't separate against the spectra from before the mode was switched on
+            percussiveSeparation.reset();
+        }
+        percussiveMode = percussive;
+        if (percussive) {
+            rms = percussiveSeparation.process(samples, 0, samples.length);
+        }
 
-            ByteBuffer chunkByteBuffer = ByteBuffer.wrap(chunkData)
-                    .order(audioFormat.littleEndian() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        // run for every chunk, the detector tracks the background energy
+        int transientOffset = transientDetector.detect(samples, 0, samples.length);
+        long onsetOffsetNanos = transientOffset < 0 ? 0L : Math.round(transientOffset * nanosPerSample);
+
+        boolean audible = rms >= MINIMUM_AMPLITUDE;
+        BeatEvent beatEvent = locateOnset(beatInterpreter.interpretValue(audible ? rms : 0d, captureNanos),
+                onsetOffsetNanos);
+        if (beatEvent != null && beatEvent.isSilence()) {
+            loudnessMeter.resetIntegrated();
+        } else if (beatEvent != null && !beatEvent.isNoBeat()) {
+            beatEvent = beatEvent.withLoudness(loudnessMeter.getMomentaryLoudness(),
+                    loudnessMeter.getIntegratedLoudness());
+        }
+        trackTempo(beatEvent, audible ? rms : 0d, captureNanos);
+        if (beatEvent != null) {
+            notifyObservers(beatEvent);
+        }
 
-            double[] normalizedAudioBuffer = new double[samplesPerChunk];
-            for (int i = 0; i < normalizedAudioBuffer.length; i++) {
-                int bytePosition = i * audioFormat.bytesPerSample();
-                if (audioFormat.bytesPerSample() == 2) {
-                    normalizedAudioBuffer[i] = chunkByteBuffer.getShort(bytePosition) / (double) Short.MAX_VALUE;
-                } else {
-                    normalizedAudioBuffer[i] = chunkByteBuffer.get(bytePosition) / (double) Byte.MAX_VALUE;
-                }
+        double[] bandEnergies = chunkProcessor.getBandEnergies();
+        GoertzelBank goertzel = goertzelBank;
+        if (goertzel != null) {
+            goertzel.process(samples, 0, samples.length);
+            bandEnergies = goertzel.getEnergies();
+        }
+        for (int i = 0; i < BeatBand.SPLIT_BANDS.length; i++) {
+            BeatEvent bandEvent = beatInterpreter.interpretBand(BeatBand.SPLIT_BANDS[i],
+                    audible ? bandEnergies[i] : 0d, captureNanos);
+            if (bandEvent != null) {
+                notifyBandObservers(locateOnset(bandEvent, onsetOffsetNanos));
             }
+        }
+    }
 
-            if (config.getBoolean(ConfigNode.BEAT_BASS_ONLY_MODE)) {
-                lowPassFilter(normalizedAudioBuffer, audioFormat);
-            }
+    /**
+     * @return the event with the onset located within its chunk, unchanged if it is no beat
+     */
+    private static BeatEvent locateOnset(BeatEvent event, long onsetOffsetNanos) {
+        if (event == null || event.isNoBeat() || onsetOffsetNanos == 0L) {
+            return event;
+        }
+        return event.withOnsetOffset(onsetOffsetNanos);
+    }
 
-            double rms = Arrays.stream(normalizedAudioBuffer)
-                    .map(val -> val * val)
-                    .average()
-                    .orElse(0d);
-            rms = Math.sqrt(rms);
+    /**
+     * Sets the listener receiving the samples of every analysed chunk, for example to draw a spectrum.
+     *
+     * @param listener listener to call on the analysis thread, null to remove it
+     */
+    public void setSampleListener(SampleListener listener) {
+        this.sampleListener = listener;
+    }
 
-            var beatEventInner = beatInterpreter.interpretValue(rms >= MINIMUM_AMPLITUDE ? rms : 0d);
-            if (beatEventInner != null) {
-                beatEvent = beatEventInner;
-            }
+    /**
+     * Sets the profile the analysis is configured with, takes effect immediately if the reader is running.
+     *
+     * @param profile profile to use, null for the defaults
+     */
+    public void setAudioProfile(AudioProfile profile) {
+        this.audioProfile = profile;
+        PJAudioFormat format = audioFormat;
+        if (format != null) {
+            this.goertzelBank = createGoertzelBank(profile, format);
         }
+    }
 
-        if (newData.hasRemaining()) {
-            remainderBuffer.put(newData);
+    /**
+     * Sets the profile selected via {@link ConfigNode#AUDIO_PROFILE}, keeps the current one if none is selected.
+     */
+    public void applyConfiguredProfile() {
+        // profiles are optional, without one the reader runs on its defaults
+        String profileId = config.get(ConfigNode.AUDIO_PROFILE);
+        if (profileId != null && !profileId.isEmpty()) {
+            setAudioProfile(new AudioProfileManager().loadProfile(profileId));
         }
+    }
 
-        if (beatEvent != null) {
-            notifyObservers(beatEvent);
+    /**
+     * @return the bank selected by the profile, refreshed once per chunk, null if the band filters should be used
+     */
+    private GoertzelBank createGoertzelBank(AudioProfile profile, PJAudioFormat format) {
+        if (!GoertzelBank.isSelectedBy(profile)) {
+            return null;
+        }
+        try {
+            return GoertzelBank.forBands(profile, format.sampleRate(), samplesPerChunk,
+                    samplesPerChunk * windowChunks);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid Goertzel parameters in audio profile {}, using the band filters", profile.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Feeds detected beats into the beat phase tracker and the rectified amplitude increase of every chunk into
+     * the tempo tracker, so the tempo is estimated on the onset signal itself and not only on the beats that
+     * passed the threshold. The tempo is only handed to the phase tracker whenever it was re-estimated.
+     */
+    private void trackTempo(BeatEvent beatEvent, double amplitude, long captureNanos) {
+        if (beatEvent != null && !beatEvent.isNoBeat()) {
+            beatPhaseTracker.onBeat(beatEvent.onsetNanos());
+        }
+
+        double strength = Math.max(0d, amplitude - previousAmplitude);
+        previousAmplitude = amplitude;
+        if (tempoTracker.addOnsetStrength(TimeUnit.NANOSECONDS.toMillis(captureNanos), strength)) {
+            beatPhaseTracker.setTempo(tempoTracker.getBpm(), tempoTracker.getConfidence());
         }
     }
 
@@ -214,24 +459,18 @@ public class PJAudioReader implements BeatEventManager, AudioReader {
     }
 
     /**
-     * Applies a low-pass filter using FFT, cutting off frequencies above BASS_CUTOFF_HZ.
+     * Notifies registered observers about a beat detected in a single band. Every band is subject to
+     * BEAT_MIN_TIME_BETWEEN on its own, so bands firing together can't flood the lights with updates.
+     * Called on the analysis thread, so the thresholds are checked before dispatching.
      */
-    private void lowPassFilter(double[] normalizedSampleArray, PJAudioFormat format) {
-        int sampleCount = normalizedSampleArray.length;
-        if (sampleCount == 0) return;
-
-        DoubleFFT_1D fft = new DoubleFFT_1D(sampleCount);
-        fft.realForward(normalizedSampleArray);
-
-        double freqPerBin = format.sampleRate() / sampleCount;
-        int cutoffBin = (int) (BASS_CUTOFF_HZ / freqPerBin);
-
-        // Zero out high-frequency components
-        for (int i = cutoffBin * 2; i < sampleCount; i++) {
-            normalizedSampleArray[i] = 0d;
+    private void notifyBandObservers(final BeatEvent bandEvent) {
+        TimeThreshold nextBandBeatThreshold = nextBandBeatThresholds.get(bandEvent.band());
+        if (!nextBandBeatThreshold.isMet()) {
+            logger.debug("Beat in band {} skipped due to BEAT_MIN_TIME_BETWEEN", bandEvent.band());
+            return;
         }
-
-        fft.realInverse(normalizedSampleArray, true);
+        nextBandBeatThreshold.setCurrentThreshold(config.getInt(ConfigNode.BEAT_MIN_TIME_BETWEEN));
+        taskOrchestrator.dispatch(() -> beatEventObservers.forEach(toNotify -> toNotify.bandBeatReceived(bandEvent)));
     }
 
     @Override
@@ -255,7 +494,7 @@ public class PJAudioReader implements BeatEventManager, AudioReader {
         audioDevice.setAudioListener(null);
         audioDevice.stop();
         audioDevice = null;
-        remainderBuffer = null;
+        stopAnalysisThread();
 
         // Dispatch the final notification to observers to ensure thread safety
         taskOrchestrator.dispatch(() -> {
@@ -265,8 +504,54 @@ public class PJAudioReader implements BeatEventManager, AudioReader {
         logger.info("No longer listening to audio input");
     }
 
+    private void stopAnalysisThread() {
+        ByteRingBuffer buffer = ringBuffer;
+        Thread thread = analysisThread;
+        if (thread == null) {
+            return;
+        }
+
+        analysisRunning = false;
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(ANALYSIS_JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (buffer.getOverrunCount() > 0) {
+            logger.warn("Audio analysis could not keep up {} times, {} bytes were dropped",
+                    buffer.getOverrunCount(), buffer.getDroppedBytes());
+        }
+
+        ringBuffer = null;
+        analysisThread = null;
+    }
+
     @Override
     public void registerBeatObserver(BeatObserver beatObserver) {
         beatEventObservers.add(beatObserver);
     }
+
+    @Override
+    public BeatPhaseTracker getBeatPhaseTracker() {
+        return beatPhaseTracker;
+    }
+
+    /**
+     * Receives the decoded mono samples of every chunk, see {@link #setSampleListener(SampleListener)}.
+     */
+    @FunctionalInterface
+    public interface SampleListener {
+
+        /**
+         * Called on the analysis thread for every chunk before it is analysed, so it must return quickly.
+         *
+         * @param samples    normalized mono samples of the chunk, overwritten by the next chunk
+         * @param sampleRate sample rate in Hz
+         */
+        void samplesReady(double[] samples, double sampleRate);
+    }
 }
@@ -0,0 +1,88 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+/**
+ * Percussive part of the analysed chunks, used by {@link PJAudioReader} in percussive mode. The chunks are
+ * streamed through an {@link FFTProcessor}, one spectrum per chunk covering at least the analysis window, and a
+ * {@link HarmonicPercussiveSeparator} splits every spectrum.
+ * <p>
+ * The separation runs on the linear bins: the frequency median has to span more bins than a sustained tone
+ * spreads over, which log bands can't offer in the bass, where several bands share the same few bins.
+ * Not thread safe.
+ */
+class PercussiveSeparation {
+
+    /**
+     * Spans of the separation: tones holding for half the time span count as harmonic, drum hits have to spread
+     * across the frequency span.
+     */
+    private static final int HARMONIC_MEDIAN_MILLIS = 200;
+    private static final double PERCUSSIVE_MEDIAN_HZ = 500d;
+    private static final int MIN_FFT_SIZE = 256;
+
+    private final FFTProcessor spectrumProcessor;
+    private final HarmonicPercussiveSeparator separator;
+    private final double[] spectrum;
+    private final FFTProcessor.SpectrumListener listener;
+    /**
+     * Converts the one-sided power of a windowed spectrum to the mean square of the samples.
+     */
+    private final double spectrumPowerToMeanSquare;
+    private double rms;
+
+
+    /**
+     * @param sampleRate      sample rate of the chunks in Hz
+     * @param samplesPerChunk amount of samples of every chunk, also the hop between two spectra
+     * @param windowChunks    amount of chunks the analysis window spans
+     * @param analysisRate    amount of chunks per second
+     */
+    PercussiveSeparation(double sampleRate, int samplesPerChunk, int windowChunks, int analysisRate) {
+        int fftSize = MIN_FFT_SIZE;
+        while (fftSize < samplesPerChunk * windowChunks) {
+            fftSize *= 2;
+        }
+        this.spectrumProcessor = new FFTProcessor(fftSize, WindowFunction.HANN, 0d, samplesPerChunk);
+        this.spectrum = new double[spectrumProcessor.getBinCount()];
+
+        int timeWindow = oddAtLeastThree(HARMONIC_MEDIAN_MILLIS * analysisRate / 1000d);
+        int frequencyWindow = oddAtLeastThree(PERCUSSIVE_MEDIAN_HZ * fftSize / sampleRate);
+        this.separator = new HarmonicPercussiveSeparator(spectrum.length, timeWindow, frequencyWindow);
+
+        // Parseval: the full spectrum holds fftSize times the windowed energy, the one-sided spectrum half of it
+        double windowEnergy = 0d;
+        for (double coefficient : WindowFunction.HANN.getCoefficients(fftSize)) {
+            windowEnergy += coefficient * coefficient;
+        }
+        this.spectrumPowerToMeanSquare = 2d / (fftSize * windowEnergy);
+        this.listener = (frame, samplePosition) ->
+                rms = Math.sqrt(separator.process(frame) * spectrumPowerToMeanSquare);
+    }
+
+    private static int oddAtLeastThree(double value) {
+        int rounded = Math.max(3, (int) Math.round(value));
+        return rounded % 2 == 0 ? rounded + 1 : rounded;
+    }
+
+    /**
+     * Separates the next chunk.
+     *
+     * @param samples mono samples of the chunk
+     * @param offset  index of the first sample
+     * @param length  amount of samples, one chunk
+     * @return RMS of the percussive part of the analysis window ending with the chunk
+     */
+    double process(double[] samples, int offset, int length) {
+        // one hop per chunk, so the listener runs exactly once
+        spectrumProcessor.pushSamples(samples, offset, length, spectrum, listener);
+        return rms;
+    }
+
+    /**
+     * Forgets all previous chunks.
+     */
+    void reset() {
+        spectrumProcessor.reset();
+        separator.reset();
+        rms = 0d;
+    }
+}
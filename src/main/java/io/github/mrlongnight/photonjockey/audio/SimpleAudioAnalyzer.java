@@ -1,26 +1,56 @@
 package io.github.mrlongnight.photonjockey.audio;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
 /**
  * Simple audio analyzer that converts audio frames into analysis results.
- * Computes basic audio features like energy and RMS amplitude.
+ * Extracts the {@link AudioFeatures} of every frame with a {@link FeatureExtractor}, one pass over the samples
+ * and one over the spectrum, into a reused instance, see {@link #getFeatures()}. The returned results are
+ * snapshots of it. Samples and spectra are processed either in double or single precision,
+ * see {@link AnalysisPrecision}. Consecutive frames are treated as a stream, a {@link LoudnessMeter} measures
+ * their loudness across frames.
  */
 public class SimpleAudioAnalyzer implements IAudioAnalyzer {
 
     private final FFTProcessor fftProcessor;
-    private final int sampleRate;
+    private final FloatFFTProcessor floatFftProcessor;
+    private final double[] spectrum;
+    private final float[] floatSpectrum;
+    private final FeatureExtractor featureExtractor;
+    private final LoudnessMeter loudnessMeter;
+    private final AudioFeatures features = new AudioFeatures();
+    private double[] samples;
+    private float[] floatSamples;
 
     /**
-     * Creates a new SimpleAudioAnalyzer.
+     * Creates a new SimpleAudioAnalyzer with double precision.
      *
      * @param sampleRate the sample rate of the audio
      * @param fftSize    the size of the FFT
      */
     public SimpleAudioAnalyzer(int sampleRate, int fftSize) {
-        this.sampleRate = sampleRate;
-        this.fftProcessor = new FFTProcessor(fftSize, WindowFunction.HANN, 0.5);
+        this(sampleRate, fftSize, AnalysisPrecision.DOUBLE);
+    }
+
+    /**
+     * Creates a new SimpleAudioAnalyzer.
+     *
+     * @param sampleRate the sample rate of the audio
+     * @param fftSize    the size of the FFT
+     * @param precision  precision of the sample and spectrum buffers
+     */
+    public SimpleAudioAnalyzer(int sampleRate, int fftSize, AnalysisPrecision precision) {
+        this.featureExtractor = new FeatureExtractor(sampleRate, fftSize);
+        this.loudnessMeter = new LoudnessMeter(sampleRate);
+        if (precision == AnalysisPrecision.FLOAT) {
+            this.fftProcessor = null;
+            this.floatFftProcessor = new FloatFFTProcessor(fftSize, WindowFunction.HANN, 0.5);
+            this.spectrum = null;
+            this.floatSpectrum = new float[floatFftProcessor.getBinCount()];
+        } else {
+            this.fftProcessor = new FFTProcessor(fftSize, WindowFunction.HANN, 0.5);
+            this.floatFftProcessor = null;
+            this.spectrum = new double[fftProcessor.getBinCount()];
+            this.floatSpectrum = null;
+        }
     }
 
     @Override
@@ -28,97 +58,56 @@ public class SimpleAudioAnalyzer implements IAudioAnalyzer {
         if (frame == null) {
             return null;
         }
-
-        // Convert byte data to double samples
-        double[] samples = bytesToSamples(frame.getData(), frame.getChannels());
-
-        // Compute FFT spectrum
-        double[] spectrum = fftProcessor.computeSpectrum(samples);
-
-        // Find dominant frequency
-        double dominantFrequency = findDominantFrequency(spectrum);
-
-        // Calculate energy (RMS of samples)
-        double energy = calculateEnergy(samples);
-
-        // Calculate amplitude (max absolute value)
-        double amplitude = calculateAmplitude(samples);
-
-        return new AnalysisResult(dominantFrequency, amplitude, energy);
-    }
-
-    /**
-     * Converts byte array to normalized double samples.
-     */
-    private double[] bytesToSamples(byte[] data, int channels) {
-        // Assume 16-bit signed little-endian samples
-        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-        int sampleCount = data.length / 2 / channels;
-        double[] samples = new double[sampleCount];
-
-        for (int i = 0; i < sampleCount; i++) {
-            // For stereo, average the channels; for mono, just use the value
-            double sum = 0;
-            for (int c = 0; c < channels; c++) {
-                if (buffer.remaining() >= 2) {
-                    short value = buffer.getShort();
-                    sum += value / 32768.0; // Normalize to [-1, 1]
-                }
-            }
-            samples[i] = sum / channels;
+        if (floatFftProcessor != null) {
+            return analyzeFloat(frame);
         }
 
-        return samples;
-    }
+        samples = frame.getMonoSamples(samples);
+        featureExtractor.extractSampleFeatures(samples, 0, samples.length, features);
+        loudnessMeter.process(samples, 0, samples.length);
+        measureLoudness();
 
-    /**
-     * Finds the frequency with the highest magnitude in the spectrum.
-     */
-    private double findDominantFrequency(double[] spectrum) {
-        int maxIndex = 0;
-        double maxValue = spectrum[0];
+        fftProcessor.computeSpectrum(samples, spectrum);
+        featureExtractor.extractSpectralFeatures(spectrum, features);
+        return new AnalysisResult(features);
+    }
 
-        for (int i = 1; i < spectrum.length; i++) {
-            if (spectrum[i] > maxValue) {
-                maxValue = spectrum[i];
-                maxIndex = i;
-            }
-        }
+    private AnalysisResult analyzeFloat(AudioFrame frame) {
+        floatSamples = frame.getMonoSamples(floatSamples);
+        featureExtractor.extractSampleFeatures(floatSamples, 0, floatSamples.length, features);
+        loudnessMeter.process(floatSamples, 0, floatSamples.length);
+        measureLoudness();
 
-        // Convert bin index to frequency
-        double frequencyPerBin = (double) sampleRate / (2 * spectrum.length);
-        return maxIndex * frequencyPerBin;
+        floatFftProcessor.computeSpectrum(floatSamples, floatSpectrum);
+        featureExtractor.extractSpectralFeatures(floatSpectrum, features);
+        return new AnalysisResult(features);
     }
 
-    /**
-     * Calculates the energy (RMS) of the samples.
-     */
-    private double calculateEnergy(double[] samples) {
-        double sum = 0;
-        for (double sample : samples) {
-            sum += sample * sample;
-        }
-        return Math.sqrt(sum / samples.length);
+    private void measureLoudness() {
+        features.momentaryLoudness = loudnessMeter.getMomentaryLoudness();
+        features.shortTermLoudness = loudnessMeter.getShortTermLoudness();
     }
 
     /**
-     * Calculates the amplitude (max absolute value) of the samples.
+     * Gets the features of the last analyzed frame. The instance is reused and overwritten by the next
+     * call to {@link #analyze(AudioFrame)}, so it must only be read on the analyzing thread.
+     *
+     * @return features of the last analyzed frame
      */
-    private double calculateAmplitude(double[] samples) {
-        double max = 0;
-        for (double sample : samples) {
-            double abs = Math.abs(sample);
-            if (abs > max) {
-                max = abs;
-            }
-        }
-        return max;
+    public AudioFeatures getFeatures() {
+        return features;
     }
 
     /**
      * Resets the analyzer state.
      */
     public void reset() {
-        fftProcessor.reset();
+        featureExtractor.reset();
+        loudnessMeter.reset();
+        if (floatFftProcessor != null) {
+            floatFftProcessor.reset();
+        } else {
+            fftProcessor.reset();
+        }
     }
 }
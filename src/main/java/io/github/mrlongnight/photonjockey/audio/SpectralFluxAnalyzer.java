@@ -0,0 +1,173 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import java.util.Arrays;
+
+/**
+ * Audio analyzer that detects onsets via spectral flux instead of raw energy.
+ * The flux of a frame is the sum of all (log compressed) magnitude increases compared to the previous frame,
+ * decreases are ignored (half-wave rectification). A frame is marked as onset if its flux exceeds the median of
+ * the recent flux values by a factor and offset. This is far more robust than energy thresholds on heavily
+ * compressed mixes, as the overall loudness barely changes there while the spectrum still does on every hit.
+ * <p>
+ * The magnitude spectrum is computed by an unsmoothed {@link FFTProcessor}. The previous spectrum and the
+ * flux history are kept in preallocated buffers.
+ */
+public class SpectralFluxAnalyzer implements IAudioAnalyzer {
+
+    private static final int DEFAULT_MEDIAN_WINDOW = 16;
+    private static final double DEFAULT_THRESHOLD_MULTIPLIER = 1.5;
+    private static final double DEFAULT_THRESHOLD_OFFSET = 0.01;
+
+    /**
+     * Magnitudes are compressed with log(1 + COMPRESSION * magnitude) before computing the flux,
+     * so quiet but sudden changes are not drowned out by loud sustained tones.
+     */
+    private static final double COMPRESSION = 100.0;
+
+    private final FFTProcessor fftProcessor;
+    private final FeatureExtractor featureExtractor;
+    private final AudioFeatures features = new AudioFeatures();
+    private final double magnitudeNormalization;
+
+    private final double thresholdMultiplier;
+    private final double thresholdOffset;
+
+    private final double[] spectrum;
+    private double[] samples;
+    private final double[] previousSpectrum;
+    private boolean hasPreviousSpectrum;
+
+    private final double[] fluxHistory;
+    private final double[] medianScratch;
+    private int fluxHistorySize;
+    private int fluxHistoryIndex;
+    private double previousFlux;
+
+    /**
+     * Creates a new SpectralFluxAnalyzer with default threshold settings.
+     *
+     * @param sampleRate the sample rate of the audio
+     * @param fftSize    the size of the FFT
+     */
+    public SpectralFluxAnalyzer(int sampleRate, int fftSize) {
+        this(sampleRate, fftSize, DEFAULT_MEDIAN_WINDOW, DEFAULT_THRESHOLD_MULTIPLIER, DEFAULT_THRESHOLD_OFFSET);
+    }
+
+    /**
+     * Creates a new SpectralFluxAnalyzer.
+     *
+     * @param sampleRate          the sample rate of the audio
+     * @param fftSize             the size of the FFT
+     * @param medianWindow        amount of previous frames the median threshold is computed from
+     * @param thresholdMultiplier factor the flux must exceed the median by
+     * @param thresholdOffset     constant added to the threshold, suppresses onsets in near silence
+     */
+    public SpectralFluxAnalyzer(int sampleRate, int fftSize, int medianWindow,
+                                double thresholdMultiplier, double thresholdOffset) {
+        if (medianWindow <= 0) {
+            throw new IllegalArgumentException("Median window must be positive");
+        }
+        if (thresholdMultiplier < 1.0 || thresholdOffset < 0.0) {
+            throw new IllegalArgumentException("Threshold must not be below the median");
+        }
+
+        this.fftProcessor = new FFTProcessor(fftSize, WindowFunction.HANN, 0.0);
+        this.featureExtractor = new FeatureExtractor(sampleRate, fftSize);
+        this.magnitudeNormalization = 2.0 / fftSize;
+        this.thresholdMultiplier = thresholdMultiplier;
+        this.thresholdOffset = thresholdOffset;
+
+        this.spectrum = new double[fftProcessor.getBinCount()];
+        this.previousSpectrum = new double[fftProcessor.getBinCount()];
+        this.fluxHistory = new double[medianWindow];
+        this.medianScratch = new double[medianWindow];
+    }
+
+    @Override
+    public AnalysisResult analyze(AudioFrame frame) {
+        if (frame == null) {
+            return null;
+        }
+
+        samples = frame.getMonoSamples(samples);
+        featureExtractor.extractSampleFeatures(samples, 0, samples.length, features);
+        fftProcessor.computeSpectrum(samples, spectrum);
+        featureExtractor.extractSpectralFeatures(spectrum, features);
+
+        double flux = computeFlux();
+        double threshold = median() * thresholdMultiplier + thresholdOffset;
+        boolean onset = hasHistory() && flux > threshold && flux >= previousFlux;
+        addToHistory(flux);
+        previousFlux = flux;
+
+        return new AnalysisResult(
+                features.getDominantFrequency(),
+                features.getPeak(),
+                features.getRms(),
+                flux,
+                onset
+        );
+    }
+
+    /**
+     * Computes the half-wave rectified flux against the previous spectrum and stores the
+     * compressed spectrum for the next frame.
+     */
+    private double computeFlux() {
+        double flux = 0.0;
+        for (int i = 0; i < previousSpectrum.length; i++) {
+            double compressed = Math.log1p(COMPRESSION * spectrum[i] * magnitudeNormalization);
+            double increase = compressed - previousSpectrum[i];
+            if (increase > 0.0) {
+                flux += increase;
+            }
+            previousSpectrum[i] = compressed;
+        }
+
+        if (!hasPreviousSpectrum) {
+            hasPreviousSpectrum = true;
+            return 0.0;
+        }
+        return flux / previousSpectrum.length;
+    }
+
+    private boolean hasHistory() {
+        return fluxHistorySize == fluxHistory.length;
+    }
+
+    private void addToHistory(double flux) {
+        fluxHistory[fluxHistoryIndex] = flux;
+        fluxHistoryIndex = (fluxHistoryIndex + 1) % fluxHistory.length;
+        fluxHistorySize = Math.min(fluxHistorySize + 1, fluxHistory.length);
+    }
+
+    /**
+     * Median of the flux history, sorted in a preallocated scratch buffer.
+     */
+    private double median() {
+        if (fluxHistorySize == 0) {
+            return 0.0;
+        }
+
+        System.arraycopy(fluxHistory, 0, medianScratch, 0, fluxHistorySize);
+        Arrays.sort(medianScratch, 0, fluxHistorySize);
+        int middle = fluxHistorySize / 2;
+        if (fluxHistorySize % 2 == 0) {
+            return (medianScratch[middle - 1] + medianScratch[middle]) / 2.0;
+        }
+        return medianScratch[middle];
+    }
+
+    /**
+     * Resets the analyzer state, clearing the previous spectrum and flux history.
+     */
+    public void reset() {
+        fftProcessor.reset();
+        featureExtractor.reset();
+        Arrays.fill(previousSpectrum, 0.0);
+        hasPreviousSpectrum = false;
+        fluxHistorySize = 0;
+        fluxHistoryIndex = 0;
+        previousFlux = 0.0;
+    }
+}
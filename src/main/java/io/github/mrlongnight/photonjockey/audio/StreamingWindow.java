@@ -0,0 +1,122 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+/**
+ * Circular sample history and hop bookkeeping of the streaming short-time Fourier transform, shared by
+ * {@link FFTProcessor} and {@link FloatFFTProcessor}. Samples are written in segments that never cross the end
+ * of a hop. Once a hop was completed, the history is unrolled into the FFT buffer, oldest sample first, and
+ * windowed on the way. The history array is owned by the processor, so the same logic serves both precisions.
+ * Not thread safe.
+ */
+final class StreamingWindow {
+
+    private final int fftSize;
+    private final int hopSize;
+
+    private int historyIndex;
+    private int samplesUntilHop;
+    private long samplePosition;
+
+
+    /**
+     * @param fftSize length of the history and of the analysed window
+     * @param hopSize amount of samples between two spectra
+     */
+    StreamingWindow(int fftSize, int hopSize) {
+        this.fftSize = fftSize;
+        this.hopSize = hopSize;
+        this.samplesUntilHop = hopSize;
+    }
+
+    /**
+     * Validates the parameters of an FFT processor.
+     *
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    static void checkParameters(int fftSize, WindowFunction windowFunction, double smoothing, int hopSize) {
+        if (fftSize <= 0) {
+            throw new IllegalArgumentException("FFT size must be positive");
+        }
+        if (hopSize <= 0 || hopSize > fftSize) {
+            throw new IllegalArgumentException("Hop size must be between 1 and the FFT size");
+        }
+        if (smoothing < 0.0 || smoothing > 1.0) {
+            throw new IllegalArgumentException("Smoothing must be between 0 and 1");
+        }
+        if (windowFunction == null) {
+            throw new IllegalArgumentException("Window function cannot be null");
+        }
+    }
+
+    /**
+     * Writes as many samples into the history as fit until the end of the current hop.
+     *
+     * @return amount of samples written
+     */
+    int write(double[] samples, int offset, int length, double[] history) {
+        return writeSegment(samples, offset, length, history);
+    }
+
+    /**
+     * Single precision variant of {@link #write(double[], int, int, double[])}.
+     */
+    int write(float[] samples, int offset, int length, float[] history) {
+        return writeSegment(samples, offset, length, history);
+    }
+
+    private int writeSegment(Object samples, int offset, int length, Object history) {
+        int count = Math.min(length, samplesUntilHop);
+        int firstPart = Math.min(count, fftSize - historyIndex);
+        System.arraycopy(samples, offset, history, historyIndex, firstPart);
+        System.arraycopy(samples, offset + firstPart, history, 0, count - firstPart);
+
+        historyIndex = (historyIndex + count) % fftSize;
+        samplesUntilHop -= count;
+        samplePosition += count;
+        return count;
+    }
+
+    /**
+     * @return whether the last write completed a hop, the next write then starts the following hop
+     */
+    boolean completeHop() {
+        if (samplesUntilHop > 0) {
+            return false;
+        }
+        samplesUntilHop = hopSize;
+        return true;
+    }
+
+    /**
+     * Copies the history into the buffer, oldest sample first, and applies the window.
+     */
+    void unroll(double[] history, WindowFunction windowFunction, double[] buffer) {
+        int tail = fftSize - historyIndex;
+        windowFunction.applyTo(history, historyIndex, buffer, 0, tail, fftSize);
+        windowFunction.applyTo(history, 0, buffer, tail, historyIndex, fftSize);
+    }
+
+    /**
+     * Single precision variant of {@link #unroll(double[], WindowFunction, double[])}.
+     */
+    void unroll(float[] history, WindowFunction windowFunction, float[] buffer) {
+        int tail = fftSize - historyIndex;
+        windowFunction.applyTo(history, historyIndex, buffer, 0, tail, fftSize);
+        windowFunction.applyTo(history, 0, buffer, tail, historyIndex, fftSize);
+    }
+
+    /**
+     * @return total amount of samples written, the position of the end of the window
+     */
+    long getSamplePosition() {
+        return samplePosition;
+    }
+
+    /**
+     * Starts over with an empty history, the caller clears the history array.
+     */
+    void reset() {
+        historyIndex = 0;
+        samplesUntilHop = hopSize;
+        samplePosition = 0;
+    }
+}
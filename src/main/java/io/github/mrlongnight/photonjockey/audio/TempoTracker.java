@@ -0,0 +1,293 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the tempo from an onset strength signal instead of from the intervals between single beats,
+ * so missed or extra beats barely move the estimate.
+ * <p>
+ * Onset strengths are collected into bins of {@value #BIN_MILLIS} ms, kept in a primitive ring buffer.
+ * Whenever a bin is completed, the autocorrelation of the signal is updated incrementally for all lags
+ * (one multiply-add per lag), older contributions decay with a time constant of {@value #WINDOW_MILLIS} ms.
+ * The actual estimation runs at most every {@value #ESTIMATE_INTERVAL_MILLIS} ms on a copy of the
+ * autocorrelation that includes the unfinished bin. Every lag is scored by the autocorrelation summed over it
+ * and its two neighbours, since periods that are no whole number of bins spread their peak over adjacent
+ * lags, weighted by a tempo prior around {@value #PREFERRED_BPM} BPM and by the support of the double period.
+ * The winner is then compared with its half and double period: the faster tempo is taken whenever its
+ * period is about as strongly supported, the slower one when the winner is clearly weaker than its double,
+ * as for off-beats between the beats. Not thread safe.
+ */
+public class TempoTracker {
+
+    static final int BIN_MILLIS = 10;
+    static final long WINDOW_MILLIS = 6000;
+    static final long ESTIMATE_INTERVAL_MILLIS = 250;
+
+    static final double MIN_BPM = 60d;
+    static final double MAX_BPM = 200d;
+    static final double PREFERRED_BPM = 120d;
+
+    /**
+     * Width in octaves of the log-normal tempo prior around {@link #PREFERRED_BPM}.
+     */
+    private static final double PRIOR_WIDTH_OCTAVES = 1d;
+
+    /**
+     * Weight of the autocorrelation at the double period when scoring a period.
+     */
+    private static final double DOUBLE_PERIOD_WEIGHT = 0.5d;
+
+    /**
+     * A period is replaced by its half if that reaches this share of its support, by its double if it falls
+     * below this share of the double's support.
+     */
+    private static final double OCTAVE_RATIO = 0.85d;
+
+    /**
+     * Estimates deviating less than this ratio from the published tempo are blended into it, larger changes
+     * replace it immediately.
+     */
+    private static final double TEMPO_CHANGE_RATIO = 0.04d;
+    private static final double TEMPO_SMOOTHING = 0.8d;
+
+    private static final int MIN_LAG = (int) Math.round(60000d / MAX_BPM / BIN_MILLIS);
+    private static final int MAX_LAG = (int) Math.round(60000d / MIN_BPM / BIN_MILLIS);
+
+    private final double decay = Math.exp(-(double) BIN_MILLIS / WINDOW_MILLIS);
+    private final double[] prior = new double[MAX_LAG + 1];
+
+    /**
+     * Onset strengths of the last bins, indexed by bin number modulo the length. Long enough to correlate
+     * the current bin with the double of the longest period and its upper neighbour.
+     */
+    private final double[] onsets = new double[2 * MAX_LAG + 2];
+    private final double[] autocorrelation = new double[2 * MAX_LAG + 2];
+    /**
+     * Autocorrelation including the unfinished bin, recomputed for every estimation.
+     */
+    private final double[] currentCorrelation = new double[2 * MAX_LAG + 2];
+
+    /**
+     * Whether a bin was started, times can be negative so no bin number can mark its absence.
+     */
+    private boolean started;
+    private long currentBin;
+    private double currentStrength;
+    private boolean dirty;
+
+    private long nextEstimateTime = Long.MIN_VALUE;
+    private double bpm;
+    private double confidence;
+
+
+    /**
+     * Creates a new TempoTracker.
+     */
+    public TempoTracker() {
+        double preferredLag = 60000d / PREFERRED_BPM / BIN_MILLIS;
+        for (int lag = MIN_LAG; lag <= MAX_LAG; lag++) {
+            double octaves = Math.log(lag / preferredLag) / Math.log(2d) / PRIOR_WIDTH_OCTAVES;
+            prior[lag] = Math.exp(-0.5d * octaves * octaves);
+        }
+    }
+
+    /**
+     * Adds the onset strength measured at the given time. Multiple values within the same bin are combined by
+     * taking their maximum. Times must not decrease, older values are ignored.
+     *
+     * @param timeMillis time of the measurement in milliseconds
+     * @param strength   onset strength, e.g. the rectified energy increase, negative values are treated as 0
+     * @return true if the tempo was re-estimated
+     */
+    public boolean addOnsetStrength(long timeMillis, double strength) {
+        long bin = Math.floorDiv(timeMillis, BIN_MILLIS);
+        if (!started) {
+            started = true;
+            currentBin = bin;
+        } else if (bin > currentBin) {
+            advanceTo(bin);
+        } else if (bin < currentBin) {
+            return false;
+        }
+
+        if (strength > currentStrength) {
+            currentStrength = strength;
+            dirty = true;
+        }
+
+        if (timeMillis >= nextEstimateTime) {
+            nextEstimateTime = timeMillis + ESTIMATE_INTERVAL_MILLIS;
+            return estimate();
+        }
+        return false;
+    }
+
+    /**
+     * Completes the current bin and the empty bins up to the given one, updating the autocorrelation.
+     */
+    private void advanceTo(long bin) {
+        int length = onsets.length;
+        int index = (int) Math.floorMod(currentBin, (long) length);
+        double value = currentStrength;
+        onsets[index] = value;
+        for (int lag = 0; lag < length; lag++) {
+            int lagged = index - lag;
+            autocorrelation[lag] = autocorrelation[lag] * decay
+                    + value * onsets[lagged < 0 ? lagged + length : lagged];
+        }
+
+        // empty bins only contribute zero products, their effect on the autocorrelation is the decay
+        long skipped = bin - currentBin - 1;
+        if (skipped > 0) {
+            double skippedDecay = Math.pow(decay, (double) skipped);
+            for (int lag = 0; lag < length; lag++) {
+                autocorrelation[lag] *= skippedDecay;
+            }
+            for (long i = 1; i <= Math.min(skipped, length); i++) {
+                onsets[(int) Math.floorMod(currentBin + i, (long) length)] = 0d;
+            }
+        }
+
+        currentBin = bin;
+        currentStrength = 0d;
+    }
+
+    /**
+     * Re-estimates tempo and confidence from the current autocorrelation, including the unfinished bin.
+     */
+    private boolean estimate() {
+        if (!dirty) {
+            return false;
+        }
+        dirty = false;
+
+        // fold the unfinished bin into a copy, completing it here would drop later values of the same bin
+        double[] correlation = currentCorrelation;
+        int length = onsets.length;
+        int index = (int) Math.floorMod(currentBin, (long) length);
+        double value = currentStrength;
+        correlation[0] = autocorrelation[0] * decay + value * value;
+        for (int lag = 1; lag < length; lag++) {
+            int lagged = index - lag;
+            correlation[lag] = autocorrelation[lag] * decay + value * onsets[lagged < 0 ? lagged + length : lagged];
+        }
+
+        double energy = correlation[0];
+        if (energy <= 0d) {
+            return false;
+        }
+
+        int bestLag = -1;
+        double bestScore = 0d;
+        for (int lag = MIN_LAG; lag <= MAX_LAG; lag++) {
+            double score = prior[lag] * (support(lag) + DOUBLE_PERIOD_WEIGHT * support(2 * lag));
+            if (score > bestScore) {
+                bestScore = score;
+                bestLag = lag;
+            }
+        }
+        if (bestLag < 0) {
+            return false;
+        }
+        bestLag = resolveOctave(bestLag);
+
+        double period = (bestLag + interpolatePeak(bestLag)) * BIN_MILLIS;
+        double estimatedBpm = 60000d / period;
+        if (bpm > 0d && Math.abs(estimatedBpm - bpm) < bpm * TEMPO_CHANGE_RATIO) {
+            bpm = TEMPO_SMOOTHING * bpm + (1d - TEMPO_SMOOTHING) * estimatedBpm;
+        } else {
+            bpm = estimatedBpm;
+        }
+        confidence = Math.min(1d, support(bestLag) / energy);
+        return true;
+    }
+
+    /**
+     * Autocorrelation summed over the lag and its neighbours, collects peaks that spread over adjacent lags.
+     */
+    private double support(int lag) {
+        return currentCorrelation[lag - 1] + currentCorrelation[lag] + currentCorrelation[lag + 1];
+    }
+
+    /**
+     * Moves the lag to its half while that is about as strongly supported, otherwise to its double if the lag
+     * is clearly weaker than that.
+     */
+    private int resolveOctave(int lag) {
+        boolean faster = false;
+        int half = halfLag(lag);
+        while (half >= MIN_LAG && support(half) >= OCTAVE_RATIO * support(lag)) {
+            lag = half;
+            half = halfLag(lag);
+            faster = true;
+        }
+        if (!faster && 2 * lag <= MAX_LAG && support(lag) < OCTAVE_RATIO * support(2 * lag)) {
+            lag *= 2;
+        }
+        return lag;
+    }
+
+    /**
+     * Half of the lag, of odd lags the better supported of the two lags around it.
+     */
+    private int halfLag(int lag) {
+        int half = lag / 2;
+        if (lag % 2 != 0 && support(half + 1) > support(half)) {
+            return half + 1;
+        }
+        return half;
+    }
+
+    /**
+     * Offset of the true period from the given lag, the centroid of the autocorrelation around it. Clicks
+     * quantized to bins alternate between the two lags around their period, the centroid weighs them by how
+     * often each occurs.
+     */
+    private double interpolatePeak(int lag) {
+        double support = support(lag);
+        if (support <= 0d) {
+            return 0d;
+        }
+        return (currentCorrelation[lag + 1] - currentCorrelation[lag - 1]) / support;
+    }
+
+    /**
+     * Gets the estimated tempo, re-estimating first if new onsets were added since the last estimation.
+     *
+     * @return tempo in beats per minute, 0 if no periodicity was found yet
+     */
+    public double getBpm() {
+        if (dirty) {
+            estimate();
+        }
+        return bpm;
+    }
+
+    /**
+     * Gets how periodic the onset signal is at the estimated tempo.
+     *
+     * @return normalized autocorrelation at the estimated period between 0 and 1
+     */
+    public double getConfidence() {
+        if (dirty) {
+            estimate();
+        }
+        return confidence;
+    }
+
+    /**
+     * Resets the tracker, clearing the onset history and the estimate.
+     */
+    public void reset() {
+        Arrays.fill(onsets, 0d);
+        Arrays.fill(autocorrelation, 0d);
+        Arrays.fill(currentCorrelation, 0d);
+        started = false;
+        currentBin = 0;
+        currentStrength = 0d;
+        dirty = false;
+        nextEstimateTime = Long.MIN_VALUE;
+        bpm = 0d;
+        confidence = 0d;
+    }
+}
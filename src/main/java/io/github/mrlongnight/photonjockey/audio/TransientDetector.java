@@ -0,0 +1,144 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+/**
+ * Locates the strongest transient within a chunk using a multi-level Haar wavelet transform. The energy of the
+ * detail coefficients of every level is spread over the finest grid of two samples, which gives a transient
+ * strength per sample pair. The transient is the position whose strength rises the most above the background
+ * energy that preceded it, so a chunk is located to two samples (45 µs at 44.1 kHz) instead of its length.
+ * <p>
+ * Even stationary noise has a strongest pair, and the more pairs a chunk holds, the further that maximum rises
+ * above the background by chance alone. For noise the strengths are close to exponentially distributed around
+ * the background, whose maximum grows with the logarithm of their number, so the required ratio is scaled by
+ * the logarithm of the pairs of the chunk.
+ * <p>
+ * The background is carried across chunks, so a detection needs every chunk of the stream. The transform and
+ * the scan are linear in the chunk length and reuse the buffers of the detector. Not thread safe, meant to be
+ * owned by the analysis thread.
+ */
+public class TransientDetector {
+
+    /**
+     * The strength must exceed the background by at least this factor to count as a transient.
+     */
+    static final double MIN_TRANSIENT_RATIO = 4d;
+    /**
+     * Required ratio per natural logarithm of the amount of pairs of a chunk, well above the maximum expected
+     * for stationary noise.
+     */
+    static final double TRANSIENT_RATIO_PER_LOG_PAIR = 3d;
+    private static final double BACKGROUND_SMOOTHING = 0.01d;
+    private static final double ENERGY_FLOOR = 1e-10d;
+    private static final double HALF_SQRT_2 = Math.sqrt(0.5d);
+
+    private final int levels;
+    private final double[] approximation;
+    private final double[] strength;
+    private double background;
+    private double lastRatio;
+
+
+    /**
+     * @param maxChunkLength maximum amount of samples per chunk
+     * @param levels         amount of wavelet levels, level j covers the upper half of the band below
+     *                       sampleRate / 2^j
+     */
+    public TransientDetector(int maxChunkLength, int levels) {
+        if (maxChunkLength < 2 || levels <= 0) {
+            throw new IllegalArgumentException("Chunks must hold at least two samples and levels must be positive");
+        }
+        this.levels = levels;
+        this.approximation = new double[maxChunkLength / 2];
+        this.strength = new double[maxChunkLength / 2];
+    }
+
+    /**
+     * @param samples normalized samples of the chunk
+     * @param offset  index of the first sample
+     * @param length  amount of samples, samples after the last complete block of 2^levels are ignored
+     * @return offset in samples from the start of the chunk to the strongest transient, -1 if there was none
+     */
+    public int detect(double[] samples, int offset, int length) {
+        int pairs = Math.min(length / 2, strength.length);
+        int blockPairs = 1 << (levels - 1);
+        pairs -= pairs % blockPairs;
+        lastRatio = 0d;
+        if (pairs == 0) {
+            return -1;
+        }
+
+        transform(samples, offset, pairs);
+
+        int strongest = -1;
+        for (int pair = 0; pair < pairs; pair++) {
+            double ratio = strength[pair] / (background + ENERGY_FLOOR);
+            if (ratio > lastRatio) {
+                lastRatio = ratio;
+                strongest = pair;
+            }
+            background += BACKGROUND_SMOOTHING * (strength[pair] - background);
+        }
+        return lastRatio >= getMinRatio(pairs) ? 2 * strongest : -1;
+    }
+
+    /**
+     * @param pairs amount of sample pairs scanned
+     * @return ratio the strongest pair must exceed the background by to count as a transient
+     */
+    static double getMinRatio(int pairs) {
+        return Math.max(MIN_TRANSIENT_RATIO, TRANSIENT_RATIO_PER_LOG_PAIR * Math.log(pairs));
+    }
+
+    /**
+     * Fills the strength per sample pair with the detail energies of all levels.
+     */
+    private void transform(double[] samples, int offset, int pairs) {
+        // the first level reads the samples, the next ones the approximation of the previous level in place
+        for (int pair = 0; pair < pairs; pair++) {
+            double even = samples[offset + 2 * pair];
+            double odd = samples[offset + 2 * pair + 1];
+            double detail = (even - odd) * HALF_SQRT_2;
+            approximation[pair] = (even + odd) * HALF_SQRT_2;
+            strength[pair] = detail * detail;
+        }
+
+        int coefficients = pairs;
+        for (int level = 2; level <= levels; level++) {
+            coefficients /= 2;
+            int span = 1 << (level - 1);
+            for (int k = 0; k < coefficients; k++) {
+                double even = approximation[2 * k];
+                double odd = approximation[2 * k + 1];
+                double detail = (even - odd) * HALF_SQRT_2;
+                approximation[k] = (even + odd) * HALF_SQRT_2;
+
+                // the transform is orthonormal, spreading keeps the energies of the levels comparable
+                double energy = detail * detail / span;
+                for (int pair = k * span; pair < (k + 1) * span; pair++) {
+                    strength[pair] += energy;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return how far the strongest position of the last chunk exceeded the background
+     */
+    public double getLastRatio() {
+        return lastRatio;
+    }
+
+    /**
+     * @return amount of wavelet levels
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * Forgets the background energy.
+     */
+    public void reset() {
+        background = 0d;
+        lastRatio = 0d;
+    }
+}
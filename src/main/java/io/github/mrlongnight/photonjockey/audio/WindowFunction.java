@@ -1,5 +1,7 @@
 package io.github.mrlongnight.photonjockey.audio;
 
+import io.github.mrlongnight.photonjockey.audio.simd.AudioKernels;
+
 /**
  * Enum representing different window functions for FFT processing.
  * Window functions are used to reduce spectral leakage by smoothing the signal at the edges.
@@ -25,43 +27,172 @@ public enum WindowFunction {
      */
     BLACKMAN;
 
+    /**
+     * Coefficient tables computed so far, shared by all users of this window function.
+     * Copy-on-write, so lookups neither lock nor allocate. Tables are never modified after publication.
+     */
+    private volatile double[][] coefficientTables = new double[0][];
+    private volatile float[][] floatCoefficientTables = new float[0][];
+
     /**
      * Applies the window function to the given samples.
      *
      * @param samples the input samples to be windowed
      */
     public void apply(double[] samples) {
-        int n = samples.length;
-        if (n == 0) {
+        applyTo(samples, 0, samples, 0, samples.length, samples.length);
+    }
+
+    /**
+     * Copies samples into the target array while applying the window, in a single pass.
+     * The copied range may be a segment of the window, which allows filling a buffer from a circular source
+     * with multiple calls. Source and target may be the same array if the offsets are equal.
+     *
+     * @param source       samples to read
+     * @param sourceOffset index of the first sample to read
+     * @param target       array receiving the windowed samples
+     * @param targetOffset index in target to write the first sample to, also the position within the window
+     * @param length       amount of samples to copy
+     * @param windowLength total length of the window
+     */
+    public void applyTo(double[] source, int sourceOffset, double[] target, int targetOffset,
+                        int length, int windowLength) {
+        if (targetOffset < 0 || length < 0 || targetOffset + length > windowLength) {
+            throw new IllegalArgumentException("Range must be within the window");
+        }
+        if (length == 0) {
             return;
         }
 
-        switch (this) {
-            case NONE:
-                // No modification needed
-                break;
-            case HAMMING:
-                for (int i = 0; i < n; i++) {
-                    double window = 0.54 - 0.46 * Math.cos(2.0 * Math.PI * i / (n - 1));
-                    samples[i] *= window;
-                }
-                break;
-            case HANN:
-                for (int i = 0; i < n; i++) {
-                    double window = 0.5 * (1.0 - Math.cos(2.0 * Math.PI * i / (n - 1)));
-                    samples[i] *= window;
+        if (this == NONE) {
+            System.arraycopy(source, sourceOffset, target, targetOffset, length);
+            return;
+        }
+
+        AudioKernels.multiply(source, sourceOffset, coefficients(windowLength), targetOffset,
+                target, targetOffset, length);
+    }
+
+    /**
+     * Single precision variant of {@link #applyTo(double[], int, double[], int, int, int)}.
+     *
+     * @param source       samples to read
+     * @param sourceOffset index of the first sample to read
+     * @param target       array receiving the windowed samples
+     * @param targetOffset index in target to write the first sample to, also the position within the window
+     * @param length       amount of samples to copy
+     * @param windowLength total length of the window
+     */
+    public void applyTo(float[] source, int sourceOffset, float[] target, int targetOffset,
+                        int length, int windowLength) {
+        if (targetOffset < 0 || length < 0 || targetOffset + length > windowLength) {
+            throw new IllegalArgumentException("Range must be within the window");
+        }
+        if (length == 0) {
+            return;
+        }
+
+        if (this == NONE) {
+            System.arraycopy(source, sourceOffset, target, targetOffset, length);
+            return;
+        }
+
+        AudioKernels.multiply(source, sourceOffset, floatCoefficients(windowLength), targetOffset,
+                target, targetOffset, length);
+    }
+
+    /**
+     * Gets the coefficients of this window function.
+     *
+     * @param length length of the window
+     * @return copy of the coefficient table
+     */
+    public double[] getCoefficients(int length) {
+        return coefficients(length).clone();
+    }
+
+    /**
+     * Looks up the cached coefficient table for the given length, computing it on first use.
+     * The returned array is shared and must not be modified.
+     */
+    double[] coefficients(int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Window length must be positive");
+        }
+
+        for (double[] table : coefficientTables) {
+            if (table.length == length) {
+                return table;
+            }
+        }
+
+        synchronized (this) {
+            double[][] tables = coefficientTables;
+            for (double[] table : tables) {
+                if (table.length == length) {
+                    return table;
                 }
-                break;
-            case BLACKMAN:
-                for (int i = 0; i < n; i++) {
-                    double window = 0.42
-                            - 0.5 * Math.cos(2.0 * Math.PI * i / (n - 1))
-                            + 0.08 * Math.cos(4.0 * Math.PI * i / (n - 1));
-                    samples[i] *= window;
+            }
+
+            double[] table = computeCoefficients(length);
+            double[][] newTables = new double[tables.length + 1][];
+            System.arraycopy(tables, 0, newTables, 0, tables.length);
+            newTables[tables.length] = table;
+            coefficientTables = newTables;
+            return table;
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #coefficients(int)}, rounded from the double precision table.
+     * The returned array is shared and must not be modified.
+     */
+    float[] floatCoefficients(int length) {
+        for (float[] table : floatCoefficientTables) {
+            if (table.length == length) {
+                return table;
+            }
+        }
+
+        double[] coefficients = coefficients(length);
+        synchronized (this) {
+            float[][] tables = floatCoefficientTables;
+            for (float[] table : tables) {
+                if (table.length == length) {
+                    return table;
                 }
-                break;
-            default:
-                throw new IllegalStateException("Unexpected window function: " + this);
+            }
+
+            float[] table = new float[length];
+            for (int i = 0; i < length; i++) {
+                table[i] = (float) coefficients[i];
+            }
+            float[][] newTables = new float[tables.length + 1][];
+            System.arraycopy(tables, 0, newTables, 0, tables.length);
+            newTables[tables.length] = table;
+            floatCoefficientTables = newTables;
+            return table;
+        }
+    }
+
+    private double[] computeCoefficients(int n) {
+        double[] table = new double[n];
+        if (n == 1) {
+            // the formulas divide by n - 1, a window of a single sample passes it unchanged
+            table[0] = 1.0;
+            return table;
+        }
+
+        for (int i = 0; i < n; i++) {
+            table[i] = switch (this) {
+                case NONE -> 1.0;
+                case HAMMING -> 0.54 - 0.46 * Math.cos(2.0 * Math.PI * i / (n - 1));
+                case HANN -> 0.5 * (1.0 - Math.cos(2.0 * Math.PI * i / (n - 1)));
+                case BLACKMAN -> 0.42
+                        - 0.5 * Math.cos(2.0 * Math.PI * i / (n - 1))
+                        + 0.08 * Math.cos(4.0 * Math.PI * i / (n - 1));
+            };
         }
+        return table;
     }
 }
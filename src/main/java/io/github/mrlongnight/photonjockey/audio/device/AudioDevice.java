@@ -16,11 +16,13 @@ public interface AudioDevice {
         /**
          * Called when new audio data is available from the device.
          *
-         * @param data   A byte array containing the audio data. This buffer may be reused by the device,
-         *               so a copy should be made if the data needs to be stored.
-         * @param length The number of valid bytes in the data array.
+         * @param data         A byte array containing the audio data. This buffer may be reused by the device,
+         *                     so a copy should be made if the data needs to be stored.
+         * @param length       The number of valid bytes in the data array.
+         * @param captureNanos The {@link System#nanoTime()} the first frame of the data was captured at,
+         *                     derived from the device clock, see {@link CaptureClock}.
          */
-        void onDataAvailable(byte[] data, int length);
+        void onDataAvailable(byte[] data, int length, long captureNanos);
     }
 
     String getName();
@@ -35,6 +37,30 @@ public interface AudioDevice {
      */
     void setAudioListener(AudioDataListener listener);
 
+    /**
+     * Hints how much audio the consumer processes at once. Devices that read in blocks may size their reads
+     * accordingly, so every callback delivers one chunk. Must be called before {@link #start()}.
+     * Ignored by default.
+     *
+     * @param millis duration of one chunk in milliseconds
+     */
+    default void setChunkMillis(int millis) {
+    }
+
+    /**
+     * @return how often captured audio was lost since the device was started, because it was not read in time
+     */
+    default long getOverrunCount() {
+        return 0;
+    }
+
+    /**
+     * @return how often the device delivered less audio than requested since it was started
+     */
+    default long getUnderrunCount() {
+        return 0;
+    }
+
     /**
      * Starts this audio device, which will begin capturing audio and invoking the registered listener.
      *
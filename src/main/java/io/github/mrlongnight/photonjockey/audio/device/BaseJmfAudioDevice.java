@@ -8,22 +8,43 @@ import javax.media.Manager;
 import javax.media.MediaLocator;
 import javax.media.format.AudioFormat;
 import javax.media.protocol.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * An abstract base class for JMF-based audio devices. This class handles the common
  * device lifecycle (creation, connection, start, stop, disconnect) and leaves the
  * specific data acquisition strategy (push vs. pull) to subclasses.
+ * <p>
+ * Read data is copied into a recycled buffer of a {@link CaptureBufferPool} and handed to a single delivery
+ * thread per device, which calls the listener in capture order and releases the buffer afterwards.
+ * Reading never waits for the listener, if it falls behind by more than the pool holds, new data is dropped
+ * and counted as overrun.
  */
 public abstract class BaseJmfAudioDevice implements AudioDevice {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseJmfAudioDevice.class);
 
+    private static final int POOL_SIZE = 16;
+    private static final long DELIVERY_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long DELIVERY_JOIN_TIMEOUT_MS = 500L;
+
     protected final MediaLocator mediaLocator;
     protected final String deviceName;
     protected AudioDataListener listener;
     protected PJAudioFormat format;
     protected DataSource dataSource;
     protected final Buffer jmfBuffer = new Buffer();
+    protected CaptureClock captureClock;
+    private long framesDelivered;
+
+    private final CaptureBufferPool bufferPool = new CaptureBufferPool(POOL_SIZE);
+    private final ArrayBlockingQueue<CaptureBufferPool.CaptureBuffer> pendingBuffers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final AtomicLong overrunCount = new AtomicLong();
+    private volatile Thread deliveryThread;
+    private volatile boolean delivering;
 
     public BaseJmfAudioDevice(MediaLocator mediaLocator, String deviceName) {
         this.mediaLocator = mediaLocator;
@@ -67,15 +88,20 @@ public abstract class BaseJmfAudioDevice implements AudioDevice {
                 throw new IllegalStateException("DataSource is neither Push nor Pull BufferDataSource: " + dataSource.getClass().getName());
             }
 
+            this.captureClock = new CaptureClock(format.sampleRate());
+            this.framesDelivered = 0;
+
             dataSource.connect();
             dataSource.start();
 
+            startDelivery();
             startReading();
 
             logger.info("Started JMF device: {}", getName());
             return true;
         } catch (Exception e) {
             logger.error("Failed to start JMF device: {}", getName(), e);
+            stopDelivery();
             if (dataSource != null) {
                 try { dataSource.stop(); } catch (Exception ignored) {}
                 try { dataSource.disconnect(); } catch (Exception ignored) {}
@@ -88,20 +114,125 @@ public abstract class BaseJmfAudioDevice implements AudioDevice {
     protected abstract void startReading();
     protected abstract void stopReading();
 
+    /**
+     * Copies the data that was just read into {@link #jmfBuffer} into a pooled buffer and queues it for delivery.
+     * Must not be called concurrently.
+     */
     protected void notifyListener() {
-        if (listener != null) {
-            byte[] data = (byte[]) jmfBuffer.getData();
-            int offset = jmfBuffer.getOffset();
-            int length = jmfBuffer.getLength();
-
-            if (length > 0) {
-                byte[] dataCopy = new byte[length];
-                System.arraycopy(data, offset, dataCopy, 0, length);
-                listener.onDataAvailable(dataCopy, length);
+        long now = System.nanoTime();
+        int length = jmfBuffer.getLength();
+        if (length <= 0) {
+            return;
+        }
+
+        long frames = length / format.getBytesPerFrame();
+        long captureNanos = getCaptureNanos(frames, now);
+        framesDelivered += frames;
+
+        if (listener == null) {
+            return;
+        }
+
+        CaptureBufferPool.CaptureBuffer buffer = bufferPool.acquire(length);
+        if (buffer == null) {
+            overrunCount.incrementAndGet();
+            return;
+        }
+
+        System.arraycopy((byte[]) jmfBuffer.getData(), jmfBuffer.getOffset(), buffer.data, 0, length);
+        buffer.length = length;
+        buffer.captureNanos = captureNanos;
+        // cannot fail, there are never more pending buffers than the pool holds
+        pendingBuffers.offer(buffer);
+        LockSupport.unpark(deliveryThread);
+    }
+
+    private void startDelivery() {
+        overrunCount.set(0);
+        delivering = true;
+        Thread thread = new Thread(this::runDelivery, "JMF-Delivery");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        deliveryThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Main loop of the delivery thread, passes the pending buffers to the listener in the order they were read.
+     */
+    private void runDelivery() {
+        while (delivering) {
+            CaptureBufferPool.CaptureBuffer buffer = pendingBuffers.poll();
+            if (buffer == null) {
+                LockSupport.parkNanos(DELIVERY_IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                AudioDataListener currentListener = listener;
+                if (currentListener != null) {
+                    currentListener.onDataAvailable(buffer.data, buffer.length, buffer.captureNanos);
+                }
+            } catch (Exception e) {
+                logger.warn("Audio listener of JMF device '{}' failed", getName(), e);
+            } finally {
+                bufferPool.release(buffer);
             }
         }
     }
 
+    private void stopDelivery() {
+        Thread thread = deliveryThread;
+        if (thread == null) {
+            return;
+        }
+
+        delivering = false;
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(DELIVERY_JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        CaptureBufferPool.CaptureBuffer buffer;
+        while ((buffer = pendingBuffers.poll()) != null) {
+            bufferPool.release(buffer);
+        }
+        deliveryThread = null;
+
+        if (overrunCount.get() > 0) {
+            logger.warn("Audio listener of JMF device '{}' fell behind, {} buffers were dropped",
+                    getName(), overrunCount.get());
+        }
+    }
+
+    @Override
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * Determines when the first frame of the current buffer was captured. Uses the buffer time stamp if the
+     * stream provides one, otherwise the amount of delivered frames serves as device clock.
+     *
+     * @param frames amount of frames in the current buffer
+     * @param now    time the buffer was received at
+     * @return {@link System#nanoTime()} the first frame of the buffer was captured at
+     */
+    private long getCaptureNanos(long frames, long now) {
+        long timeStamp = jmfBuffer.getTimeStamp();
+        if (timeStamp == Buffer.TIME_UNKNOWN) {
+            captureClock.observeFrames(framesDelivered + frames, now);
+            return captureClock.frameToLocalNanos(framesDelivered);
+        }
+
+        captureClock.observe(timeStamp + captureClock.framesToNanos(frames), now);
+        return captureClock.toLocalNanos(timeStamp);
+    }
+
     @Override
     public final boolean stop() {
         if (!isOpen()) {
@@ -109,6 +240,7 @@ public abstract class BaseJmfAudioDevice implements AudioDevice {
         }
         try {
             stopReading();
+            stopDelivery();
             dataSource.stop();
             dataSource.disconnect();
             logger.info("Stopped JMF device: {}", getName());
@@ -0,0 +1,69 @@
+package io.github.mrlongnight.photonjockey.audio.device;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Fixed set of recycled capture buffers, so devices that have to copy captured data before handing it to
+ * another thread don't allocate per buffer. A buffer is taken via {@link #acquire(int)} and must be handed back
+ * via {@link #release(CaptureBuffer)} once the consumer is done with it. If all buffers are in use, the
+ * consumer fell behind and {@link #acquire(int)} fails instead of growing the pool.
+ * <p>
+ * Buffers only grow when a larger chunk than ever before is captured, which settles after the first
+ * few chunks. Acquiring and releasing is thread safe and never blocks.
+ */
+class CaptureBufferPool {
+
+    private final ArrayBlockingQueue<CaptureBuffer> freeBuffers;
+
+
+    /**
+     * @param size amount of buffers in the pool
+     */
+    CaptureBufferPool(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+
+        this.freeBuffers = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            freeBuffers.add(new CaptureBuffer());
+        }
+    }
+
+    /**
+     * @param capacity amount of bytes the buffer must be able to hold
+     * @return a free buffer holding at least capacity bytes, or null if all buffers are in use
+     */
+    CaptureBuffer acquire(int capacity) {
+        CaptureBuffer buffer = freeBuffers.poll();
+        if (buffer != null && buffer.data.length < capacity) {
+            buffer.data = new byte[capacity];
+        }
+        return buffer;
+    }
+
+    /**
+     * @param buffer buffer obtained via {@link #acquire(int)} that is no longer used
+     */
+    void release(CaptureBuffer buffer) {
+        buffer.length = 0;
+        freeBuffers.offer(buffer);
+    }
+
+    /**
+     * @return amount of buffers currently not in use
+     */
+    int available() {
+        return freeBuffers.size();
+    }
+
+    /**
+     * Captured audio data together with its capture time.
+     */
+    static class CaptureBuffer {
+
+        byte[] data = new byte[0];
+        int length;
+        long captureNanos;
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.mrlongnight.photonjockey.audio.device;
+
+/**
+ * Maps a device clock, such as the frame position of a line or the time stamps of capture buffers, onto
+ * {@link System#nanoTime()}, so every chunk of audio can be stamped with the time it was actually captured
+ * instead of the time a thread got around to handle it.
+ * <p>
+ * Every observation states that a device time was reached at the latest at the local time it was made.
+ * The callback delay only ever adds to the observed offset between both clocks, therefore the smallest offset
+ * is the most accurate one. Larger offsets are followed slowly, to track the drift between the clocks without
+ * adding scheduling jitter. Not thread safe, meant to be owned by the capture thread of a device.
+ */
+public class CaptureClock {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    /**
+     * Fraction of a larger offset that is taken over per observation.
+     */
+    private static final double DRIFT_GAIN = 0.01d;
+
+    private final double nanosPerFrame;
+    private double offsetNanos;
+    private boolean synced;
+
+
+    /**
+     * @param sampleRate sample rate of the device, used to convert frame positions
+     */
+    public CaptureClock(double sampleRate) {
+        if (sampleRate <= 0d) {
+            throw new IllegalArgumentException("Sample rate must be positive");
+        }
+        this.nanosPerFrame = NANOS_PER_SECOND / sampleRate;
+    }
+
+    /**
+     * Records that the given device time was reached at the latest at the given local time.
+     *
+     * @param deviceNanos time of the device clock in nanoseconds
+     * @param nowNanos    local {@link System#nanoTime()} of the observation
+     */
+    public void observe(long deviceNanos, long nowNanos) {
+        double offset = nowNanos - (double) deviceNanos;
+        if (!synced || offset < offsetNanos) {
+            offsetNanos = offset;
+            synced = true;
+        } else {
+            offsetNanos += (offset - offsetNanos) * DRIFT_GAIN;
+        }
+    }
+
+    /**
+     * Records that the given amount of frames was captured at the latest at the given local time.
+     *
+     * @param framePosition total amount of frames captured by the device
+     * @param nowNanos      local {@link System#nanoTime()} of the observation
+     */
+    public void observeFrames(long framePosition, long nowNanos) {
+        observe(framesToNanos(framePosition), nowNanos);
+    }
+
+    /**
+     * @param deviceNanos time of the device clock in nanoseconds
+     * @return local {@link System#nanoTime()} the device time corresponds to
+     */
+    public long toLocalNanos(long deviceNanos) {
+        return Math.round(deviceNanos + offsetNanos);
+    }
+
+    /**
+     * @param framePosition frame index counted from the start of the capture
+     * @return local {@link System#nanoTime()} the frame was captured at
+     */
+    public long frameToLocalNanos(long framePosition) {
+        return toLocalNanos(framesToNanos(framePosition));
+    }
+
+    /**
+     * @param frames amount of frames
+     * @return duration of the frames in nanoseconds
+     */
+    public long framesToNanos(long frames) {
+        return Math.round(frames * nanosPerFrame);
+    }
+
+    /**
+     * @return true if at least one observation was made since creation or the last reset
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Forgets the offset, to be called when the device clock restarts.
+     */
+    public void reset() {
+        offsetNanos = 0d;
+        synced = false;
+    }
+}
@@ -7,14 +7,35 @@ import javax.media.format.AudioFormat;
 /**
  * Wrapper around different audio format implementations.
  */
-public record PJAudioFormat(double sampleRate, boolean littleEndian, int channels, int bytesPerSample) {
+public record PJAudioFormat(double sampleRate, boolean littleEndian, int channels, int bytesPerSample,
+                            Encoding encoding) {
 
+    /**
+     * How a single sample is stored.
+     */
+    public enum Encoding {
+        PCM_SIGNED,
+        PCM_UNSIGNED,
+        PCM_FLOAT
+    }
+
+    /**
+     * Creates a format of signed integer samples.
+     */
+    public PJAudioFormat(double sampleRate, boolean littleEndian, int channels, int bytesPerSample) {
+        this(sampleRate, littleEndian, channels, bytesPerSample, Encoding.PCM_SIGNED);
+    }
+
+    /**
+     * Creates a format of integer samples, JMF formats don't tell float samples apart.
+     */
     public PJAudioFormat(AudioFormat format) {
         this(
                 format.getSampleRate(),
                 format.getEndian() == AudioFormat.LITTLE_ENDIAN,
                 format.getChannels(),
-                format.getSampleSizeInBits() / 8
+                format.getSampleSizeInBits() / 8,
+                format.getSigned() == AudioFormat.UNSIGNED ? Encoding.PCM_UNSIGNED : Encoding.PCM_SIGNED
         );
     }
 
@@ -23,10 +44,21 @@ public record PJAudioFormat(double sampleRate, boolean littleEndian, int channel
                 format.getSampleRate(),
                 !format.isBigEndian(),
                 format.getChannels(),
-                format.getSampleSizeInBits() / 8
+                format.getSampleSizeInBits() / 8,
+                toEncoding(format.getEncoding())
         );
     }
 
+    private static Encoding toEncoding(javax.sound.sampled.AudioFormat.Encoding encoding) {
+        if (javax.sound.sampled.AudioFormat.Encoding.PCM_FLOAT.equals(encoding)) {
+            return Encoding.PCM_FLOAT;
+        }
+        if (javax.sound.sampled.AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding)) {
+            return Encoding.PCM_UNSIGNED;
+        }
+        return Encoding.PCM_SIGNED;
+    }
+
     /**
      * @return amount of bytes one frame consist (audio sample across channels)
      */
@@ -42,6 +74,7 @@ public record PJAudioFormat(double sampleRate, boolean littleEndian, int channel
                 ", littleEndian=" + littleEndian +
                 ", channels=" + channels +
                 ", bytesPerSample=" + bytesPerSample +
+                ", encoding=" + encoding +
                 '}';
     }
 }
@@ -0,0 +1,568 @@
+package io.github.mrlongnight.photonjockey.audio.device;
+
+import io.github.mrlongnight.photonjockey.audio.simd.AudioKernels;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes interleaved PCM data of a {@link PJAudioFormat} into normalized mono samples, averaging the channels.
+ * Supported are signed 8, 16, 24 and 32-bit integers, unsigned 8-bit integers and 32-bit floats in either byte
+ * order, so devices can be captured in their native format instead of having the driver stack convert it.
+ * <p>
+ * Integer samples are normalized by the maximum value of their type, so a full-scale positive sample decodes
+ * to 1, float samples are taken as they are. The decoder is chosen once per format: every sample type has its
+ * own loop, so decoding does not branch per sample. Immutable and thread safe.
+ */
+public final class PcmDecoder {
+
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle FLOAT_LE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle FLOAT_BE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final double INT24_MAX_VALUE = (1 << 23) - 1;
+
+    private final PJAudioFormat format;
+    private final Codec codec;
+    private final int channels;
+    private final int bytesPerSample;
+    private final int bytesPerFrame;
+
+
+    private PcmDecoder(PJAudioFormat format, Codec codec) {
+        this.format = format;
+        this.codec = codec;
+        this.channels = format.channels();
+        this.bytesPerSample = format.bytesPerSample();
+        this.bytesPerFrame = format.getBytesPerFrame();
+    }
+
+    /**
+     * @param format format of the PCM data
+     * @return decoder for the format
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static PcmDecoder forFormat(PJAudioFormat format) {
+        if (format.channels() <= 0) {
+            throw new IllegalArgumentException("Format must have at least one channel: " + format);
+        }
+        return new PcmDecoder(format, Codec.of(format));
+    }
+
+    /**
+     * Decodes frames and averages the channels of every frame into a single sample.
+     *
+     * @param source       PCM data
+     * @param sourceOffset byte offset of the first frame
+     * @param target       array receiving the decoded samples
+     * @param targetOffset index of the first decoded sample in target
+     * @param frames       amount of frames to decode
+     */
+    public void decode(byte[] source, int sourceOffset, double[] target, int targetOffset, int frames) {
+        if (channels == 1 && codec == Codec.S16LE) {
+            // the most common format has a vectorized kernel
+            AudioKernels.decodePcm16(source, sourceOffset, target, targetOffset, frames, true);
+            return;
+        }
+
+        double gain = codec.gain / channels;
+        codec.decode(source, sourceOffset, bytesPerFrame, target, targetOffset, frames, gain);
+        for (int channel = 1; channel < channels; channel++) {
+            codec.accumulate(source, sourceOffset + channel * bytesPerSample, bytesPerFrame,
+                    target, targetOffset, frames, gain);
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #decode(byte[], int, double[], int, int)}, the samples are scaled in
+     * double precision and narrowed afterwards.
+     */
+    public void decode(byte[] source, int sourceOffset, float[] target, int targetOffset, int frames) {
+        double gain = codec.gain / channels;
+        codec.decode(source, sourceOffset, bytesPerFrame, target, targetOffset, frames, gain);
+        for (int channel = 1; channel < channels; channel++) {
+            codec.accumulate(source, sourceOffset + channel * bytesPerSample, bytesPerFrame,
+                    target, targetOffset, frames, gain);
+        }
+    }
+
+    /**
+     * @param source PCM data
+     * @param frame  index of the frame, counted from the start of source
+     * @param channel channel of the sample
+     * @return the normalized sample of a single channel
+     */
+    public double decodeSample(byte[] source, int frame, int channel) {
+        return codec.read(source, frame * bytesPerFrame + channel * bytesPerSample) * codec.gain;
+    }
+
+    /**
+     * @param source PCM data
+     * @param frame  index of the frame, counted from the start of source
+     * @return the normalized sample averaged over all channels
+     */
+    public double decodeMonoSample(byte[] source, int frame) {
+        int position = frame * bytesPerFrame;
+        double sum = 0d;
+        for (int channel = 0; channel < channels; channel++) {
+            sum += codec.read(source, position);
+            position += bytesPerSample;
+        }
+        return sum * codec.gain / channels;
+    }
+
+    /**
+     * @return the format this decoder was created for
+     */
+    public PJAudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return amount of bytes of a frame (one sample across all channels)
+     */
+    public int getBytesPerFrame() {
+        return bytesPerFrame;
+    }
+
+    private static int readInt24LittleEndian(byte[] source, int position) {
+        return (source[position] & 0xFF) | (source[position + 1] & 0xFF) << 8 | source[position + 2] << 16;
+    }
+
+    private static int readInt24BigEndian(byte[] source, int position) {
+        return source[position] << 16 | (source[position + 1] & 0xFF) << 8 | (source[position + 2] & 0xFF);
+    }
+
+    /**
+     * Sample types, every constant reads with its own loop. {@code decode} overwrites the target,
+     * {@code accumulate} adds to it, both step by the frame size and scale by the given gain.
+     */
+    private enum Codec {
+        S8(Byte.MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return source[position];
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = source[position] * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += source[position] * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) (source[position] * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) (source[position] * gain);
+                }
+            }
+        },
+        U8(Byte.MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return (source[position] & 0xFF) - 128;
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = ((source[position] & 0xFF) - 128) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += ((source[position] & 0xFF) - 128) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) (((source[position] & 0xFF) - 128) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) (((source[position] & 0xFF) - 128) * gain);
+                }
+            }
+        },
+        S16LE(Short.MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return (short) SHORT_LE.get(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (short) SHORT_LE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (short) SHORT_LE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) ((short) SHORT_LE.get(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) ((short) SHORT_LE.get(source, position) * gain);
+                }
+            }
+        },
+        S16BE(Short.MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return (short) SHORT_BE.get(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (short) SHORT_BE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (short) SHORT_BE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) ((short) SHORT_BE.get(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) ((short) SHORT_BE.get(source, position) * gain);
+                }
+            }
+        },
+        S24LE(INT24_MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return readInt24LittleEndian(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = readInt24LittleEndian(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += readInt24LittleEndian(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) (readInt24LittleEndian(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) (readInt24LittleEndian(source, position) * gain);
+                }
+            }
+        },
+        S24BE(INT24_MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return readInt24BigEndian(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = readInt24BigEndian(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += readInt24BigEndian(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) (readInt24BigEndian(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) (readInt24BigEndian(source, position) * gain);
+                }
+            }
+        },
+        S32LE(Integer.MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return (int) INT_LE.get(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (int) INT_LE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (int) INT_LE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) ((int) INT_LE.get(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) ((int) INT_LE.get(source, position) * gain);
+                }
+            }
+        },
+        S32BE(Integer.MAX_VALUE) {
+            @Override
+            double read(byte[] source, int position) {
+                return (int) INT_BE.get(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (int) INT_BE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (int) INT_BE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) ((int) INT_BE.get(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) ((int) INT_BE.get(source, position) * gain);
+                }
+            }
+        },
+        F32LE(1d) {
+            @Override
+            double read(byte[] source, int position) {
+                return (float) FLOAT_LE.get(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) FLOAT_LE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) FLOAT_LE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) ((float) FLOAT_LE.get(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) ((float) FLOAT_LE.get(source, position) * gain);
+                }
+            }
+        },
+        F32BE(1d) {
+            @Override
+            double read(byte[] source, int position) {
+                return (float) FLOAT_BE.get(source, position);
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, double[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) FLOAT_BE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) FLOAT_BE.get(source, position) * gain;
+                }
+            }
+
+            @Override
+            void decode(byte[] source, int position, int stride, float[] target, int offset, int count, double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] = (float) ((float) FLOAT_BE.get(source, position) * gain);
+                }
+            }
+
+            @Override
+            void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                            double gain) {
+                for (int i = 0; i < count; i++, position += stride) {
+                    target[offset + i] += (float) ((float) FLOAT_BE.get(source, position) * gain);
+                }
+            }
+        };
+
+        /**
+         * Factor normalizing a raw sample.
+         */
+        final double gain;
+
+        Codec(double maxValue) {
+            this.gain = 1d / maxValue;
+        }
+
+        /**
+         * @return the raw, not normalized sample at the byte position
+         */
+        abstract double read(byte[] source, int position);
+
+        abstract void decode(byte[] source, int position, int stride, double[] target, int offset, int count,
+                             double gain);
+
+        abstract void accumulate(byte[] source, int position, int stride, double[] target, int offset, int count,
+                                 double gain);
+
+        abstract void decode(byte[] source, int position, int stride, float[] target, int offset, int count,
+                             double gain);
+
+        abstract void accumulate(byte[] source, int position, int stride, float[] target, int offset, int count,
+                                 double gain);
+
+        static Codec of(PJAudioFormat format) {
+            boolean little = format.littleEndian();
+            PJAudioFormat.Encoding encoding = format.encoding();
+            switch (format.bytesPerSample()) {
+                case 1:
+                    if (encoding == PJAudioFormat.Encoding.PCM_SIGNED) {
+                        return S8;
+                    }
+                    if (encoding == PJAudioFormat.Encoding.PCM_UNSIGNED) {
+                        return U8;
+                    }
+                    break;
+                case 2:
+                    if (encoding == PJAudioFormat.Encoding.PCM_SIGNED) {
+                        return little ? S16LE : S16BE;
+                    }
+                    break;
+                case 3:
+                    if (encoding == PJAudioFormat.Encoding.PCM_SIGNED) {
+                        return little ? S24LE : S24BE;
+                    }
+                    break;
+                case 4:
+                    if (encoding == PJAudioFormat.Encoding.PCM_SIGNED) {
+                        return little ? S32LE : S32BE;
+                    }
+                    if (encoding == PJAudioFormat.Encoding.PCM_FLOAT) {
+                        return little ? F32LE : F32BE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            throw new IllegalArgumentException("Unsupported PCM format: " + format);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.util.concurrent.Executor;
 /**
  * An AudioDevice implementation that uses the JMF "pull" model.
  * It extends the BaseJmfAudioDevice to inherit the common JMF lifecycle management.
+ * A single long running task on the executor reads from the stream in a loop.
  */
 public class PullModelAudioDevice extends BaseJmfAudioDevice {
 
@@ -33,7 +34,7 @@ public class PullModelAudioDevice extends BaseJmfAudioDevice {
         }
         this.stream = pullDataSource.getStreams()[0];
         this.isRunning = true;
-        scheduleRead();
+        executor.execute(this::readLoop);
     }
 
     @Override
@@ -46,21 +47,12 @@ public class PullModelAudioDevice extends BaseJmfAudioDevice {
         return super.isOpen() && stream != null;
     }
 
-    private void scheduleRead() {
-        if (isRunning) {
-            executor.execute(this::performRead);
-        }
-    }
-
-    private void performRead() {
-        if (!isRunning) {
-            return;
-        }
-
+    private void readLoop() {
         try {
-            stream.read(jmfBuffer);
-            notifyListener();
-            scheduleRead();
+            while (isRunning) {
+                stream.read(jmfBuffer);
+                notifyListener();
+            }
         } catch (Exception e) {
             if (isRunning) {
                 logger.warn("Error reading from PulseAudio stream for device '{}'. Stopping device.", getName(), e);
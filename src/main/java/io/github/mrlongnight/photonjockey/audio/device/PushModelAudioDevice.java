@@ -7,23 +7,21 @@ import javax.media.MediaLocator;
 import javax.media.protocol.BufferTransferHandler;
 import javax.media.protocol.PushBufferDataSource;
 import javax.media.protocol.PushBufferStream;
-import java.util.concurrent.Executor;
 
 /**
  * An AudioDevice implementation that uses the JMF "push" model.
- * It receives data passively via a BufferTransferHandler callback.
+ * It receives data passively via a BufferTransferHandler callback, which reads the data right away,
+ * the listener is called by the delivery thread of {@link BaseJmfAudioDevice}.
  */
 public class PushModelAudioDevice extends BaseJmfAudioDevice {
 
     private static final Logger logger = LoggerFactory.getLogger(PushModelAudioDevice.class);
 
-    private final Executor executor;
     private PushBufferStream stream;
 
 
-    public PushModelAudioDevice(Executor executor, MediaLocator mediaLocator, String deviceName) {
+    public PushModelAudioDevice(MediaLocator mediaLocator, String deviceName) {
         super(mediaLocator, deviceName);
-        this.executor = executor;
     }
 
     @Override
@@ -33,15 +31,18 @@ public class PushModelAudioDevice extends BaseJmfAudioDevice {
         }
         this.stream = pushDataSource.getStreams()[0];
 
-        BufferTransferHandler transferHandler = (pushBufferStream) -> executor.execute(() -> {
+        BufferTransferHandler transferHandler = (pushBufferStream) -> {
             if (listener == null || !isOpen()) return;
-            try {
-                pushBufferStream.read(jmfBuffer);
-                notifyListener();
-            } catch (Exception e) {
-                logger.warn("Error reading from JMF capture stream for device '{}'", getName(), e);
+            // the buffer is shared, in case the stream calls back from more than one thread
+            synchronized (jmfBuffer) {
+                try {
+                    pushBufferStream.read(jmfBuffer);
+                    notifyListener();
+                } catch (Exception e) {
+                    logger.warn("Error reading from JMF capture stream for device '{}'", getName(), e);
+                }
             }
-        });
+        };
         stream.setTransferHandler(transferHandler);
     }
 
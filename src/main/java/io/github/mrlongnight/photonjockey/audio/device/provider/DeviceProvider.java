@@ -14,4 +14,12 @@ public interface DeviceProvider {
      * @return list containing all audio devices
      */
     List<AudioDevice> getAudioDevices();
+
+    /**
+     * Sets a listener to notify when devices were added or removed, if the provider can detect it.
+     * The listener may be called from any thread and must not block.
+     *
+     * @param listener listener to call on device changes, or null to remove it
+     */
+    default void setDeviceChangeListener(Runnable listener) {}
 }
@@ -0,0 +1,196 @@
+package io.github.mrlongnight.photonjockey.audio.device.provider;
+
+import io.github.mrlongnight.photonjockey.audio.device.AudioDevice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Caches the {@link AudioDevice}s of a set of {@link DeviceProvider}s, so listing devices and looking them up
+ * by name doesn't enumerate every provider again.
+ * <p>
+ * A scan probes all providers in parallel and waits at most the probe timeout for each of them. A provider that
+ * doesn't answer in time keeps the devices of its last successful probe, its probe is not restarted but awaited
+ * again on the next scan, and its late answer marks the cache stale. The providers are ordered by preference,
+ * unless all devices are requested only the devices of the first provider that found any are kept, like the
+ * sequential fallback this replaces.
+ * <p>
+ * The cache is only refreshed by {@link #rescan()} or, after a hot-plug notification of a provider or a call to
+ * {@link #invalidate()}, by the next lookup.
+ */
+public class DeviceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceRegistry.class);
+
+    private final List<ProviderState> providers = new ArrayList<>();
+    private final Executor executor;
+    private final long probeTimeoutMillis;
+    private final boolean allProviders;
+
+    private List<AudioDevice> devices = Collections.emptyList();
+    private Map<String, AudioDevice> devicesByName = Collections.emptyMap();
+    private volatile boolean stale = true;
+
+
+    /**
+     * @param deviceProviders    providers in order of preference
+     * @param executor           executor to probe the providers on, should not limit the amount of concurrent tasks
+     * @param probeTimeoutMillis time to wait for each provider during a scan
+     * @param allProviders       true to keep the devices of all providers instead of only the first one with devices
+     */
+    public DeviceRegistry(List<DeviceProvider> deviceProviders, Executor executor, long probeTimeoutMillis,
+                          boolean allProviders) {
+        if (probeTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Probe timeout must be positive");
+        }
+
+        this.executor = executor;
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        this.allProviders = allProviders;
+
+        for (DeviceProvider deviceProvider : deviceProviders) {
+            providers.add(new ProviderState(deviceProvider));
+            deviceProvider.setDeviceChangeListener(this::onDevicesChanged);
+        }
+    }
+
+    /**
+     * @return cached devices, scanned first if the cache is stale
+     */
+    public synchronized List<AudioDevice> getDevices() {
+        if (stale) {
+            scan();
+        }
+        return devices;
+    }
+
+    /**
+     * @param name that device must match
+     * @return cached device with the given name or null if there is none, scanned first if the cache is stale
+     */
+    public synchronized AudioDevice getDevice(String name) {
+        if (stale) {
+            scan();
+        }
+        return devicesByName.get(name);
+    }
+
+    /**
+     * Probes all providers again.
+     *
+     * @return devices found
+     */
+    public synchronized List<AudioDevice> rescan() {
+        scan();
+        return devices;
+    }
+
+    /**
+     * Marks the cache stale, so the next lookup probes all providers again.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    private void onDevicesChanged() {
+        logger.info("Audio devices changed, rescanning on next lookup");
+        invalidate();
+    }
+
+    private void scan() {
+        // cleared before the probes start, so a change notification during the scan isn't lost
+        stale = false;
+        long start = System.nanoTime();
+
+        for (ProviderState provider : providers) {
+            provider.startProbe();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(probeTimeoutMillis);
+        List<AudioDevice> foundDevices = new ArrayList<>();
+        for (ProviderState provider : providers) {
+            List<AudioDevice> providerDevices = provider.awaitProbe(deadline);
+            if (foundDevices.isEmpty() || allProviders) {
+                foundDevices.addAll(providerDevices);
+            }
+        }
+
+        Map<String, AudioDevice> byName = new HashMap<>();
+        for (AudioDevice device : foundDevices) {
+            byName.putIfAbsent(device.getName(), device);
+        }
+
+        devices = Collections.unmodifiableList(foundDevices);
+        devicesByName = byName;
+        logger.info("Found {} audio devices in {} ms", foundDevices.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Probe state of a single provider, only accessed while holding the registry lock.
+     */
+    private class ProviderState {
+
+        private final DeviceProvider deviceProvider;
+        private CompletableFuture<List<AudioDevice>> probe;
+        private List<AudioDevice> lastDevices = Collections.emptyList();
+        private volatile boolean timedOut;
+
+
+        private ProviderState(DeviceProvider deviceProvider) {
+            this.deviceProvider = deviceProvider;
+        }
+
+        private void startProbe() {
+            if (probe != null) {
+                // still running since the last scan timed out, waiting for it beats stacking another one
+                return;
+            }
+
+            timedOut = false;
+            probe = CompletableFuture.supplyAsync(deviceProvider::getAudioDevices, executor);
+            probe.whenComplete((result, e) -> {
+                if (timedOut) {
+                    logger.info("{} answered after its probe timed out", getProviderName());
+                    invalidate();
+                }
+            });
+        }
+
+        private List<AudioDevice> awaitProbe(long deadlineNanos) {
+            try {
+                long remaining = Math.max(0L, deadlineNanos - System.nanoTime());
+                List<AudioDevice> result = probe.get(remaining, TimeUnit.NANOSECONDS);
+                lastDevices = result != null ? result : Collections.emptyList();
+            } catch (TimeoutException e) {
+                timedOut = true;
+                logger.warn("{} didn't list its devices within {} ms, keeping {} known devices",
+                        getProviderName(), probeTimeoutMillis, lastDevices.size());
+                return lastDevices;
+            } catch (ExecutionException e) {
+                logger.warn("{} failed to list its devices", getProviderName(), e.getCause());
+                lastDevices = Collections.emptyList();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return lastDevices;
+            }
+
+            probe = null;
+            return lastDevices;
+        }
+
+        private String getProviderName() {
+            return deviceProvider.getClass().getSimpleName();
+        }
+    }
+}
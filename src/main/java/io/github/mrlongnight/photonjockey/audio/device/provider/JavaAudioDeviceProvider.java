@@ -4,7 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.github.mrlongnight.photonjockey.AppTaskOrchestrator;
 import io.github.mrlongnight.photonjockey.audio.device.AudioDevice;
+import io.github.mrlongnight.photonjockey.audio.device.CaptureClock;
 import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+import io.github.mrlongnight.photonjockey.config.Config;
+import io.github.mrlongnight.photonjockey.config.ConfigNode;
 
 import javax.sound.sampled.*;
 import java.util.Arrays;
@@ -12,10 +15,14 @@ import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Provides {@link AudioDevice}'s via Java audio API.
+ * By default every device captures on a dedicated thread that blocks on reading exactly one chunk from the line,
+ * with a line buffer of {@link ConfigNode#AUDIO_CAPTURE_BUFFER_MILLIS}. If
+ * {@link ConfigNode#AUDIO_CAPTURE_BLOCKING} is disabled, the line is polled periodically on the task orchestrator.
  */
 public class JavaAudioDeviceProvider implements DeviceProvider {
 
@@ -27,10 +34,12 @@ public class JavaAudioDeviceProvider implements DeviceProvider {
     private final AudioFormat format = new AudioFormat(SAMPLE_RATE, BYTES_PER_SAMPLE * 8, 1, true, false);
     private final Line.Info lineInfo = new Line.Info(TargetDataLine.class);
     private final AppTaskOrchestrator taskOrchestrator;
+    private final Config config;
 
 
-    public JavaAudioDeviceProvider(AppTaskOrchestrator taskOrchestrator) {
+    public JavaAudioDeviceProvider(AppTaskOrchestrator taskOrchestrator, Config config) {
         this.taskOrchestrator = taskOrchestrator;
+        this.config = config;
     }
 
     @Override
@@ -38,26 +47,43 @@ public class JavaAudioDeviceProvider implements DeviceProvider {
         List<AudioDevice> devices = Arrays.stream(AudioSystem.getMixerInfo())
                 .map(AudioSystem::getMixer)
                 .filter(mixer -> mixer.isLineSupported(lineInfo))
-                .map(JavaAudioDevice::new)
+                .map(this::createDevice)
                 .collect(Collectors.toList());
         logger.info("Found {} JavaAudio capture devices", devices.size());
         return devices;
     }
 
+    /**
+     * @param mixer mixer supporting {@link TargetDataLine}s
+     * @return device capturing from the mixer
+     */
+    AudioDevice createDevice(Mixer mixer) {
+        return new JavaAudioDevice(mixer);
+    }
+
 
     private class JavaAudioDevice implements AudioDevice {
 
         private static final int POLL_BUFFER = 4096;
         private static final int POLL_INTERVAL_MS = 5;
+        private static final int DEFAULT_CHUNK_MILLIS = 20;
+        private static final long CAPTURE_JOIN_TIMEOUT_MS = 500L;
 
         private final Mixer mixer;
         private TargetDataLine dataLine;
         private PJAudioFormat audioFormat;
         private AudioDataListener listener;
         private Future<?> captureFuture;
+        private Thread captureThread;
         private volatile boolean isRunning = false;
         private final AtomicBoolean isPolling = new AtomicBoolean(false);
         private final byte[] pollBuffer = new byte[POLL_BUFFER];
+        private CaptureClock captureClock;
+        private long framesDelivered;
+        private int chunkMillis = DEFAULT_CHUNK_MILLIS;
+
+        private final AtomicLong overrunCount = new AtomicLong();
+        private final AtomicLong underrunCount = new AtomicLong();
 
         public JavaAudioDevice(Mixer mixer) {
             this.mixer = mixer;
@@ -78,30 +104,97 @@ public class JavaAudioDeviceProvider implements DeviceProvider {
             this.listener = listener;
         }
 
+        @Override
+        public void setChunkMillis(int millis) {
+            if (millis <= 0) {
+                throw new IllegalArgumentException("Chunk duration must be positive");
+            }
+            this.chunkMillis = millis;
+        }
+
         @Override
         public boolean start() {
             if (isRunning) {
                 return false;
             }
 
+            boolean blocking = config.getBoolean(ConfigNode.AUDIO_CAPTURE_BLOCKING);
+            int chunkBytes = millisToBytes(chunkMillis);
+            // the line must at least hold the chunk that is being read plus the one being captured meanwhile
+            int lineBufferBytes = Math.max(millisToBytes(config.getInt(ConfigNode.AUDIO_CAPTURE_BUFFER_MILLIS)),
+                    2 * (blocking ? chunkBytes : millisToBytes(POLL_INTERVAL_MS)));
+
             try {
                 dataLine = (TargetDataLine) mixer.getLine(lineInfo);
-                dataLine.open(format, dataLine.getBufferSize());
+                dataLine.open(format, lineBufferBytes);
                 audioFormat = new PJAudioFormat(format);
+                captureClock = new CaptureClock(format.getSampleRate());
+                framesDelivered = 0;
             } catch (LineUnavailableException e) {
                 dataLine = null;
                 logger.warn("Could not open audio line for mixer '{}'", getName(), e);
                 return false;
             }
 
+            overrunCount.set(0);
+            underrunCount.set(0);
             isRunning = true;
             dataLine.start();
-            captureFuture = taskOrchestrator.schedulePeriodicTask(this::poll, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
 
-            logger.info("Started JavaSound device: {}", getName());
+            if (blocking) {
+                final byte[] chunk = new byte[chunkBytes];
+                captureThread = new Thread(() -> captureBlocking(chunk), "JavaAudio-Capture");
+                captureThread.setDaemon(true);
+                captureThread.setPriority(Thread.MAX_PRIORITY);
+                captureThread.start();
+            } else {
+                captureFuture = taskOrchestrator.schedulePeriodicTask(this::poll, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+
+            logger.info("Started JavaSound device: {} ({} capture, {} byte line buffer)",
+                    getName(), blocking ? "blocking" : "polling", dataLine.getBufferSize());
             return true;
         }
 
+        private int millisToBytes(int millis) {
+            int frames = Math.max(1, Math.round(format.getSampleRate() * millis / 1000f));
+            return frames * format.getFrameSize();
+        }
+
+        /**
+         * Main loop of the capture thread. Every read blocks until exactly one chunk was captured, so there are
+         * no idle wake-ups and each chunk is passed on as soon as it is complete.
+         */
+        private void captureBlocking(byte[] chunk) {
+            TargetDataLine line = dataLine;
+            int lineBufferBytes = line.getBufferSize();
+
+            try {
+                while (isRunning) {
+                    if (line.available() >= lineBufferBytes) {
+                        // the line buffer ran full while the previous chunk was handled, captured audio was lost
+                        overrunCount.incrementAndGet();
+                    }
+
+                    int bytesRead = line.read(chunk, 0, chunk.length);
+                    if (!isRunning) {
+                        break;
+                    }
+                    if (bytesRead < chunk.length) {
+                        underrunCount.incrementAndGet();
+                    }
+                    if (bytesRead > 0) {
+                        deliver(chunk, bytesRead);
+                    }
+                }
+            } catch (Exception e) {
+                if (isRunning) {
+                    logger.error("Error during audio capture for device: {}. Stopping.", getName(), e);
+                    stop();
+                }
+            }
+        }
+
         private void poll() {
             // Skip if already polling or not running
             if (!isRunning || !isPolling.compareAndSet(false, true)) {
@@ -110,12 +203,15 @@ public class JavaAudioDeviceProvider implements DeviceProvider {
 
             try {
                 int available = dataLine.available();
+                if (available >= dataLine.getBufferSize()) {
+                    overrunCount.incrementAndGet();
+                }
 
                 if (available > 0) {
                     int toRead = Math.min(available, pollBuffer.length);
                     int bytesRead = dataLine.read(pollBuffer, 0, toRead);
-                    if (bytesRead > 0 && listener != null) {
-                        listener.onDataAvailable(pollBuffer, bytesRead);
+                    if (bytesRead > 0) {
+                        deliver(pollBuffer, bytesRead);
                     }
                 }
             } catch (Exception e) {
@@ -128,9 +224,35 @@ public class JavaAudioDeviceProvider implements DeviceProvider {
             }
         }
 
+        /**
+         * Passes the read bytes on, stamped via the frame position of the line, which counts all frames
+         * captured so far including the ones still waiting in the line buffer.
+         */
+        private void deliver(byte[] data, int bytesRead) {
+            captureClock.observeFrames(dataLine.getLongFramePosition(), System.nanoTime());
+            long captureNanos = captureClock.frameToLocalNanos(framesDelivered);
+            framesDelivered += bytesRead / format.getFrameSize();
+
+            if (listener != null) {
+                listener.onDataAvailable(data, bytesRead, captureNanos);
+            }
+        }
+
+        @Override
+        public long getOverrunCount() {
+            return overrunCount.get();
+        }
+
+        @Override
+        public long getUnderrunCount() {
+            return underrunCount.get();
+        }
+
         @Override
         public boolean isOpen() {
-            return (isRunning && dataLine != null && dataLine.isOpen()) || !captureFuture.isDone();
+            return (isRunning && dataLine != null && dataLine.isOpen())
+                    || (captureFuture != null && !captureFuture.isDone())
+                    || (captureThread != null && captureThread.isAlive());
         }
 
         @Override
@@ -146,12 +268,32 @@ public class JavaAudioDeviceProvider implements DeviceProvider {
             }
 
             if (dataLine != null) {
+                // stopping and flushing the line releases a blocked read
                 dataLine.stop();
+                dataLine.flush();
+            }
+
+            Thread thread = captureThread;
+            if (thread != null && thread != Thread.currentThread()) {
+                try {
+                    thread.join(CAPTURE_JOIN_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (dataLine != null) {
                 dataLine.close();
             }
 
+            if (overrunCount.get() > 0 || underrunCount.get() > 0) {
+                logger.warn("JavaSound device {} had {} overruns and {} underruns",
+                        getName(), overrunCount.get(), underrunCount.get());
+            }
+
             dataLine = null;
             captureFuture = null;
+            captureThread = null;
             logger.info("Stopped JavaSound device: {}", getName());
             return true;
         }
@@ -2,6 +2,7 @@ package io.github.mrlongnight.photonjockey.audio.device.provider;
 
 import org.jitsi.impl.neomedia.device.AudioSystem;
 import org.jitsi.impl.neomedia.device.CaptureDeviceInfo2;
+import org.jitsi.impl.neomedia.device.DeviceSystem;
 import org.jitsi.service.libjitsi.LibJitsi;
 import org.jitsi.utils.MediaType;
 import org.slf4j.Logger;
@@ -9,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 import io.github.mrlongnight.photonjockey.audio.device.AudioDevice;
 
+import java.beans.PropertyChangeListener;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -27,6 +29,7 @@ public abstract class LibJitsiDeviceProvider implements DeviceProvider {
 
     protected final Executor executor;
     protected AudioSystem audioSystem;
+    private PropertyChangeListener devicesChangeListener;
 
 
     public LibJitsiDeviceProvider(Executor executor) {
@@ -67,6 +70,27 @@ public abstract class LibJitsiDeviceProvider implements DeviceProvider {
         }
     }
 
+    @Override
+    public void setDeviceChangeListener(Runnable listener) {
+        if (audioSystem == null) {
+            return;
+        }
+
+        if (devicesChangeListener != null) {
+            audioSystem.removePropertyChangeListener(devicesChangeListener);
+            devicesChangeListener = null;
+        }
+        if (listener != null) {
+            // libjitsi re-enumerates on hot-plug and fires a devices change afterwards
+            devicesChangeListener = event -> {
+                if (DeviceSystem.PROP_DEVICES.equals(event.getPropertyName())) {
+                    listener.run();
+                }
+            };
+            audioSystem.addPropertyChangeListener(devicesChangeListener);
+        }
+    }
+
     protected abstract String getAudioSystemProtocol();
     protected abstract String getAudioSystemName();
 
@@ -8,6 +8,7 @@ import org.jitsi.impl.neomedia.jmfext.media.protocol.wasapi.WASAPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.github.mrlongnight.photonjockey.audio.device.AudioDevice;
+import io.github.mrlongnight.photonjockey.audio.device.CaptureClock;
 import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
 import io.github.mrlongnight.photonjockey.audio.device.PushModelAudioDevice;
 import io.github.mrlongnight.photonjockey.util.PlatformDetector;
@@ -67,7 +68,7 @@ public class WASAPIDeviceProvider extends LibJitsiDeviceProvider {
 
     @Override
     protected AudioDevice createAudioDevice(CaptureDeviceInfo2 deviceInfo) {
-        return new PushModelAudioDevice(executor, deviceInfo.getLocator(), deviceInfo.getName());
+        return new PushModelAudioDevice(deviceInfo.getLocator(), deviceInfo.getName());
     }
 
     private List<AudioDevice> getDevices(AudioSystem.DataFlow dataFlow) {
@@ -96,6 +97,8 @@ public class WASAPIDeviceProvider extends LibJitsiDeviceProvider {
 
         private boolean exceptionWasThrown = false;
         private byte[] readBuffer = new byte[4096];
+        private CaptureClock captureClock;
+        private long framesDelivered;
 
         private WASAPILoopbackAudioDevice(CaptureDeviceInfo2 device) {
             this.device = device;
@@ -135,7 +138,12 @@ public class WASAPIDeviceProvider extends LibJitsiDeviceProvider {
                         }
                         int bytesRead = client.read(readBuffer, 0, availableBytes);
                         if (bytesRead > 0) {
-                            listener.onDataAvailable(readBuffer, bytesRead);
+                            // the capture client has no position, the delivered frames serve as device clock
+                            long frames = bytesRead / format.getBytesPerFrame();
+                            captureClock.observeFrames(framesDelivered + frames, System.nanoTime());
+                            long captureNanos = captureClock.frameToLocalNanos(framesDelivered);
+                            framesDelivered += frames;
+                            listener.onDataAvailable(readBuffer, bytesRead, captureNanos);
                         }
                     }
                 } catch (Exception e) {
@@ -149,11 +157,14 @@ public class WASAPIDeviceProvider extends LibJitsiDeviceProvider {
             Arrays.stream(device.getFormats())
                     .filter(AudioFormat.class::isInstance)
                     .map(AudioFormat.class::cast)
+                    // the mix format is captured as it is, channels are downmixed by the PcmDecoder.
+                    // JMF formats don't tell integer from float samples and WASAPI mix formats with 32 bits
+                    // are float, so only formats up to 24 bits are known to be integer PCM
                     .filter(f ->
                             f.getEncoding().equals(AudioFormat.LINEAR)
                                     && f.getSigned() == AudioFormat.SIGNED
-                                    && f.getChannels() == 1
-                                    && f.getSampleSizeInBits() / 8 <= 2
+                                    && f.getSampleSizeInBits() / 8 >= 1
+                                    && f.getSampleSizeInBits() / 8 <= 3
                     )
                     .forEach(audioFormat -> {
                         if (client != null) {
@@ -170,6 +181,8 @@ public class WASAPIDeviceProvider extends LibJitsiDeviceProvider {
                                     transferHandler
                             );
                             this.format = new PJAudioFormat(audioFormat);
+                            this.captureClock = new CaptureClock(format.sampleRate());
+                            this.framesDelivered = 0;
                             availableField = client.getClass().getDeclaredField("availableLength");
                             availableField.setAccessible(true);
 
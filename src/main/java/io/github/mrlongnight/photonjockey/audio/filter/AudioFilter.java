@@ -0,0 +1,34 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+/**
+ * A stateful streaming filter. State is carried across calls, so consecutive chunks of a stream
+ * can be filtered one after another without artifacts at the chunk boundaries.
+ */
+public interface AudioFilter {
+
+    /**
+     * Filters a single sample.
+     *
+     * @param sample input sample
+     * @return filtered sample
+     */
+    double process(double sample);
+
+    /**
+     * Filters the given range in place.
+     *
+     * @param samples array containing the samples
+     * @param offset  index of the first sample to filter
+     * @param length  amount of samples to filter
+     */
+    default void process(double[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            samples[i] = process(samples[i]);
+        }
+    }
+
+    /**
+     * Clears the filter state, as if no sample was processed yet.
+     */
+    void reset();
+}
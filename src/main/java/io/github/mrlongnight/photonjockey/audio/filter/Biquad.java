@@ -0,0 +1,184 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+/**
+ * Second order IIR filter section (biquad) in transposed direct form II.
+ * Coefficients are calculated with the formulas of the RBJ audio EQ cookbook.
+ * Instances are cheap, hold two state values and never allocate while processing.
+ */
+public class Biquad implements AudioFilter {
+
+    /**
+     * Quality factor of a Butterworth section, two of them in series form a Linkwitz-Riley filter.
+     */
+    public static final double BUTTERWORTH_Q = 1d / Math.sqrt(2d);
+
+    /**
+     * States smaller than this are flushed to zero, to prevent slow denormal arithmetic during silence.
+     */
+    private static final double DENORMAL_THRESHOLD = 1e-30;
+
+    /**
+     * Parameters of the K-weighting stages, fitted to the 48 kHz coefficients of ITU-R BS.1770.
+     */
+    private static final double K_SHELF_FREQUENCY = 1681.974450955533d;
+    private static final double K_SHELF_GAIN_DB = 3.999843853973347d;
+    private static final double K_SHELF_Q = 0.7071752369554196d;
+    private static final double K_SHELF_BAND_EXPONENT = 0.4996667741545416d;
+    private static final double K_HIGH_PASS_FREQUENCY = 38.13547087602444d;
+    private static final double K_HIGH_PASS_Q = 0.5003270373238773d;
+
+    private final double b0;
+    private final double b1;
+    private final double b2;
+    private final double a1;
+    private final double a2;
+
+    private double z1;
+    private double z2;
+
+
+    /**
+     * Creates a biquad with the given coefficients, already normalized so that a0 equals 1.
+     *
+     * @param b0 feed-forward coefficient of the current sample
+     * @param b1 feed-forward coefficient of the previous sample
+     * @param b2 feed-forward coefficient of the sample before the previous one
+     * @param a1 feedback coefficient of the previous output
+     * @param a2 feedback coefficient of the output before the previous one
+     */
+    public Biquad(double b0, double b1, double b2, double a1, double a2) {
+        this.b0 = b0;
+        this.b1 = b1;
+        this.b2 = b2;
+        this.a1 = a1;
+        this.a2 = a2;
+    }
+
+    /**
+     * Creates a second order low-pass filter.
+     *
+     * @param sampleRate sample rate in Hz
+     * @param cutoff     cutoff frequency in Hz
+     * @param q          quality factor, {@link #BUTTERWORTH_Q} for a maximally flat pass band
+     * @return new low-pass section
+     */
+    public static Biquad lowPass(double sampleRate, double cutoff, double q) {
+        double w0 = angularFrequency(sampleRate, cutoff);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2d * q);
+        return normalized((1d - cos) / 2d, 1d - cos, (1d - cos) / 2d, 1d + alpha, -2d * cos, 1d - alpha);
+    }
+
+    /**
+     * Creates a second order high-pass filter.
+     *
+     * @param sampleRate sample rate in Hz
+     * @param cutoff     cutoff frequency in Hz
+     * @param q          quality factor, {@link #BUTTERWORTH_Q} for a maximally flat pass band
+     * @return new high-pass section
+     */
+    public static Biquad highPass(double sampleRate, double cutoff, double q) {
+        double w0 = angularFrequency(sampleRate, cutoff);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2d * q);
+        return normalized((1d + cos) / 2d, -(1d + cos), (1d + cos) / 2d, 1d + alpha, -2d * cos, 1d - alpha);
+    }
+
+    /**
+     * Creates a second order band-pass filter with 0 dB gain at the center frequency.
+     *
+     * @param sampleRate sample rate in Hz
+     * @param center     center frequency in Hz
+     * @param q          quality factor, higher values result in a narrower band
+     * @return new band-pass section
+     */
+    public static Biquad bandPass(double sampleRate, double center, double q) {
+        double w0 = angularFrequency(sampleRate, center);
+        double alpha = Math.sin(w0) / (2d * q);
+        return normalized(alpha, 0d, -alpha, 1d + alpha, -2d * Math.cos(w0), 1d - alpha);
+    }
+
+    /**
+     * Creates the first stage of the K-weighting of ITU-R BS.1770, a high shelf of about +4 dB above 1.5 kHz
+     * modelling the acoustic effect of the head. Coefficients are derived for the sample rate, at 48 kHz they
+     * match the ones given by the recommendation.
+     *
+     * @param sampleRate sample rate in Hz, above 3.4 kHz
+     * @return new shelf section
+     */
+    public static Biquad kWeightingShelf(double sampleRate) {
+        double k = Math.tan(angularFrequency(sampleRate, K_SHELF_FREQUENCY) / 2d);
+        double highGain = Math.pow(10d, K_SHELF_GAIN_DB / 20d);
+        double bandGain = Math.pow(highGain, K_SHELF_BAND_EXPONENT);
+        double a0 = 1d + k / K_SHELF_Q + k * k;
+        return normalized(highGain + bandGain * k / K_SHELF_Q + k * k, 2d * (k * k - highGain),
+                highGain - bandGain * k / K_SHELF_Q + k * k, a0, 2d * (k * k - 1d), 1d - k / K_SHELF_Q + k * k);
+    }
+
+    /**
+     * Creates the second stage of the K-weighting of ITU-R BS.1770, the revised low-frequency B-curve, a
+     * high-pass at about 38 Hz. Its pass band gain is not normalized to 1, as specified by the recommendation.
+     *
+     * @param sampleRate sample rate in Hz, above 77 Hz
+     * @return new high-pass section
+     */
+    public static Biquad kWeightingHighPass(double sampleRate) {
+        double k = Math.tan(angularFrequency(sampleRate, K_HIGH_PASS_FREQUENCY) / 2d);
+        double a0 = 1d + k / K_HIGH_PASS_Q + k * k;
+        return new Biquad(1d, -2d, 1d, 2d * (k * k - 1d) / a0, (1d - k / K_HIGH_PASS_Q + k * k) / a0);
+    }
+
+    private static double angularFrequency(double sampleRate, double frequency) {
+        if (sampleRate <= 0d) {
+            throw new IllegalArgumentException("Sample rate must be positive");
+        }
+        if (frequency <= 0d || frequency >= sampleRate / 2d) {
+            throw new IllegalArgumentException("Frequency must be between 0 and the nyquist frequency, got " + frequency);
+        }
+        return 2d * Math.PI * frequency / sampleRate;
+    }
+
+    private static Biquad normalized(double b0, double b1, double b2, double a0, double a1, double a2) {
+        return new Biquad(b0 / a0, b1 / a0, b2 / a0, a1 / a0, a2 / a0);
+    }
+
+    @Override
+    public double process(double sample) {
+        double output = b0 * sample + z1;
+        double s1 = b1 * sample - a1 * output + z2;
+        double s2 = b2 * sample - a2 * output;
+        z1 = Math.abs(s1) < DENORMAL_THRESHOLD ? 0d : s1;
+        z2 = Math.abs(s2) < DENORMAL_THRESHOLD ? 0d : s2;
+        return output;
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length) {
+        double s1 = z1;
+        double s2 = z2;
+        for (int i = offset; i < offset + length; i++) {
+            double sample = samples[i];
+            double output = b0 * sample + s1;
+            s1 = b1 * sample - a1 * output + s2;
+            s2 = b2 * sample - a2 * output;
+            samples[i] = output;
+        }
+        z1 = Math.abs(s1) < DENORMAL_THRESHOLD ? 0d : s1;
+        z2 = Math.abs(s2) < DENORMAL_THRESHOLD ? 0d : s2;
+    }
+
+    @Override
+    public void reset() {
+        z1 = 0d;
+        z2 = 0d;
+    }
+
+    /**
+     * Creates a new biquad with the same coefficients but cleared state.
+     *
+     * @return independent copy of this section
+     */
+    public Biquad copy() {
+        return new Biquad(b0, b1, b2, a1, a2);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+import java.util.List;
+
+/**
+ * Set of band filters that are fed the same input signal, computing the energy (RMS) of every band
+ * in a single sweep over the samples. Every band keeps its own filter state across calls.
+ */
+public class FilterBank {
+
+    private final AudioFilter[] bands;
+    private final double[] sumsOfSquares;
+
+
+    /**
+     * @param bands filters that define the bands, in the order energies will be reported
+     */
+    public FilterBank(List<? extends AudioFilter> bands) {
+        if (bands.isEmpty()) {
+            throw new IllegalArgumentException("Filter bank needs at least one band");
+        }
+        this.bands = bands.toArray(new AudioFilter[0]);
+        this.sumsOfSquares = new double[this.bands.length];
+    }
+
+    /**
+     * Feeds the samples through all bands and stores the RMS of every band.
+     *
+     * @param samples      input samples, will not be modified
+     * @param offset       index of the first sample
+     * @param length       amount of samples to process
+     * @param bandEnergies array receiving the RMS per band, must be at least {@link #getBandCount()} long
+     */
+    public void process(double[] samples, int offset, int length, double[] bandEnergies) {
+        for (int i = 0; i < sumsOfSquares.length; i++) {
+            sumsOfSquares[i] = 0d;
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            processSample(samples[i]);
+        }
+
+        for (int band = 0; band < bands.length; band++) {
+            bandEnergies[band] = length > 0 ? Math.sqrt(sumsOfSquares[band] / length) : 0d;
+        }
+    }
+
+    /**
+     * Feeds a single sample through all bands, accumulating the squared outputs.
+     * Can be used by callers that already iterate the samples, see {@link #collectEnergies(int, double[])}.
+     *
+     * @param sample input sample
+     */
+    public void processSample(double sample) {
+        for (int band = 0; band < bands.length; band++) {
+            double output = bands[band].process(sample);
+            sumsOfSquares[band] += output * output;
+        }
+    }
+
+    /**
+     * Stores the RMS of every band accumulated via {@link #processSample(double)} since the last collection
+     * and starts a new accumulation.
+     *
+     * @param sampleCount  amount of samples fed since the last collection
+     * @param bandEnergies array receiving the RMS per band
+     */
+    public void collectEnergies(int sampleCount, double[] bandEnergies) {
+        for (int band = 0; band < bands.length; band++) {
+            bandEnergies[band] = sampleCount > 0 ? Math.sqrt(sumsOfSquares[band] / sampleCount) : 0d;
+            sumsOfSquares[band] = 0d;
+        }
+    }
+
+    /**
+     * @return amount of bands in this bank
+     */
+    public int getBandCount() {
+        return bands.length;
+    }
+
+    /**
+     * Clears the state of all band filters.
+     */
+    public void reset() {
+        for (AudioFilter band : bands) {
+            band.reset();
+        }
+        for (int i = 0; i < sumsOfSquares.length; i++) {
+            sumsOfSquares[i] = 0d;
+        }
+    }
+}
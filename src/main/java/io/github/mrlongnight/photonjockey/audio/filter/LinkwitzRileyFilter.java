@@ -0,0 +1,82 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+/**
+ * Fourth order Linkwitz-Riley filter, built from cascaded Butterworth {@link Biquad} sections.
+ * Low- and high-pass with the same crossover frequency sum up to a flat magnitude response,
+ * which makes them suitable to split a signal into bands whose energies are comparable.
+ * A band-pass is formed by a high-pass at the lower and a low-pass at the upper edge.
+ */
+public class LinkwitzRileyFilter implements AudioFilter {
+
+    private final Biquad[] sections;
+
+
+    private LinkwitzRileyFilter(Biquad... sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * @param sampleRate sample rate in Hz
+     * @param cutoff     cutoff frequency in Hz
+     * @return new fourth order low-pass filter
+     */
+    public static LinkwitzRileyFilter lowPass(double sampleRate, double cutoff) {
+        return new LinkwitzRileyFilter(
+                Biquad.lowPass(sampleRate, cutoff, Biquad.BUTTERWORTH_Q),
+                Biquad.lowPass(sampleRate, cutoff, Biquad.BUTTERWORTH_Q)
+        );
+    }
+
+    /**
+     * @param sampleRate sample rate in Hz
+     * @param cutoff     cutoff frequency in Hz
+     * @return new fourth order high-pass filter
+     */
+    public static LinkwitzRileyFilter highPass(double sampleRate, double cutoff) {
+        return new LinkwitzRileyFilter(
+                Biquad.highPass(sampleRate, cutoff, Biquad.BUTTERWORTH_Q),
+                Biquad.highPass(sampleRate, cutoff, Biquad.BUTTERWORTH_Q)
+        );
+    }
+
+    /**
+     * @param sampleRate sample rate in Hz
+     * @param lowCutoff  lower edge of the band in Hz
+     * @param highCutoff upper edge of the band in Hz
+     * @return new band-pass filter with fourth order slopes on both sides
+     */
+    public static LinkwitzRileyFilter bandPass(double sampleRate, double lowCutoff, double highCutoff) {
+        if (lowCutoff >= highCutoff) {
+            throw new IllegalArgumentException("Lower cutoff must be below upper cutoff");
+        }
+        return new LinkwitzRileyFilter(
+                Biquad.highPass(sampleRate, lowCutoff, Biquad.BUTTERWORTH_Q),
+                Biquad.highPass(sampleRate, lowCutoff, Biquad.BUTTERWORTH_Q),
+                Biquad.lowPass(sampleRate, highCutoff, Biquad.BUTTERWORTH_Q),
+                Biquad.lowPass(sampleRate, highCutoff, Biquad.BUTTERWORTH_Q)
+        );
+    }
+
+    @Override
+    public double process(double sample) {
+        double output = sample;
+        for (Biquad section : sections) {
+            output = section.process(output);
+        }
+        return output;
+    }
+
+    @Override
+    public void process(double[] samples, int offset, int length) {
+        for (Biquad section : sections) {
+            section.process(samples, offset, length);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (Biquad section : sections) {
+            section.reset();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+/**
+ * Reduces the sample rate of a stream by an integer factor, with a windowed-sinc (Blackman) FIR low-pass
+ * against aliasing. The filter is split into one sub-filter per input phase, so only the kept output samples
+ * are computed and every input sample costs {@link #getTapsPerPhase()} multiplications instead of the full
+ * filter length. State is carried across calls, so a stream can be fed in chunks of any length, including
+ * lengths that are not a multiple of the factor.
+ * <p>
+ * The -6 dB point of the low-pass is at the output Nyquist frequency. Content just below it is attenuated
+ * less and folds back close to the output Nyquist frequency, far from the low frequencies this is meant for.
+ * Not thread safe.
+ */
+public class PolyphaseDecimator {
+
+    private final int factor;
+    private final int tapsPerPhase;
+
+    /**
+     * Sub-filter coefficients, phase after phase.
+     */
+    private final double[] coefficients;
+
+    /**
+     * One delay line per phase, each stored twice in a row so the taps can be read without wrapping.
+     */
+    private final double[] delayLines;
+    private int head;
+    private int phase;
+
+
+    /**
+     * @param factor       decimation factor, 1 passes the samples through unchanged
+     * @param tapsPerPhase filter taps per phase, the full filter has factor * tapsPerPhase taps
+     */
+    public PolyphaseDecimator(int factor, int tapsPerPhase) {
+        if (factor <= 0 || tapsPerPhase <= 0) {
+            throw new IllegalArgumentException("Factor and taps per phase must be positive");
+        }
+
+        this.factor = factor;
+        this.tapsPerPhase = tapsPerPhase;
+        this.coefficients = new double[factor * tapsPerPhase];
+        this.delayLines = new double[factor * 2 * tapsPerPhase];
+
+        double[] prototype = designLowPass(factor * tapsPerPhase, 0.5d / factor);
+        for (int k = 0; k < factor; k++) {
+            for (int j = 0; j < tapsPerPhase; j++) {
+                coefficients[k * tapsPerPhase + j] = prototype[j * factor + k];
+            }
+        }
+    }
+
+    /**
+     * @param length filter length
+     * @param cutoff cutoff as a fraction of the input sample rate
+     * @return Blackman windowed sinc with unity gain at DC
+     */
+    private static double[] designLowPass(int length, double cutoff) {
+        double[] taps = new double[length];
+        double center = (length - 1) / 2d;
+        double sum = 0d;
+        for (int i = 0; i < length; i++) {
+            double t = i - center;
+            double sinc = t == 0d ? 2d * cutoff : Math.sin(2d * Math.PI * cutoff * t) / (Math.PI * t);
+            double window = length > 1
+                    ? 0.42d - 0.5d * Math.cos(2d * Math.PI * i / (length - 1))
+                    + 0.08d * Math.cos(4d * Math.PI * i / (length - 1))
+                    : 1d;
+            taps[i] = sinc * window;
+            sum += taps[i];
+        }
+        for (int i = 0; i < length; i++) {
+            taps[i] /= sum;
+        }
+        return taps;
+    }
+
+    /**
+     * Filters and decimates the given samples. Every factor-th input sample completes an output sample,
+     * counted across calls.
+     *
+     * @param input        input samples
+     * @param offset       index of the first input sample
+     * @param length       amount of input samples
+     * @param output       array receiving the decimated samples, must have room for
+     *                     {@link #getMaxOutputLength(int)} samples
+     * @param outputOffset index of the first output sample
+     * @return amount of output samples written
+     */
+    public int process(double[] input, int offset, int length, double[] output, int outputOffset) {
+        if (factor == 1) {
+            System.arraycopy(input, offset, output, outputOffset, length);
+            return length;
+        }
+
+        int written = 0;
+        int lineLength = 2 * tapsPerPhase;
+        for (int i = offset; i < offset + length; i++) {
+            // the newest sample of a block is seen by the first sub-filter
+            int line = (factor - 1 - phase) * lineLength;
+            delayLines[line + head] = input[i];
+            delayLines[line + head + tapsPerPhase] = input[i];
+
+            if (++phase == factor) {
+                phase = 0;
+                output[outputOffset + written++] = convolve();
+                head = head == 0 ? tapsPerPhase - 1 : head - 1;
+            }
+        }
+        return written;
+    }
+
+    private double convolve() {
+        double sum = 0d;
+        int lineLength = 2 * tapsPerPhase;
+        for (int k = 0; k < factor; k++) {
+            int coefficient = k * tapsPerPhase;
+            int tap = k * lineLength + head;
+            for (int j = 0; j < tapsPerPhase; j++) {
+                sum += coefficients[coefficient + j] * delayLines[tap + j];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @param inputLength amount of input samples of the next call
+     * @return the maximum amount of output samples the call can produce
+     */
+    public int getMaxOutputLength(int inputLength) {
+        return (phase + inputLength) / factor;
+    }
+
+    /**
+     * @return decimation factor
+     */
+    public int getFactor() {
+        return factor;
+    }
+
+    /**
+     * @return filter taps per phase, the multiplications per input sample
+     */
+    public int getTapsPerPhase() {
+        return tapsPerPhase;
+    }
+
+    /**
+     * Clears the filter state, as if no sample was processed yet.
+     */
+    public void reset() {
+        for (int i = 0; i < delayLines.length; i++) {
+            delayLines[i] = 0d;
+        }
+        head = 0;
+        phase = 0;
+    }
+}
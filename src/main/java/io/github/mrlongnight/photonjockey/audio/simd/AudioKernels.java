@@ -0,0 +1,173 @@
+package io.github.mrlongnight.photonjockey.audio.simd;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteOrder;
+
+/**
+ * Element-wise kernels used by the hot loops of the audio analysis, such as windowing, magnitude computation,
+ * energy and PCM decoding. If the JVM was started with {@code --add-modules jdk.incubator.vector}, the kernels
+ * are vectorized via the Vector API, otherwise a plain scalar implementation is used. Vectorization can be
+ * disabled with the system property {@value #SIMD_PROPERTY}{@code =false}.
+ * <p>
+ * Results of the vectorized reductions may differ from the scalar ones in the last bits, as the summation
+ * order differs. All methods are thread safe and don't allocate.
+ */
+public final class AudioKernels {
+
+    /**
+     * Indices of the results of {@link #sampleStatistics(double[], int, int, double[])}.
+     */
+    public static final int SUM_OF_SQUARES = 0;
+    public static final int MAX_ABS = 1;
+    public static final int SIGN_CHANGES = 2;
+    public static final int STATISTICS_LENGTH = 3;
+
+    static final String SIMD_PROPERTY = "photonjockey.audio.simd";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final Logger logger = LoggerFactory.getLogger(AudioKernels.class);
+
+    private static final Kernels KERNELS = selectKernels();
+
+
+    private AudioKernels() {
+    }
+
+    private static Kernels selectKernels() {
+        if (!Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"))) {
+            logger.info("Vectorized audio kernels disabled via {}", SIMD_PROPERTY);
+            return new ScalarKernels();
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            logger.info("Module {} is not enabled, using scalar audio kernels", VECTOR_MODULE);
+            return new ScalarKernels();
+        }
+        if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            logger.info("Vectorized audio kernels require a little-endian platform, using scalar audio kernels");
+            return new ScalarKernels();
+        }
+
+        try {
+            // loaded reflectively, so the Vector API classes are never touched if the module is missing
+            Class<?> vectorKernels = Class.forName(AudioKernels.class.getPackageName() + ".VectorKernels");
+            Kernels kernels = (Kernels) vectorKernels.getDeclaredConstructor().newInstance();
+            logger.info("Using vectorized audio kernels");
+            return kernels;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Couldn't initialize vectorized audio kernels, using scalar audio kernels", e);
+            return new ScalarKernels();
+        }
+    }
+
+    /**
+     * @return true if the Vector API implementation is in use
+     */
+    public static boolean isVectorized() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+
+    /**
+     * @param samples input samples
+     * @param offset  index of the first sample
+     * @param length  amount of samples
+     * @return sum of the squared samples
+     */
+    public static double sumOfSquares(double[] samples, int offset, int length) {
+        return KERNELS.sumOfSquares(samples, offset, length);
+    }
+
+    /**
+     * @param samples input samples
+     * @param offset  index of the first sample
+     * @param length  amount of samples
+     * @return highest absolute sample value, 0 if length is 0
+     */
+    public static double maxAbs(double[] samples, int offset, int length) {
+        return KERNELS.maxAbs(samples, offset, length);
+    }
+
+    /**
+     * Computes {@link #sumOfSquares(double[], int, int)}, {@link #maxAbs(double[], int, int)} and the amount of
+     * sign changes between neighbouring samples in a single pass over the samples.
+     *
+     * @param samples    input samples
+     * @param offset     index of the first sample
+     * @param length     amount of samples
+     * @param statistics array receiving the results at {@link #SUM_OF_SQUARES}, {@link #MAX_ABS} and
+     *                   {@link #SIGN_CHANGES}, at least {@link #STATISTICS_LENGTH} long. All 0 if length is 0
+     */
+    public static void sampleStatistics(double[] samples, int offset, int length, double[] statistics) {
+        KERNELS.sampleStatistics(samples, offset, length, statistics);
+    }
+
+    /**
+     * Multiplies two arrays element by element, e.g. to apply a window. Target may be the same array as source
+     * if the offsets are equal.
+     *
+     * @param source       first factors
+     * @param sourceOffset index of the first element in source
+     * @param factors      second factors
+     * @param factorOffset index of the first element in factors
+     * @param target       array receiving the products
+     * @param targetOffset index of the first element in target
+     * @param length       amount of elements
+     */
+    public static void multiply(double[] source, int sourceOffset, double[] factors, int factorOffset,
+                                double[] target, int targetOffset, int length) {
+        KERNELS.multiply(source, sourceOffset, factors, factorOffset, target, targetOffset, length);
+    }
+
+    /**
+     * Computes the magnitudes of complex values stored interleaved as [real, imaginary] pairs,
+     * as found in the output of a real FFT (except for the first pair).
+     *
+     * @param interleaved complex values, bin n is stored at index 2n and 2n + 1
+     * @param firstBin    first bin to compute
+     * @param magnitudes  array receiving the magnitude of bin n at index n
+     * @param binCount    amount of bins to compute
+     */
+    public static void magnitudes(double[] interleaved, int firstBin, double[] magnitudes, int binCount) {
+        KERNELS.magnitudes(interleaved, firstBin, magnitudes, binCount);
+    }
+
+    /**
+     * Single precision variant of {@link #multiply(double[], int, double[], int, double[], int, int)}.
+     */
+    public static void multiply(float[] source, int sourceOffset, float[] factors, int factorOffset,
+                                float[] target, int targetOffset, int length) {
+        KERNELS.multiply(source, sourceOffset, factors, factorOffset, target, targetOffset, length);
+    }
+
+    /**
+     * Single precision variant of {@link #magnitudes(double[], int, double[], int)}.
+     */
+    public static void magnitudes(float[] interleaved, int firstBin, float[] magnitudes, int binCount) {
+        KERNELS.magnitudes(interleaved, firstBin, magnitudes, binCount);
+    }
+
+    /**
+     * Decodes signed 16-bit PCM samples into doubles normalized by {@link Short#MAX_VALUE}.
+     *
+     * @param source       PCM data
+     * @param sourceOffset byte offset of the first sample
+     * @param target       array receiving the decoded samples
+     * @param targetOffset index of the first decoded sample in target
+     * @param length       amount of samples to decode
+     * @param littleEndian byte order of the PCM data
+     */
+    public static void decodePcm16(byte[] source, int sourceOffset, double[] target, int targetOffset,
+                                   int length, boolean littleEndian) {
+        if (littleEndian) {
+            KERNELS.decodePcm16LittleEndian(source, sourceOffset, target, targetOffset, length);
+            return;
+        }
+
+        for (int i = 0; i < length; i++) {
+            int position = sourceOffset + 2 * i;
+            short value = (short) ((source[position] << 8) | (source[position + 1] & 0xFF));
+            target[targetOffset + i] = value / (double) Short.MAX_VALUE;
+        }
+    }
+}
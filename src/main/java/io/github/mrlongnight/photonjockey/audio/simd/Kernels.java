@@ -0,0 +1,25 @@
+package io.github.mrlongnight.photonjockey.audio.simd;
+
+/**
+ * Element-wise kernels of the audio hot paths, see {@link AudioKernels} for the documentation of every method.
+ */
+interface Kernels {
+
+    double sumOfSquares(double[] samples, int offset, int length);
+
+    double maxAbs(double[] samples, int offset, int length);
+
+    void sampleStatistics(double[] samples, int offset, int length, double[] statistics);
+
+    void multiply(double[] source, int sourceOffset, double[] factors, int factorOffset,
+                  double[] target, int targetOffset, int length);
+
+    void magnitudes(double[] interleaved, int firstBin, double[] magnitudes, int binCount);
+
+    void multiply(float[] source, int sourceOffset, float[] factors, int factorOffset,
+                  float[] target, int targetOffset, int length);
+
+    void magnitudes(float[] interleaved, int firstBin, float[] magnitudes, int binCount);
+
+    void decodePcm16LittleEndian(byte[] source, int sourceOffset, double[] target, int targetOffset, int length);
+}
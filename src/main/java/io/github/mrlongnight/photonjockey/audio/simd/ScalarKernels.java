@@ -0,0 +1,119 @@
+package io.github.mrlongnight.photonjockey.audio.simd;
+
+/**
+ * Plain Java implementation of the kernels, used when the Vector API is not available.
+ */
+class ScalarKernels implements Kernels {
+
+    @Override
+    public double sumOfSquares(double[] samples, int offset, int length) {
+        double sum = 0.0;
+        for (int i = offset; i < offset + length; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double maxAbs(double[] samples, int offset, int length) {
+        double max = 0.0;
+        for (int i = offset; i < offset + length; i++) {
+            double abs = Math.abs(samples[i]);
+            if (abs > max) {
+                max = abs;
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public void sampleStatistics(double[] samples, int offset, int length, double[] statistics) {
+        if (length <= 0) {
+            statistics[AudioKernels.SUM_OF_SQUARES] = 0.0;
+            statistics[AudioKernels.MAX_ABS] = 0.0;
+            statistics[AudioKernels.SIGN_CHANGES] = 0.0;
+            return;
+        }
+        startStatistics(samples[offset], statistics);
+        addStatistics(samples, offset + 1, offset + length, statistics);
+    }
+
+    /**
+     * Sets the statistics to the ones of the first sample alone.
+     */
+    static void startStatistics(double first, double[] statistics) {
+        statistics[AudioKernels.SUM_OF_SQUARES] = first * first;
+        statistics[AudioKernels.MAX_ABS] = Math.abs(first);
+        statistics[AudioKernels.SIGN_CHANGES] = 0.0;
+    }
+
+    /**
+     * Adds the samples from start to end to the statistics, each sign change is counted against the sample
+     * before it, so start must not be the first sample of the range.
+     */
+    static void addStatistics(double[] samples, int start, int end, double[] statistics) {
+        double sum = 0.0;
+        double max = statistics[AudioKernels.MAX_ABS];
+        int signChanges = 0;
+        boolean previousNegative = samples[start - 1] < 0.0;
+        for (int i = start; i < end; i++) {
+            double sample = samples[i];
+            sum += sample * sample;
+            double abs = Math.abs(sample);
+            if (abs > max) {
+                max = abs;
+            }
+            boolean negative = sample < 0.0;
+            if (negative != previousNegative) {
+                signChanges++;
+            }
+            previousNegative = negative;
+        }
+        statistics[AudioKernels.SUM_OF_SQUARES] += sum;
+        statistics[AudioKernels.MAX_ABS] = max;
+        statistics[AudioKernels.SIGN_CHANGES] += signChanges;
+    }
+
+    @Override
+    public void multiply(double[] source, int sourceOffset, double[] factors, int factorOffset,
+                         double[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = source[sourceOffset + i] * factors[factorOffset + i];
+        }
+    }
+
+    @Override
+    public void magnitudes(double[] interleaved, int firstBin, double[] magnitudes, int binCount) {
+        for (int bin = firstBin; bin < firstBin + binCount; bin++) {
+            double real = interleaved[2 * bin];
+            double imag = interleaved[2 * bin + 1];
+            magnitudes[bin] = Math.sqrt(real * real + imag * imag);
+        }
+    }
+
+    @Override
+    public void multiply(float[] source, int sourceOffset, float[] factors, int factorOffset,
+                         float[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = source[sourceOffset + i] * factors[factorOffset + i];
+        }
+    }
+
+    @Override
+    public void magnitudes(float[] interleaved, int firstBin, float[] magnitudes, int binCount) {
+        for (int bin = firstBin; bin < firstBin + binCount; bin++) {
+            float real = interleaved[2 * bin];
+            float imag = interleaved[2 * bin + 1];
+            magnitudes[bin] = (float) Math.sqrt(real * real + imag * imag);
+        }
+    }
+
+    @Override
+    public void decodePcm16LittleEndian(byte[] source, int sourceOffset, double[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            int position = sourceOffset + 2 * i;
+            short value = (short) ((source[position + 1] << 8) | (source[position] & 0xFF));
+            target[targetOffset + i] = value / (double) Short.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.mrlongnight.photonjockey.audio.simd;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels built on the incubating Vector API, processing as many lanes as the preferred vector shape of the
+ * CPU holds. Remaining elements are handled by the scalar implementation. Only ever loaded by
+ * {@link AudioKernels} if the {@code jdk.incubator.vector} module is present.
+ */
+class VectorKernels implements Kernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * Byte species holding exactly as many 16-bit samples as {@link #DOUBLES} holds doubles, so a PCM block
+     * converts lane by lane into one double vector. Null if there is no vector shape that small, i.e. if
+     * fewer than four doubles fit into a vector, decoding is done by the scalar implementation then.
+     */
+    private static final VectorSpecies<Byte> BYTES = DOUBLES.length() >= 4
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(DOUBLES.length() * Short.SIZE))
+            : null;
+
+    /**
+     * Gather the even (real) and odd (imaginary) lanes of two consecutive vectors of interleaved complex values.
+     * Each shuffle moves the wanted lanes of one vector into its half of the result, the halves are blended
+     * together afterwards. Single-vector shuffles are used since they compile to native permutes.
+     */
+    private static final VectorShuffle<Double> EVEN_LANES =
+            VectorShuffle.fromOp(DOUBLES, i -> (2 * i) % DOUBLES.length());
+    private static final VectorShuffle<Double> ODD_LANES =
+            VectorShuffle.fromOp(DOUBLES, i -> (2 * i + 1) % DOUBLES.length());
+    private static final VectorMask<Double> HIGH_HALF = VectorMask.fromLong(DOUBLES,
+            ((1L << DOUBLES.length()) - 1) & -(1L << (DOUBLES.length() / 2)));
+    private static final VectorShuffle<Float> EVEN_FLOAT_LANES =
+            VectorShuffle.fromOp(FLOATS, i -> (2 * i) % FLOATS.length());
+    private static final VectorShuffle<Float> ODD_FLOAT_LANES =
+            VectorShuffle.fromOp(FLOATS, i -> (2 * i + 1) % FLOATS.length());
+    private static final VectorMask<Float> HIGH_FLOAT_HALF = VectorMask.fromLong(FLOATS,
+            ((1L << FLOATS.length()) - 1) & -(1L << (FLOATS.length() / 2)));
+
+    private final ScalarKernels tail = new ScalarKernels();
+
+
+    @Override
+    public double sumOfSquares(double[] samples, int offset, int length) {
+        int vectorEnd = offset + DOUBLES.loopBound(length);
+        DoubleVector sums = DoubleVector.zero(DOUBLES);
+        int i = offset;
+        for (; i < vectorEnd; i += DOUBLES.length()) {
+            DoubleVector vector = DoubleVector.fromArray(DOUBLES, samples, i);
+            sums = vector.fma(vector, sums);
+        }
+        return sums.reduceLanes(VectorOperators.ADD) + tail.sumOfSquares(samples, i, offset + length - i);
+    }
+
+    @Override
+    public double maxAbs(double[] samples, int offset, int length) {
+        int vectorEnd = offset + DOUBLES.loopBound(length);
+        DoubleVector max = DoubleVector.zero(DOUBLES);
+        int i = offset;
+        for (; i < vectorEnd; i += DOUBLES.length()) {
+            max = max.max(DoubleVector.fromArray(DOUBLES, samples, i).abs());
+        }
+        return Math.max(max.reduceLanes(VectorOperators.MAX), tail.maxAbs(samples, i, offset + length - i));
+    }
+
+    @Override
+    public void sampleStatistics(double[] samples, int offset, int length, double[] statistics) {
+        if (length <= 0) {
+            tail.sampleStatistics(samples, offset, length, statistics);
+            return;
+        }
+
+        // the first sample has no neighbour before it, every later one is compared with the one loaded a lane off
+        ScalarKernels.startStatistics(samples[offset], statistics);
+        int lanes = DOUBLES.length();
+        int end = offset + length;
+        DoubleVector sums = DoubleVector.zero(DOUBLES);
+        DoubleVector max = DoubleVector.zero(DOUBLES);
+        int signChanges = 0;
+        int i = offset + 1;
+        for (; i + lanes <= end; i += lanes) {
+            DoubleVector vector = DoubleVector.fromArray(DOUBLES, samples, i);
+            DoubleVector previous = DoubleVector.fromArray(DOUBLES, samples, i - 1);
+            sums = vector.fma(vector, sums);
+            max = max.max(vector.abs());
+            signChanges += lanes - vector.lt(0.0).eq(previous.lt(0.0)).trueCount();
+        }
+        statistics[AudioKernels.SUM_OF_SQUARES] += sums.reduceLanes(VectorOperators.ADD);
+        statistics[AudioKernels.MAX_ABS] = Math.max(statistics[AudioKernels.MAX_ABS],
+                max.reduceLanes(VectorOperators.MAX));
+        statistics[AudioKernels.SIGN_CHANGES] += signChanges;
+        ScalarKernels.addStatistics(samples, i, end, statistics);
+    }
+
+    @Override
+    public void multiply(double[] source, int sourceOffset, double[] factors, int factorOffset,
+                         double[] target, int targetOffset, int length) {
+        int vectorEnd = DOUBLES.loopBound(length);
+        int i = 0;
+        for (; i < vectorEnd; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, source, sourceOffset + i)
+                    .mul(DoubleVector.fromArray(DOUBLES, factors, factorOffset + i))
+                    .intoArray(target, targetOffset + i);
+        }
+        tail.multiply(source, sourceOffset + i, factors, factorOffset + i, target, targetOffset + i, length - i);
+    }
+
+    @Override
+    public void magnitudes(double[] interleaved, int firstBin, double[] magnitudes, int binCount) {
+        int lanes = DOUBLES.length();
+        int bin = firstBin;
+        int end = firstBin + binCount;
+        // both loaded vectors must lie within the array
+        while (bin + lanes <= end && 2 * (bin + lanes) <= interleaved.length) {
+            DoubleVector first = DoubleVector.fromArray(DOUBLES, interleaved, 2 * bin);
+            DoubleVector second = DoubleVector.fromArray(DOUBLES, interleaved, 2 * bin + lanes);
+            DoubleVector real = first.rearrange(EVEN_LANES).blend(second.rearrange(EVEN_LANES), HIGH_HALF);
+            DoubleVector imag = first.rearrange(ODD_LANES).blend(second.rearrange(ODD_LANES), HIGH_HALF);
+            real.fma(real, imag.mul(imag)).sqrt().intoArray(magnitudes, bin);
+            bin += lanes;
+        }
+        tail.magnitudes(interleaved, bin, magnitudes, end - bin);
+    }
+
+    @Override
+    public void multiply(float[] source, int sourceOffset, float[] factors, int factorOffset,
+                         float[] target, int targetOffset, int length) {
+        int vectorEnd = FLOATS.loopBound(length);
+        int i = 0;
+        for (; i < vectorEnd; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, source, sourceOffset + i)
+                    .mul(FloatVector.fromArray(FLOATS, factors, factorOffset + i))
+                    .intoArray(target, targetOffset + i);
+        }
+        tail.multiply(source, sourceOffset + i, factors, factorOffset + i, target, targetOffset + i, length - i);
+    }
+
+    @Override
+    public void magnitudes(float[] interleaved, int firstBin, float[] magnitudes, int binCount) {
+        int lanes = FLOATS.length();
+        int bin = firstBin;
+        int end = firstBin + binCount;
+        while (bin + lanes <= end && 2 * (bin + lanes) <= interleaved.length) {
+            FloatVector first = FloatVector.fromArray(FLOATS, interleaved, 2 * bin);
+            FloatVector second = FloatVector.fromArray(FLOATS, interleaved, 2 * bin + lanes);
+            FloatVector real = first.rearrange(EVEN_FLOAT_LANES).blend(second.rearrange(EVEN_FLOAT_LANES),
+                    HIGH_FLOAT_HALF);
+            FloatVector imag = first.rearrange(ODD_FLOAT_LANES).blend(second.rearrange(ODD_FLOAT_LANES),
+                    HIGH_FLOAT_HALF);
+            real.fma(real, imag.mul(imag)).sqrt().intoArray(magnitudes, bin);
+            bin += lanes;
+        }
+        tail.magnitudes(interleaved, bin, magnitudes, end - bin);
+    }
+
+    @Override
+    public void decodePcm16LittleEndian(byte[] source, int sourceOffset, double[] target, int targetOffset, int length) {
+        if (BYTES == null) {
+            tail.decodePcm16LittleEndian(source, sourceOffset, target, targetOffset, length);
+            return;
+        }
+
+        int lanes = DOUBLES.length();
+        int vectorEnd = DOUBLES.loopBound(length);
+        DoubleVector scale = DoubleVector.broadcast(DOUBLES, 1.0 / Short.MAX_VALUE);
+        int i = 0;
+        for (; i < vectorEnd; i += lanes) {
+            // reinterpreting uses the native byte order, which AudioKernels ensured to be little-endian
+            ShortVector shorts = ByteVector.fromArray(BYTES, source, sourceOffset + 2 * i).reinterpretAsShorts();
+            ((DoubleVector) shorts.convertShape(VectorOperators.S2D, DOUBLES, 0))
+                    .mul(scale)
+                    .intoArray(target, targetOffset + i);
+        }
+        tail.decodePcm16LittleEndian(source, sourceOffset + 2 * i, target, targetOffset + i, length - i);
+    }
+}
@@ -5,10 +5,15 @@ package io.github.mrlongnight.photonjockey.config;
  */
 public enum ConfigNode {
 
+    AUDIO_ANALYSIS_RATE("audio.analysis.rate"),
+    AUDIO_CAPTURE_BLOCKING("audio.capture.blocking"),
+    AUDIO_CAPTURE_BUFFER_MILLIS("audio.capture.buffermillis"),
+    AUDIO_PROFILE("audio.profile"),
     AUTOSTART("autostart"),
     BEAT_MIN_TIME_BETWEEN("beat.mintimebetween"),
     BEAT_SENSITIVITY("beat.sensitivity"),
     BEAT_BASS_ONLY_MODE("beat.bassonlymode"),
+    BEAT_PERCUSSIVE_MODE("beat.percussivemode"),
     BRIDGE_USERNAME_LEGACY("bridge.username"),
     BRIDGE_IPADDRESS_LEGACY("bridge.ipaddress"),
     BRIDGE_LIST("bridge.list"),
@@ -24,6 +29,7 @@ public enum ConfigNode {
     EFFECT_ALERT("effect.alert"),
     EFFECT_COLOR_STROBE("effect.colorstrobe"),
     EFFECT_STROBE("effect.strobe"),
+    EFFECT_STROBE_BAND("effect.strobe.band"),
     LAST_AUDIO_SOURCE("frame.lastaudiosource"),
     LIGHT_AMOUNT_PROBABILITY("lights.amountprobability"),
     LIGHTS_DISABLED("lights.disabled"),
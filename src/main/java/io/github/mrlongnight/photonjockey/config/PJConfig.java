@@ -52,6 +52,8 @@ public class PJConfig implements Config {
             logger.error("Error during settings migration.", e);
         }
 
+        defaultInts.put(ConfigNode.AUDIO_ANALYSIS_RATE.getKey(), 50);
+        defaultInts.put(ConfigNode.AUDIO_CAPTURE_BUFFER_MILLIS.getKey(), 40);
         defaultInts.put(ConfigNode.BEAT_SENSITIVITY.getKey(), 5);
         defaultInts.put(ConfigNode.BEAT_MIN_TIME_BETWEEN.getKey(), 200);
         defaultInts.put(ConfigNode.BRIGHTNESS_FADE_DIFFERENCE.getKey(), 5);
@@ -61,6 +63,7 @@ public class PJConfig implements Config {
         defaultInts.put(ConfigNode.COLOR_RANDOMIZATION_RANGE.getKey(), 5);
         defaultInts.put(ConfigNode.LIGHT_AMOUNT_PROBABILITY.getKey(), 3);
 
+        defaultBools.put(ConfigNode.AUDIO_CAPTURE_BLOCKING.getKey(), true);
         defaultBools.put(ConfigNode.EFFECT_ALERT.getKey(), true);
         defaultBools.put(ConfigNode.EFFECT_COLOR_STROBE.getKey(), true);
         defaultBools.put(ConfigNode.EFFECT_STROBE.getKey(), true);
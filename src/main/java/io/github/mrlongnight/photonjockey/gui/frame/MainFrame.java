@@ -418,6 +418,7 @@ public class MainFrame extends AbstractFrame implements BeatObserver {
             }
 
             showErrorMessage("Selected audio source is no longer available");
+            audioReader.rescanDevices();
             refreshDeviceSelector();
         });
     }
@@ -480,15 +481,16 @@ public class MainFrame extends AbstractFrame implements BeatObserver {
             Runnable deviceChecker = new Runnable() {
                 @Override
                 public void run() {
-                    runOnSwingThread(() -> {
-                        boolean devicesFound = !audioReader.getSupportedDevices().isEmpty();
-                        if (devicesFound) {
+                    // probing devices can take seconds, only the combo box update runs on the EDT
+                    boolean devicesFound = !audioReader.rescanDevices().isEmpty();
+                    if (devicesFound) {
+                        runOnSwingThread(() -> {
                             refreshDeviceSelector();
                             startButton.setEnabled(true);
-                        } else {
-                            taskOrchestrator.schedule(this, 5, TimeUnit.SECONDS);
-                        }
-                    });
+                        });
+                    } else if (!taskOrchestrator.isShutdown()) {
+                        taskOrchestrator.schedule(this, 5, TimeUnit.SECONDS);
+                    }
                 }
             };
             taskOrchestrator.schedule(deviceChecker, 5, TimeUnit.SECONDS);
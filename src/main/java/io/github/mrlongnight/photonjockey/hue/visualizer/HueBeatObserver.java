@@ -3,6 +3,7 @@ package io.github.mrlongnight.photonjockey.hue.visualizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.github.mrlongnight.photonjockey.AppTaskOrchestrator;
+import io.github.mrlongnight.photonjockey.audio.BeatBand;
 import io.github.mrlongnight.photonjockey.audio.BeatEvent;
 import io.github.mrlongnight.photonjockey.audio.BeatObserver;
 import io.github.mrlongnight.photonjockey.config.Config;
@@ -18,16 +19,26 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Receives {@link BeatEvent}'s dispatched by the audio module.
  * Determines brightness changes and passes the data through its
  * effect pipe, which will then update selected lights accordingly.
+ * <p>
+ * Events arrive on the threads of the task orchestrator, possibly several at once. The effects, calibrators and
+ * color set are not thread safe, so every callback runs the effect pipe under one lock.
  */
 public class HueBeatObserver implements BeatObserver {
 
     private static final Logger logger = LoggerFactory.getLogger(HueBeatObserver.class);
     private static final int AMPLITUDE_HISTORY_SIZE = 75;
+    /**
+     * Loudness difference in LU that counts as the full amplitude difference of 1.
+     */
+    private static final double LOUDNESS_DIFFERENCE_RANGE = 10d;
+
+    private final Object effectPipeLock = new Object();
 
     private final Config config;
     private ColorSet colorSet;
@@ -40,8 +51,13 @@ public class HueBeatObserver implements BeatObserver {
     private final TransitionTimeCalibrator transitionTimeCalibrator;
 
     private final DoubleAverageBuffer amplitudeHistory = new DoubleAverageBuffer(AMPLITUDE_HISTORY_SIZE, false);
+    /**
+     * Whether the last brightness was calibrated on the loudness difference instead of the amplitude difference.
+     */
+    private boolean calibratedOnLoudness;
 
     private long lastBeatTimeStamp = System.currentTimeMillis();
+    private BrightnessData lastBrightnessData;
 
 
     public HueBeatObserver(Config config, AppTaskOrchestrator taskOrchestrator, List<Light> lights) {
@@ -70,44 +86,96 @@ public class HueBeatObserver implements BeatObserver {
         effectPipe.add(new ColorChainEffect(0.5d, 0.1d));
 
         if (config.getBoolean(ConfigNode.EFFECT_STROBE)) {
-            effectPipe.add(new StrobeEffect(0.95d, 0.4d, 0.02d));
+            StrobeEffect strobeEffect = new StrobeEffect(0.95d, 0.4d, 0.02d);
+            strobeEffect.setBeatBand(BeatBand.fromName(config.get(ConfigNode.EFFECT_STROBE_BAND)));
+            effectPipe.add(strobeEffect);
             effectPipe.add(new StrobeChainEffect(0.8d, 0.1d));
         }
     }
 
     @Override
     public void beatReceived(BeatEvent event) {
+        synchronized (effectPipeLock) {
+            amplitudeHistory.add(event.triggeringAmplitude());
+
+            BrightnessData data = brightnessCalibrator.getBrightness(getAmplitudeDifference(event));
+
+            lastBrightnessData = data;
+            passDataToEffectPipe(data, true, BeatBand.FULL);
+            lastBeatTimeStamp = System.currentTimeMillis();
+        }
+        logger.debug("Beat passed through effect pipe {} ms after capture",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - event.captureNanos()));
+    }
 
-        amplitudeHistory.add(event.triggeringAmplitude());
+    /**
+     * Prefers the loudness of the beat relative to the integrated loudness of the track, which is independent of
+     * how loud the track was mastered. Falls back to the raw amplitude difference to the recent beats. The two
+     * differences have different scales, so the brightness history is cleared whenever the measure changes.
+     *
+     * @return difference of the beat to the average between -1 and 1
+     */
+    private double getAmplitudeDifference(BeatEvent event) {
+        boolean onLoudness = event.hasLoudness();
+        if (onLoudness != calibratedOnLoudness) {
+            calibratedOnLoudness = onLoudness;
+            brightnessCalibrator.clearHistory();
+        }
+        if (onLoudness) {
+            double loudnessDifference = (event.loudness() - event.integratedLoudness()) / LOUDNESS_DIFFERENCE_RANGE;
+            return Math.max(-1d, Math.min(1d, loudnessDifference));
+        }
+        return event.triggeringAmplitude() - amplitudeHistory.getCurrentAverage();
+    }
 
-        double amplitudeDifference = event.triggeringAmplitude() - amplitudeHistory.getCurrentAverage();
-        BrightnessData data = brightnessCalibrator.getBrightness(amplitudeDifference);
+    /**
+     * Band beats only run the effects subscribed to the band. They don't influence the brightness calibration,
+     * the brightness determined by the last broadband beat is used instead.
+     */
+    @Override
+    public void bandBeatReceived(BeatEvent event) {
+        synchronized (effectPipeLock) {
+            if (lastBrightnessData == null) {
+                return;
+            }
 
-        passDataToEffectPipe(data, true);
-        lastBeatTimeStamp = System.currentTimeMillis();
+            for (LightEffect effect : effectPipe) {
+                if (effect.getBeatBand() == event.band()) {
+                    passDataToEffectPipe(lastBrightnessData, true, event.band());
+                    return;
+                }
+            }
+        }
     }
 
     @Override
     public void noBeatReceived() {
-        passDataToEffectPipe(brightnessCalibrator.getLowestBrightnessData(), false);
+        synchronized (effectPipeLock) {
+            passDataToEffectPipe(brightnessCalibrator.getLowestBrightnessData(), false, BeatBand.FULL);
+        }
     }
 
     @Override
     public void silenceDetected() {
-        noBeatReceived();
-        amplitudeHistory.clear();
-        brightnessCalibrator.clearHistory();
-        transitionTimeCalibrator.clearHistory();
+        synchronized (effectPipeLock) {
+            noBeatReceived();
+            lastBrightnessData = null;
+            amplitudeHistory.clear();
+            brightnessCalibrator.clearHistory();
+            transitionTimeCalibrator.clearHistory();
+        }
     }
 
     @Override
     public void audioReaderStopped(StopStatus status) {
-        // gracefully disable effects that may still be running scheduler threads
-        noBeatReceived();
-        lights.forEach(Light::restoreState);
+        synchronized (effectPipeLock) {
+            // gracefully disable effects that may still be running scheduler threads
+            noBeatReceived();
+            lights.forEach(Light::restoreState);
+        }
     }
 
-    private void passDataToEffectPipe(BrightnessData data, boolean receivedBeat) {
+    private void passDataToEffectPipe(BrightnessData data, boolean receivedBeat, BeatBand band) {
 
         List<Light> shuffledLights = new ArrayList<>(lights);
         Collections.shuffle(shuffledLights);
@@ -123,7 +191,9 @@ public class HueBeatObserver implements BeatObserver {
         try {
             effectPipe.forEach(effect -> {
                 if (receivedBeat) {
-                    effect.beatReceived(lightUpdate);
+                    if (effect.getBeatBand() == band) {
+                        effect.beatReceived(lightUpdate);
+                    }
                 } else {
                     effect.noBeatReceived(lightUpdate);
                 }
@@ -1,5 +1,6 @@
 package io.github.mrlongnight.photonjockey.hue.visualizer.effect;
 
+import io.github.mrlongnight.photonjockey.audio.BeatBand;
 import io.github.mrlongnight.photonjockey.hue.bridge.light.Light;
 import io.github.mrlongnight.photonjockey.hue.visualizer.LightUpdate;
 
@@ -14,6 +15,8 @@ abstract class AbstractEffect implements LightEffect {
 
     final Random rnd = new Random();
 
+    private BeatBand beatBand = BeatBand.FULL;
+
 
     @Override
     public void beatReceived(LightUpdate lightUpdate) {
@@ -22,6 +25,18 @@ abstract class AbstractEffect implements LightEffect {
 
     abstract void execute(LightUpdate lightUpdate);
 
+    @Override
+    public BeatBand getBeatBand() {
+        return beatBand;
+    }
+
+    /**
+     * @param beatBand band whose beats this effect should be executed on
+     */
+    public void setBeatBand(BeatBand beatBand) {
+        this.beatBand = beatBand;
+    }
+
     void unsetControllingEffect(LightUpdate lightUpdate) {
         for (Light light : lightUpdate.getLights()) {
             light.getColorController().unsetControllingEffect(this);
@@ -1,5 +1,6 @@
 package io.github.mrlongnight.photonjockey.hue.visualizer.effect;
 
+import io.github.mrlongnight.photonjockey.audio.BeatBand;
 import io.github.mrlongnight.photonjockey.hue.visualizer.LightUpdate;
 
 /**
@@ -20,4 +21,14 @@ public interface LightEffect {
      * @param lightUpdate current state of the beat that will be modified
      */
     void noBeatReceived(LightUpdate lightUpdate);
+
+    /**
+     * Effects subscribed to a band other than {@link BeatBand#FULL} only receive {@link #beatReceived(LightUpdate)}
+     * for beats detected in that band, but still receive {@link #noBeatReceived(LightUpdate)} as usual.
+     *
+     * @return band this effect is subscribed to
+     */
+    default BeatBand getBeatBand() {
+        return BeatBand.FULL;
+    }
 }
@@ -36,6 +36,10 @@ import java.util.List;
 public class AudioAnalyzerDashboard extends Application implements BeatObserver, HueStateObserver {
 
     private static final Logger logger = LoggerFactory.getLogger(AudioAnalyzerDashboard.class);
+    /**
+     * Samples between two drawn spectra, about 43 spectra per second at 44.1 kHz.
+     */
+    private static final int SPECTRUM_HOP_SIZE = 1024;
 
     private AudioAnalyzerDashboardController controller;
     private AppTaskOrchestrator taskOrchestrator;
@@ -44,6 +48,9 @@ public class AudioAnalyzerDashboard extends Application implements BeatObserver,
     private HueManager hueManager;
     private boolean running = true;
     private FFTProcessor fftProcessor;
+    private double[] spectrum;
+    private double sampleRate;
+    private FFTProcessor.SpectrumListener spectrumListener;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
@@ -57,10 +64,18 @@ public class AudioAnalyzerDashboard extends Application implements BeatObserver,
 
         // Initialize audio reader
         audioReader = new PJAudioReader(config, taskOrchestrator);
+        audioReader.applyConfiguredProfile();
         audioReader.registerBeatObserver(this);
 
-        // Initialize FFT processor for spectrum analysis
-        fftProcessor = new FFTProcessor(2048, WindowFunction.HANN, 0.5);
+        // Initialize FFT processor for spectrum analysis, fed with the samples the reader analyses
+        fftProcessor = new FFTProcessor(2048, WindowFunction.HANN, 0.5, SPECTRUM_HOP_SIZE);
+        spectrum = new double[fftProcessor.getBinCount()];
+        spectrumListener = (magnitudes, samplePosition) -> {
+            if (controller != null) {
+                controller.updateSpectrum(magnitudes, sampleRate, fftProcessor.getWindowFunction());
+            }
+        };
+        audioReader.setSampleListener(this::samplesReady);
 
         // Initialize Hue manager
         hueManager = new PJHueManager(config, taskOrchestrator);
@@ -109,7 +124,7 @@ public class AudioAnalyzerDashboard extends Application implements BeatObserver,
     private void refreshAudioDevices() {
         taskOrchestrator.dispatch(() -> {
             try {
-                List<AudioDevice> devices = audioReader.getSupportedDevices();
+                List<AudioDevice> devices = audioReader.rescanDevices();
                 List<String> deviceNames = devices.stream()
                     .map(AudioDevice::getName)
                     .collect(java.util.stream.Collectors.toList());
@@ -176,6 +191,14 @@ public class AudioAnalyzerDashboard extends Application implements BeatObserver,
         });
     }
 
+    /**
+     * Called on the analysis thread with the samples of every chunk, computes the spectrum once per hop.
+     */
+    private void samplesReady(double[] samples, double sampleRate) {
+        this.sampleRate = sampleRate;
+        fftProcessor.pushSamples(samples, 0, samples.length, spectrum, spectrumListener);
+    }
+
     /**
      * Connects to a Hue bridge.
      */
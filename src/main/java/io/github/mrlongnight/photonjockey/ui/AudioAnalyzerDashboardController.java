@@ -12,6 +12,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import io.github.mrlongnight.photonjockey.audio.AnalysisResult;
 import io.github.mrlongnight.photonjockey.audio.AudioFrame;
+import io.github.mrlongnight.photonjockey.audio.LogBandProjection;
+import io.github.mrlongnight.photonjockey.audio.WindowFunction;
 
 /**
  * Controller for the Audio Analyzer Dashboard UI.
@@ -20,6 +22,15 @@ import io.github.mrlongnight.photonjockey.audio.AudioFrame;
  */
 public class AudioAnalyzerDashboardController {
 
+    /**
+     * Amount of log-frequency bands linear spectra are drawn with, also the maximum amount of bars.
+     */
+    static final int SPECTRUM_BANDS = 64;
+    /**
+     * Level of linear spectra drawn as an empty bar in dBFS, bars span from there up to full scale.
+     */
+    static final double SPECTRUM_FLOOR_DB = -60d;
+
     @FXML
     private Canvas waveformCanvas;
 
@@ -65,8 +76,17 @@ public class AudioAnalyzerDashboardController {
     @FXML
     private Label infoLabel;
 
-    private double[] waveformData;
     private double[] spectrumData;
+    /**
+     * Band magnitudes of the last linear spectrum, reused for every spectrum.
+     */
+    private final double[] spectrumBands = new double[SPECTRUM_BANDS];
+    /**
+     * Converts the power of a band to the squared peak amplitude of a sine, for the FFT size and window below.
+     */
+    private double bandPowerToAmplitude;
+    private int bandFftSize;
+    private WindowFunction bandWindowFunction;
     private double currentBpm;
     private boolean beatActive;
 
@@ -134,37 +154,101 @@ public class AudioAnalyzerDashboardController {
             return;
         }
 
-        // Convert byte data to normalized samples
-        byte[] data = frame.getData();
-        int sampleCount = Math.min(data.length / 2, (int) waveformCanvas.getWidth());
-        waveformData = new double[sampleCount];
+        // Read normalized samples straight from the frame, into a fresh array that is handed to the FX thread
+        int sampleCount = Math.min(frame.getSampleCount(), (int) waveformCanvas.getWidth());
+        double[] samples = new double[sampleCount];
+        double gain = gainSlider.getValue();
+        for (int i = 0; i < sampleCount; i++) {
+            samples[i] = frame.getMonoSample(i) * gain;
+        }
+
+        Platform.runLater(() -> drawWaveform(samples));
+    }
+
+    /**
+     * Updates the frequency spectrum visualization with a linear FFT magnitude spectrum, which is projected onto
+     * {@value #SPECTRUM_BANDS} log-frequency bands first, so the bass gets as many bars as the highs. The bands
+     * are normalized to the peak amplitude of a sine and drawn in dB, a full scale sine fills the bar of its
+     * band, levels of {@value #SPECTRUM_FLOOR_DB} dBFS and below leave it empty. Meant to be called from a
+     * single thread, the band array is reused.
+     *
+     * @param spectrum       magnitude spectrum of an FFT, fftSize / 2 + 1 bins
+     * @param sampleRate     sample rate of the analysed samples in Hz
+     * @param windowFunction window the samples were weighted with before the FFT
+     */
+    public void updateSpectrum(double[] spectrum, double sampleRate, WindowFunction windowFunction) {
+        if (spectrum == null) {
+            return;
+        }
+
+        int fftSize = (spectrum.length - 1) * 2;
+        if (fftSize != bandFftSize || windowFunction != bandWindowFunction) {
+            // Parseval: the one-sided power times 2 / (fftSize * window energy) is the mean square of the
+            // samples, which is half the squared amplitude of a sine
+            double windowEnergy = 0d;
+            for (double coefficient : windowFunction.getCoefficients(fftSize)) {
+                windowEnergy += coefficient * coefficient;
+            }
+            bandPowerToAmplitude = 4d / (fftSize * windowEnergy);
+            bandFftSize = fftSize;
+            bandWindowFunction = windowFunction;
+        }
+
+        LogBandProjection projection = LogBandProjection.of(fftSize, sampleRate, SPECTRUM_BANDS);
+        projection.project(spectrum, spectrumBands);
 
-        for (int i = 0; i < sampleCount && i * 2 < data.length; i++) {
-            // Read 16-bit samples (little-endian)
-            short sample = (short) ((data[i * 2 + 1] << 8) | (data[i * 2] & 0xFF));
-            waveformData[i] = sample / 32768.0 * gainSlider.getValue();
+        double[] levels = new double[SPECTRUM_BANDS];
+        double gain = gainSlider.getValue();
+        for (int band = 0; band < SPECTRUM_BANDS; band++) {
+            double amplitude = spectrumBands[band] * Math.sqrt(bandPowerToAmplitude) * gain;
+            levels[band] = toLevel(amplitude);
         }
+        showSpectrum(levels);
+    }
 
-        Platform.runLater(this::drawWaveform);
+    /**
+     * @return the amplitude in dB, mapped from {@value #SPECTRUM_FLOOR_DB} to 0 dBFS onto 0 to 1
+     */
+    private static double toLevel(double amplitude) {
+        if (amplitude <= 0d) {
+            return 0d;
+        }
+        double decibels = 20d * Math.log10(amplitude);
+        return Math.max(0d, Math.min(1d, 1d - decibels / SPECTRUM_FLOOR_DB));
     }
 
     /**
-     * Updates the frequency spectrum visualization.
+     * Updates the frequency spectrum visualization with band magnitudes, drawn as one bar per band. If there are
+     * more than {@value #SPECTRUM_BANDS} bands, neighbouring bands share a bar.
      *
-     * @param spectrum the frequency spectrum data
+     * @param spectrum the band magnitudes, lowest band first
      */
     public void updateSpectrum(double[] spectrum) {
         if (spectrum == null) {
             return;
         }
 
-        spectrumData = new double[spectrum.length];
+        double[] levels = new double[spectrum.length];
         double gain = gainSlider.getValue();
         for (int i = 0; i < spectrum.length; i++) {
-            spectrumData[i] = spectrum[i] * gain;
+            levels[i] = spectrum[i] * gain;
         }
+        showSpectrum(levels);
+    }
+
+    /**
+     * @param levels bar heights, between 0 and 1 to be drawn in full, not modified afterwards
+     */
+    private void showSpectrum(double[] levels) {
+        spectrumData = levels;
+        Platform.runLater(() -> drawSpectrum(levels));
+    }
 
-        Platform.runLater(this::drawSpectrum);
+    /**
+     * @return bar heights of the last spectrum, null if there was none
+     */
+    double[] getSpectrumData() {
+        return spectrumData;
     }
 
     /**
@@ -189,12 +273,10 @@ public class AudioAnalyzerDashboardController {
 
     /**
      * Draws the waveform on the canvas.
+     *
+     * @param waveformData samples to draw, not modified afterwards
      */
-    private void drawWaveform() {
-        if (waveformData == null) {
-            return;
-        }
-
+    private void drawWaveform(double[] waveformData) {
         GraphicsContext gc = waveformCanvas.getGraphicsContext2D();
         clearCanvas(waveformCanvas);
 
@@ -226,18 +308,16 @@ public class AudioAnalyzerDashboardController {
 
     /**
      * Draws the frequency spectrum as bars on the canvas.
+     *
+     * @param spectrumData bar heights to draw, not modified afterwards
      */
-    private void drawSpectrum() {
-        if (spectrumData == null) {
-            return;
-        }
-
+    private void drawSpectrum(double[] spectrumData) {
         GraphicsContext gc = spectrumCanvas.getGraphicsContext2D();
         clearCanvas(spectrumCanvas);
 
         double width = spectrumCanvas.getWidth();
         double height = spectrumCanvas.getHeight();
-        int barCount = Math.min(spectrumData.length, 64);
+        int barCount = Math.min(spectrumData.length, SPECTRUM_BANDS);
         double barWidth = width / barCount;
 
         gc.setFill(Color.web("#0088ff"));
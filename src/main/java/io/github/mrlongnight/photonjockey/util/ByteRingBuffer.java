@@ -0,0 +1,192 @@
+package io.github.mrlongnight.photonjockey.util;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring buffer for raw bytes.
+ * The producer never waits for the consumer: if the consumer falls behind by more than the capacity,
+ * the oldest bytes are overwritten and the consumer skips ahead on its next read ("drop oldest").
+ * Skipped bytes are counted as overruns, see {@link #getOverrunCount()} and {@link #getDroppedBytes()}.
+ * <p>
+ * Positions are absolute, monotonic stream offsets. Read positions are only ever moved to multiples of
+ * the configured alignment, so a consumer reading whole audio frames never ends up reading half a sample
+ * after an overrun.
+ * <p>
+ * Exactly one thread may call {@link #write(byte[], int, int)} and exactly one (other) thread may call
+ * {@link #read(byte[], int, int)}. All other methods can be called from any thread.
+ */
+public class ByteRingBuffer {
+
+    private final byte[] buffer;
+    private final int mask;
+    private final int alignment;
+
+    /**
+     * Highest position the producer is about to write up to, published before the bytes are copied.
+     * Lets the consumer detect that the region it just copied was overwritten concurrently.
+     */
+    private final AtomicLong writeClaim = new AtomicLong();
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    private final AtomicLong overrunCount = new AtomicLong();
+    private final AtomicLong droppedBytes = new AtomicLong();
+
+
+    /**
+     * @param minCapacity minimum amount of bytes to hold, will be rounded up to the next power of two
+     * @param alignment   read positions are aligned to this amount of bytes, usually the audio frame size
+     */
+    public ByteRingBuffer(int minCapacity, int alignment) {
+        if (minCapacity <= 0 || alignment <= 0) {
+            throw new IllegalArgumentException("Capacity and alignment must be positive");
+        }
+
+        int capacity = Integer.highestOneBit(minCapacity);
+        if (capacity < minCapacity) {
+            capacity <<= 1;
+        }
+        if (capacity < alignment) {
+            throw new IllegalArgumentException("Capacity must be at least the alignment");
+        }
+
+        this.buffer = new byte[capacity];
+        this.mask = capacity - 1;
+        this.alignment = alignment;
+    }
+
+    /**
+     * Appends bytes to the buffer, overwriting the oldest data if the consumer is too far behind.
+     * If {@code length} exceeds the capacity only the newest bytes are stored. Never blocks.
+     *
+     * @param source array to copy from
+     * @param offset start offset in source
+     * @param length amount of bytes to copy
+     */
+    public void write(byte[] source, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+
+        long position = writePosition.get();
+        long end = position + length;
+        if (length > buffer.length) {
+            int skip = length - buffer.length;
+            offset += skip;
+            position += skip;
+            length = buffer.length;
+        }
+
+        writeClaim.set(end);
+        // bytes must not become visible before the claim, see read()
+        VarHandle.storeStoreFence();
+
+        int index = (int) (position & mask);
+        int firstPart = Math.min(length, buffer.length - index);
+        System.arraycopy(source, offset, buffer, index, firstPart);
+        if (firstPart < length) {
+            System.arraycopy(source, offset + firstPart, buffer, 0, length - firstPart);
+        }
+
+        writePosition.lazySet(end);
+    }
+
+    /**
+     * Reads exactly {@code length} bytes if that many are available, otherwise nothing is consumed.
+     * If the producer overwrote unread data, the read position first skips ahead to the oldest valid
+     * (aligned) position and the overrun counters are increased.
+     *
+     * @param target array to copy into
+     * @param offset start offset in target
+     * @param length amount of bytes to read, must not exceed the capacity
+     * @return true if {@code length} bytes were copied into target
+     */
+    public boolean read(byte[] target, int offset, int length) {
+        if (length > buffer.length) {
+            throw new IllegalArgumentException("Cannot read more bytes than the buffer capacity");
+        }
+
+        long position = readPosition.get();
+        while (true) {
+            long available = writePosition.get();
+            position = skipOverwritten(position, available);
+            if (available - position < length) {
+                readPosition.lazySet(position);
+                return false;
+            }
+
+            int index = (int) (position & mask);
+            int firstPart = Math.min(length, buffer.length - index);
+            System.arraycopy(buffer, index, target, offset, firstPart);
+            if (firstPart < length) {
+                System.arraycopy(buffer, 0, target, offset + firstPart, length - firstPart);
+            }
+
+            // copied bytes must be read before checking whether they were overwritten in the meantime
+            VarHandle.loadLoadFence();
+            long skipped = skipOverwritten(position, writeClaim.get());
+            if (skipped == position) {
+                readPosition.lazySet(position + length);
+                return true;
+            }
+            position = skipped;
+        }
+    }
+
+    private long skipOverwritten(long position, long producerPosition) {
+        long oldestValid = producerPosition - buffer.length;
+        if (position >= oldestValid) {
+            return position;
+        }
+
+        long remainder = Math.floorMod(oldestValid, alignment);
+        long newPosition = remainder == 0 ? oldestValid : oldestValid + alignment - remainder;
+        overrunCount.incrementAndGet();
+        droppedBytes.addAndGet(newPosition - position);
+        return newPosition;
+    }
+
+    /**
+     * @return amount of unread bytes, capped at the capacity
+     */
+    public int available() {
+        long available = writePosition.get() - readPosition.get();
+        return (int) Math.max(0, Math.min(available, buffer.length));
+    }
+
+    /**
+     * @return capacity in bytes
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * @return how often the consumer had to skip data that was overwritten before it could be read
+     */
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * @return total amount of bytes that were dropped due to overruns
+     */
+    public long getDroppedBytes() {
+        return droppedBytes.get();
+    }
+
+    /**
+     * @return total amount of bytes written since creation
+     */
+    public long getWritePosition() {
+        return writePosition.get();
+    }
+
+    /**
+     * @return total amount of bytes consumed or skipped since creation
+     */
+    public long getReadPosition() {
+        return readPosition.get();
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.mrlongnight.photonjockey.util;
+
+/**
+ * Median of the last values added, kept in two indexed heaps: a max-heap holding the lower half and a min-heap
+ * holding the upper half, so the median is at their tops. Every value stays in the slot of the ring it was
+ * added to, the heaps store slots and every slot knows its heap position, so the oldest value can be removed
+ * without searching. Adding and removing cost O(log n), reading the median O(1).
+ * <p>
+ * All state lives in primitive arrays allocated by the constructor, nothing is allocated afterwards.
+ * Not thread safe.
+ */
+public class SlidingMedian {
+
+    private final double[] values;
+    private final int[] lower;
+    private final int[] upper;
+    /**
+     * Index of every slot within its heap, non-negative for the lower and -(index + 1) for the upper heap.
+     */
+    private final int[] heapIndex;
+    private int lowerSize;
+    private int upperSize;
+
+    private int oldest;
+    private int size;
+
+
+    /**
+     * @param window amount of values the median is taken over
+     */
+    public SlidingMedian(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.values = new double[window];
+        this.lower = new int[window];
+        this.upper = new int[window];
+        this.heapIndex = new int[window];
+    }
+
+    /**
+     * Adds a value, removing the oldest one if the window is full.
+     *
+     * @param value value to add
+     * @return median of the window after adding
+     */
+    public double add(double value) {
+        if (size == values.length) {
+            removeOldest();
+        }
+
+        int slot = (oldest + size) % values.length;
+        values[slot] = value;
+        size++;
+        if (lowerSize == 0 || value <= values[lower[0]]) {
+            lower[lowerSize] = slot;
+            heapIndex[slot] = lowerSize;
+            siftUp(lower, lowerSize++, true);
+        } else {
+            upper[upperSize] = slot;
+            heapIndex[slot] = -(upperSize + 1);
+            siftUp(upper, upperSize++, false);
+        }
+        rebalance();
+        return median();
+    }
+
+    /**
+     * Removes the oldest value, does nothing if the window is empty.
+     */
+    public void removeOldest() {
+        if (size == 0) {
+            return;
+        }
+
+        int slot = oldest;
+        int index = heapIndex[slot];
+        if (index >= 0) {
+            removeAt(lower, --lowerSize, index, true);
+        } else {
+            removeAt(upper, --upperSize, -index - 1, false);
+        }
+        oldest = (oldest + 1) % values.length;
+        size--;
+        rebalance();
+    }
+
+    /**
+     * @return median of the window, the mean of the two middle values for an even size, 0 if empty
+     */
+    public double median() {
+        if (size == 0) {
+            return 0d;
+        }
+        if (lowerSize > upperSize) {
+            return values[lower[0]];
+        }
+        return (values[lower[0]] + values[upper[0]]) / 2d;
+    }
+
+    /**
+     * @return amount of values in the window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return maximum amount of values in the window
+     */
+    public int getWindow() {
+        return values.length;
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        lowerSize = 0;
+        upperSize = 0;
+        oldest = 0;
+        size = 0;
+    }
+
+    /**
+     * Keeps the lower heap at the same size as the upper one or one larger.
+     */
+    private void rebalance() {
+        if (lowerSize > upperSize + 1) {
+            int slot = lower[0];
+            removeAt(lower, --lowerSize, 0, true);
+            upper[upperSize] = slot;
+            heapIndex[slot] = -(upperSize + 1);
+            siftUp(upper, upperSize++, false);
+        } else if (upperSize > lowerSize) {
+            int slot = upper[0];
+            removeAt(upper, --upperSize, 0, false);
+            lower[lowerSize] = slot;
+            heapIndex[slot] = lowerSize;
+            siftUp(lower, lowerSize++, true);
+        }
+    }
+
+    /**
+     * Replaces the element at the index with the last one, the heap size was already decremented to lastIndex.
+     */
+    private void removeAt(int[] heap, int lastIndex, int index, boolean max) {
+        if (index == lastIndex) {
+            return;
+        }
+        heap[index] = heap[lastIndex];
+        setIndex(heap[index], index, max);
+        if (index > 0 && above(heap[index], heap[(index - 1) / 2], max)) {
+            siftUp(heap, index, max);
+        } else {
+            siftDown(heap, lastIndex, index, max);
+        }
+    }
+
+    private void siftUp(int[] heap, int index, boolean max) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!above(slot, heap[parent], max)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            setIndex(heap[index], index, max);
+            index = parent;
+        }
+        heap[index] = slot;
+        setIndex(slot, index, max);
+    }
+
+    private void siftDown(int[] heap, int heapSize, int index, boolean max) {
+        int slot = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && above(heap[child + 1], heap[child], max)) {
+                child++;
+            }
+            if (!above(heap[child], slot, max)) {
+                break;
+            }
+            heap[index] = heap[child];
+            setIndex(heap[index], index, max);
+            index = child;
+        }
+        heap[index] = slot;
+        setIndex(slot, index, max);
+    }
+
+    /**
+     * @return whether slot a belongs above slot b, the larger value in the max-heap and the smaller one otherwise
+     */
+    private boolean above(int a, int b, boolean max) {
+        return max ? values[a] > values[b] : values[a] < values[b];
+    }
+
+    private void setIndex(int slot, int index, boolean lowerHeap) {
+        heapIndex[slot] = lowerHeap ? index : -(index + 1);
+    }
+}
@@ -86,7 +86,7 @@ echo Found application: %LATEST_JAR%
 echo.
 echo Launching %LATEST_JAR%...
 echo.
-java %JAVA_OPTS% --add-opens "java.base/java.lang=ALL-UNNAMED" -jar "%APP_DIR%\%LATEST_JAR%"
+java %JAVA_OPTS% --add-opens "java.base/java.lang=ALL-UNNAMED" --add-modules jdk.incubator.vector -jar "%APP_DIR%\%LATEST_JAR%"
 
 echo.
 echo Application has finished.
@@ -212,9 +212,9 @@ set +e # Disable exit on error
 
 # 5. Launch the application
 if [ "$LOGGING_ENABLED" = true ]; then
-    nohup "$JAVA_EXECUTABLE" $JAVA_OPTS --add-opens 'java.base/java.lang=ALL-UNNAMED' -jar "$JAR_FILE" >"$LOG_FILE" 2>&1 &
+    nohup "$JAVA_EXECUTABLE" $JAVA_OPTS --add-opens 'java.base/java.lang=ALL-UNNAMED' --add-modules jdk.incubator.vector -jar "$JAR_FILE" >"$LOG_FILE" 2>&1 &
 else
-    nohup "$JAVA_EXECUTABLE" $JAVA_OPTS --add-opens 'java.base/java.lang=ALL-UNNAMED' -jar "$JAR_FILE" >/dev/null 2>&1 &
+    nohup "$JAVA_EXECUTABLE" $JAVA_OPTS --add-opens 'java.base/java.lang=ALL-UNNAMED' --add-modules jdk.incubator.vector -jar "$JAR_FILE" >/dev/null 2>&1 &
 fi
 APP_PID=$!
 
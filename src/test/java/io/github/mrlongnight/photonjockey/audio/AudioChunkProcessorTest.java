@@ -0,0 +1,217 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioChunkProcessorTest {
+
+    private static final double SAMPLE_RATE = 44100d;
+    private static final int SAMPLES_PER_CHUNK = 882;
+    private static final double DELTA = 0.001;
+
+    @Test
+    void rmsOfFullScaleSine() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        AudioChunkProcessor processor = new AudioChunkProcessor(format, SAMPLES_PER_CHUNK);
+
+        byte[] chunk = sineChunk(format, 1000d, 1d);
+        assertEquals(1d / Math.sqrt(2), processor.process(chunk, false), DELTA);
+    }
+
+    @Test
+    void bigEndianDecodesLikeLittleEndian() {
+        PJAudioFormat little = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        PJAudioFormat big = new PJAudioFormat(SAMPLE_RATE, false, 1, 2);
+
+        double rmsLittle = new AudioChunkProcessor(little, SAMPLES_PER_CHUNK)
+                .process(sineChunk(little, 440d, 0.5d), false);
+        double rmsBig = new AudioChunkProcessor(big, SAMPLES_PER_CHUNK)
+                .process(sineChunk(big, 440d, 0.5d), false);
+        assertEquals(rmsLittle, rmsBig, 1e-9);
+    }
+
+    @Test
+    void eightBitSamples() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 1);
+        byte[] chunk = new byte[SAMPLES_PER_CHUNK];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (byte) (i % 2 == 0 ? Byte.MAX_VALUE : -Byte.MAX_VALUE);
+        }
+        assertEquals(1d, new AudioChunkProcessor(format, SAMPLES_PER_CHUNK).process(chunk, false), DELTA);
+    }
+
+    @Test
+    void stereoFloatChannelsAreDownmixed() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 2, 4, PJAudioFormat.Encoding.PCM_FLOAT);
+        ByteBuffer chunk = ByteBuffer.allocate(SAMPLES_PER_CHUNK * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < SAMPLES_PER_CHUNK; i++) {
+            // full scale on the left, silence on the right
+            chunk.putFloat(i % 2 == 0 ? 1f : -1f).putFloat(0f);
+        }
+        assertEquals(0.5d, new AudioChunkProcessor(format, SAMPLES_PER_CHUNK).process(chunk.array(), false), DELTA);
+    }
+
+    @Test
+    void bassOnlyRemovesHighFrequencies() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        AudioChunkProcessor processor = new AudioChunkProcessor(format, SAMPLES_PER_CHUNK);
+
+        // every signal is processed twice, so that the filter settled when measuring
+        processor.process(sineChunk(format, 100d, 0.5d), true);
+        double bass = processor.process(sineChunk(format, 100d, 0.5d), true);
+        processor.process(sineChunk(format, 5000d, 0.5d), true);
+        double treble = processor.process(sineChunk(format, 5000d, 0.5d), true);
+        assertTrue(bass > 0.3, "Bass should pass the filter, got " + bass);
+        assertTrue(treble < 0.01, "Treble should be removed, got " + treble);
+    }
+
+    @Test
+    void bandEnergiesFollowFrequency() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        assertLoudestBand(format, 60d, BeatBand.SUB_BASS);
+        assertLoudestBand(format, 800d, BeatBand.LOW_MID);
+        assertLoudestBand(format, 9000d, BeatBand.HIGH);
+    }
+
+    private static void assertLoudestBand(PJAudioFormat format, double frequency, BeatBand expected) {
+        AudioChunkProcessor processor = new AudioChunkProcessor(format, SAMPLES_PER_CHUNK);
+        processor.process(sineChunk(format, frequency, 0.5d), false);
+        processor.process(sineChunk(format, frequency, 0.5d), false);
+
+        double[] energies = processor.getBandEnergies();
+        int loudest = 0;
+        for (int i = 1; i < energies.length; i++) {
+            if (energies[i] > energies[loudest]) {
+                loudest = i;
+            }
+        }
+        assertEquals(expected, BeatBand.SPLIT_BANDS[loudest], frequency + " Hz ended up in the wrong band");
+        assertTrue(energies[loudest] > 0.2, "Band energy too low: " + energies[loudest]);
+    }
+
+    @Test
+    void bassBandsRunDecimated() {
+        assertEquals(16, LowFrequencyBranch.chooseFactor(44100d));
+        assertEquals(16, LowFrequencyBranch.chooseFactor(48000d));
+        assertEquals(4, LowFrequencyBranch.chooseFactor(8000d));
+        assertEquals(1, LowFrequencyBranch.chooseFactor(2000d));
+
+        assertTrue(LowFrequencyBranch.covers(BeatBand.SUB_BASS, SAMPLE_RATE));
+        assertFalse(LowFrequencyBranch.covers(BeatBand.LOW_MID, SAMPLE_RATE));
+        assertFalse(LowFrequencyBranch.covers(BeatBand.HIGH, SAMPLE_RATE));
+    }
+
+    @Test
+    void overlappingWindowSpansSeveralChunks() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        AudioChunkProcessor processor = new AudioChunkProcessor(format, SAMPLES_PER_CHUNK, 4);
+        byte[] loud = sineChunk(format, 1000d, 1d);
+        byte[] silent = new byte[loud.length];
+
+        for (int i = 0; i < 4; i++) {
+            processor.process(loud, false);
+        }
+        assertEquals(1d / Math.sqrt(2), processor.process(loud, false), DELTA);
+
+        // a single silent chunk only replaces a quarter of the window
+        assertEquals(Math.sqrt(3d / 8d), processor.process(silent, false), DELTA);
+        for (int i = 0; i < 3; i++) {
+            processor.process(silent, false);
+        }
+        assertEquals(0d, processor.process(silent, false), DELTA);
+    }
+
+    @Test
+    void togglingBassOnlyStartsANewWindow() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        AudioChunkProcessor processor = new AudioChunkProcessor(format, SAMPLES_PER_CHUNK, 4);
+        byte[] loud = sineChunk(format, 1000d, 1d);
+        byte[] silent = new byte[loud.length];
+
+        // leaves the window partially filled, so the next hop is not written to the first row
+        for (int i = 0; i < 3; i++) {
+            processor.process(loud, false);
+        }
+        // the window then only holds the ringing of the filters, not the loud hops from before the switch
+        processor.process(silent, true);
+        double rms = processor.process(silent, true);
+        assertTrue(rms < 0.05, "RMS of a stale hop: " + rms);
+        for (double energy : processor.getBandEnergies()) {
+            assertTrue(energy < 0.05, "Band energy of a stale hop: " + energy);
+        }
+
+        assertEquals(1d / Math.sqrt(2), processor.process(loud, false), DELTA);
+    }
+
+    @Test
+    void rejectsInvalidWindow() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        assertThrows(IllegalArgumentException.class, () -> new AudioChunkProcessor(format, SAMPLES_PER_CHUNK, 0));
+    }
+
+    @Test
+    void processingDoesNotAllocate() {
+        assertNoAllocationPerChunk(false);
+    }
+
+    @Test
+    void bassOnlyProcessingDoesNotAllocate() {
+        assertNoAllocationPerChunk(true);
+    }
+
+    private void assertNoAllocationPerChunk(boolean bassOnly) {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        enableAllocationMeasurement(threadBean);
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, true, 1, 2);
+        AudioChunkProcessor processor = new AudioChunkProcessor(format, SAMPLES_PER_CHUNK);
+        byte[] chunk = sineChunk(format, 440d, 0.5d);
+
+        // warm up so that the measured loop runs compiled code
+        double sink = 0d;
+        for (int i = 0; i < 20_000; i++) {
+            sink += processor.process(chunk, bassOnly);
+        }
+
+        int chunks = 10_000;
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < chunks; i++) {
+            sink += processor.process(chunk, bassOnly);
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(sink > 0d);
+        assertTrue(allocated / (double) chunks < 1d,
+                "Expected no allocation per chunk, got " + allocated + " bytes for " + chunks + " chunks");
+    }
+
+    private static void enableAllocationMeasurement(java.lang.management.ThreadMXBean threadBean) {
+        assertTrue(threadBean instanceof com.sun.management.ThreadMXBean,
+                "JVM does not support thread allocation measurement");
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    static byte[] sineChunk(PJAudioFormat format, double frequency, double amplitude) {
+        byte[] chunk = new byte[SAMPLES_PER_CHUNK * 2];
+        for (int i = 0; i < SAMPLES_PER_CHUNK; i++) {
+            short value = (short) Math.round(
+                    Math.sin(2 * Math.PI * frequency * i / format.sampleRate()) * amplitude * Short.MAX_VALUE);
+            int low = value & 0xFF;
+            int high = (value >> 8) & 0xFF;
+            chunk[i * 2] = (byte) (format.littleEndian() ? low : high);
+            chunk[i * 2 + 1] = (byte) (format.littleEndian() ? high : low);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioFramePoolTest {
+
+    private static AudioFrame acquireFilled(AudioFramePool pool, byte value) {
+        AudioFrame frame = pool.acquire();
+        byte[] data = pool.getWritableData(frame);
+        data[0] = value;
+        data[1] = 0;
+        pool.fill(frame, 2, 44100, 1, 0L);
+        return frame;
+    }
+
+    @Test
+    void rejectsInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new AudioFramePool(0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new AudioFramePool(1, 0));
+    }
+
+    @Test
+    void frameReturnsToPoolAfterLastRelease() {
+        AudioFramePool pool = new AudioFramePool(1, 16);
+        AudioFrame frame = acquireFilled(pool, (byte) 1);
+        assertEquals(0, pool.available());
+
+        frame.retain();
+        frame.release();
+        assertEquals(0, pool.available());
+
+        frame.release();
+        assertEquals(1, pool.available());
+        assertSame(frame, pool.acquire());
+    }
+
+    @Test
+    void recycledFrameHasNewContent() {
+        AudioFramePool pool = new AudioFramePool(1, 16);
+        acquireFilled(pool, (byte) 1).release();
+
+        AudioFrame frame = acquireFilled(pool, (byte) 7);
+        assertEquals(2, frame.getByteLength());
+        assertEquals(1, frame.getReferenceCount());
+        assertEquals(7, frame.getData()[0]);
+    }
+
+    @Test
+    void exhaustedPoolCreatesFrames() {
+        AudioFramePool pool = new AudioFramePool(1, 16);
+        AudioFrame first = pool.acquire();
+        AudioFrame second = pool.acquire();
+        assertNotSame(first, second);
+
+        first.release();
+        second.release();
+        // only as many frames as the pool size are kept
+        assertEquals(1, pool.available());
+    }
+
+    @Test
+    void releasedFrameCannotBeRetained() {
+        AudioFramePool pool = new AudioFramePool(1, 16);
+        AudioFrame frame = pool.acquire();
+        frame.release();
+
+        assertThrows(IllegalStateException.class, frame::retain);
+        assertThrows(IllegalStateException.class, frame::release);
+    }
+
+    @Test
+    void fillRejectsLengthBeyondCapacity() {
+        AudioFramePool pool = new AudioFramePool(1, 16);
+        assertThrows(IllegalArgumentException.class, () -> pool.fill(pool.acquire(), 17, 44100, 1, 0L));
+    }
+}
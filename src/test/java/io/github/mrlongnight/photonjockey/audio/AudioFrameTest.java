@@ -1,9 +1,12 @@
 package io.github.mrlongnight.photonjockey.audio;
 
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class AudioFrameTest {
 
@@ -30,4 +33,103 @@ class AudioFrameTest {
         assertArrayEquals(data, frame.getData());
         assertEquals(0, frame.getData().length);
     }
+
+    @Test
+    void typedAccessorsReadWithoutCopy() {
+        // stereo frames of (16384, -16384) and (8192, 0), little-endian
+        byte[] data = {0x00, 0x40, 0x00, (byte) 0xC0, 0x00, 0x20, 0x00, 0x00};
+        AudioFrame frame = new AudioFrame(data, SAMPLE_RATE, CHANNELS, TIMESTAMP);
+
+        assertEquals(8, frame.getByteLength());
+        assertEquals(2, frame.getSampleCount());
+        assertEquals(0.5, frame.getSample(0, 0), 1e-4);
+        assertEquals(-0.5, frame.getSample(0, 1), 1e-4);
+        assertEquals(0.0, frame.getMonoSample(0));
+        assertEquals(0.125, frame.getMonoSample(1), 1e-4);
+        assertArrayEquals(new double[]{0.0, 0.125}, frame.getMonoSamples((double[]) null), 1e-4);
+    }
+
+    @Test
+    void framesDecodeAlikeWithAndWithoutFormat() {
+        byte[] data = {(byte) 0xFF, 0x7F, 0x01, (byte) 0x80, 0x34, 0x12, (byte) 0xCC, (byte) 0xED};
+        AudioFrame legacy = new AudioFrame(data, SAMPLE_RATE, CHANNELS, TIMESTAMP);
+        AudioFrame formatted = new AudioFrame(data, new PJAudioFormat(SAMPLE_RATE, true, CHANNELS, 2), TIMESTAMP);
+
+        // both normalize by the same value, a full scale sample decodes to 1
+        assertEquals(1.0, legacy.getSample(0, 0));
+        assertEquals(-1.0, legacy.getSample(0, 1));
+        assertArrayEquals(formatted.getMonoSamples((double[]) null), legacy.getMonoSamples((double[]) null));
+        for (int i = 0; i < legacy.getSampleCount(); i++) {
+            assertEquals(formatted.getMonoSample(i), legacy.getMonoSample(i));
+        }
+    }
+
+    @Test
+    void floatSamplesMatchDoubleSamples() {
+        byte[] data = {(byte) 0xFF, 0x7F, 0x01, (byte) 0x80, 0x34, 0x12, (byte) 0xCC, (byte) 0xED};
+        AudioFrame legacy = new AudioFrame(data, SAMPLE_RATE, CHANNELS, TIMESTAMP);
+        AudioFrame bigEndian = new AudioFrame(data, new PJAudioFormat(SAMPLE_RATE, false, 1, 2), TIMESTAMP);
+
+        for (AudioFrame frame : new AudioFrame[]{legacy, bigEndian}) {
+            double[] expected = frame.getMonoSamples((double[]) null);
+            float[] actual = frame.getMonoSamples((float[]) null);
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], actual[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void framesOfFormatAreDecoded() {
+        // big-endian 24-bit stereo frames of (half scale, silence) and (negative full scale, full scale)
+        byte[] data = {0x40, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0x80, 0x00, 0x01, 0x7F, (byte) 0xFF, (byte) 0xFF};
+        AudioFrame frame = new AudioFrame(data, new PJAudioFormat(SAMPLE_RATE, false, CHANNELS, 3), TIMESTAMP);
+
+        assertEquals(2, frame.getSampleCount());
+        assertEquals(CHANNELS, frame.getChannels());
+        assertEquals(0.5, frame.getSample(0, 0), 1e-6);
+        assertEquals(-1.0, frame.getSample(1, 0), 1e-6);
+        assertEquals(0.25, frame.getMonoSample(0), 1e-6);
+        assertArrayEquals(new double[]{0.25, 0.0}, frame.getMonoSamples((double[]) null), 1e-6);
+        assertThrows(IndexOutOfBoundsException.class, () -> frame.getMonoSample(2));
+    }
+
+    @Test
+    void monoSamplesReuseMatchingArray() {
+        AudioFrame frame = new AudioFrame(new byte[16], SAMPLE_RATE, CHANNELS, TIMESTAMP);
+        double[] target = new double[4];
+        assertSame(target, frame.getMonoSamples(target));
+        assertNotSame(target, frame.getMonoSamples(new double[3]));
+    }
+
+    @Test
+    void bufferIsReadOnly() {
+        AudioFrame frame = new AudioFrame(new byte[]{1, 2}, SAMPLE_RATE, CHANNELS, TIMESTAMP);
+        ByteBuffer buffer = frame.getBuffer();
+
+        assertTrue(buffer.isReadOnly());
+        assertEquals(2, buffer.remaining());
+        assertEquals(0x0201, buffer.getShort(0));
+    }
+
+    @Test
+    void bufferFollowsFormat() {
+        AudioFrame legacy = new AudioFrame(new byte[4], SAMPLE_RATE, CHANNELS, TIMESTAMP);
+        assertEquals(new PJAudioFormat(SAMPLE_RATE, true, CHANNELS, 2), legacy.getFormat());
+
+        PJAudioFormat floatFormat = new PJAudioFormat(SAMPLE_RATE, false, 1, 4, PJAudioFormat.Encoding.PCM_FLOAT);
+        AudioFrame frame = new AudioFrame(ByteBuffer.allocate(4).putFloat(0.5f).array(), floatFormat, TIMESTAMP);
+        assertEquals(floatFormat, frame.getFormat());
+        assertEquals(ByteOrder.BIG_ENDIAN, frame.getBuffer().order());
+        assertEquals(0.5f, frame.getBuffer().getFloat(0));
+    }
+
+    @Test
+    void dataIsCopiedOnConstruction() {
+        byte[] data = {1, 2};
+        AudioFrame frame = new AudioFrame(data, SAMPLE_RATE, CHANNELS, TIMESTAMP);
+        data[0] = 9;
+        assertEquals(1, frame.getData()[0]);
+    }
 }
@@ -0,0 +1,97 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.config.Config;
+import io.github.mrlongnight.photonjockey.config.ConfigNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BeatInterpreterTest {
+
+    private BeatInterpreter interpreter;
+
+
+    @BeforeEach
+    void setUp() {
+        Config config = mock(Config.class);
+        when(config.getInt(ConfigNode.BEAT_SENSITIVITY)).thenReturn(5);
+        interpreter = new BeatInterpreter(config, 50);
+    }
+
+    @Test
+    void overlappingWindowsTriggerOncePerOnset() {
+        Config config = mock(Config.class);
+        when(config.getInt(ConfigNode.BEAT_SENSITIVITY)).thenReturn(5);
+        // 400 Hz with a 20 ms window, so the window rises over 8 updates after an onset
+        BeatInterpreter fastInterpreter = new BeatInterpreter(config, 400, 20);
+        long time = TimeUnit.SECONDS.toNanos(100);
+        long hop = TimeUnit.MICROSECONDS.toNanos(2500);
+
+        for (int i = 0; i < 400; i++) {
+            assertNull(fastInterpreter.interpretValue(0.1d, time));
+            time += hop;
+        }
+
+        int beats = 0;
+        for (int i = 1; i <= 8; i++) {
+            if (fastInterpreter.interpretValue(0.1d + 0.5d * Math.sqrt(i / 8d), time) != null) {
+                beats++;
+            }
+            time += hop;
+        }
+        assertEquals(1, beats);
+    }
+
+    @Test
+    void broadbandBeatIsDetected() {
+        for (int i = 0; i < 50; i++) {
+            assertNull(interpreter.interpretValue(0.1d));
+        }
+
+        BeatEvent event = interpreter.interpretValue(0.5d);
+        assertNotNull(event);
+        assertEquals(BeatBand.FULL, event.band());
+        assertEquals(0.5d, event.triggeringAmplitude());
+        assertFalse(event.isNoBeat());
+    }
+
+    @Test
+    void bandsKeepTheirOwnThresholds() {
+        for (int i = 0; i < 50; i++) {
+            assertNull(interpreter.interpretBand(BeatBand.SUB_BASS, 0.1d));
+            assertNull(interpreter.interpretBand(BeatBand.HIGH, 0.01d));
+        }
+
+        // a hi-hat hit is far quieter than the kick average, but loud relative to its own band
+        BeatEvent hiHat = interpreter.interpretBand(BeatBand.HIGH, 0.05d);
+        assertNotNull(hiHat);
+        assertEquals(BeatBand.HIGH, hiHat.band());
+        assertEquals(0.05d, hiHat.triggeringAmplitude());
+
+        assertNull(interpreter.interpretBand(BeatBand.SUB_BASS, 0.1d));
+        BeatEvent kick = interpreter.interpretBand(BeatBand.SUB_BASS, 0.4d);
+        assertNotNull(kick);
+        assertEquals(BeatBand.SUB_BASS, kick.band());
+    }
+
+    @Test
+    void bandBeatsDoNotAffectBroadbandDetection() {
+        for (int i = 0; i < 50; i++) {
+            interpreter.interpretValue(0.1d);
+            interpreter.interpretBand(BeatBand.LOW_MID, 0.1d);
+        }
+
+        assertNotNull(interpreter.interpretBand(BeatBand.LOW_MID, 0.8d));
+        assertNotNull(interpreter.interpretValue(0.5d));
+    }
+
+    @Test
+    void fullBandCannotBeInterpretedAsSplitBand() {
+        assertThrows(IllegalArgumentException.class, () -> interpreter.interpretBand(BeatBand.FULL, 0.1d));
+    }
+}
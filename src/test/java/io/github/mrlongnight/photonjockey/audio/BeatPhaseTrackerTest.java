@@ -0,0 +1,133 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeatPhaseTrackerTest {
+
+    private static final long MAX_PREDICTION_ERROR_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private BeatPhaseTracker tracker;
+    private final Random random = new Random(42);
+    private long time;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new BeatPhaseTracker();
+        time = TimeUnit.SECONDS.toNanos(100);
+    }
+
+    /**
+     * Feeds a click track with the given timing jitter and returns the time of the next click.
+     */
+    private long feedClicks(double bpm, int beats, long jitterNanos) {
+        long period = Math.round(TimeUnit.MINUTES.toNanos(1) / bpm);
+        for (int i = 0; i < beats; i++) {
+            long jitter = jitterNanos == 0 ? 0 : (long) ((random.nextDouble() * 2 - 1) * jitterNanos);
+            tracker.onBeat(time + jitter);
+            time += period;
+        }
+        return time;
+    }
+
+    @Test
+    void noPredictionWithoutBeats() {
+        assertEquals(BeatPhaseTracker.NO_PREDICTION, tracker.nextPredictedBeatNanos(time));
+        assertEquals(0d, tracker.getConfidence(time));
+
+        tracker.onBeat(time);
+        assertEquals(BeatPhaseTracker.NO_PREDICTION, tracker.nextPredictedBeatNanos(time));
+    }
+
+    @Test
+    void predictsSteadyClickTrack() {
+        long nextClick = feedClicks(120d, 16, 0);
+
+        long now = nextClick - TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(nextClick, tracker.nextPredictedBeatNanos(now), MAX_PREDICTION_ERROR_NANOS);
+        assertTrue(tracker.getConfidence(now) > 0.8, "confidence " + tracker.getConfidence(now));
+    }
+
+    @Test
+    void predictsSeveralBeatsAhead() {
+        long nextClick = feedClicks(128d, 16, 0);
+        long period = Math.round(TimeUnit.MINUTES.toNanos(1) / 128d);
+
+        long now = nextClick + 3 * period + period / 2;
+        assertEquals(nextClick + 4 * period, tracker.nextPredictedBeatNanos(now), MAX_PREDICTION_ERROR_NANOS);
+    }
+
+    @Test
+    void toleratesJitter() {
+        long nextClick = feedClicks(100d, 32, TimeUnit.MILLISECONDS.toNanos(8));
+
+        long now = nextClick - TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(nextClick, tracker.nextPredictedBeatNanos(now), 2 * MAX_PREDICTION_ERROR_NANOS);
+        assertTrue(tracker.getConfidence(now) > 0.4, "confidence " + tracker.getConfidence(now));
+    }
+
+    @Test
+    void offBeatOnsetsDoNotMovePhase() {
+        feedClicks(120d, 16, 0);
+        long period = Math.round(TimeUnit.MINUTES.toNanos(1) / 120d);
+
+        // a single onset halfway between two beats
+        tracker.onBeat(time - period / 2);
+
+        long now = time - TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(time, tracker.nextPredictedBeatNanos(now), MAX_PREDICTION_ERROR_NANOS);
+    }
+
+    @Test
+    void recoversFromTempoChange() {
+        feedClicks(120d, 16, 0);
+        long nextClick = feedClicks(96d, 12, 0);
+
+        long now = nextClick - TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(nextClick, tracker.nextPredictedBeatNanos(now), MAX_PREDICTION_ERROR_NANOS);
+    }
+
+    @Test
+    void followsTempoEstimate() {
+        feedClicks(120d, 16, 0);
+        tracker.setTempo(96d, 0.9d);
+
+        assertEquals(Math.round(TimeUnit.MINUTES.toNanos(1) / 96d), tracker.getPeriodNanos());
+        long nextClick = feedClicks(96d, 4, 0);
+
+        long now = nextClick - TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(nextClick, tracker.nextPredictedBeatNanos(now), MAX_PREDICTION_ERROR_NANOS);
+    }
+
+    @Test
+    void unsureTempoEstimateIsIgnored() {
+        feedClicks(120d, 16, 0);
+        long period = tracker.getPeriodNanos();
+
+        tracker.setTempo(96d, 0.1d);
+        assertEquals(period, tracker.getPeriodNanos());
+    }
+
+    @Test
+    void confidenceDropsWithoutBeats() {
+        feedClicks(120d, 16, 0);
+        assertTrue(tracker.getConfidence(time) > 0.8);
+
+        assertEquals(0d, tracker.getConfidence(time + TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    @Test
+    void reset() {
+        feedClicks(120d, 16, 0);
+        tracker.reset();
+
+        assertEquals(BeatPhaseTracker.NO_PREDICTION, tracker.nextPredictedBeatNanos(time));
+        assertEquals(0d, tracker.getConfidence(time));
+        assertEquals(0L, tracker.getPeriodNanos());
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FFTProcessorStreamingTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int FFT_SIZE = 256;
+    private static final int HOP_SIZE = 32;
+
+    @Test
+    void emitsSpectrumEveryHop() {
+        FFTProcessor processor = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0, HOP_SIZE);
+        double[] spectrum = new double[processor.getBinCount()];
+        List<Long> positions = new ArrayList<>();
+
+        processor.pushSamples(sine(1000, 0), 0, 1000, spectrum, (s, position) -> positions.add(position));
+
+        assertEquals(1000 / HOP_SIZE, positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            assertEquals((long) (i + 1) * HOP_SIZE, positions.get(i).longValue());
+        }
+    }
+
+    @Test
+    void streamingSpectrumMatchesBlockSpectrum() {
+        double[] samples = sine(FFT_SIZE + 3 * HOP_SIZE, 0);
+
+        FFTProcessor streaming = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0, HOP_SIZE);
+        double[] spectrum = new double[streaming.getBinCount()];
+        double[] lastSpectrum = new double[streaming.getBinCount()];
+        streaming.pushSamples(samples, 0, samples.length, spectrum,
+                (s, position) -> System.arraycopy(s, 0, lastSpectrum, 0, s.length));
+
+        FFTProcessor block = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0);
+        double[] expected = block.computeSpectrum(Arrays.copyOfRange(samples, samples.length - FFT_SIZE, samples.length));
+
+        assertArrayEquals(expected, lastSpectrum, 1e-9);
+    }
+
+    @Test
+    void chunkedPushEqualsSinglePush() {
+        double[] samples = sine(2000, 0);
+
+        List<double[]> single = collectSpectra(samples, new int[]{samples.length});
+        List<double[]> chunked = collectSpectra(samples, new int[]{1, 7, 31, 100, 500, 1361});
+
+        assertEquals(single.size(), chunked.size());
+        for (int i = 0; i < single.size(); i++) {
+            assertArrayEquals(single.get(i), chunked.get(i), 1e-12);
+        }
+    }
+
+    @Test
+    void invalidHopSizeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0, FFT_SIZE + 1));
+    }
+
+    @Test
+    void tooSmallSpectrumArrayRejected() {
+        FFTProcessor processor = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0, HOP_SIZE);
+        assertThrows(IllegalArgumentException.class,
+                () -> processor.computeSpectrum(new double[FFT_SIZE], new double[FFT_SIZE / 2]));
+    }
+
+    @Test
+    void resetClearsStreamingBuffer() {
+        FFTProcessor processor = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.0, HOP_SIZE);
+        double[] spectrum = new double[processor.getBinCount()];
+        processor.pushSamples(sine(FFT_SIZE, 0), 0, FFT_SIZE, spectrum, (s, position) -> { });
+        processor.reset();
+
+        long[] lastPosition = new long[1];
+        processor.pushSamples(new double[HOP_SIZE], 0, HOP_SIZE, spectrum, (s, position) -> lastPosition[0] = position);
+        assertEquals(HOP_SIZE, lastPosition[0]);
+        for (double magnitude : spectrum) {
+            assertEquals(0.0, magnitude, 1e-12);
+        }
+    }
+
+    @Test
+    void streamingDoesNotAllocate() {
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadAllocatedMemoryEnabled()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        FFTProcessor processor = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.5, HOP_SIZE);
+        double[] spectrum = new double[processor.getBinCount()];
+        double[] samples = sine(HOP_SIZE * 4, 0);
+        double[] sink = new double[1];
+        FFTProcessor.SpectrumListener listener = (s, position) -> sink[0] += s[1];
+
+        for (int i = 0; i < 2_000; i++) {
+            processor.pushSamples(samples, 0, samples.length, spectrum, listener);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000; i++) {
+            processor.pushSamples(samples, 0, samples.length, spectrum, listener);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(sink[0] > 0);
+        assertTrue(allocated < 1_000, "Expected no allocation while streaming, got " + allocated + " bytes");
+    }
+
+    private static List<double[]> collectSpectra(double[] samples, int[] chunkSizes) {
+        FFTProcessor processor = new FFTProcessor(FFT_SIZE, WindowFunction.HAMMING, 0.3, HOP_SIZE);
+        double[] spectrum = new double[processor.getBinCount()];
+        List<double[]> spectra = new ArrayList<>();
+
+        int offset = 0;
+        for (int chunkSize : chunkSizes) {
+            processor.pushSamples(samples, offset, chunkSize, spectrum, (s, position) -> spectra.add(s.clone()));
+            offset += chunkSize;
+        }
+        return spectra;
+    }
+
+    private static double[] sine(int length, long start) {
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = Math.sin(2 * Math.PI * 1000.0 * (start + i) / SAMPLE_RATE);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeatureExtractorTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int FFT_SIZE = 2048;
+    private static final double DELTA = 0.001;
+
+    private static double[] sine(double frequency, double amplitude, int length) {
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE) * amplitude;
+        }
+        return samples;
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new FeatureExtractor(0, FFT_SIZE));
+        assertThrows(IllegalArgumentException.class, () -> new FeatureExtractor(SAMPLE_RATE, 1));
+    }
+
+    @Test
+    void sampleFeaturesOfSine() {
+        FeatureExtractor extractor = new FeatureExtractor(SAMPLE_RATE, FFT_SIZE);
+        AudioFeatures features = new AudioFeatures();
+        double[] samples = sine(1000d, 0.5d, SAMPLE_RATE);
+
+        extractor.extractSampleFeatures(samples, 0, samples.length, features);
+
+        assertEquals(0.5d / Math.sqrt(2), features.getRms(), DELTA);
+        assertEquals(0.5d, features.getPeak(), DELTA);
+        assertEquals(Math.sqrt(2), features.getCrestFactor(), DELTA);
+        // two crossings per period
+        assertEquals(2000d / SAMPLE_RATE, features.getZeroCrossingRate(), 0.0001);
+    }
+
+    @Test
+    void floatSampleFeaturesMatchDouble() {
+        FeatureExtractor extractor = new FeatureExtractor(SAMPLE_RATE, FFT_SIZE);
+        double[] samples = sine(440d, 0.8d, 4096);
+        float[] floatSamples = new float[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            floatSamples[i] = (float) samples[i];
+        }
+
+        AudioFeatures expected = new AudioFeatures();
+        AudioFeatures actual = new AudioFeatures();
+        extractor.extractSampleFeatures(samples, 0, samples.length, expected);
+        extractor.extractSampleFeatures(floatSamples, 0, floatSamples.length, actual);
+
+        assertEquals(expected.getRms(), actual.getRms(), 1e-6);
+        assertEquals(expected.getPeak(), actual.getPeak(), 1e-6);
+        assertEquals(expected.getZeroCrossingRate(), actual.getZeroCrossingRate());
+    }
+
+    @Test
+    void silenceHasNoCrestFactor() {
+        FeatureExtractor extractor = new FeatureExtractor(SAMPLE_RATE, FFT_SIZE);
+        AudioFeatures features = new AudioFeatures();
+
+        extractor.extractSampleFeatures(new double[256], 0, 256, features);
+        assertEquals(0d, features.getRms());
+        assertEquals(0d, features.getCrestFactor());
+        assertEquals(0d, features.getZeroCrossingRate());
+    }
+
+    @Test
+    void spectralFeaturesFollowFrequency() {
+        FFTProcessor fft = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0d);
+        FeatureExtractor extractor = new FeatureExtractor(SAMPLE_RATE, FFT_SIZE);
+        AudioFeatures features = new AudioFeatures();
+
+        extractor.extractSpectralFeatures(fft.computeSpectrum(sine(80d, 0.5d, FFT_SIZE)), features);
+        assertEquals(80d, features.getDominantFrequency(), (double) SAMPLE_RATE / FFT_SIZE);
+        assertTrue(features.getBandEnergy(BeatBand.SUB_BASS) > 10 * features.getBandEnergy(BeatBand.HIGH));
+        double bassCentroid = features.getSpectralCentroid();
+
+        extractor.extractSpectralFeatures(fft.computeSpectrum(sine(8000d, 0.5d, FFT_SIZE)), features);
+        assertEquals(8000d, features.getDominantFrequency(), (double) SAMPLE_RATE / FFT_SIZE);
+        assertTrue(features.getBandEnergy(BeatBand.HIGH) > 10 * features.getBandEnergy(BeatBand.SUB_BASS));
+        assertTrue(features.getSpectralCentroid() > bassCentroid);
+    }
+
+    @Test
+    void fluxOnlyCountsIncreases() {
+        FFTProcessor fft = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0d);
+        FeatureExtractor extractor = new FeatureExtractor(SAMPLE_RATE, FFT_SIZE);
+        AudioFeatures features = new AudioFeatures();
+        double[] quiet = fft.computeSpectrum(new double[FFT_SIZE]);
+        double[] loud = fft.computeSpectrum(sine(440d, 0.8d, FFT_SIZE));
+
+        extractor.extractSpectralFeatures(quiet, features);
+        assertEquals(0d, features.getSpectralFlux());
+
+        extractor.extractSpectralFeatures(loud, features);
+        assertTrue(features.getSpectralFlux() > 0d);
+
+        extractor.extractSpectralFeatures(quiet, features);
+        assertEquals(0d, features.getSpectralFlux());
+    }
+
+    @Test
+    void analysisResultIsSnapshot() {
+        FeatureExtractor extractor = new FeatureExtractor(SAMPLE_RATE, FFT_SIZE);
+        AudioFeatures features = new AudioFeatures();
+        double[] samples = sine(1000d, 0.5d, FFT_SIZE);
+
+        extractor.extractSampleFeatures(samples, 0, samples.length, features);
+        AnalysisResult result = new AnalysisResult(features);
+        extractor.extractSampleFeatures(new double[FFT_SIZE], 0, FFT_SIZE, features);
+
+        assertEquals(0.5d, result.getAmplitude(), DELTA);
+        assertEquals(Math.sqrt(2), result.getCrestFactor(), DELTA);
+        assertEquals(result.getEnergy(), result.getBandEnergy(BeatBand.FULL));
+    }
+}
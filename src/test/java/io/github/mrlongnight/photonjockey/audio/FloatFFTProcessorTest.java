@@ -0,0 +1,111 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the single precision path against the double precision reference.
+ */
+class FloatFFTProcessorTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int FFT_SIZE = 1024;
+
+    /**
+     * Maximum deviation relative to the spectrum peak, far below the quantization noise of 16-bit PCM.
+     */
+    private static final double RELATIVE_TOLERANCE = 1e-4;
+
+    @Test
+    void spectrumMatchesDoublePrecision() {
+        for (WindowFunction windowFunction : WindowFunction.values()) {
+            double[] samples = testSignal(FFT_SIZE);
+
+            double[] expected = new FFTProcessor(FFT_SIZE, windowFunction, 0.0).computeSpectrum(samples);
+            FloatFFTProcessor processor = new FloatFFTProcessor(FFT_SIZE, windowFunction, 0.0);
+            float[] actual = processor.computeSpectrum(toFloat(samples), new float[processor.getBinCount()]);
+
+            assertSpectrumClose(expected, actual);
+        }
+    }
+
+    @Test
+    void streamingSpectrumMatchesDoublePrecision() {
+        int hopSize = 128;
+        double[] samples = testSignal(FFT_SIZE * 3);
+
+        FFTProcessor reference = new FFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.5, hopSize);
+        double[] expected = new double[reference.getBinCount()];
+        double[][] expectedSpectra = new double[samples.length / hopSize][];
+        int[] count = new int[1];
+        reference.pushSamples(samples, 0, samples.length, expected, (s, position) -> expectedSpectra[count[0]++] = s.clone());
+
+        FloatFFTProcessor processor = new FloatFFTProcessor(FFT_SIZE, WindowFunction.HANN, 0.5, hopSize);
+        float[] actual = new float[processor.getBinCount()];
+        int[] index = new int[1];
+        processor.pushSamples(toFloat(samples), 0, samples.length, actual, (s, position) -> {
+            assertEquals((long) (index[0] + 1) * hopSize, position);
+            assertSpectrumClose(expectedSpectra[index[0]++], s);
+        });
+
+        assertEquals(count[0], index[0]);
+    }
+
+    @Test
+    void analyzerResultsMatchDoublePrecision() {
+        SimpleAudioAnalyzer doubleAnalyzer = new SimpleAudioAnalyzer(SAMPLE_RATE, FFT_SIZE);
+        SimpleAudioAnalyzer floatAnalyzer = new SimpleAudioAnalyzer(SAMPLE_RATE, FFT_SIZE, AnalysisPrecision.FLOAT);
+
+        for (int frame = 0; frame < 10; frame++) {
+            AudioFrame audioFrame = toFrame(testSignal(FFT_SIZE));
+            AnalysisResult expected = doubleAnalyzer.analyze(audioFrame);
+            AnalysisResult actual = floatAnalyzer.analyze(audioFrame);
+
+            assertEquals(expected.getFrequency(), actual.getFrequency());
+            assertEquals(expected.getAmplitude(), actual.getAmplitude(), 1e-6);
+            assertEquals(expected.getEnergy(), actual.getEnergy(), 1e-6);
+        }
+    }
+
+    private static void assertSpectrumClose(double[] expected, float[] actual) {
+        double peak = 0.0;
+        for (double magnitude : expected) {
+            peak = Math.max(peak, magnitude);
+        }
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], peak * RELATIVE_TOLERANCE, "Bin " + i + " deviates");
+        }
+    }
+
+    private static double[] testSignal(int length) {
+        Random random = new Random(7);
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = 0.5 * Math.sin(2 * Math.PI * 440.0 * i / SAMPLE_RATE)
+                    + 0.2 * Math.sin(2 * Math.PI * 3000.0 * i / SAMPLE_RATE)
+                    + 0.05 * random.nextGaussian();
+        }
+        return samples;
+    }
+
+    private static float[] toFloat(double[] samples) {
+        float[] result = new float[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            result[i] = (float) samples[i];
+        }
+        return result;
+    }
+
+    private static AudioFrame toFrame(double[] samples) {
+        byte[] data = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            short value = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(samples[i] * 32767)));
+            data[i * 2] = (byte) (value & 0xFF);
+            data[i * 2 + 1] = (byte) ((value >> 8) & 0xFF);
+        }
+        return new AudioFrame(data, SAMPLE_RATE, 1, 0);
+    }
+}
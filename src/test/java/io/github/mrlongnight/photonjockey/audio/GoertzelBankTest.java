@@ -0,0 +1,162 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoertzelBankTest {
+
+    private static final double SAMPLE_RATE = 44100d;
+    private static final int BLOCK_LENGTH = 882;
+    private static final double DELTA = 0.01;
+
+    private static double[] sine(double frequency, double amplitude, int length) {
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE) * amplitude;
+        }
+        return samples;
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new GoertzelBank(SAMPLE_RATE, 0, 100d));
+        assertThrows(IllegalArgumentException.class, () -> new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH));
+        assertThrows(IllegalArgumentException.class, () -> new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 30000d));
+        assertThrows(IllegalArgumentException.class, () -> new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 0d));
+    }
+
+    @Test
+    void reportsRmsAtTrackedFrequencies() {
+        GoertzelBank bank = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 200d, 1000d, 8000d);
+        double[] samples = sine(1000d, 0.8d, BLOCK_LENGTH);
+
+        bank.process(samples, 0, samples.length);
+        double[] energies = bank.getEnergies();
+        assertEquals(0.8d / Math.sqrt(2), energies[1], DELTA);
+        assertTrue(energies[0] < 0.01, "200 Hz should be quiet, got " + energies[0]);
+        assertTrue(energies[2] < 0.01, "8 kHz should be quiet, got " + energies[2]);
+    }
+
+    @Test
+    void energiesOnlyChangeWithCompletedBlocks() {
+        GoertzelBank bank = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 200d);
+        double[] samples = sine(200d, 0.5d, 3 * BLOCK_LENGTH);
+
+        bank.process(samples, 0, BLOCK_LENGTH - 1);
+        assertEquals(0d, bank.getEnergies()[0]);
+
+        // chunk boundaries don't line up with the blocks
+        for (int offset = BLOCK_LENGTH - 1; offset < samples.length; offset += 500) {
+            bank.process(samples, offset, Math.min(500, samples.length - offset));
+        }
+        assertEquals(0.5d / Math.sqrt(2), bank.getEnergies()[0], DELTA);
+
+        bank.reset();
+        assertEquals(0d, bank.getEnergies()[0]);
+    }
+
+    @Test
+    void chunkedMatchesSingleCall() {
+        double[] samples = sine(55d, 0.7d, 5 * BLOCK_LENGTH + 17);
+        GoertzelBank single = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 55d, 200d);
+        GoertzelBank chunked = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 55d, 200d);
+
+        single.process(samples, 0, samples.length);
+        for (int offset = 0; offset < samples.length; offset += 123) {
+            chunked.process(samples, offset, Math.min(123, samples.length - offset));
+        }
+        assertArrayEquals(single.getEnergies(), chunked.getEnergies(), 1e-12);
+    }
+
+    @Test
+    void bandsAreConfiguredByProfile() {
+        AudioProfile profile = new AudioProfile("test", "Test");
+        assertFalse(GoertzelBank.isSelectedBy(profile));
+        assertFalse(GoertzelBank.isSelectedBy(null));
+
+        profile.setParameter(GoertzelBank.PARAM_SOURCE, GoertzelBank.SOURCE_GOERTZEL);
+        profile.setParameter(GoertzelBank.PARAM_SUB_BASS_HZ, 60);
+        assertTrue(GoertzelBank.isSelectedBy(profile));
+
+        // without a block length the bank covers the analysis window, refreshed every hop
+        GoertzelBank bank = GoertzelBank.forBands(profile, SAMPLE_RATE, 110, 880);
+        assertEquals(BeatBand.SPLIT_BANDS.length, bank.getFrequencyCount());
+        assertEquals(60d, bank.getFrequency(0));
+        assertEquals(GoertzelBank.DEFAULT_LOW_MID_HZ, bank.getFrequency(1));
+        assertEquals(GoertzelBank.DEFAULT_HIGH_HZ, bank.getFrequency(2));
+        assertEquals(880, bank.getBlockLength());
+        assertEquals(110, bank.getHopLength());
+
+        // 50 ms are 2205 samples, rounded to 20 hops
+        profile.setParameter(GoertzelBank.PARAM_BLOCK_MILLIS, 50);
+        assertEquals(2200, GoertzelBank.forBands(profile, SAMPLE_RATE, 110, 880).getBlockLength());
+
+        profile.setParameter(GoertzelBank.PARAM_BLOCK_MILLIS, 0);
+        assertThrows(IllegalArgumentException.class, () -> GoertzelBank.forBands(profile, SAMPLE_RATE, 110, 880));
+    }
+
+    @Test
+    void overlappingBlocksRefreshEveryHop() {
+        int hop = BLOCK_LENGTH / 4;
+        GoertzelBank sliding = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, hop, 200d);
+        assertThrows(IllegalArgumentException.class, () -> new GoertzelBank(SAMPLE_RATE, hop, BLOCK_LENGTH, 200d));
+
+        double[] samples = sine(200d, 0.5d, 2 * BLOCK_LENGTH);
+        sliding.process(samples, 0, 2 * BLOCK_LENGTH);
+        assertEquals(0.5d / Math.sqrt(2), sliding.getEnergies()[0], DELTA);
+
+        // the tone stops, every hop of silence moves a quarter of the block out of the energy
+        double[] silence = new double[hop];
+        double previous = sliding.getEnergies()[0];
+        for (int i = 1; i <= 4; i++) {
+            sliding.process(silence, 0, hop);
+            double energy = sliding.getEnergies()[0];
+            assertEquals(0.5d / Math.sqrt(2) * (4 - i) / 4d, energy, DELTA);
+            assertTrue(energy < previous);
+            previous = energy;
+        }
+
+        // the last block of the sliding bank matches a fresh bank over the same samples
+        GoertzelBank block = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 200d);
+        double[] tail = sine(200d, 0.5d, BLOCK_LENGTH + hop);
+        sliding.reset();
+        sliding.process(tail, 0, tail.length);
+        block.process(tail, hop, BLOCK_LENGTH);
+        assertEquals(block.getEnergies()[0], sliding.getEnergies()[0], 1e-12);
+    }
+
+    @Test
+    void slidingSumsDoNotDrift() {
+        int hop = BLOCK_LENGTH / 2;
+        GoertzelBank sliding = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, hop, 55d, 1234.5d, 8000d);
+        Random random = new Random(42);
+        double[] noise = new double[500 * BLOCK_LENGTH];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = random.nextDouble() * 2d - 1d;
+        }
+        sliding.process(noise, 0, noise.length);
+
+        GoertzelBank block = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, 55d, 1234.5d, 8000d);
+        block.process(noise, noise.length - BLOCK_LENGTH, BLOCK_LENGTH);
+        assertArrayEquals(block.getEnergies(), sliding.getEnergies(), 1e-9);
+    }
+
+    @Test
+    void silenceAfterLoudBlocksReportsNoEnergy() {
+        GoertzelBank bank = new GoertzelBank(SAMPLE_RATE, BLOCK_LENGTH, BLOCK_LENGTH / 3, 55d, 1234.5d, 8000d);
+        Random random = new Random(3);
+        double[] noise = new double[50 * BLOCK_LENGTH];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = (random.nextDouble() * 2d - 1d) * 1000d;
+        }
+        bank.process(noise, 0, noise.length);
+
+        // the rounding errors of the running sums must not outlast the samples they came from
+        double[] silence = new double[2 * BLOCK_LENGTH];
+        bank.process(silence, 0, silence.length);
+        assertArrayEquals(new double[3], bank.getEnergies());
+    }
+}
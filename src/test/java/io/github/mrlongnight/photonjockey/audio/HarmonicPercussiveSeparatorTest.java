@@ -0,0 +1,98 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HarmonicPercussiveSeparatorTest {
+
+    private static final int BINS = 64;
+    private static final int TIME_WINDOW = 9;
+    private static final int FREQUENCY_WINDOW = 7;
+
+    /**
+     * @return spectrum of a sustained tone, a single peak over a quiet floor
+     */
+    private static double[] tone() {
+        double[] spectrum = new double[BINS];
+        Arrays.fill(spectrum, 0.01d);
+        spectrum[20] = 10d;
+        return spectrum;
+    }
+
+    /**
+     * @return spectrum of a drum hit, broadband energy on top of the tone
+     */
+    private static double[] toneWithHit() {
+        double[] spectrum = tone();
+        for (int bin = 0; bin < BINS; bin++) {
+            spectrum[bin] += 2d;
+        }
+        return spectrum;
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new HarmonicPercussiveSeparator(0, TIME_WINDOW, 3));
+        assertThrows(IllegalArgumentException.class, () -> new HarmonicPercussiveSeparator(BINS, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new HarmonicPercussiveSeparator(BINS, TIME_WINDOW, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HarmonicPercussiveSeparator(BINS, TIME_WINDOW, 3).process(new double[BINS - 1]));
+    }
+
+    @Test
+    void sustainedToneIsHarmonic() {
+        HarmonicPercussiveSeparator separator = new HarmonicPercussiveSeparator(BINS, TIME_WINDOW, FREQUENCY_WINDOW);
+        double power = 0d;
+        for (int frame = 0; frame < 2 * TIME_WINDOW; frame++) {
+            power = separator.process(tone());
+        }
+
+        // the peak is harmonic, only the flat floor counts as percussive
+        assertTrue(separator.getPercussiveSpectrum()[20] < 0.01d,
+                "Tone should be suppressed, got " + separator.getPercussiveSpectrum()[20]);
+        assertTrue(power < 0.01d, "Percussive power should be low, got " + power);
+    }
+
+    @Test
+    void hitOverToneIsPercussive() {
+        HarmonicPercussiveSeparator separator = new HarmonicPercussiveSeparator(BINS, TIME_WINDOW, FREQUENCY_WINDOW);
+        for (int frame = 0; frame < 2 * TIME_WINDOW; frame++) {
+            separator.process(tone());
+        }
+        double power = separator.process(toneWithHit());
+
+        double[] percussive = separator.getPercussiveSpectrum();
+        assertEquals(2.01d, percussive[5], 0.01);
+        assertTrue(percussive[20] < 2d, "Tone should stay mostly harmonic, got " + percussive[20]);
+        // nearly all the hit comes through
+        assertTrue(power > 0.9d * (BINS - 1) * 4d, "Percussive power too low, got " + power);
+    }
+
+    @Test
+    void edgesUseClippedWindow() {
+        HarmonicPercussiveSeparator separator = new HarmonicPercussiveSeparator(3, 1, 5);
+        // a single frame window makes every bin its own harmonic estimate
+        separator.process(new double[]{1d, 2d, 3d});
+
+        double[] percussive = separator.getPercussiveSpectrum();
+        // medians of {1, 2, 3} clipped to the bins within two of each bin, all are 2
+        assertEquals(1d * 4d / (4d + 1d), percussive[0], 1e-12);
+        assertEquals(2d * 4d / (4d + 4d), percussive[1], 1e-12);
+        assertEquals(3d * 4d / (4d + 9d), percussive[2], 1e-12);
+    }
+
+    @Test
+    void resetForgetsFrames() {
+        HarmonicPercussiveSeparator separator = new HarmonicPercussiveSeparator(BINS, TIME_WINDOW, FREQUENCY_WINDOW);
+        for (int frame = 0; frame < TIME_WINDOW; frame++) {
+            separator.process(tone());
+        }
+        separator.reset();
+
+        HarmonicPercussiveSeparator fresh = new HarmonicPercussiveSeparator(BINS, TIME_WINDOW, FREQUENCY_WINDOW);
+        assertEquals(fresh.process(toneWithHit()), separator.process(toneWithHit()), 1e-12);
+    }
+}
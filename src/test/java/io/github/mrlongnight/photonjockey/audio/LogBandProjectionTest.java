@@ -0,0 +1,97 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogBandProjectionTest {
+
+    private static final int FFT_SIZE = 2048;
+    private static final double SAMPLE_RATE = 44100d;
+    private static final int BANDS = 48;
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, 1));
+        assertThrows(IllegalArgumentException.class, () -> LogBandProjection.of(1, SAMPLE_RATE, BANDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS, 100d, 50d));
+        assertThrows(IllegalArgumentException.class,
+                () -> LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS, 40d, 22050d));
+        LogBandProjection projection = LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS);
+        assertThrows(IllegalArgumentException.class,
+                () -> projection.project(new double[FFT_SIZE / 2], new double[BANDS]));
+    }
+
+    @Test
+    void projectionsAreCached() {
+        LogBandProjection projection = LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS);
+        assertSame(projection, LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS));
+        assertNotSame(projection, LogBandProjection.of(FFT_SIZE, 48000d, BANDS));
+        assertNotSame(projection, LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS + 1));
+    }
+
+    @Test
+    void centersAreLogarithmic() {
+        LogBandProjection projection = LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS, 50d, 12800d);
+        assertEquals(50d, projection.getCenterFrequency(0), 1e-9);
+        assertEquals(12800d, projection.getCenterFrequency(BANDS - 1), 1e-6);
+
+        double ratio = projection.getCenterFrequency(1) / projection.getCenterFrequency(0);
+        for (int band = 1; band < BANDS; band++) {
+            assertEquals(ratio, projection.getCenterFrequency(band) / projection.getCenterFrequency(band - 1), 1e-9);
+        }
+    }
+
+    @Test
+    void bandPowersSumToCoveredBins() {
+        LogBandProjection projection = LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS);
+        double[] flat = new double[FFT_SIZE / 2 + 1];
+        Arrays.fill(flat, 1d);
+        double[] bands = projection.project(flat, new double[BANDS]);
+
+        double binWidth = SAMPLE_RATE / FFT_SIZE;
+        double ratio = projection.getCenterFrequency(1) / projection.getCenterFrequency(0);
+        // the outer halves of the first and last band reach beyond the centers
+        double covered = (projection.getCenterFrequency(BANDS - 1) * (1d + ratio) / 2d
+                - projection.getCenterFrequency(0) * (1d + 1d / ratio) / 2d) / binWidth;
+        double sum = 0d;
+        for (double band : bands) {
+            assertTrue(band > 0d, "No band should be empty");
+            sum += band * band;
+        }
+        assertEquals(covered, sum, covered * 0.01);
+        // much cheaper than a dense matrix
+        assertTrue(projection.getKernelSize() < 3 * FFT_SIZE / 2, "Kernel too large: " + projection.getKernelSize());
+    }
+
+    @Test
+    void peakLandsInNearestBand() {
+        LogBandProjection projection = LogBandProjection.of(FFT_SIZE, SAMPLE_RATE, BANDS);
+        double[] spectrum = new double[FFT_SIZE / 2 + 1];
+        int bin = 93;
+        spectrum[bin] = 1d;
+        double[] bands = projection.project(spectrum, new double[BANDS]);
+
+        double frequency = bin * SAMPLE_RATE / FFT_SIZE;
+        int nearest = 0;
+        for (int band = 1; band < BANDS; band++) {
+            if (Math.abs(Math.log(projection.getCenterFrequency(band) / frequency))
+                    < Math.abs(Math.log(projection.getCenterFrequency(nearest) / frequency))) {
+                nearest = band;
+            }
+        }
+
+        int loudest = 0;
+        for (int band = 1; band < BANDS; band++) {
+            if (bands[band] > bands[loudest]) {
+                loudest = band;
+            }
+        }
+        assertEquals(nearest, loudest);
+        assertEquals(0d, bands[0]);
+        assertEquals(0d, bands[BANDS - 1]);
+    }
+}
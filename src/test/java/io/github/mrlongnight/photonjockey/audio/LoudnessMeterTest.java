@@ -0,0 +1,104 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoudnessMeterTest {
+
+    private static final double SAMPLE_RATE = 48000d;
+
+    private static double[] sine(double frequency, double amplitude, double seconds) {
+        double[] signal = new double[(int) (SAMPLE_RATE * seconds)];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = amplitude * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE);
+        }
+        return signal;
+    }
+
+    private static void feed(LoudnessMeter meter, double[] signal) {
+        meter.process(signal, 0, signal.length);
+    }
+
+    @Test
+    void fullScaleSineReadsMinusThree() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE);
+        feed(meter, sine(1000d, 1d, 4d));
+
+        assertEquals(-3.01d, meter.getMomentaryLoudness(), 0.05);
+        assertEquals(-3.01d, meter.getShortTermLoudness(), 0.05);
+        assertEquals(-3.01d, meter.getIntegratedLoudness(), 0.1);
+    }
+
+    @Test
+    void silenceReadsMinimum() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE);
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getMomentaryLoudness());
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getIntegratedLoudness());
+
+        feed(meter, new double[(int) SAMPLE_RATE]);
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getMomentaryLoudness());
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getShortTermLoudness());
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getIntegratedLoudness());
+    }
+
+    @Test
+    void momentaryFollowsFasterThanShortTerm() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE);
+        feed(meter, sine(1000d, 0.1d, 4d));
+        double quiet = meter.getShortTermLoudness();
+        assertEquals(-23.01d, quiet, 0.05);
+
+        feed(meter, sine(1000d, 1d, 0.5d));
+        assertEquals(-3.01d, meter.getMomentaryLoudness(), 0.05);
+        assertTrue(meter.getShortTermLoudness() < -10d, "Short-term should lag, got " + meter.getShortTermLoudness());
+    }
+
+    @Test
+    void integratedLoudnessIsGated() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE);
+        feed(meter, sine(1000d, 0.1d, 10d));
+        // silence is below the absolute gate
+        feed(meter, new double[(int) (SAMPLE_RATE * 10d)]);
+        assertEquals(-23.01d, meter.getIntegratedLoudness(), 0.1);
+
+        // 30 LU quieter, below the relative gate
+        feed(meter, sine(1000d, 0.1d / 31.6d, 10d));
+        assertEquals(-23.01d, meter.getIntegratedLoudness(), 0.2);
+
+        meter.resetIntegrated();
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getIntegratedLoudness());
+        assertEquals(-53d, meter.getMomentaryLoudness(), 0.1);
+    }
+
+    @Test
+    void chunksMatchSingleCall() {
+        double[] signal = sine(440d, 0.5d, 3.7d);
+        LoudnessMeter whole = new LoudnessMeter(SAMPLE_RATE);
+        feed(whole, signal);
+
+        LoudnessMeter chunked = new LoudnessMeter(SAMPLE_RATE);
+        float[] floatSignal = new float[signal.length];
+        for (int i = 0; i < signal.length; i++) {
+            floatSignal[i] = (float) signal[i];
+        }
+        for (int offset = 0; offset < signal.length; offset += 441) {
+            chunked.process(floatSignal, offset, Math.min(441, signal.length - offset));
+        }
+
+        assertEquals(whole.getMomentaryLoudness(), chunked.getMomentaryLoudness(), 1e-4);
+        assertEquals(whole.getShortTermLoudness(), chunked.getShortTermLoudness(), 1e-4);
+        assertEquals(whole.getIntegratedLoudness(), chunked.getIntegratedLoudness(), 1e-4);
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE);
+        feed(meter, sine(1000d, 1d, 1d));
+        meter.reset();
+
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getMomentaryLoudness());
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getShortTermLoudness());
+        assertEquals(LoudnessMeter.MIN_LOUDNESS, meter.getIntegratedLoudness());
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import io.github.mrlongnight.photonjockey.audio.device.PJAudioFormat;
+import io.github.mrlongnight.photonjockey.config.ConfigNode;
+import io.github.mrlongnight.photonjockey.config.PJConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PercussiveSeparationTest {
+
+    private static final PJAudioFormat FORMAT = new PJAudioFormat(44100d, true, 1, 2);
+    private static final double AMPLITUDE = 0.5d;
+    /**
+     * Chunks until the harmonic median of a sustained tone settled.
+     */
+    private static final int SETTLE_CHUNKS = 50;
+    /**
+     * Share of the power of a sustained tone that may leak into the percussive part.
+     */
+    private static final double MAX_TONE_SHARE = 0.01d;
+
+    private final int analysisRate = new PJConfig().getDefaultInt(ConfigNode.AUDIO_ANALYSIS_RATE);
+
+    @Test
+    void sustainedBassIsNotPercussive() {
+        // the bass line of a track, which must not trigger percussive beats
+        assertTrue(percussiveShareOfTone(55d) < MAX_TONE_SHARE, "55 Hz tone passed as percussive");
+        assertTrue(percussiveShareOfTone(80d) < MAX_TONE_SHARE, "80 Hz tone passed as percussive");
+        assertTrue(percussiveShareOfTone(150d) < MAX_TONE_SHARE, "150 Hz tone passed as percussive");
+    }
+
+    @Test
+    void sustainedToneIsNotPercussive() {
+        assertTrue(percussiveShareOfTone(1000d) < MAX_TONE_SHARE, "1 kHz tone passed as percussive");
+    }
+
+    @Test
+    void noiseBurstIsPercussive() {
+        PercussiveSeparation separation = PJAudioReader.createPercussiveSeparation(FORMAT, analysisRate);
+        double[] silence = new double[PJAudioReader.samplesPerChunk(FORMAT, analysisRate)];
+        for (int i = 0; i < SETTLE_CHUNKS; i++) {
+            separation.process(silence, 0, silence.length);
+        }
+
+        double[] burst = new double[silence.length];
+        Random random = new Random(7);
+        for (int i = 0; i < burst.length; i++) {
+            burst[i] = (random.nextDouble() * 2d - 1d) * AMPLITUDE;
+        }
+        double rms = separation.process(burst, 0, burst.length);
+        // white noise of that amplitude has an RMS of 0.29, the Hann window covers the burst only in part
+        assertTrue(rms > 0.1, "Noise burst not percussive, got " + rms);
+    }
+
+    /**
+     * @return percussive power of a settled tone, relative to the power of the tone
+     */
+    private double percussiveShareOfTone(double frequency) {
+        PercussiveSeparation separation = PJAudioReader.createPercussiveSeparation(FORMAT, analysisRate);
+        int samplesPerChunk = PJAudioReader.samplesPerChunk(FORMAT, analysisRate);
+
+        double percussivePower = 0d;
+        int measuredChunks = 50;
+        for (int chunk = 0; chunk < SETTLE_CHUNKS + measuredChunks; chunk++) {
+            double[] samples = tone(frequency, chunk * samplesPerChunk, samplesPerChunk);
+            double rms = separation.process(samples, 0, samples.length);
+            if (chunk >= SETTLE_CHUNKS) {
+                percussivePower += rms * rms;
+            }
+        }
+        double tonePower = AMPLITUDE * AMPLITUDE / 2d;
+        return percussivePower / measuredChunks / tonePower;
+    }
+
+    private static double[] tone(double frequency, int start, int length) {
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = AMPLITUDE * Math.sin(2d * Math.PI * frequency * (start + i) / FORMAT.sampleRate());
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectralFluxAnalyzerTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int FFT_SIZE = 1024;
+    private static final int HIT_INTERVAL = 8;
+
+    private SpectralFluxAnalyzer analyzer;
+    private Random random;
+    private long sampleIndex;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = new SpectralFluxAnalyzer(SAMPLE_RATE, FFT_SIZE);
+        random = new Random(42);
+        sampleIndex = 0;
+    }
+
+    @Test
+    void nullFrameReturnsNull() {
+        assertNull(analyzer.analyze(null));
+    }
+
+    @Test
+    void steadyToneHasNoOnsets() {
+        for (int i = 0; i < 100; i++) {
+            AnalysisResult result = analyzer.analyze(frame(false));
+            assertFalse(result.isOnset(), "Unexpected onset in frame " + i);
+        }
+    }
+
+    @Test
+    void detectsHitsAtConstantLoudness() {
+        int onsets = 0;
+        for (int i = 0; i < 20 * HIT_INTERVAL; i++) {
+            boolean hit = i % HIT_INTERVAL == HIT_INTERVAL - 1;
+            AnalysisResult result = analyzer.analyze(frame(hit));
+
+            // loudness stays the same, so an energy threshold could not tell hits apart
+            assertEquals(0.25, result.getEnergy(), 0.02);
+            if (i >= 2 * HIT_INTERVAL) {
+                assertEquals(hit, result.isOnset(), "Wrong onset state in frame " + i);
+            }
+            if (result.isOnset()) {
+                onsets++;
+            }
+        }
+        assertTrue(onsets >= 18, "Expected most hits to be detected, got " + onsets);
+    }
+
+    @Test
+    void resetClearsHistory() {
+        for (int i = 0; i < 50; i++) {
+            analyzer.analyze(frame(false));
+        }
+        analyzer.reset();
+
+        AnalysisResult first = analyzer.analyze(frame(true));
+        assertEquals(0.0, first.getSpectralFlux());
+        assertFalse(first.isOnset());
+    }
+
+    @Test
+    void dominantFrequencyOfTone() {
+        AnalysisResult result = analyzer.analyze(frame(false));
+        assertEquals(80.0, result.getFrequency(), (double) SAMPLE_RATE / FFT_SIZE);
+    }
+
+    @Test
+    void invalidThresholdRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SpectralFluxAnalyzer(SAMPLE_RATE, FFT_SIZE, 0, 1.5, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new SpectralFluxAnalyzer(SAMPLE_RATE, FFT_SIZE, 8, 0.5, 0.0));
+    }
+
+    /**
+     * Creates a 16-bit mono frame with a continuous bass tone, or white noise of the same RMS for hits.
+     */
+    private AudioFrame frame(boolean hit) {
+        byte[] data = new byte[FFT_SIZE * 2];
+        double rms = 0.25;
+        for (int i = 0; i < FFT_SIZE; i++, sampleIndex++) {
+            double sample = hit
+                    ? random.nextGaussian() * rms
+                    : Math.sin(2 * Math.PI * 80.0 * sampleIndex / SAMPLE_RATE) * rms * Math.sqrt(2);
+            short value = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(sample * 32768.0)));
+            data[i * 2] = (byte) (value & 0xFF);
+            data[i * 2 + 1] = (byte) ((value >> 8) & 0xFF);
+        }
+        return new AudioFrame(data, SAMPLE_RATE, 1, 0);
+    }
+}
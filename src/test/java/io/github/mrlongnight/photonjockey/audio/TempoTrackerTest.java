@@ -0,0 +1,135 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TempoTrackerTest {
+
+    private static final long CHUNK_MILLIS = 5;
+
+    private TempoTracker tracker;
+    private long time;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new TempoTracker();
+        time = 0;
+    }
+
+    /**
+     * Feeds a click track, one value per chunk, clicks with the given strength pattern, silence in between.
+     */
+    private void feedClicks(double bpm, long durationMillis, double... pattern) {
+        feedClicks(bpm, 0d, CHUNK_MILLIS, durationMillis, pattern);
+    }
+
+    /**
+     * Feeds a click track in chunks of the given length, the first click delayed by the given share of the
+     * interval.
+     */
+    private void feedClicks(double bpm, double phase, long chunkMillis, long durationMillis, double... pattern) {
+        double interval = 60000d / bpm;
+        long end = time + durationMillis;
+        double nextClick = time + phase * interval;
+        int click = 0;
+        for (; time < end; time += chunkMillis) {
+            double strength = 0d;
+            if (time >= nextClick) {
+                strength = pattern[click++ % pattern.length];
+                nextClick += interval;
+            }
+            tracker.addOnsetStrength(time, strength);
+        }
+    }
+
+    @Test
+    void noOnsetsNoTempo() {
+        for (; time < 5000; time += CHUNK_MILLIS) {
+            tracker.addOnsetStrength(time, 0d);
+        }
+        assertEquals(0d, tracker.getBpm());
+        assertEquals(0d, tracker.getConfidence());
+    }
+
+    @Test
+    void steadyClickTrack() {
+        feedClicks(120d, 8000, 1d);
+        assertEquals(120d, tracker.getBpm(), 2d);
+        assertTrue(tracker.getConfidence() > 0.7, "confidence " + tracker.getConfidence());
+    }
+
+    @Test
+    void negativeTimes() {
+        // nanoTime based clocks may well be negative
+        time = -1_000_000;
+        feedClicks(120d, 8000, 1d);
+        assertEquals(120d, tracker.getBpm(), 2d);
+        assertTrue(tracker.getConfidence() > 0.7, "confidence " + tracker.getConfidence());
+    }
+
+    @Test
+    void tempoSweepHasNoOctaveErrors() {
+        for (long chunkMillis : new long[]{5, 10, 20}) {
+            for (double phase : new double[]{0d, 0.3d, 0.7d}) {
+                for (double bpm = 90d; bpm <= 180d; bpm += 5d) {
+                    tracker.reset();
+                    time = 0;
+                    feedClicks(bpm, phase, chunkMillis, 8000, 1d);
+                    assertEquals(bpm, tracker.getBpm(), 2d,
+                            "chunk " + chunkMillis + " ms, phase " + phase + ", " + bpm + " BPM");
+                }
+            }
+        }
+    }
+
+    @Test
+    void valuesAfterEstimateWithinBinCount() {
+        // strong beats at 100 BPM arrive late in bins that were estimated on a weak value, weaker clicks at 150 BPM
+        for (; time < 8000; time += CHUNK_MILLIS) {
+            if (time % 600 == 0) {
+                tracker.addOnsetStrength(time, 0.1d);
+                tracker.getBpm();
+            } else if (time % 600 == 5) {
+                tracker.addOnsetStrength(time, 1d);
+            } else {
+                tracker.addOnsetStrength(time, time % 400 == 0 ? 0.5d : 0d);
+            }
+        }
+        assertEquals(100d, tracker.getBpm(), 2d);
+    }
+
+    @Test
+    void missedBeatsKeepTempo() {
+        // every fourth beat missing
+        feedClicks(100d, 8000, 1d, 1d, 1d, 0d);
+        assertEquals(100d, tracker.getBpm(), 2d);
+    }
+
+    @Test
+    void offBeatsDoNotDoubleTempo() {
+        // strong beats with weaker eighth notes in between
+        feedClicks(2 * 95d, 8000, 1d, 0.4d);
+        assertEquals(95d, tracker.getBpm(), 2d);
+    }
+
+    @Test
+    void followsTempoChange() {
+        feedClicks(100d, 8000, 1d);
+        assertEquals(100d, tracker.getBpm(), 2d);
+
+        feedClicks(140d, 8000, 1d);
+        assertEquals(140d, tracker.getBpm(), 2d);
+    }
+
+    @Test
+    void reset() {
+        feedClicks(120d, 4000, 1d);
+        assertTrue(tracker.getBpm() > 0d);
+
+        tracker.reset();
+        assertEquals(0d, tracker.getBpm());
+        assertEquals(0d, tracker.getConfidence());
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.mrlongnight.photonjockey.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransientDetectorTest {
+
+    private static final int CHUNK_LENGTH = 882;
+    private static final int LEVELS = 4;
+
+    private static double[] noise(Random random, double amplitude) {
+        double[] samples = new double[CHUNK_LENGTH];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (random.nextDouble() * 2 - 1) * amplitude;
+        }
+        return samples;
+    }
+
+    /**
+     * Quiet noise with a decaying burst of loud noise starting at the given sample.
+     */
+    private static double[] burstAt(Random random, int onset) {
+        double[] samples = noise(random, 0.01d);
+        for (int i = onset; i < samples.length; i++) {
+            samples[i] += (random.nextDouble() * 2 - 1) * Math.exp(-(i - onset) / 200d);
+        }
+        return samples;
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new TransientDetector(1, LEVELS));
+        assertThrows(IllegalArgumentException.class, () -> new TransientDetector(CHUNK_LENGTH, 0));
+    }
+
+    @Test
+    void locatesBurstWithinChunk() {
+        Random random = new Random(42);
+        TransientDetector detector = new TransientDetector(CHUNK_LENGTH, LEVELS);
+        for (int chunk = 0; chunk < 5; chunk++) {
+            double[] samples = noise(random, 0.01d);
+            detector.detect(samples, 0, samples.length);
+        }
+
+        for (int onset : new int[]{100, 437, 700}) {
+            double[] samples = burstAt(random, onset);
+            int detected = detector.detect(samples, 0, samples.length);
+            assertEquals(onset, detected, 2 * (1 << LEVELS), "Burst at " + onset);
+            assertTrue(detector.getLastRatio() >= TransientDetector.getMinRatio(CHUNK_LENGTH / 2));
+
+            // let the background settle back to the quiet noise
+            for (int chunk = 0; chunk < 20; chunk++) {
+                double[] quiet = noise(random, 0.01d);
+                detector.detect(quiet, 0, quiet.length);
+            }
+        }
+    }
+
+    @Test
+    void steadyNoiseHasNoTransient() {
+        Random random = new Random(7);
+        TransientDetector detector = new TransientDetector(CHUNK_LENGTH, LEVELS);
+        for (int chunk = 0; chunk < 10; chunk++) {
+            double[] samples = noise(random, 0.5d);
+            detector.detect(samples, 0, samples.length);
+        }
+
+        double[] samples = noise(random, 0.5d);
+        assertEquals(-1, detector.detect(samples, 0, samples.length));
+    }
+
+    @Test
+    void stationaryNoiseNeverTriggers() {
+        Random random = new Random(1234);
+        TransientDetector detector = new TransientDetector(CHUNK_LENGTH, LEVELS);
+        double maxRatio = 0d;
+        for (int chunk = 0; chunk < 2000; chunk++) {
+            double[] samples = new double[CHUNK_LENGTH];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = random.nextGaussian() * 0.2d;
+            }
+            int detected = detector.detect(samples, 0, samples.length);
+            if (chunk >= 10) {
+                assertEquals(-1, detected, "Chunk " + chunk + " ratio " + detector.getLastRatio());
+                maxRatio = Math.max(maxRatio, detector.getLastRatio());
+            }
+        }
+        // by chance alone the strongest pair of a chunk exceeds the fixed minimum ratio
+        assertTrue(maxRatio > TransientDetector.MIN_TRANSIENT_RATIO);
+    }
+
+    @Test
+    void silenceHasNoTransient() {
+        TransientDetector detector = new TransientDetector(CHUNK_LENGTH, LEVELS);
+        assertEquals(-1, detector.detect(new double[CHUNK_LENGTH], 0, CHUNK_LENGTH));
+        assertEquals(-1, detector.detect(new double[CHUNK_LENGTH], 0, 8));
+        assertEquals(0d, detector.getLastRatio());
+    }
+
+    @Test
+    void onsetOffsetIsAttachedToBeat() {
+        BeatEvent event = new BeatEvent(0.8d, 0.2d, BeatBand.FULL, 1_000_000L);
+        assertEquals(1_000_000L, event.onsetNanos());
+
+        BeatEvent located = event.withOnsetOffset(250_000L);
+        assertEquals(250_000L, located.onsetOffsetNanos());
+        assertEquals(1_250_000L, located.onsetNanos());
+        assertEquals(event.captureNanos(), located.captureNanos());
+        assertThrows(IllegalArgumentException.class, () -> event.withOnsetOffset(-1L));
+    }
+}
@@ -186,4 +186,54 @@ class WindowFunctionTest {
         assertNotEquals(samplesHamming[0], samplesBlackman[0], DELTA);
         assertNotEquals(samplesHann[0], samplesBlackman[0], DELTA);
     }
+
+    @Test
+    void testCoefficientsMatchFormula() {
+        int n = 64;
+        double[] hann = WindowFunction.HANN.getCoefficients(n);
+
+        assertEquals(n, hann.length);
+        for (int i = 0; i < n; i++) {
+            assertEquals(0.5 * (1.0 - Math.cos(2.0 * Math.PI * i / (n - 1))), hann[i], 1e-12);
+        }
+    }
+
+    @Test
+    void testCoefficientTablesAreShared() {
+        double[] first = WindowFunction.BLACKMAN.coefficients(512);
+        double[] second = WindowFunction.BLACKMAN.coefficients(512);
+
+        assertSame(first, second);
+        assertNotSame(first, WindowFunction.BLACKMAN.coefficients(256));
+        assertNotSame(first, WindowFunction.HAMMING.coefficients(512));
+
+        // public accessor must not expose the shared table
+        WindowFunction.BLACKMAN.getCoefficients(512)[0] = 42.0;
+        assertNotEquals(42.0, first[0]);
+    }
+
+    @Test
+    void testApplyToSegmentsMatchesApply() {
+        int n = 100;
+        double[] source = new double[n];
+        for (int i = 0; i < n; i++) {
+            source[i] = Math.sin(i * 0.3);
+        }
+
+        double[] expected = source.clone();
+        WindowFunction.HAMMING.apply(expected);
+
+        double[] target = new double[n];
+        WindowFunction.HAMMING.applyTo(source, 0, target, 0, 37, n);
+        WindowFunction.HAMMING.applyTo(source, 37, target, 37, n - 37, n);
+
+        assertArrayEquals(expected, target, 1e-12);
+    }
+
+    @Test
+    void testApplyToOutsideWindowRejected() {
+        double[] samples = new double[10];
+        assertThrows(IllegalArgumentException.class,
+                () -> WindowFunction.HANN.applyTo(samples, 0, samples, 5, 6, 10));
+    }
 }
@@ -0,0 +1,43 @@
+package io.github.mrlongnight.photonjockey.audio.device;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureBufferPoolTest {
+
+    @Test
+    void rejectsInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CaptureBufferPool(0));
+    }
+
+    @Test
+    void acquireFailsWhenExhausted() {
+        CaptureBufferPool pool = new CaptureBufferPool(2);
+        assertNotNull(pool.acquire(16));
+        assertNotNull(pool.acquire(16));
+        assertNull(pool.acquire(16));
+        assertEquals(0, pool.available());
+    }
+
+    @Test
+    void releasedBuffersAreReused() {
+        CaptureBufferPool pool = new CaptureBufferPool(1);
+        CaptureBufferPool.CaptureBuffer buffer = pool.acquire(64);
+        buffer.length = 64;
+        pool.release(buffer);
+
+        CaptureBufferPool.CaptureBuffer reused = pool.acquire(32);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.length);
+        assertEquals(64, reused.data.length);
+    }
+
+    @Test
+    void buffersGrowToRequestedCapacity() {
+        CaptureBufferPool pool = new CaptureBufferPool(1);
+        pool.release(pool.acquire(16));
+
+        assertTrue(pool.acquire(128).data.length >= 128);
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.mrlongnight.photonjockey.audio.device;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureClockTest {
+
+    private static final double SAMPLE_RATE = 48000d;
+    private static final long START_NANOS = TimeUnit.SECONDS.toNanos(1000);
+
+    @Test
+    void rejectsInvalidSampleRate() {
+        assertThrows(IllegalArgumentException.class, () -> new CaptureClock(0d));
+    }
+
+    @Test
+    void framesToNanos() {
+        CaptureClock clock = new CaptureClock(SAMPLE_RATE);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), clock.framesToNanos(48000));
+        assertEquals(0L, clock.framesToNanos(0));
+    }
+
+    @Test
+    void callbackJitterIsRemoved() {
+        CaptureClock clock = new CaptureClock(SAMPLE_RATE);
+        Random random = new Random(7);
+        long framesPerCallback = 480;
+
+        // callbacks arrive 0 to 5 ms after the frames were captured
+        for (int i = 1; i <= 500; i++) {
+            long frames = i * framesPerCallback;
+            long captured = START_NANOS + clock.framesToNanos(frames);
+            long delay = (long) (random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(5));
+            clock.observeFrames(frames, captured + delay);
+        }
+
+        long frame = 500 * framesPerCallback;
+        long expected = START_NANOS + clock.framesToNanos(frame);
+        assertTrue(clock.isSynced());
+        assertEquals(expected, clock.frameToLocalNanos(frame), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void followsDrift() {
+        CaptureClock clock = new CaptureClock(SAMPLE_RATE);
+        long framesPerCallback = 480;
+
+        // device clock runs 0.02% slow compared to the local clock
+        for (int i = 1; i <= 20000; i++) {
+            long frames = i * framesPerCallback;
+            long captured = START_NANOS + Math.round(clock.framesToNanos(frames) * 1.0002d);
+            clock.observeFrames(frames, captured);
+        }
+
+        long frame = 20000 * framesPerCallback;
+        long expected = START_NANOS + Math.round(clock.framesToNanos(frame) * 1.0002d);
+        assertEquals(expected, clock.frameToLocalNanos(frame), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void bufferTimeStamps() {
+        CaptureClock clock = new CaptureClock(SAMPLE_RATE);
+        long offset = TimeUnit.SECONDS.toNanos(5);
+
+        clock.observe(TimeUnit.MILLISECONDS.toNanos(10), offset + TimeUnit.MILLISECONDS.toNanos(12));
+        clock.observe(TimeUnit.MILLISECONDS.toNanos(20), offset + TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(offset + TimeUnit.MILLISECONDS.toNanos(15), clock.toLocalNanos(TimeUnit.MILLISECONDS.toNanos(15)));
+    }
+
+    @Test
+    void reset() {
+        CaptureClock clock = new CaptureClock(SAMPLE_RATE);
+        clock.observeFrames(480, START_NANOS);
+        clock.reset();
+
+        assertFalse(clock.isSynced());
+        clock.observeFrames(480, START_NANOS + TimeUnit.SECONDS.toNanos(1));
+        assertEquals(START_NANOS + TimeUnit.SECONDS.toNanos(1), clock.frameToLocalNanos(480));
+    }
+}
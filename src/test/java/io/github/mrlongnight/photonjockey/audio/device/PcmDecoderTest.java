@@ -0,0 +1,128 @@
+package io.github.mrlongnight.photonjockey.audio.device;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PcmDecoderTest {
+
+    private static final double SAMPLE_RATE = 48000d;
+    private static final double DELTA = 1e-6;
+    private static final double[] SAMPLES = {0d, 0.5d, -0.5d, 1d, -0.25d};
+
+    private static byte[] encode(PJAudioFormat format, double[] samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * format.bytesPerSample())
+                .order(format.littleEndian() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        for (double sample : samples) {
+            switch (format.bytesPerSample()) {
+                case 1 -> buffer.put((byte) Math.round(sample * Byte.MAX_VALUE));
+                case 2 -> buffer.putShort((short) Math.round(sample * Short.MAX_VALUE));
+                case 3 -> {
+                    int value = (int) Math.round(sample * ((1 << 23) - 1));
+                    byte[] bytes = {(byte) value, (byte) (value >> 8), (byte) (value >> 16)};
+                    if (format.littleEndian()) {
+                        buffer.put(bytes[0]).put(bytes[1]).put(bytes[2]);
+                    } else {
+                        buffer.put(bytes[2]).put(bytes[1]).put(bytes[0]);
+                    }
+                }
+                default -> {
+                    if (format.encoding() == PJAudioFormat.Encoding.PCM_FLOAT) {
+                        buffer.putFloat((float) sample);
+                    } else {
+                        buffer.putInt((int) Math.round(sample * Integer.MAX_VALUE));
+                    }
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void assertDecodes(PJAudioFormat format, double delta) {
+        PcmDecoder decoder = PcmDecoder.forFormat(format);
+        byte[] pcm = encode(format, SAMPLES);
+
+        double[] decoded = new double[SAMPLES.length];
+        decoder.decode(pcm, 0, decoded, 0, SAMPLES.length);
+        for (int i = 0; i < SAMPLES.length; i++) {
+            assertEquals(SAMPLES[i], decoded[i], delta, format.toString());
+            assertEquals(SAMPLES[i], decoder.decodeSample(pcm, i, 0), delta, format.toString());
+        }
+    }
+
+    @Test
+    void decodesSignedIntegersInBothByteOrders() {
+        for (int bytesPerSample = 1; bytesPerSample <= 4; bytesPerSample++) {
+            double delta = bytesPerSample == 1 ? 0.01 : 1e-4;
+            assertDecodes(new PJAudioFormat(SAMPLE_RATE, true, 1, bytesPerSample), delta);
+            assertDecodes(new PJAudioFormat(SAMPLE_RATE, false, 1, bytesPerSample), delta);
+        }
+    }
+
+    @Test
+    void decodesFloats() {
+        assertDecodes(new PJAudioFormat(SAMPLE_RATE, true, 1, 4, PJAudioFormat.Encoding.PCM_FLOAT), DELTA);
+        assertDecodes(new PJAudioFormat(SAMPLE_RATE, false, 1, 4, PJAudioFormat.Encoding.PCM_FLOAT), DELTA);
+    }
+
+    @Test
+    void decodesUnsignedBytes() {
+        PcmDecoder decoder = PcmDecoder.forFormat(
+                new PJAudioFormat(SAMPLE_RATE, true, 1, 1, PJAudioFormat.Encoding.PCM_UNSIGNED));
+        byte[] pcm = {(byte) 128, (byte) 255, 1};
+
+        double[] decoded = new double[3];
+        decoder.decode(pcm, 0, decoded, 0, 3);
+        assertArrayEquals(new double[]{0d, 1d, -1d}, decoded, DELTA);
+    }
+
+    @Test
+    void fullScaleTwentyFourBit() {
+        PcmDecoder decoder = PcmDecoder.forFormat(new PJAudioFormat(SAMPLE_RATE, true, 1, 3));
+        byte[] pcm = {(byte) 0xFF, (byte) 0xFF, 0x7F, 0x01, 0x00, (byte) 0x80};
+
+        assertEquals(1d, decoder.decodeSample(pcm, 0, 0), DELTA);
+        assertEquals(-1d, decoder.decodeSample(pcm, 1, 0), DELTA);
+    }
+
+    @Test
+    void downmixesInterleavedChannels() {
+        PJAudioFormat stereo = new PJAudioFormat(SAMPLE_RATE, true, 2, 3);
+        PcmDecoder decoder = PcmDecoder.forFormat(stereo);
+        // left and right of two frames
+        byte[] pcm = encode(stereo, new double[]{0.5d, -0.5d, 1d, 0.5d});
+
+        double[] decoded = new double[2];
+        decoder.decode(pcm, 0, decoded, 0, 2);
+        assertArrayEquals(new double[]{0d, 0.75d}, decoded, 1e-4);
+        assertEquals(0.75d, decoder.decodeMonoSample(pcm, 1), 1e-4);
+        assertEquals(0.5d, decoder.decodeSample(pcm, 1, 1), 1e-4);
+        assertEquals(6, decoder.getBytesPerFrame());
+    }
+
+    @Test
+    void decodesAtOffsets() {
+        PJAudioFormat format = new PJAudioFormat(SAMPLE_RATE, false, 1, 2);
+        PcmDecoder decoder = PcmDecoder.forFormat(format);
+        byte[] pcm = encode(format, SAMPLES);
+
+        double[] decoded = new double[SAMPLES.length];
+        decoder.decode(pcm, 2, decoded, 1, SAMPLES.length - 1);
+        assertEquals(0d, decoded[0]);
+        assertEquals(SAMPLES[1], decoded[1], 1e-4);
+        assertEquals(SAMPLES[4], decoded[4], 1e-4);
+    }
+
+    @Test
+    void rejectsUnsupportedFormats() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PcmDecoder.forFormat(new PJAudioFormat(SAMPLE_RATE, true, 1, 2, PJAudioFormat.Encoding.PCM_FLOAT)));
+        assertThrows(IllegalArgumentException.class,
+                () -> PcmDecoder.forFormat(new PJAudioFormat(SAMPLE_RATE, true, 1, 8)));
+        assertThrows(IllegalArgumentException.class,
+                () -> PcmDecoder.forFormat(new PJAudioFormat(SAMPLE_RATE, true, 0, 2)));
+    }
+}
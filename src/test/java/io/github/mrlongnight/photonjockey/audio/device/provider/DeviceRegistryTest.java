@@ -0,0 +1,157 @@
+package io.github.mrlongnight.photonjockey.audio.device.provider;
+
+import io.github.mrlongnight.photonjockey.audio.device.AudioDevice;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DeviceRegistryTest {
+
+    private static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().start(task);
+    private static final long TIMEOUT_MS = 200L;
+
+    private static AudioDevice device(String name) {
+        AudioDevice device = mock(AudioDevice.class);
+        when(device.getName()).thenReturn(name);
+        return device;
+    }
+
+    /**
+     * Provider returning fixed devices, counting its probes and optionally blocking until released.
+     */
+    private static class TestProvider implements DeviceProvider {
+
+        private final List<AudioDevice> devices;
+        private final AtomicInteger probes = new AtomicInteger();
+        private final CountDownLatch release;
+        private Runnable changeListener;
+
+        TestProvider(CountDownLatch release, AudioDevice... devices) {
+            this.devices = List.of(devices);
+            this.release = release;
+        }
+
+        TestProvider(AudioDevice... devices) {
+            this(new CountDownLatch(0), devices);
+        }
+
+        @Override
+        public List<AudioDevice> getAudioDevices() {
+            probes.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return devices;
+        }
+
+        @Override
+        public void setDeviceChangeListener(Runnable listener) {
+            this.changeListener = listener;
+        }
+    }
+
+    @Test
+    void rejectsInvalidTimeout() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DeviceRegistry(List.of(), VIRTUAL_THREADS, 0, false));
+    }
+
+    @Test
+    void cachesDevicesAndIndexesByName() {
+        AudioDevice speakers = device("Speakers");
+        TestProvider provider = new TestProvider(device("Mic"), speakers);
+        DeviceRegistry registry = new DeviceRegistry(List.of(provider), VIRTUAL_THREADS, TIMEOUT_MS, false);
+
+        assertEquals(2, registry.getDevices().size());
+        assertSame(speakers, registry.getDevice("Speakers"));
+        assertNull(registry.getDevice("Line In"));
+        assertEquals(1, provider.probes.get());
+    }
+
+    @Test
+    void keepsFirstProviderWithDevices() {
+        TestProvider empty = new TestProvider();
+        TestProvider preferred = new TestProvider(device("Loopback"));
+        TestProvider fallback = new TestProvider(device("Fallback"));
+
+        DeviceRegistry registry = new DeviceRegistry(List.of(empty, preferred, fallback), VIRTUAL_THREADS,
+                TIMEOUT_MS, false);
+        assertEquals(List.of("Loopback"), registry.getDevices().stream().map(AudioDevice::getName).toList());
+
+        DeviceRegistry all = new DeviceRegistry(List.of(empty, preferred, fallback), VIRTUAL_THREADS,
+                TIMEOUT_MS, true);
+        assertEquals(2, all.getDevices().size());
+    }
+
+    @Test
+    void probesProvidersInParallel() {
+        CountDownLatch release = new CountDownLatch(1);
+        TestProvider first = new TestProvider(release, device("A"));
+        // the first provider only finishes once the second one is probed as well
+        TestProvider second = new TestProvider(device("B")) {
+            @Override
+            public List<AudioDevice> getAudioDevices() {
+                release.countDown();
+                return super.getAudioDevices();
+            }
+        };
+
+        DeviceRegistry registry = new DeviceRegistry(List.of(first, second), VIRTUAL_THREADS,
+                TimeUnit.SECONDS.toMillis(5), true);
+        assertEquals(2, registry.getDevices().size());
+    }
+
+    @Test
+    void slowProviderTimesOutAndIsPickedUpLater() {
+        CountDownLatch release = new CountDownLatch(1);
+        TestProvider slow = new TestProvider(release, device("Slow"));
+        TestProvider fast = new TestProvider(device("Fast"));
+        DeviceRegistry registry = new DeviceRegistry(List.of(slow, fast), VIRTUAL_THREADS, TIMEOUT_MS, true);
+
+        long start = System.nanoTime();
+        assertEquals(List.of("Fast"), registry.getDevices().stream().map(AudioDevice::getName).toList());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+        release.countDown();
+        assertEquals(2, registry.rescan().size());
+        // the timed out probe was awaited instead of started again
+        assertEquals(1, slow.probes.get());
+    }
+
+    @Test
+    void failingProviderIsSkipped() {
+        DeviceProvider failing = () -> {
+            throw new IllegalStateException("driver error");
+        };
+        TestProvider fallback = new TestProvider(device("Fallback"));
+        DeviceRegistry registry = new DeviceRegistry(List.of(failing, fallback), VIRTUAL_THREADS, TIMEOUT_MS, false);
+
+        assertNotNull(registry.getDevice("Fallback"));
+    }
+
+    @Test
+    void refreshesOnlyOnRescanOrDeviceChange() {
+        TestProvider provider = new TestProvider(device("Mic"));
+        DeviceRegistry registry = new DeviceRegistry(List.of(provider), VIRTUAL_THREADS, TIMEOUT_MS, false);
+
+        registry.getDevices();
+        registry.getDevice("Mic");
+        assertEquals(1, provider.probes.get());
+
+        registry.rescan();
+        assertEquals(2, provider.probes.get());
+
+        provider.changeListener.run();
+        registry.getDevice("Mic");
+        assertEquals(3, provider.probes.get());
+    }
+}
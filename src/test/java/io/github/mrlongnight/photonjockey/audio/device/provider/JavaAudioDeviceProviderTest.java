@@ -0,0 +1,150 @@
+package io.github.mrlongnight.photonjockey.audio.device.provider;
+
+import io.github.mrlongnight.photonjockey.AppTaskOrchestrator;
+import io.github.mrlongnight.photonjockey.audio.device.AudioDevice;
+import io.github.mrlongnight.photonjockey.config.Config;
+import io.github.mrlongnight.photonjockey.config.ConfigNode;
+import io.github.mrlongnight.photonjockey.config.PJConfig;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.TargetDataLine;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JavaAudioDeviceProviderTest {
+
+    /**
+     * Bytes of 20 ms (the default chunk) and 40 ms (the default line buffer) of 16-bit mono audio at 44.1 kHz.
+     */
+    private static final int CHUNK_BYTES = 1764;
+    private static final int BUFFER_BYTES = 3528;
+    private static final long TIMEOUT_MS = 2000L;
+
+    private final AppTaskOrchestrator taskOrchestrator = mock(AppTaskOrchestrator.class);
+    private final TargetDataLine line = mock(TargetDataLine.class);
+    private final AtomicInteger lineBufferBytes = new AtomicInteger();
+
+    private AudioDevice device(boolean blocking, int bufferMillis) throws Exception {
+        Config config = mock(Config.class);
+        when(config.getBoolean(ConfigNode.AUDIO_CAPTURE_BLOCKING)).thenReturn(blocking);
+        when(config.getInt(ConfigNode.AUDIO_CAPTURE_BUFFER_MILLIS)).thenReturn(bufferMillis);
+
+        doAnswer(invocation -> {
+            lineBufferBytes.set(invocation.getArgument(1));
+            return null;
+        }).when(line).open(any(AudioFormat.class), anyInt());
+        when(line.getBufferSize()).thenAnswer(invocation -> lineBufferBytes.get());
+
+        Mixer mixer = mock(Mixer.class);
+        when(mixer.getMixerInfo()).thenReturn(new Mixer.Info("Test", "Vendor", "Description", "1.0") {
+        });
+        when(mixer.getLine(any(Line.Info.class))).thenReturn(line);
+        return new JavaAudioDeviceProvider(taskOrchestrator, config).createDevice(mixer);
+    }
+
+    @Test
+    void captureDefaultsToBlockingWithFortyMillisBuffer() {
+        PJConfig config = new PJConfig();
+        assertTrue(config.getDefaultBoolean(ConfigNode.AUDIO_CAPTURE_BLOCKING));
+        assertEquals(40, config.getDefaultInt(ConfigNode.AUDIO_CAPTURE_BUFFER_MILLIS));
+    }
+
+    @Test
+    void disabledBlockingFallsBackToPolling() throws Exception {
+        AudioDevice device = device(false, 40);
+
+        assertTrue(device.start());
+        verify(taskOrchestrator).schedulePeriodicTask(any(Runnable.class), eq(0L), eq(5L), eq(TimeUnit.MILLISECONDS));
+        verify(line).open(any(AudioFormat.class), eq(BUFFER_BYTES));
+        assertTrue(device.stop());
+    }
+
+    @Test
+    void lineBufferHoldsAtLeastTwoChunks() throws Exception {
+        // a buffer below two reads is raised to two chunks when blocking, to two polls of 5 ms otherwise
+        AudioDevice blocking = device(true, 0);
+        blocking.setChunkMillis(50);
+        when(line.read(any(byte[].class), anyInt(), anyInt())).thenReturn(0);
+        assertTrue(blocking.start());
+        verify(line).open(any(AudioFormat.class), eq(2 * 4410));
+        blocking.stop();
+
+        AudioDevice polling = device(false, 0);
+        assertTrue(polling.start());
+        verify(line).open(any(AudioFormat.class), eq(2 * 442));
+        polling.stop();
+    }
+
+    @Test
+    void blockingCaptureCountsOverrunsAndUnderruns() throws Exception {
+        AudioDevice device = device(true, 40);
+        CountDownLatch stopped = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            stopped.countDown();
+            return null;
+        }).when(line).stop();
+
+        // the first chunk finds a full line buffer, the second one is cut short, then reads block until stopped
+        when(line.available()).thenReturn(BUFFER_BYTES, 0);
+        when(line.read(any(byte[].class), eq(0), eq(CHUNK_BYTES)))
+                .thenReturn(CHUNK_BYTES, CHUNK_BYTES / 2)
+                .thenAnswer(invocation -> {
+                    stopped.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    return 0;
+                });
+
+        CountDownLatch delivered = new CountDownLatch(2);
+        int[] deliveredBytes = new int[2];
+        device.setAudioListener((data, length, captureNanos) -> {
+            deliveredBytes[2 - (int) delivered.getCount()] = length;
+            delivered.countDown();
+        });
+
+        assertTrue(device.start());
+        assertTrue(delivered.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertArrayEquals(new int[]{CHUNK_BYTES, CHUNK_BYTES / 2}, deliveredBytes);
+        assertEquals(1, device.getOverrunCount());
+        assertEquals(1, device.getUnderrunCount());
+        verify(taskOrchestrator, never()).schedulePeriodicTask(any(), anyLong(), anyLong(), any());
+
+        assertTrue(device.stop());
+        assertFalse(device.isOpen());
+        // counters stay readable after the stop and only start over with the next capture
+        assertEquals(1, device.getOverrunCount());
+        when(line.read(any(byte[].class), anyInt(), anyInt())).thenReturn(0);
+        assertTrue(device.start());
+        assertEquals(0, device.getOverrunCount());
+        device.stop();
+    }
+
+    @Test
+    void pollingCountsOverrunsOfFullLineBuffer() throws Exception {
+        AudioDevice device = device(false, 40);
+        assertTrue(device.start());
+
+        ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskOrchestrator).schedulePeriodicTask(poll.capture(), anyLong(), anyLong(), any());
+
+        when(line.available()).thenReturn(BUFFER_BYTES, 100, 0);
+        when(line.read(any(byte[].class), eq(0), anyInt())).thenAnswer(invocation -> invocation.getArgument(2));
+        AtomicInteger deliveredBytes = new AtomicInteger();
+        device.setAudioListener((data, length, captureNanos) -> deliveredBytes.addAndGet(length));
+
+        for (int i = 0; i < 3; i++) {
+            poll.getValue().run();
+        }
+        assertEquals(1, device.getOverrunCount());
+        // polling reads whatever is available, short reads are no underruns
+        assertEquals(0, device.getUnderrunCount());
+        assertEquals(BUFFER_BYTES + 100, deliveredBytes.get());
+        device.stop();
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BiquadTest {
+
+    private static final double SAMPLE_RATE = 44100d;
+    private static final int LENGTH = 44100;
+
+    @Test
+    void lowPassPassesLowAndAttenuatesHighFrequencies() {
+        assertEquals(1d, gain(Biquad.lowPass(SAMPLE_RATE, 1000d, Biquad.BUTTERWORTH_Q), 100d), 0.01);
+        assertEquals(1d / Math.sqrt(2), gain(Biquad.lowPass(SAMPLE_RATE, 1000d, Biquad.BUTTERWORTH_Q), 1000d), 0.01);
+        assertTrue(gain(Biquad.lowPass(SAMPLE_RATE, 1000d, Biquad.BUTTERWORTH_Q), 10000d) < 0.02);
+    }
+
+    @Test
+    void highPassPassesHighAndAttenuatesLowFrequencies() {
+        assertEquals(1d, gain(Biquad.highPass(SAMPLE_RATE, 1000d, Biquad.BUTTERWORTH_Q), 10000d), 0.01);
+        assertTrue(gain(Biquad.highPass(SAMPLE_RATE, 1000d, Biquad.BUTTERWORTH_Q), 100d) < 0.02);
+    }
+
+    @Test
+    void bandPassHasUnityGainAtCenter() {
+        assertEquals(1d, gain(Biquad.bandPass(SAMPLE_RATE, 2000d, 2d), 2000d), 0.01);
+        assertTrue(gain(Biquad.bandPass(SAMPLE_RATE, 2000d, 2d), 200d) < 0.1);
+        assertTrue(gain(Biquad.bandPass(SAMPLE_RATE, 2000d, 2d), 15000d) < 0.2);
+    }
+
+    @Test
+    void linkwitzRileyIsDownSixDecibelAtCrossover() {
+        assertEquals(0.5d, gain(LinkwitzRileyFilter.lowPass(SAMPLE_RATE, 200d), 200d), 0.01);
+        assertEquals(0.5d, gain(LinkwitzRileyFilter.highPass(SAMPLE_RATE, 200d), 200d), 0.01);
+        assertTrue(gain(LinkwitzRileyFilter.lowPass(SAMPLE_RATE, 200d), 2000d) < 0.001);
+    }
+
+    @Test
+    void linkwitzRileyBandPass() {
+        LinkwitzRileyFilter filter = LinkwitzRileyFilter.bandPass(SAMPLE_RATE, 200d, 2000d);
+        assertTrue(gain(filter, 630d) > 0.9);
+        filter.reset();
+        assertTrue(gain(filter, 50d) < 0.02);
+        filter.reset();
+        assertTrue(gain(filter, 10000d) < 0.02);
+    }
+
+    @Test
+    void chunkedProcessingMatchesContinuousProcessing() {
+        double[] signal = sine(440d, 1d);
+        double[] continuous = signal.clone();
+        double[] chunked = signal.clone();
+
+        LinkwitzRileyFilter.lowPass(SAMPLE_RATE, 200d).process(continuous, 0, continuous.length);
+
+        LinkwitzRileyFilter filter = LinkwitzRileyFilter.lowPass(SAMPLE_RATE, 200d);
+        int chunkSize = 882;
+        for (int offset = 0; offset < chunked.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, chunked.length - offset);
+            if ((offset / chunkSize) % 2 == 0) {
+                filter.process(chunked, offset, length);
+            } else {
+                for (int i = offset; i < offset + length; i++) {
+                    chunked[i] = filter.process(chunked[i]);
+                }
+            }
+        }
+
+        assertArrayEquals(continuous, chunked, 1e-12);
+    }
+
+    @Test
+    void resetClearsState() {
+        Biquad biquad = Biquad.lowPass(SAMPLE_RATE, 1000d, Biquad.BUTTERWORTH_Q);
+        biquad.process(1d);
+        biquad.reset();
+        assertEquals(0d, biquad.process(0d));
+    }
+
+    @Test
+    void invalidFrequencies() {
+        assertThrows(IllegalArgumentException.class, () -> Biquad.lowPass(SAMPLE_RATE, 0d, 1d));
+        assertThrows(IllegalArgumentException.class, () -> Biquad.lowPass(SAMPLE_RATE, SAMPLE_RATE, 1d));
+        assertThrows(IllegalArgumentException.class, () -> LinkwitzRileyFilter.bandPass(SAMPLE_RATE, 500d, 100d));
+    }
+
+    /**
+     * Returns the amplitude gain of the filter for a sine of the given frequency, ignoring the settling time.
+     */
+    private static double gain(AudioFilter filter, double frequency) {
+        double[] signal = sine(frequency, 1d);
+        filter.process(signal, 0, signal.length);
+
+        double peak = 0d;
+        for (int i = LENGTH / 2; i < LENGTH; i++) {
+            peak = Math.max(peak, Math.abs(signal[i]));
+        }
+        return peak;
+    }
+
+    @Test
+    void kWeightingMatchesRecommendationAt48Kilohertz() {
+        // the impulse response starts with b0, b1 - a1 * b0 and b2 - a2 * b0 - a1 * y1
+        double[] shelf = impulseResponse(Biquad.kWeightingShelf(48000d));
+        assertEquals(1.53512485958697d, shelf[0], 1e-9);
+        double shelfY1 = -2.69169618940638d + 1.69065929318241d * 1.53512485958697d;
+        assertEquals(shelfY1, shelf[1], 1e-9);
+        assertEquals(1.19839281085285d - 0.73248077421585d * 1.53512485958697d + 1.69065929318241d * shelfY1,
+                shelf[2], 1e-9);
+
+        double[] highPass = impulseResponse(Biquad.kWeightingHighPass(48000d));
+        assertEquals(1d, highPass[0], 1e-12);
+        assertEquals(-2d + 1.99004745483398d, highPass[1], 1e-9);
+        assertEquals(1d - 0.99007225036621d + 1.99004745483398d * highPass[1], highPass[2], 1e-9);
+    }
+
+    private static double[] impulseResponse(Biquad biquad) {
+        return new double[]{biquad.process(1d), biquad.process(0d), biquad.process(0d)};
+    }
+
+    static double[] sine(double frequency, double amplitude) {
+        double[] signal = new double[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            signal[i] = amplitude * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE);
+        }
+        return signal;
+    }
+}
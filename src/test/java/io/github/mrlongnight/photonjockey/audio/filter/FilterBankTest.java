@@ -0,0 +1,62 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterBankTest {
+
+    private static final double SAMPLE_RATE = 44100d;
+
+    private static FilterBank createBank() {
+        return new FilterBank(List.of(
+                LinkwitzRileyFilter.lowPass(SAMPLE_RATE, 150d),
+                LinkwitzRileyFilter.bandPass(SAMPLE_RATE, 150d, 2500d),
+                LinkwitzRileyFilter.highPass(SAMPLE_RATE, 2500d)
+        ));
+    }
+
+    @Test
+    void energyEndsUpInMatchingBand() {
+        double[][] signals = {BiquadTest.sine(60d, 1d), BiquadTest.sine(700d, 1d), BiquadTest.sine(8000d, 1d)};
+
+        for (int expectedBand = 0; expectedBand < signals.length; expectedBand++) {
+            FilterBank bank = createBank();
+            double[] energies = new double[bank.getBandCount()];
+            bank.process(signals[expectedBand], 0, signals[expectedBand].length, energies);
+
+            for (int band = 0; band < energies.length; band++) {
+                if (band == expectedBand) {
+                    assertTrue(energies[band] > 0.6, "Band " + band + " should contain the signal");
+                } else {
+                    assertTrue(energies[band] < 0.1, "Band " + band + " should not contain the signal");
+                }
+            }
+        }
+    }
+
+    @Test
+    void sampleWiseFeedingMatchesBlockProcessing() {
+        double[] signal = BiquadTest.sine(440d, 0.5d);
+
+        FilterBank blockBank = createBank();
+        double[] blockEnergies = new double[3];
+        blockBank.process(signal, 0, signal.length, blockEnergies);
+
+        FilterBank sampleBank = createBank();
+        double[] sampleEnergies = new double[3];
+        for (double sample : signal) {
+            sampleBank.processSample(sample);
+        }
+        sampleBank.collectEnergies(signal.length, sampleEnergies);
+
+        assertArrayEquals(blockEnergies, sampleEnergies, 1e-12);
+    }
+
+    @Test
+    void emptyBankIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FilterBank(List.of()));
+    }
+}
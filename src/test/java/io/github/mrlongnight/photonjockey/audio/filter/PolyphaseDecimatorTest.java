@@ -0,0 +1,97 @@
+package io.github.mrlongnight.photonjockey.audio.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyphaseDecimatorTest {
+
+    private static final int FACTOR = 16;
+    private static final int TAPS_PER_PHASE = 12;
+
+    private static double rms(double[] samples, int from, int to) {
+        double sum = 0d;
+        for (int i = from; i < to; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return Math.sqrt(sum / (to - from));
+    }
+
+    private static double[] decimate(double[] signal) {
+        PolyphaseDecimator decimator = new PolyphaseDecimator(FACTOR, TAPS_PER_PHASE);
+        double[] output = new double[decimator.getMaxOutputLength(signal.length)];
+        assertEquals(output.length, decimator.process(signal, 0, signal.length, output, 0));
+        return output;
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseDecimator(0, TAPS_PER_PHASE));
+        assertThrows(IllegalArgumentException.class, () -> new PolyphaseDecimator(FACTOR, 0));
+    }
+
+    @Test
+    void unityGainAtDc() {
+        double[] constant = new double[FACTOR * 64];
+        java.util.Arrays.fill(constant, 0.5d);
+
+        double[] output = decimate(constant);
+        // once the delay lines are filled the output is the constant
+        for (int i = TAPS_PER_PHASE; i < output.length; i++) {
+            assertEquals(0.5d, output[i], 1e-9);
+        }
+    }
+
+    @Test
+    void keepsBassAndRemovesAliases() {
+        double[] bass = decimate(BiquadTest.sine(100d, 1d));
+        assertEquals(1d / Math.sqrt(2), rms(bass, TAPS_PER_PHASE, bass.length), 0.01);
+
+        // would fold back to 412 Hz without the anti-aliasing filter
+        double[] treble = decimate(BiquadTest.sine(5100d, 1d));
+        assertTrue(rms(treble, TAPS_PER_PHASE, treble.length) < 0.001,
+                "Aliases should be removed, got " + rms(treble, TAPS_PER_PHASE, treble.length));
+    }
+
+    @Test
+    void chunksMatchSingleCall() {
+        double[] signal = BiquadTest.sine(200d, 0.8d);
+        double[] expected = decimate(signal);
+
+        PolyphaseDecimator decimator = new PolyphaseDecimator(FACTOR, TAPS_PER_PHASE);
+        double[] actual = new double[expected.length];
+        int written = 0;
+        // chunk lengths that are no multiple of the factor
+        for (int offset = 0; offset < signal.length; offset += 37) {
+            int length = Math.min(37, signal.length - offset);
+            assertTrue(decimator.getMaxOutputLength(length) <= length / FACTOR + 1);
+            written += decimator.process(signal, offset, length, actual, written);
+        }
+
+        assertEquals(expected.length, written);
+        assertArrayEquals(expected, actual, 1e-12);
+    }
+
+    @Test
+    void factorOnePassesThrough() {
+        PolyphaseDecimator decimator = new PolyphaseDecimator(1, TAPS_PER_PHASE);
+        double[] input = {0.1d, -0.2d, 0.3d};
+        double[] output = new double[3];
+
+        assertEquals(3, decimator.process(input, 0, 3, output, 0));
+        assertArrayEquals(input, output);
+    }
+
+    @Test
+    void resetClearsState() {
+        double[] signal = BiquadTest.sine(100d, 1d);
+        PolyphaseDecimator decimator = new PolyphaseDecimator(FACTOR, TAPS_PER_PHASE);
+        double[] first = new double[decimator.getMaxOutputLength(signal.length)];
+        decimator.process(signal, 0, 5, first, 0);
+        decimator.reset();
+
+        assertEquals(0, decimator.getMaxOutputLength(FACTOR - 1));
+        decimator.process(signal, 0, signal.length, first, 0);
+        assertArrayEquals(decimate(signal), first, 1e-12);
+    }
+}
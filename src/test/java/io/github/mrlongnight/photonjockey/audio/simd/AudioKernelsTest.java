@@ -0,0 +1,178 @@
+package io.github.mrlongnight.photonjockey.audio.simd;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the kernels in use against the scalar reference, with lengths and offsets that exercise
+ * both the vector loops and the remaining tail elements.
+ */
+class AudioKernelsTest {
+
+    private static final int[] LENGTHS = {0, 1, 3, 7, 8, 17, 64, 255, 1025};
+    private static final double DELTA = 1e-9;
+    private static final float FLOAT_DELTA = 1e-6f;
+
+    private final ScalarKernels reference = new ScalarKernels();
+    private final Random random = new Random(1);
+
+    @Test
+    void vectorApiIsUsedWhenModuleIsEnabled() {
+        boolean moduleEnabled = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        boolean simdDisabled = !Boolean.parseBoolean(System.getProperty(AudioKernels.SIMD_PROPERTY, "true"));
+        assertEquals(moduleEnabled && !simdDisabled, AudioKernels.isVectorized());
+    }
+
+    @Test
+    void sumOfSquaresMatchesScalar() {
+        for (int length : LENGTHS) {
+            double[] samples = randomSamples(length + 3);
+            assertEquals(reference.sumOfSquares(samples, 3, length), AudioKernels.sumOfSquares(samples, 3, length), DELTA);
+        }
+    }
+
+    @Test
+    void maxAbsMatchesScalar() {
+        for (int length : LENGTHS) {
+            double[] samples = randomSamples(length + 1);
+            assertEquals(reference.maxAbs(samples, 1, length), AudioKernels.maxAbs(samples, 1, length));
+        }
+    }
+
+    @Test
+    void sampleStatisticsMatchSeparateKernels() {
+        for (int length : LENGTHS) {
+            double[] samples = randomSamples(length + 2);
+            // the sample before the range must not count as a sign change
+            samples[1] = -1;
+            int signChanges = 0;
+            for (int i = 3; i < length + 2; i++) {
+                if ((samples[i] < 0) != (samples[i - 1] < 0)) {
+                    signChanges++;
+                }
+            }
+
+            double[] expected = new double[AudioKernels.STATISTICS_LENGTH];
+            double[] actual = new double[AudioKernels.STATISTICS_LENGTH];
+            reference.sampleStatistics(samples, 2, length, expected);
+            AudioKernels.sampleStatistics(samples, 2, length, actual);
+            assertArrayEquals(expected, actual, DELTA);
+            assertEquals(reference.sumOfSquares(samples, 2, length), actual[AudioKernels.SUM_OF_SQUARES], DELTA);
+            assertEquals(reference.maxAbs(samples, 2, length), actual[AudioKernels.MAX_ABS]);
+            assertEquals(signChanges, (int) actual[AudioKernels.SIGN_CHANGES]);
+        }
+    }
+
+    @Test
+    void multiplyMatchesScalar() {
+        for (int length : LENGTHS) {
+            double[] source = randomSamples(length + 2);
+            double[] factors = randomSamples(length + 5);
+            double[] expected = new double[length + 1];
+            double[] actual = new double[length + 1];
+
+            reference.multiply(source, 2, factors, 5, expected, 1, length);
+            AudioKernels.multiply(source, 2, factors, 5, actual, 1, length);
+            assertArrayEquals(expected, actual, DELTA);
+        }
+    }
+
+    @Test
+    void multiplyInPlace() {
+        double[] samples = randomSamples(100);
+        double[] factors = randomSamples(100);
+        double[] expected = new double[100];
+        reference.multiply(samples, 0, factors, 0, expected, 0, 100);
+
+        AudioKernels.multiply(samples, 0, factors, 0, samples, 0, 100);
+        assertArrayEquals(expected, samples, DELTA);
+    }
+
+    @Test
+    void magnitudesMatchScalar() {
+        for (int length : LENGTHS) {
+            int bins = length + 2;
+            double[] interleaved = randomSamples(2 * bins);
+            double[] expected = new double[bins];
+            double[] actual = new double[bins];
+
+            // first and last bin are excluded, like the packed DC and Nyquist values of a real FFT
+            reference.magnitudes(interleaved, 1, expected, bins - 2);
+            AudioKernels.magnitudes(interleaved, 1, actual, bins - 2);
+            assertArrayEquals(expected, actual, DELTA);
+            assertEquals(0.0, actual[0]);
+            assertEquals(0.0, actual[bins - 1]);
+        }
+    }
+
+    @Test
+    void floatMultiplyMatchesScalar() {
+        for (int length : LENGTHS) {
+            float[] source = randomFloatSamples(length + 2);
+            float[] factors = randomFloatSamples(length + 5);
+            float[] expected = new float[length + 1];
+            float[] actual = new float[length + 1];
+
+            reference.multiply(source, 2, factors, 5, expected, 1, length);
+            AudioKernels.multiply(source, 2, factors, 5, actual, 1, length);
+            assertArrayEquals(expected, actual, FLOAT_DELTA);
+        }
+    }
+
+    @Test
+    void floatMagnitudesMatchScalar() {
+        for (int length : LENGTHS) {
+            int bins = length + 2;
+            float[] interleaved = randomFloatSamples(2 * bins);
+            float[] expected = new float[bins];
+            float[] actual = new float[bins];
+
+            reference.magnitudes(interleaved, 1, expected, bins - 2);
+            AudioKernels.magnitudes(interleaved, 1, actual, bins - 2);
+            assertArrayEquals(expected, actual, FLOAT_DELTA);
+            assertEquals(0f, actual[0]);
+            assertEquals(0f, actual[bins - 1]);
+        }
+    }
+
+    @Test
+    void decodePcm16MatchesScalar() {
+        for (int length : LENGTHS) {
+            byte[] pcm = new byte[2 * length + 4];
+            random.nextBytes(pcm);
+            double[] expected = new double[length];
+            double[] actual = new double[length];
+
+            reference.decodePcm16LittleEndian(pcm, 4, expected, 0, length);
+            AudioKernels.decodePcm16(pcm, 4, actual, 0, length, true);
+            assertArrayEquals(expected, actual, DELTA);
+        }
+    }
+
+    @Test
+    void decodePcm16BigEndian() {
+        byte[] pcm = {0x7F, (byte) 0xFF, (byte) 0x80, 0x01, 0x00, 0x00};
+        double[] samples = new double[3];
+        AudioKernels.decodePcm16(pcm, 0, samples, 0, 3, false);
+        assertArrayEquals(new double[]{1.0, -1.0, 0.0}, samples, DELTA);
+    }
+
+    private double[] randomSamples(int length) {
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = random.nextDouble() * 2.0 - 1.0;
+        }
+        return samples;
+    }
+
+    private float[] randomFloatSamples(int length) {
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = random.nextFloat() * 2f - 1f;
+        }
+        return samples;
+    }
+}
@@ -7,6 +7,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import io.github.mrlongnight.photonjockey.audio.AudioFrame;
+import io.github.mrlongnight.photonjockey.audio.FFTProcessor;
+import io.github.mrlongnight.photonjockey.audio.LogBandProjection;
+import io.github.mrlongnight.photonjockey.audio.WindowFunction;
 
 import java.net.URL;
 import java.util.concurrent.CountDownLatch;
@@ -154,6 +157,40 @@ class AudioAnalyzerDashboardControllerUnitTest {
         latch.await();
     }
 
+    @Test
+    void testUpdateSpectrumWithLinearSpectrum() throws InterruptedException {
+        int fftSize = 2048;
+        double sampleRate = 44100;
+        double frequency = 1000;
+        double[] samples = new double[fftSize];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = Math.sin(2 * Math.PI * frequency * i / sampleRate);
+        }
+        double[] spectrum = new FFTProcessor(fftSize, WindowFunction.HANN, 0).computeSpectrum(samples);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        javafx.application.Platform.runLater(() -> {
+            controller.updateSpectrum(spectrum, sampleRate, WindowFunction.HANN);
+            latch.countDown();
+        });
+        latch.await();
+
+        // a full scale sine fills the bar of its band and stays below the floor an octave away
+        double[] levels = controller.getSpectrumData();
+        LogBandProjection projection = LogBandProjection.of(fftSize, sampleRate,
+                AudioAnalyzerDashboardController.SPECTRUM_BANDS);
+        double loudest = 0;
+        for (int band = 0; band < levels.length; band++) {
+            assertTrue(levels[band] >= 0 && levels[band] <= 1, "Level out of range: " + levels[band]);
+            loudest = Math.max(loudest, levels[band]);
+            double center = projection.getCenterFrequency(band);
+            if (center < frequency / 2 || center > frequency * 2) {
+                assertEquals(0, levels[band], 0.01, "Band at " + center + " Hz not empty");
+            }
+        }
+        assertTrue(loudest > 0.95, "Sine does not fill its band, got " + loudest);
+    }
+
     @Test
     void testUpdateBeatIndicator() throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
@@ -0,0 +1,131 @@
+package io.github.mrlongnight.photonjockey.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRingBufferTest {
+
+    private static final int CAPACITY = 16;
+    private static final int ALIGNMENT = 2;
+
+    private ByteRingBuffer buffer;
+
+    @BeforeEach
+    void setup() {
+        buffer = new ByteRingBuffer(CAPACITY, ALIGNMENT);
+    }
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        assertEquals(16, new ByteRingBuffer(9, 1).capacity());
+        assertEquals(16, new ByteRingBuffer(16, 1).capacity());
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ByteRingBuffer(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ByteRingBuffer(4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ByteRingBuffer(4, 8));
+    }
+
+    @Test
+    void readOnlyReturnsFullChunks() {
+        buffer.write(sequence(0, 3), 0, 3);
+        byte[] target = new byte[4];
+        assertFalse(buffer.read(target, 0, 4));
+        assertEquals(3, buffer.available());
+
+        buffer.write(sequence(3, 3), 0, 3);
+        assertTrue(buffer.read(target, 0, 4));
+        assertArrayEquals(sequence(0, 4), target);
+        assertEquals(2, buffer.available());
+    }
+
+    @Test
+    void preservesOrderAcrossWrapAround() {
+        byte[] target = new byte[6];
+        int next = 0;
+        for (int i = 0; i < 20; i++) {
+            buffer.write(sequence(i * 6, 6), 0, 6);
+            assertTrue(buffer.read(target, 0, 6));
+            assertArrayEquals(sequence(next, 6), target);
+            next += 6;
+        }
+        assertEquals(0, buffer.getOverrunCount());
+    }
+
+    @Test
+    void overrunDropsOldestAlignedData() {
+        // 21 bytes into a 16 byte buffer, the oldest 5 are lost, reading resumes at aligned position 6
+        buffer.write(sequence(0, 21), 0, 21);
+
+        byte[] target = new byte[4];
+        assertTrue(buffer.read(target, 0, 4));
+        assertArrayEquals(sequence(6, 4), target);
+        assertEquals(1, buffer.getOverrunCount());
+        assertEquals(6, buffer.getDroppedBytes());
+        assertEquals(10, buffer.getReadPosition());
+    }
+
+    @Test
+    void overrunOnSubsequentWrites() {
+        byte[] target = new byte[4];
+        for (int i = 0; i < 5; i++) {
+            buffer.write(sequence(i * 8, 8), 0, 8);
+        }
+
+        assertTrue(buffer.read(target, 0, 4));
+        assertArrayEquals(sequence(24, 4), target);
+        assertEquals(1, buffer.getOverrunCount());
+        assertEquals(24, buffer.getDroppedBytes());
+    }
+
+    @Test
+    void concurrentProducerAndConsumerKeepOrder() throws InterruptedException {
+        ByteRingBuffer ring = new ByteRingBuffer(1 << 12, 1);
+        int total = 1 << 20;
+
+        Thread producer = new Thread(() -> {
+            byte[] chunk = new byte[100];
+            int written = 0;
+            while (written < total) {
+                int length = Math.min(chunk.length, total - written);
+                for (int i = 0; i < length; i++) {
+                    chunk[i] = (byte) (written + i);
+                }
+                ring.write(chunk, 0, length);
+                written += length;
+            }
+        });
+        producer.start();
+
+        byte[] target = new byte[64];
+        long consumed = 0;
+        while (producer.isAlive() || ring.available() >= target.length) {
+            if (!ring.read(target, 0, target.length)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // every chunk has to be contiguous, even if data was dropped before it
+            long start = ring.getReadPosition() - target.length;
+            for (int i = 0; i < target.length; i++) {
+                assertEquals((byte) (start + i), target[i]);
+            }
+            consumed += target.length;
+        }
+        producer.join();
+
+        assertEquals(total, ring.getWritePosition());
+        assertTrue(consumed + ring.getDroppedBytes() + ring.available() >= total - target.length);
+    }
+
+    private static byte[] sequence(int start, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (start + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.mrlongnight.photonjockey.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingMedianTest {
+
+    private static double sortedMedian(double[] values, int from, int to) {
+        double[] window = Arrays.copyOfRange(values, from, to);
+        Arrays.sort(window);
+        int middle = window.length / 2;
+        return window.length % 2 == 1 ? window[middle] : (window[middle - 1] + window[middle]) / 2d;
+    }
+
+    @Test
+    void rejectsInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingMedian(0));
+    }
+
+    @Test
+    void emptyMedianIsZero() {
+        SlidingMedian median = new SlidingMedian(3);
+        assertEquals(0d, median.median());
+        median.removeOldest();
+        assertEquals(0, median.size());
+    }
+
+    @Test
+    void matchesSortedWindow() {
+        Random random = new Random(42);
+        double[] values = new double[2000];
+        for (int i = 0; i < values.length; i++) {
+            // few distinct values so duplicates are covered as well
+            values[i] = random.nextInt(20) - 10;
+        }
+
+        for (int window : new int[]{1, 2, 5, 8, 31}) {
+            SlidingMedian median = new SlidingMedian(window);
+            for (int i = 0; i < values.length; i++) {
+                double actual = median.add(values[i]);
+                int from = Math.max(0, i - window + 1);
+                assertEquals(sortedMedian(values, from, i + 1), actual, "Window " + window + " at " + i);
+                assertEquals(i + 1 - from, median.size());
+            }
+        }
+    }
+
+    @Test
+    void removeOldestShrinksWindow() {
+        double[] values = {5d, 1d, 4d, 2d, 3d};
+        SlidingMedian median = new SlidingMedian(values.length);
+        for (double value : values) {
+            median.add(value);
+        }
+
+        for (int from = 1; from < values.length; from++) {
+            median.removeOldest();
+            assertEquals(sortedMedian(values, from, values.length), median.median(), "From " + from);
+        }
+        median.removeOldest();
+        assertEquals(0, median.size());
+    }
+
+    @Test
+    void clearForgetsValues() {
+        SlidingMedian median = new SlidingMedian(4);
+        median.add(100d);
+        median.add(200d);
+        median.clear();
+
+        assertEquals(0, median.size());
+        assertEquals(1d, median.add(1d));
+        assertEquals(1.5d, median.add(2d));
+    }
+}